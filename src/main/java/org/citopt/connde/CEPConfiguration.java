@@ -1,24 +1,51 @@
 package org.citopt.connde;
 
 import org.citopt.connde.service.cep.engine.core.CEPEngine;
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchExecutor;
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchPolicy;
 import org.citopt.connde.service.cep.engine.esper.EsperCEPEngine;
+import org.citopt.connde.service.cep.engine.esper.PartitionedCEPEngine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
 
 /**
  * Configures the CEP engine that is supposed to be used in this application and creates a corresponding bean.
  */
 @Configuration
+@PropertySource(value = "classpath:application.properties")
 public class CEPConfiguration {
 
     /**
-     * Creates a bean for the CEP engine to use.
+     * Creates a bean for the executor that notifies the subscribers of CEP queries about matches.
      *
+     * @param workers       The number of workers
+     * @param queueCapacity The capacity of the queue of each worker
+     * @param policy        The policy to apply if a queue is full (BLOCK, DROP_OLDEST or COALESCE)
+     * @return The dispatch executor bean
+     */
+    @Bean(destroyMethod = "shutdown")
+    public CEPDispatchExecutor cepDispatchExecutor(@Value("${cep.dispatch.workers:4}") int workers,
+                                                   @Value("${cep.dispatch.queue-capacity:1024}") int queueCapacity,
+                                                   @Value("${cep.dispatch.queue-full-policy:BLOCK}") String policy) {
+        return new CEPDispatchExecutor(workers, queueCapacity, CEPDispatchPolicy.valueOf(policy.trim().toUpperCase()));
+    }
+
+    /**
+     * Creates a bean for the CEP engine to use. With more than one partition, the events are distributed over
+     * several engines by their component, so that they can be processed in parallel.
+     *
+     * @param dispatchExecutor The executor that notifies the subscribers of queries
+     * @param partitions       The number of engine partitions
      * @return The CEP engine bean
      */
     @Bean(name = "cep_engine")
-    public CEPEngine cepEngine() {
+    public CEPEngine cepEngine(CEPDispatchExecutor dispatchExecutor, @Value("${cep.partitions:1}") int partitions) {
         System.out.println("load CEP Engine");
-        return new EsperCEPEngine();
+        if (partitions > 1) {
+            return new PartitionedCEPEngine("cep", partitions, dispatchExecutor);
+        }
+        return new EsperCEPEngine(dispatchExecutor);
     }
 }
@@ -0,0 +1,79 @@
+package org.citopt.connde;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the MongoDB clients of the durability tiers of the application. Metadata (users, devices, rules, ...)
+ * and value logs are written through separate clients, each with its own connection pool and write concern, so
+ * that high-rate value logs may be written with weaker guarantees than critical metadata.
+ */
+public final class MongoClientFactory {
+
+    private MongoClientFactory() {
+
+    }
+
+    /**
+     * Creates a new MongoDB client for a durability tier.
+     *
+     * @param host               The host of the MongoDB server
+     * @param port               The port of the MongoDB server
+     * @param w                  The number of acknowledging members or "majority"
+     * @param journal            True, if writes need to be committed to the journal before they are acknowledged
+     * @param wTimeoutMillis     The time in milliseconds after which acknowledgements time out (0 for no timeout)
+     * @param connectionsPerHost The maximum number of pooled connections per host
+     * @return The MongoDB client
+     * @throws IllegalArgumentException In case the write concern is invalid
+     */
+    public static MongoClient createClient(String host, int port, String w, boolean journal, long wTimeoutMillis, int connectionsPerHost) {
+        MongoClientOptions options = MongoClientOptions.builder()
+                .writeConcern(parseWriteConcern(w, journal, wTimeoutMillis))
+                .connectionsPerHost(Math.max(connectionsPerHost, 1))
+                .build();
+        return new MongoClient(new ServerAddress(host, port), options);
+    }
+
+    /**
+     * Creates a write concern from its textual configuration.
+     *
+     * @param w              The number of acknowledging members or "majority"
+     * @param journal        True, if writes need to be committed to the journal before they are acknowledged
+     * @param wTimeoutMillis The time in milliseconds after which acknowledgements time out (0 for no timeout)
+     * @return The write concern
+     * @throws IllegalArgumentException In case the write concern is invalid
+     */
+    public static WriteConcern parseWriteConcern(String w, boolean journal, long wTimeoutMillis) {
+        //Sanity check
+        if ((w == null) || w.trim().isEmpty()) {
+            throw new IllegalArgumentException("Write concern must not be empty.");
+        }
+
+        //Determine acknowledging members
+        WriteConcern writeConcern;
+        String members = w.trim();
+        if (members.equalsIgnoreCase("majority")) {
+            writeConcern = WriteConcern.MAJORITY;
+        } else {
+            try {
+                writeConcern = new WriteConcern(Integer.parseInt(members));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid write concern: " + w);
+            }
+        }
+
+        //Unacknowledged writes can neither be journaled nor time out
+        if (!writeConcern.isAcknowledged()) {
+            return writeConcern;
+        }
+        writeConcern = writeConcern.withJournal(journal);
+        if (wTimeoutMillis > 0) {
+            writeConcern = writeConcern.withWTimeout(wTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return writeConcern;
+    }
+}
@@ -11,13 +11,17 @@ import com.mongodb.DBCollection;
 import com.mongodb.MongoClient;
 import org.citopt.connde.constants.Constants;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.data.mongodb.config.AbstractMongoConfiguration;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 @EnableMongoRepositories
+@PropertySource(value = "classpath:application.properties")
 public class MongoConfiguration extends AbstractMongoConfiguration {
 	
     @Autowired
@@ -26,6 +30,20 @@ public class MongoConfiguration extends AbstractMongoConfiguration {
     public static String DB_NAME = "connde";
     
     private static MongoClient mongoClient;
+
+    //Server and durability tier of the metadata
+    @Value("${mongo.host:localhost}")
+    private String host;
+    @Value("${mongo.port:27017}")
+    private int port;
+    @Value("${mongo.metadata.w:majority}")
+    private String writeConcern;
+    @Value("${mongo.metadata.journal:true}")
+    private boolean journal;
+    @Value("${mongo.metadata.wtimeout-ms:5000}")
+    private long wTimeoutMillis;
+    @Value("${mongo.metadata.connections-per-host:20}")
+    private int connectionsPerHost;
     
     @Override
     protected String getDatabaseName() {
@@ -33,9 +51,10 @@ public class MongoConfiguration extends AbstractMongoConfiguration {
     }
 
     @Override
+    @Primary
     public MongoClient mongo() {
         if(mongoClient == null) {
-            mongoClient = new MongoClient();
+            mongoClient = MongoClientFactory.createClient(host, port, writeConcern, journal, wTimeoutMillis, connectionsPerHost);
         }
 		addValuesInDatabase(mongoClient);
         return mongoClient;
@@ -1,9 +1,12 @@
 package org.citopt.connde;
 
 import com.mongodb.MongoClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.PropertySource;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -14,15 +17,28 @@ import java.util.List;
  */
 @Configuration
 @Import({MongoConfiguration.class})
+@PropertySource(value = "classpath:application.properties")
 public class RootConfiguration {
     /**
-     * Creates a MongoDB client as bean.
+     * Creates a MongoDB client as bean, which uses the durability tier of the metadata.
      *
+     * @param host               The host of the MongoDB server
+     * @param port               The port of the MongoDB server
+     * @param writeConcern       The number of acknowledging members or "majority"
+     * @param journal            True, if writes need to be journaled before they are acknowledged
+     * @param wTimeoutMillis     The time in milliseconds after which acknowledgements time out (0 for no timeout)
+     * @param connectionsPerHost The maximum number of pooled connections
      * @return The bean
      */
     @Bean(name = "mongo")
-    public MongoClient mongo() {
+    @Primary
+    public MongoClient mongo(@Value("${mongo.host:localhost}") String host,
+                             @Value("${mongo.port:27017}") int port,
+                             @Value("${mongo.metadata.w:majority}") String writeConcern,
+                             @Value("${mongo.metadata.journal:true}") boolean journal,
+                             @Value("${mongo.metadata.wtimeout-ms:5000}") long wTimeoutMillis,
+                             @Value("${mongo.metadata.connections-per-host:20}") int connectionsPerHost) {
         System.out.println("load Mongo");
-        return new MongoClient();
+        return MongoClientFactory.createClient(host, port, writeConcern, journal, wTimeoutMillis, connectionsPerHost);
     }
 }
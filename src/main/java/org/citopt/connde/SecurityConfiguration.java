@@ -72,6 +72,7 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         	.csrf().disable()
         	.authorizeRequests()
 	            .antMatchers("/api/authenticate").permitAll()
+	            .antMatchers(HttpMethod.GET, "/api/ready").permitAll()
 	            .antMatchers(HttpMethod.POST, "/api/users").permitAll()
 	            .antMatchers(HttpMethod.PUT, "/api/users").hasAuthority(Constants.ADMIN)
 	            .antMatchers(HttpMethod.GET, "/api/users").hasAuthority(Constants.ADMIN)
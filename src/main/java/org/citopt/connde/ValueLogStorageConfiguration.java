@@ -0,0 +1,83 @@
+package org.citopt.connde;
+
+import com.mongodb.MongoClient;
+import org.citopt.connde.repository.MongoValueLogRepository;
+import org.citopt.connde.repository.SegmentValueLogRepository;
+import org.citopt.connde.repository.ValueLogRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import java.nio.file.Paths;
+
+/**
+ * Configures the storage backend of the value logs that is supposed to be used in this application and creates
+ * a corresponding bean. The MongoDB-based backend is used by default; the embedded segment store can be chosen
+ * for deployments that should not write high-rate raw value logs to the database. The segment store only replaces
+ * the storage of the raw value logs, i.e. the value log client is created for both backends, since the rollups of
+ * the value logs are always stored in MongoDB.
+ * <p>
+ * Value logs and their rollups are written to MongoDB through a dedicated client with its own connection pool and
+ * write concern, so that they may be acknowledged by a single member without journaling while the metadata of the
+ * application remains majority-acknowledged.
+ */
+@Configuration
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogStorageConfiguration {
+    //Names of the available backends
+    private static final String BACKEND_MONGO = "mongo";
+    private static final String BACKEND_SEGMENTS = "segments";
+
+    /**
+     * Creates a bean for the MongoDB client that is used for writing value logs and their rollups.
+     *
+     * @param host               The host of the MongoDB server
+     * @param port               The port of the MongoDB server
+     * @param writeConcern       The number of acknowledging members or "majority"
+     * @param journal            True, if writes need to be journaled before they are acknowledged
+     * @param wTimeoutMillis     The time in milliseconds after which acknowledgements time out (0 for no timeout)
+     * @param connectionsPerHost The maximum number of pooled connections
+     * @return The MongoDB client bean
+     */
+    @Bean(name = "valueLogMongoClient", destroyMethod = "close")
+    public MongoClient valueLogMongoClient(@Value("${mongo.host:localhost}") String host,
+                                           @Value("${mongo.port:27017}") int port,
+                                           @Value("${mongo.value-logs.w:1}") String writeConcern,
+                                           @Value("${mongo.value-logs.journal:false}") boolean journal,
+                                           @Value("${mongo.value-logs.wtimeout-ms:0}") long wTimeoutMillis,
+                                           @Value("${mongo.value-logs.connections-per-host:100}") int connectionsPerHost) {
+        return MongoClientFactory.createClient(host, port, writeConcern, journal, wTimeoutMillis, connectionsPerHost);
+    }
+
+    /**
+     * Creates a bean for the value log repository to use.
+     *
+     * @param mongoClient      The MongoDB client of the value logs to use for the MongoDB-based backend
+     * @param backend          The name of the backend to use
+     * @param archiveDirectory The directory in which the MongoDB-based backend archives expired value logs
+     * @param segmentDirectory The directory in which the embedded backend stores its segment files
+     * @param blocksPerSegment The number of blocks of 80 value logs per segment file of the embedded backend
+     * @param forceOnWrite     True, if the embedded backend is supposed to flush its segment files after each write
+     * @return The value log repository bean
+     */
+    @Bean(name = "valueLogRepository")
+    public ValueLogRepository valueLogRepository(@Qualifier("valueLogMongoClient") MongoClient mongoClient,
+                                                 @Value("${value-logs.storage.backend:mongo}") String backend,
+                                                 @Value("${value-logs.archive.directory:archive/valueLogs}") String archiveDirectory,
+                                                 @Value("${value-logs.storage.segments.directory:data/valueLogs}") String segmentDirectory,
+                                                 @Value("${value-logs.storage.segments.blocks-per-segment:4096}") int blocksPerSegment,
+                                                 @Value("${value-logs.storage.segments.force-on-write:false}") boolean forceOnWrite) {
+        switch (backend.trim().toLowerCase()) {
+            case BACKEND_MONGO:
+                System.out.println("load MongoDB value log storage");
+                return new MongoValueLogRepository(mongoClient, archiveDirectory);
+            case BACKEND_SEGMENTS:
+                System.out.println("load embedded value log storage");
+                return new SegmentValueLogRepository(Paths.get(segmentDirectory), blocksPerSegment, forceOnWrite);
+            default:
+                throw new IllegalArgumentException("Unknown value log storage backend: " + backend);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.citopt.connde.domain.valueLog;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Objects of this class represent the value log series of multiple components that were resampled onto a common
+ * time axis. For each component, the series holds exactly one value per point of the time axis, which is null if
+ * no value logs were recorded for the component within the corresponding interval.
+ */
+@ApiModel(description = "Model for value log series of multiple components on a common time axis")
+public class AlignedValueLogSeries {
+
+    @ApiModelProperty(notes = "Length of the intervals in seconds", example = "300", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private long interval;
+
+    @ApiModelProperty(notes = "Starts of the intervals in epoch milliseconds", example = "[1570635600000, 1570635900000]", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private List<Long> times;
+
+    @ApiModelProperty(notes = "Map (component id --> values) of the resampled series", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private Map<String, List<Double>> series = new LinkedHashMap<>();
+
+    /**
+     * Creates a new set of series for a given time axis.
+     *
+     * @param interval The length of the intervals in seconds
+     * @param times    The starts of the intervals in epoch milliseconds
+     */
+    public AlignedValueLogSeries(long interval, List<Long> times) {
+        this.interval = interval;
+        this.times = times;
+    }
+
+    /**
+     * Adds the series of a certain component.
+     *
+     * @param componentId The id of the component
+     * @param values      The values of the series, one per point of the time axis
+     */
+    public void addSeries(String componentId, List<Double> values) {
+        this.series.put(componentId, values);
+    }
+
+    /**
+     * Returns the length of the intervals in seconds.
+     *
+     * @return The length of the intervals
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the starts of the intervals in epoch milliseconds.
+     *
+     * @return The starts of the intervals
+     */
+    public List<Long> getTimes() {
+        return times;
+    }
+
+    /**
+     * Returns the map (component id --> values) of the resampled series.
+     *
+     * @return The map of series
+     */
+    public Map<String, List<Double>> getSeries() {
+        return series;
+    }
+}
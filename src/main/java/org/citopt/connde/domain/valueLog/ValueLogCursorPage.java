@@ -0,0 +1,72 @@
+package org.citopt.connde.domain.valueLog;
+
+import java.util.List;
+
+/**
+ * Objects of this class represent pages of value logs that were retrieved by keyset pagination. Besides the
+ * value logs, they hold an opaque continuation token that can be used for retrieving the next page. Since counting
+ * the value logs requires a scan of the whole time range, the total number of value logs is only determined for
+ * the first page; subsequent pages report it as {@link #UNKNOWN_TOTAL}.
+ */
+public class ValueLogCursorPage {
+    //Total number of value logs of pages for which it was not determined
+    public static final long UNKNOWN_TOTAL = -1;
+
+    //Value logs of the page
+    private List<ValueLog> content;
+
+    //Token for retrieving the next page (null if this is the last page)
+    private String nextCursor;
+
+    //Total number of value logs or UNKNOWN_TOTAL
+    private long totalElements;
+
+    /**
+     * Creates a new page of value logs.
+     *
+     * @param content       The value logs of the page
+     * @param nextCursor    The token for retrieving the next page or null, if this is the last page
+     * @param totalElements The total number of value logs or {@link #UNKNOWN_TOTAL}, if not determined
+     */
+    public ValueLogCursorPage(List<ValueLog> content, String nextCursor, long totalElements) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.totalElements = totalElements;
+    }
+
+    /**
+     * Returns the value logs of the page.
+     *
+     * @return The value logs
+     */
+    public List<ValueLog> getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the token for retrieving the next page.
+     *
+     * @return The token or null, if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns the total number of value logs.
+     *
+     * @return The total number or {@link #UNKNOWN_TOTAL}, if it was not determined for this page
+     */
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    /**
+     * Returns whether the total number of value logs was determined for this page.
+     *
+     * @return True, if the total number is known; false otherwise
+     */
+    public boolean isTotalKnown() {
+        return totalElements != UNKNOWN_TOTAL;
+    }
+}
@@ -0,0 +1,110 @@
+package org.citopt.connde.domain.valueLog;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.time.Instant;
+
+/**
+ * Objects of this class represent time intervals in which all consecutive values of a component satisfied a
+ * certain predicate. The interval starts with the receive time of its first matching value and ends with the
+ * receive time of its last matching value.
+ */
+@ApiModel(description = "Model for time intervals in which the values of a component satisfied a predicate")
+public class ValueLogInterval {
+
+    @ApiModelProperty(notes = "Receive time of the first matching value", example = "{\"nano\":0,\"epochSecond\":1570635600}", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private Instant start;
+
+    @ApiModelProperty(notes = "Receive time of the last matching value", example = "{\"nano\":0,\"epochSecond\":1570639200}", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private Instant end;
+
+    @ApiModelProperty(notes = "Number of matching values", example = "60", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private long count;
+
+    @ApiModelProperty(notes = "Smallest matching value", example = "80.5", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private double min;
+
+    @ApiModelProperty(notes = "Biggest matching value", example = "84.0", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private double max;
+
+    /**
+     * Creates a new interval.
+     *
+     * @param start The receive time of the first matching value
+     * @param end   The receive time of the last matching value
+     * @param count The number of matching values
+     * @param min   The smallest matching value
+     * @param max   The biggest matching value
+     */
+    public ValueLogInterval(Instant start, Instant end, long count, double min, double max) {
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Returns the receive time of the first matching value.
+     *
+     * @return The start of the interval
+     */
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the receive time of the last matching value.
+     *
+     * @return The end of the interval
+     */
+    public Instant getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the number of matching values within the interval.
+     *
+     * @return The number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest matching value within the interval.
+     *
+     * @return The smallest value
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Sets the smallest matching value within the interval.
+     *
+     * @param min The smallest value to set
+     */
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    /**
+     * Returns the biggest matching value within the interval.
+     *
+     * @return The biggest value
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Sets the biggest matching value within the interval.
+     *
+     * @param max The biggest value to set
+     */
+    public void setMax(double max) {
+        this.max = max;
+    }
+}
@@ -0,0 +1,71 @@
+package org.citopt.connde.domain.valueLog;
+
+import java.util.List;
+
+/**
+ * Objects of this class represent the results of searches for time intervals in which the values of a component
+ * satisfied a certain predicate. Besides the intervals, they report how many buckets needed to be decoded and how
+ * many buckets could be skipped based on their value ranges.
+ */
+public class ValueLogIntervalSearchResult {
+    //Found intervals in chronological order
+    private List<ValueLogInterval> intervals;
+
+    //Whether further intervals were omitted due to the limit
+    private boolean truncated;
+
+    //Number of decoded and skipped buckets
+    private long decodedBuckets;
+    private long prunedBuckets;
+
+    /**
+     * Creates a new search result.
+     *
+     * @param intervals      The found intervals in chronological order
+     * @param truncated      True, if further intervals were omitted due to the limit; false otherwise
+     * @param decodedBuckets The number of buckets that needed to be decoded
+     * @param prunedBuckets  The number of buckets that were skipped based on their value ranges
+     */
+    public ValueLogIntervalSearchResult(List<ValueLogInterval> intervals, boolean truncated, long decodedBuckets, long prunedBuckets) {
+        this.intervals = intervals;
+        this.truncated = truncated;
+        this.decodedBuckets = decodedBuckets;
+        this.prunedBuckets = prunedBuckets;
+    }
+
+    /**
+     * Returns the found intervals.
+     *
+     * @return The intervals in chronological order
+     */
+    public List<ValueLogInterval> getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * Returns whether further intervals were omitted due to the limit.
+     *
+     * @return True, if the result is truncated; false otherwise
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the number of buckets that needed to be decoded.
+     *
+     * @return The number of decoded buckets
+     */
+    public long getDecodedBuckets() {
+        return decodedBuckets;
+    }
+
+    /**
+     * Returns the number of buckets that were skipped based on their value ranges.
+     *
+     * @return The number of skipped buckets
+     */
+    public long getPrunedBuckets() {
+        return prunedBuckets;
+    }
+}
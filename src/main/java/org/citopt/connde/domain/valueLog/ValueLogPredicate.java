@@ -0,0 +1,171 @@
+package org.citopt.connde.domain.valueLog;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Objects of this class represent conditions on the values of value logs, such as "greater than 80" or "between
+ * 20 and 25". Besides testing single values, predicates can decide whether a range of values, e.g. given by the
+ * minimum and maximum value of a bucket, may contain any value that satisfies the condition, which allows to skip
+ * whole buckets without decoding them.
+ */
+public class ValueLogPredicate {
+
+    /**
+     * Enumeration of the supported comparison operators.
+     */
+    public enum Operator {
+        //Value is strictly greater than the lower bound
+        GREATER_THAN,
+
+        //Value is strictly less than the upper bound
+        LESS_THAN,
+
+        //Value lies between the lower and the upper bound (both inclusive)
+        BETWEEN
+    }
+
+    //Comparison operator and bounds (NaN if not used by the operator)
+    private final Operator operator;
+    private final double lowerBound;
+    private final double upperBound;
+
+    /**
+     * Creates a new predicate.
+     *
+     * @param operator   The comparison operator
+     * @param lowerBound The lower bound or NaN, if not used by the operator
+     * @param upperBound The upper bound or NaN, if not used by the operator
+     */
+    private ValueLogPredicate(Operator operator, double lowerBound, double upperBound) {
+        this.operator = operator;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
+    /**
+     * Creates a new predicate from a comparison operator and the bounds that are required by this operator.
+     *
+     * @param operator   The comparison operator
+     * @param lowerBound The lower bound (required for GREATER_THAN and BETWEEN)
+     * @param upperBound The upper bound (required for LESS_THAN and BETWEEN)
+     * @return The resulting predicate
+     * @throws IllegalArgumentException In case the operator or a required bound is missing or invalid
+     */
+    public static ValueLogPredicate of(Operator operator, Double lowerBound, Double upperBound) {
+        //Sanity check
+        if (operator == null) {
+            throw new IllegalArgumentException("Operator must not be null.");
+        }
+
+        switch (operator) {
+            case GREATER_THAN:
+                checkBound(lowerBound, "Lower bound");
+                return new ValueLogPredicate(operator, lowerBound, Double.NaN);
+            case LESS_THAN:
+                checkBound(upperBound, "Upper bound");
+                return new ValueLogPredicate(operator, Double.NaN, upperBound);
+            default:
+                checkBound(lowerBound, "Lower bound");
+                checkBound(upperBound, "Upper bound");
+                if (lowerBound > upperBound) {
+                    throw new IllegalArgumentException("Lower bound must not be greater than upper bound.");
+                }
+                return new ValueLogPredicate(operator, lowerBound, upperBound);
+        }
+    }
+
+    /**
+     * Checks whether a given value satisfies the predicate.
+     *
+     * @param value The value to check
+     * @return True, if the value satisfies the predicate; false otherwise
+     */
+    public boolean test(double value) {
+        switch (operator) {
+            case GREATER_THAN:
+                return value > lowerBound;
+            case LESS_THAN:
+                return value < upperBound;
+            default:
+                return (value >= lowerBound) && (value <= upperBound);
+        }
+    }
+
+    /**
+     * Checks whether a range of values may contain values that satisfy the predicate. Ranges with unknown
+     * (NaN) limits may always contain matching values.
+     *
+     * @param min The smallest value of the range
+     * @param max The biggest value of the range
+     * @return True, if the range may contain matching values; false, if it definitely does not
+     */
+    public boolean mayMatch(double min, double max) {
+        switch (operator) {
+            case GREATER_THAN:
+                return !(max <= lowerBound);
+            case LESS_THAN:
+                return !(min >= upperBound);
+            default:
+                return !(max < lowerBound) && !(min > upperBound);
+        }
+    }
+
+    /**
+     * Creates a new predicate whose bounds are transformed by a given monotonic transformation, e.g. in order to
+     * express the predicate in a different unit. For decreasing transformations, the bounds and the comparison
+     * direction are swapped.
+     *
+     * @param transformation The monotonic transformation to apply to the bounds
+     * @param decreasing     True, if the transformation is decreasing; false, if it is increasing
+     * @return The transformed predicate
+     */
+    public ValueLogPredicate transform(DoubleUnaryOperator transformation, boolean decreasing) {
+        double lower = Double.isNaN(lowerBound) ? Double.NaN : transformation.applyAsDouble(lowerBound);
+        double upper = Double.isNaN(upperBound) ? Double.NaN : transformation.applyAsDouble(upperBound);
+        if (!decreasing) {
+            return new ValueLogPredicate(operator, lower, upper);
+        }
+
+        switch (operator) {
+            case GREATER_THAN:
+                return new ValueLogPredicate(Operator.LESS_THAN, Double.NaN, lower);
+            case LESS_THAN:
+                return new ValueLogPredicate(Operator.GREATER_THAN, upper, Double.NaN);
+            default:
+                return new ValueLogPredicate(operator, upper, lower);
+        }
+    }
+
+    /**
+     * Returns the comparison operator of the predicate.
+     *
+     * @return The operator
+     */
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * Returns the lower bound of the predicate.
+     *
+     * @return The lower bound or NaN, if not used by the operator
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Returns the upper bound of the predicate.
+     *
+     * @return The upper bound or NaN, if not used by the operator
+     */
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    private static void checkBound(Double bound, String name) {
+        if ((bound == null) || bound.isNaN()) {
+            throw new IllegalArgumentException(name + " must be provided for this operator.");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.citopt.connde.domain.valueLog;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import javax.persistence.GeneratedValue;
+
+/**
+ * Retention policy for the value logs of a certain component or of all components of a certain adapter. The policy
+ * determines after how many days the raw value logs and the rollups expire and whether expired raw value logs are
+ * supposed to be moved to the local archive instead of being deleted. Policies of components take precedence over
+ * policies of adapters, which take precedence over the default policy from the application properties.
+ */
+@Document
+@ApiModel(description = "Retention policy for the value logs of a component or of all components of an adapter")
+public class ValueLogRetentionPolicy {
+
+    @Id
+    @GeneratedValue
+    private String id;
+
+    @Indexed
+    @ApiModelProperty(notes = "ID of the component (or adapterId@deviceId for monitoring) the policy applies to", example = "5c97dc2583aeb6078c5ab672")
+    private String componentId;
+
+    @Indexed
+    @ApiModelProperty(notes = "ID of the adapter whose components the policy applies to", example = "5c97dc2583aeb6078c5ab672")
+    private String adapterId;
+
+    @ApiModelProperty(notes = "Number of days after which raw value logs expire (0 for unlimited)", example = "30")
+    private int rawRetentionDays = 0;
+
+    @ApiModelProperty(notes = "Number of days after which rollups expire (0 for unlimited)", example = "730")
+    private int rollupRetentionDays = 0;
+
+    @ApiModelProperty(notes = "Whether expired raw value logs are moved to the local archive instead of being deleted", example = "true")
+    private boolean archive = false;
+
+    public ValueLogRetentionPolicy() {
+    }
+
+    public ValueLogRetentionPolicy(int rawRetentionDays, int rollupRetentionDays, boolean archive) {
+        this.rawRetentionDays = rawRetentionDays;
+        this.rollupRetentionDays = rollupRetentionDays;
+        this.archive = archive;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getComponentId() {
+        return componentId;
+    }
+
+    public void setComponentId(String componentId) {
+        this.componentId = componentId;
+    }
+
+    public String getAdapterId() {
+        return adapterId;
+    }
+
+    public void setAdapterId(String adapterId) {
+        this.adapterId = adapterId;
+    }
+
+    public int getRawRetentionDays() {
+        return rawRetentionDays;
+    }
+
+    public void setRawRetentionDays(int rawRetentionDays) {
+        this.rawRetentionDays = rawRetentionDays;
+    }
+
+    public int getRollupRetentionDays() {
+        return rollupRetentionDays;
+    }
+
+    public void setRollupRetentionDays(int rollupRetentionDays) {
+        this.rollupRetentionDays = rollupRetentionDays;
+    }
+
+    public boolean isArchive() {
+        return archive;
+    }
+
+    public void setArchive(boolean archive) {
+        this.archive = archive;
+    }
+}
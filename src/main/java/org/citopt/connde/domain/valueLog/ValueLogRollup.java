@@ -0,0 +1,270 @@
+package org.citopt.connde.domain.valueLog;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.time.Instant;
+
+/**
+ * Objects of this class represent pre-aggregated summaries (rollups) of the value logs of a certain component
+ * within a certain time interval. Rollups hold the number, sum, sum of squares, minimum and maximum of the values,
+ * from which descriptive statistics can be derived. Rollups of adjacent intervals may be merged.
+ * <p>
+ * In addition, the sum of squared deviations from the mean is maintained by using Welford's online algorithm when
+ * adding values and the parallel algorithm of Chan et al. when merging rollups, so that the variance remains
+ * numerically stable for large numbers of values. For rollups that were restored from their sums only, the sum of
+ * squared deviations is derived from the sums.
+ */
+@ApiModel(description = "Model for pre-aggregated summaries of value logs")
+public class ValueLogRollup {
+
+    @ApiModelProperty(notes = "ID of the pertaining component", example = "5c97dc2583aeb6078c5ab672", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private String idref;
+
+    @ApiModelProperty(notes = "Start of the interval", example = "{\"nano\":0,\"epochSecond\":1570635600}", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private Instant start;
+
+    //Aggregated values
+    @ApiModelProperty(notes = "Number of values", example = "60", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private long count = 0;
+    @ApiModelProperty(notes = "Sum of the values", example = "1650.0", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private double sum = 0;
+    @ApiModelProperty(notes = "Sum of the squared values", example = "45375.0", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private double sumOfSquares = 0;
+    @ApiModelProperty(notes = "Smallest value", example = "26.5", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private double min = Double.POSITIVE_INFINITY;
+    @ApiModelProperty(notes = "Biggest value", example = "28.5", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private double max = Double.NEGATIVE_INFINITY;
+
+    //Sum of squared deviations from the mean (NaN if it needs to be derived from the sums)
+    @ApiModelProperty(notes = "Sum of squared deviations from the average", example = "15.0", accessMode = ApiModelProperty.AccessMode.READ_ONLY, readOnly = true)
+    private double sumOfSquaredDeviations = 0;
+
+    /**
+     * Creates a new and empty rollup.
+     */
+    public ValueLogRollup() {
+    }
+
+    /**
+     * Creates a new and empty rollup for a certain component and interval.
+     *
+     * @param idref The idref of the component
+     * @param start The start of the interval
+     */
+    public ValueLogRollup(String idref, Instant start) {
+        this.idref = idref;
+        this.start = start;
+    }
+
+    /**
+     * Adds a single value to the rollup.
+     *
+     * @param value The value to add
+     */
+    public void add(double value) {
+        //Welford's online update of the sum of squared deviations
+        double squaredDeviations = getSumOfSquaredDeviations();
+        double delta = value - getAverage();
+        count++;
+        sum += value;
+        sumOfSquaredDeviations = squaredDeviations + delta * (value - getAverage());
+
+        sumOfSquares += value * value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merges another rollup into this rollup.
+     *
+     * @param other The rollup to merge
+     */
+    public void merge(ValueLogRollup other) {
+        //Nothing to merge for empty rollups
+        if ((other == null) || (other.count == 0)) {
+            return;
+        }
+
+        //Parallel update of the sum of squared deviations
+        double delta = other.getAverage() - getAverage();
+        double combinedCount = (double) count + other.count;
+        sumOfSquaredDeviations = getSumOfSquaredDeviations() + other.getSumOfSquaredDeviations()
+                + delta * delta * ((double) count * other.count / combinedCount);
+
+        count += other.count;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the average of the values.
+     *
+     * @return The average or zero, if the rollup is empty
+     */
+    public double getAverage() {
+        return (count == 0) ? 0 : sum / count;
+    }
+
+    /**
+     * Returns the (population) variance of the values.
+     *
+     * @return The variance or zero, if the rollup is empty
+     */
+    public double getVariance() {
+        return (count == 0) ? 0 : getSumOfSquaredDeviations() / count;
+    }
+
+    /**
+     * Returns the sum of squared deviations of the values from their average.
+     *
+     * @return The sum of squared deviations
+     */
+    public double getSumOfSquaredDeviations() {
+        if (count == 0) {
+            return 0;
+        } else if (Double.isNaN(sumOfSquaredDeviations)) {
+            //Derive from the sums
+            return Math.max(0, sumOfSquares - (sum * sum / count));
+        }
+        return sumOfSquaredDeviations;
+    }
+
+    /**
+     * Sets the sum of squared deviations of the values from their average. NaN may be passed in order to
+     * derive it from the sum and the sum of squares.
+     *
+     * @param sumOfSquaredDeviations The sum of squared deviations to set
+     */
+    public void setSumOfSquaredDeviations(double sumOfSquaredDeviations) {
+        this.sumOfSquaredDeviations = sumOfSquaredDeviations;
+    }
+
+    /**
+     * Returns the idref of the component.
+     *
+     * @return The idref
+     */
+    public String getIdref() {
+        return idref;
+    }
+
+    /**
+     * Sets the idref of the component.
+     *
+     * @param idref The idref to set
+     */
+    public void setIdref(String idref) {
+        this.idref = idref;
+    }
+
+    /**
+     * Returns the start of the interval.
+     *
+     * @return The start
+     */
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * Sets the start of the interval.
+     *
+     * @param start The start to set
+     */
+    public void setStart(Instant start) {
+        this.start = start;
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return The number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Sets the number of values.
+     *
+     * @param count The number of values to set
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Returns the sum of the values.
+     *
+     * @return The sum
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Sets the sum of the values.
+     *
+     * @param sum The sum to set
+     */
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    /**
+     * Returns the sum of the squared values.
+     *
+     * @return The sum of squares
+     */
+    public double getSumOfSquares() {
+        return sumOfSquares;
+    }
+
+    /**
+     * Sets the sum of the squared values.
+     *
+     * @param sumOfSquares The sum of squares to set
+     */
+    public void setSumOfSquares(double sumOfSquares) {
+        this.sumOfSquares = sumOfSquares;
+    }
+
+    /**
+     * Returns the smallest value.
+     *
+     * @return The minimum
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Sets the smallest value.
+     *
+     * @param min The minimum to set
+     */
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    /**
+     * Returns the biggest value.
+     *
+     * @return The maximum
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Sets the biggest value.
+     *
+     * @param max The maximum to set
+     */
+    public void setMax(double max) {
+        this.max = max;
+    }
+}
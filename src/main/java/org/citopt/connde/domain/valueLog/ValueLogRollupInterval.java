@@ -0,0 +1,63 @@
+package org.citopt.connde.domain.valueLog;
+
+/**
+ * Enumeration of the intervals for which rollups of value logs are materialized.
+ */
+public enum ValueLogRollupInterval {
+    MINUTE(60, "1m"), HOUR(3600, "1h"), DAY(86400, "1d");
+
+    //Length of the interval in seconds
+    private final long seconds;
+
+    //Suffix that identifies the interval in collection names
+    private final String suffix;
+
+    /**
+     * Creates a new rollup interval as part of the enumeration.
+     *
+     * @param seconds The length of the interval in seconds
+     * @param suffix  The suffix that identifies the interval
+     */
+    ValueLogRollupInterval(long seconds, String suffix) {
+        this.seconds = seconds;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Returns the length of the interval in seconds.
+     *
+     * @return The length in seconds
+     */
+    public long getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * Returns the suffix that identifies the interval.
+     *
+     * @return The suffix
+     */
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * Returns the start of the interval that contains a given point in time.
+     *
+     * @param epochSeconds The point in time as epoch seconds
+     * @return The start of the interval as epoch seconds
+     */
+    public long floor(long epochSeconds) {
+        return Math.floorDiv(epochSeconds, seconds) * seconds;
+    }
+
+    /**
+     * Returns the start of the first interval that begins at or after a given point in time.
+     *
+     * @param epochSeconds The point in time as epoch seconds
+     * @return The start of the interval as epoch seconds
+     */
+    public long ceil(long epochSeconds) {
+        return -Math.floorDiv(-epochSeconds, seconds) * seconds;
+    }
+}
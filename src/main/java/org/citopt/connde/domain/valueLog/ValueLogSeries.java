@@ -0,0 +1,162 @@
+package org.citopt.connde.domain.valueLog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Objects of this class represent the value logs of a certain component in a compact form, consisting out of a
+ * primitive array of receive times in epoch milliseconds and a primitive array of the corresponding values. Series
+ * are used by analytic queries, which only need times and values and would otherwise create one value log object
+ * per value. The arrays grow on demand; only the first {@link #size()} entries are valid.
+ */
+public class ValueLogSeries {
+    //Initial capacity of the arrays
+    private static final int DEFAULT_CAPACITY = 128;
+
+    //Id of the component
+    private final String idref;
+
+    //Times and values of the series
+    private long[] times;
+    private double[] values;
+    private int size = 0;
+
+    /**
+     * Creates a new and empty series for a certain component.
+     *
+     * @param idref The idref of the component
+     */
+    public ValueLogSeries(String idref) {
+        this(idref, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new and empty series for a certain component with a given initial capacity.
+     *
+     * @param idref    The idref of the component
+     * @param capacity The initial capacity
+     */
+    public ValueLogSeries(String idref, int capacity) {
+        this.idref = idref;
+        this.times = new long[Math.max(capacity, 1)];
+        this.values = new double[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Appends a value to the series.
+     *
+     * @param time  The receive time in epoch milliseconds
+     * @param value The value
+     */
+    public void add(long time, double value) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        times[size] = time;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Appends all values of another series to this series.
+     *
+     * @param other The series to append
+     */
+    public void addAll(ValueLogSeries other) {
+        if (size + other.size > times.length) {
+            int capacity = Math.max(times.length * 2, size + other.size);
+            times = Arrays.copyOf(times, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(other.times, 0, times, size, other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Removes all values from the series, while keeping the allocated arrays.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the idref of the component to which the series belongs.
+     *
+     * @return The idref
+     */
+    public String getIdref() {
+        return idref;
+    }
+
+    /**
+     * Returns the number of values of the series.
+     *
+     * @return The number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the receive time of a certain value.
+     *
+     * @param index The index of the value
+     * @return The receive time in epoch milliseconds
+     */
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    /**
+     * Returns a certain value.
+     *
+     * @param index The index of the value
+     * @return The value
+     */
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the backing array of the receive times, of which only the first {@link #size()} entries are valid.
+     * The array is replaced as soon as the series grows.
+     *
+     * @return The array of receive times in epoch milliseconds
+     */
+    public long[] getTimes() {
+        return times;
+    }
+
+    /**
+     * Returns the backing array of the values, of which only the first {@link #size()} entries are valid.
+     * The array is replaced as soon as the series grows; changes to the array are reflected by the series.
+     *
+     * @return The array of values
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Creates value log objects for all values of the series, e.g. for responding to clients.
+     *
+     * @param componentType The type of the component to set or null, if unknown
+     * @return The list of value logs in the order of the series
+     */
+    public List<ValueLog> toValueLogs(String componentType) {
+        List<ValueLog> valueLogs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ValueLog valueLog = new ValueLog();
+            valueLog.setIdref(idref);
+            valueLog.setComponent(componentType);
+            valueLog.setTime(Instant.ofEpochMilli(times[i]));
+            valueLog.setValue(values[i]);
+            valueLogs.add(valueLog);
+        }
+        return valueLogs;
+    }
+}
@@ -0,0 +1,63 @@
+package org.citopt.connde.exception;
+
+import org.citopt.connde.domain.valueLog.ValueLog;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exception that is thrown by value log repositories in case only a part of the value logs could be written.
+ * The exception lists the value logs that were not written, so that callers are able to retry exactly these
+ * value logs without duplicating the ones that were written successfully. Value logs for which the repository
+ * could not determine whether they were written are listed separately and must not be retried.
+ */
+public class ValueLogWriteException extends RuntimeException {
+    //Value logs that were not written
+    private final List<ValueLog> failedValueLogs;
+
+    //Value logs that may or may not have been written
+    private final List<ValueLog> unconfirmedValueLogs;
+
+    /**
+     * Creates a new exception for value logs that were known not to be written.
+     *
+     * @param failedValueLogs The value logs that were not written
+     * @param cause           The cause of the failure
+     */
+    public ValueLogWriteException(List<ValueLog> failedValueLogs, Throwable cause) {
+        this(failedValueLogs, Collections.emptyList(), cause);
+    }
+
+    /**
+     * Creates a new exception.
+     *
+     * @param failedValueLogs      The value logs that were not written
+     * @param unconfirmedValueLogs The value logs for which it is unknown whether they were written
+     * @param cause                The cause of the failure
+     */
+    public ValueLogWriteException(List<ValueLog> failedValueLogs, List<ValueLog> unconfirmedValueLogs, Throwable cause) {
+        super("Failed to write " + failedValueLogs.size() + " value logs, outcome of writing "
+                + unconfirmedValueLogs.size() + " value logs is unknown.", cause);
+        this.failedValueLogs = Collections.unmodifiableList(failedValueLogs);
+        this.unconfirmedValueLogs = Collections.unmodifiableList(unconfirmedValueLogs);
+    }
+
+    /**
+     * Returns the value logs that were not written.
+     *
+     * @return The list of value logs
+     */
+    public List<ValueLog> getFailedValueLogs() {
+        return failedValueLogs;
+    }
+
+    /**
+     * Returns the value logs for which it is unknown whether they were written. Since writing them again might
+     * store them twice, they are not supposed to be retried.
+     *
+     * @return The list of value logs
+     */
+    public List<ValueLog> getUnconfirmedValueLogs() {
+        return unconfirmedValueLogs;
+    }
+}
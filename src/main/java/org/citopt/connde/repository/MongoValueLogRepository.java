@@ -0,0 +1,1608 @@
+package org.citopt.connde.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.citopt.connde.MongoConfiguration;
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogCursorPage;
+import org.citopt.connde.domain.valueLog.ValueLogIntervalSearchResult;
+import org.citopt.connde.domain.valueLog.ValueLogPredicate;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
+import org.citopt.connde.exception.ValueLogWriteException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+/**
+ * Implementation of the value log repository that is powered by the MongoDB database. Since value logs are time
+ * series data, a special way of storing the values is needed in order to preserve efficiency. The approach
+ * implemented within this repository is described and recommended by the MongoDB blog post
+ * "Time Series Data and MongoDB".
+ * (https://www.mongodb.com/blog/post/time-series-data-and-mongodb-part-1-introduction)
+ */
+public class MongoValueLogRepository implements ValueLogRepository {
+    //Name of the database to use for the value logs
+    private static final String DATABASE_NAME = MongoConfiguration.DB_NAME;
+
+    //Name of the collection to use for the value logs
+    static final String COLLECTION_NAME = "mongoValueLogs";
+
+    //Name of the idref field
+    private static final String IDREF_FIELD_NAME = "idref";
+
+    //Number of value logs per document in the collection
+    private static final int VALUES_PER_DOCUMENT = 80;
+
+    //Name of the field holding the tags of the chunks that were pushed to a document
+    private static final String WRITE_TAGS_FIELD_NAME = "writeTags";
+
+    //Error code of MongoDB for duplicate keys
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    //Maximum number of attempts for placing value logs whose documents were filled concurrently
+    private static final int MAX_WRITE_ROUNDS = 16;
+
+    //Number of documents per batch when streaming documents from a cursor
+    private static final int CURSOR_BATCH_SIZE = 64;
+
+    //MongoDB bean to use
+    private MongoClient mongoClient;
+
+    //Value log database and collection of the MongoDB
+    private MongoDatabase valueLogDatabase;
+    private MongoCollection<ValueLog> valueLogCollection;
+    private MongoCollection<Document> bucketCollection;
+
+    //Cache of the documents that are currently open for further values
+    private ValueLogBucketCache bucketCache;
+
+    //Archive tier holding expired documents on the local disk
+    private ValueLogArchive archive;
+
+    /**
+     * Instantiates the repository by passing a reference to the MongoDB bean that is supposed to be used.
+     *
+     * @param mongoClient      The MongoDB bean to use
+     * @param archiveDirectory The directory in which archived documents are stored
+     */
+    public MongoValueLogRepository(MongoClient mongoClient, String archiveDirectory) {
+        //Store reference to MongoDB bean
+        this.mongoClient = mongoClient;
+
+        //Fetch coded registry for mapping value log objects from and to BSON documents
+        CodecRegistry codecRegistry = fromRegistries(MongoClient.getDefaultCodecRegistry(), fromProviders(PojoCodecProvider.builder().automatic(true).build()));
+
+        //Get value log database and collection with codec registry
+        this.valueLogDatabase = mongoClient.getDatabase(DATABASE_NAME).withCodecRegistry(codecRegistry);
+        this.valueLogCollection = valueLogDatabase.getCollection(COLLECTION_NAME, ValueLog.class);
+        this.bucketCollection = valueLogDatabase.getCollection(COLLECTION_NAME);
+
+        //Indices for pruning the documents of a component and for scanning the documents of all components by time
+        this.bucketCollection.createIndex(Indexes.ascending(IDREF_FIELD_NAME, "first", "last"));
+        this.bucketCollection.createIndex(Indexes.ascending("last"));
+
+        //Create and fill cache of open documents
+        this.bucketCache = new ValueLogBucketCache(VALUES_PER_DOCUMENT, this::findOpenBucket);
+        rebuildBucketCache();
+
+        //Open archive and resolve segments that remained pending
+        this.archive = new ValueLogArchive(mongoClient.getDatabase(DATABASE_NAME), Paths.get(archiveDirectory));
+        recoverArchive();
+    }
+
+    /**
+     * Writes a given value log object into the repository.
+     *
+     * @param valueLog The value log to write
+     */
+    @Override
+    public void write(ValueLog valueLog) {
+        //Sanity check
+        if (valueLog == null) {
+            throw new IllegalArgumentException("Value log must not be null.");
+        }
+
+        writeAll(Collections.singletonList(valueLog));
+    }
+
+    /**
+     * Writes a collection of value log objects into the repository by using a single unordered bulk write.
+     * The value logs are grouped by their idref, so that all values of a component are pushed to its open
+     * document at once. The order of the value logs within a component is preserved.
+     * <p>
+     * The open document of each component is taken from the bucket cache and addressed by its id; new documents
+     * are created on the client side as soon as a document is full. Each update is guarded by the number of values
+     * in the document, so that documents that were filled concurrently (e.g. by another application instance)
+     * are never overfilled. Such conflicts are detected by the resulting duplicate key errors; the cached document
+     * of the affected component is then dropped and the value logs are reserved and written again with the same
+     * guard, until all of them are placed.
+     * <p>
+     * In addition, each pushed chunk of value logs tags its document with a unique id and the update is guarded
+     * against documents that already carry this tag. Before a chunk whose outcome is unknown (e.g. due to a network
+     * timeout during the bulk write) or whose update was rejected is written again, its document is checked for
+     * the tag, so that no value log is stored twice. Chunks whose outcome cannot be determined are reported as
+     * unconfirmed. The tags are dropped as soon as a document is compacted.
+     *
+     * @param valueLogs The value logs to write
+     * @throws ValueLogWriteException In case some of the value logs could not be written; lists exactly these
+     */
+    @Override
+    public void writeAll(Collection<ValueLog> valueLogs) {
+        //Sanity check
+        if (valueLogs == null) {
+            throw new IllegalArgumentException("Value logs must not be null.");
+        }
+
+        //Nothing to do for empty collections
+        if (valueLogs.isEmpty()) {
+            return;
+        }
+
+        //Group value logs by idref while preserving their order
+        Map<String, List<ValueLog>> groups = new LinkedHashMap<>();
+        for (ValueLog valueLog : valueLogs) {
+            groups.computeIfAbsent(valueLog.getIdref(), k -> new ArrayList<>()).add(valueLog);
+        }
+
+        //Allow for creating new documents
+        UpdateOptions updateOptions = new UpdateOptions();
+        updateOptions.upsert(true);
+
+        //Chunks that still need to be written and chunks whose outcome needs to be checked
+        List<WriteChunk> pending = new ArrayList<>();
+        for (List<ValueLog> group : groups.values()) {
+            pending.add(new WriteChunk(group));
+        }
+        List<WriteChunk> unresolved = new ArrayList<>();
+
+        //Write the groups and retry the chunks that conflicted with concurrently filled documents
+        List<ValueLog> failedValueLogs = new ArrayList<>();
+        List<ValueLog> unconfirmedValueLogs = new ArrayList<>();
+        RuntimeException failure = null;
+        for (int round = 0; ; round++) {
+            //Check which chunks of the previous round were applied before writing anything again
+            if (!unresolved.isEmpty()) {
+                try {
+                    Set<ObjectId> appliedTags = findAppliedWriteTags(unresolved);
+                    for (WriteChunk chunk : unresolved) {
+                        if (appliedTags.contains(chunk.tag)) {
+                            continue;
+                        }
+
+                        //Conflicts are retried right away, failed writes are left to the caller
+                        if (chunk.conflicted) {
+                            pending.add(chunk);
+                        } else {
+                            failedValueLogs.addAll(chunk.valueLogs);
+                        }
+                    }
+                } catch (MongoException e) {
+                    //Chunks might have been applied, so they must not be written again
+                    for (WriteChunk chunk : unresolved) {
+                        unconfirmedValueLogs.addAll(chunk.valueLogs);
+                    }
+                    failure = e;
+                }
+                unresolved.clear();
+            }
+
+            //Check if all chunks are completed
+            if (pending.isEmpty()) {
+                break;
+            }
+
+            //Give up on documents that are filled concurrently over and over again
+            if (round >= MAX_WRITE_ROUNDS) {
+                for (WriteChunk chunk : pending) {
+                    failedValueLogs.addAll(chunk.valueLogs);
+                }
+                failure = new IllegalStateException("Open documents kept being filled concurrently.");
+                break;
+            }
+
+            //Create one update per reserved slot and remember the chunks for conflict handling
+            List<WriteModel<ValueLog>> writeModels = new ArrayList<>();
+            List<WriteChunk> chunks = new ArrayList<>();
+            for (WriteChunk chunk : pending) {
+                String idref = chunk.valueLogs.get(0).getIdref();
+
+                //Reserve space in the open document(s) of this component
+                List<ValueLogBucketCache.Slot> slots;
+                try {
+                    slots = bucketCache.reserve(idref, chunk.valueLogs.size());
+                } catch (MongoException e) {
+                    failedValueLogs.addAll(chunk.valueLogs);
+                    failure = e;
+                    continue;
+                }
+
+                int offset = 0;
+                for (ValueLogBucketCache.Slot slot : slots) {
+                    //Chunks that fit into a single document keep their tag, split chunks get new ones
+                    WriteChunk slotChunk = (slots.size() == 1) ? chunk :
+                            new WriteChunk(chunk.valueLogs.subList(offset, offset + slot.getCount()));
+                    slotChunk.bucketId = slot.getBucketId();
+                    offset += slot.getCount();
+
+                    //Only update the document if it still has enough space left and does not hold the chunk yet
+                    Bson filter = Filters.and(Filters.eq("_id", slot.getBucketId()),
+                            Filters.lte("nvalues", VALUES_PER_DOCUMENT - slot.getCount()),
+                            Filters.ne(WRITE_TAGS_FIELD_NAME, slotChunk.tag));
+                    Document update = pushManyUpdate(slotChunk.valueLogs);
+                    ((Document) update.get("$push")).append(WRITE_TAGS_FIELD_NAME, slotChunk.tag);
+                    ((Document) update.get("$setOnInsert")).append(IDREF_FIELD_NAME, idref);
+
+                    writeModels.add(new UpdateOneModel<>(filter, update, updateOptions));
+                    chunks.add(slotChunk);
+                }
+            }
+            pending = new ArrayList<>();
+            if (writeModels.isEmpty()) {
+                continue;
+            }
+
+            //Perform bulk write
+            try {
+                this.valueLogCollection.bulkWrite(writeModels, new BulkWriteOptions().ordered(false));
+            } catch (MongoBulkWriteException e) {
+                for (BulkWriteError error : e.getWriteErrors()) {
+                    WriteChunk chunk = chunks.get(error.getIndex());
+                    if (error.getCode() == DUPLICATE_KEY_ERROR_CODE) {
+                        //Document was filled concurrently or already holds the chunk, forget it and check again
+                        bucketCache.invalidate(chunk.valueLogs.get(0).getIdref());
+                        chunk.conflicted = true;
+                        unresolved.add(chunk);
+                    } else {
+                        failedValueLogs.addAll(chunk.valueLogs);
+                        failure = e;
+                    }
+                }
+            } catch (MongoException e) {
+                //Outcome of the whole bulk write is unknown, the cached documents can no longer be trusted
+                for (WriteChunk chunk : chunks) {
+                    bucketCache.invalidate(chunk.valueLogs.get(0).getIdref());
+                    chunk.conflicted = false;
+                    unresolved.add(chunk);
+                }
+                failure = e;
+            }
+        }
+
+        //Report the value logs that could not be written
+        if (!failedValueLogs.isEmpty() || !unconfirmedValueLogs.isEmpty()) {
+            throw new ValueLogWriteException(failedValueLogs, unconfirmedValueLogs, failure);
+        }
+    }
+
+    /**
+     * Determines which of the given chunks were applied to the documents they were written to, by checking
+     * these documents for the tags of the chunks.
+     *
+     * @param chunks The chunks to check
+     * @return The set of tags of the chunks that were applied
+     */
+    private Set<ObjectId> findAppliedWriteTags(List<WriteChunk> chunks) {
+        Set<ObjectId> bucketIds = new HashSet<>();
+        List<ObjectId> tags = new ArrayList<>(chunks.size());
+        for (WriteChunk chunk : chunks) {
+            bucketIds.add(chunk.bucketId);
+            tags.add(chunk.tag);
+        }
+
+        Set<ObjectId> appliedTags = new HashSet<>();
+        Bson filter = Filters.and(Filters.in("_id", bucketIds), Filters.in(WRITE_TAGS_FIELD_NAME, tags));
+        for (Document bucket : bucketCollection.find(filter).projection(Projections.include(WRITE_TAGS_FIELD_NAME))) {
+            Object bucketTags = bucket.get(WRITE_TAGS_FIELD_NAME);
+            if (bucketTags instanceof List) {
+                for (Object tag : (List<?>) bucketTags) {
+                    if (tag instanceof ObjectId) {
+                        appliedTags.add((ObjectId) tag);
+                    }
+                }
+            }
+        }
+        return appliedTags;
+    }
+
+    /**
+     * Rebuilds the cache of open documents by retrieving the most recent open document of each component
+     * from the database within a single aggregation.
+     */
+    public void rebuildBucketCache() {
+        bucketCache.clear();
+
+        //Find the most recent document with space left for each idref
+        List<Bson> aggregateStages = Arrays.asList(
+                Aggregates.match(Filters.and(Filters.lt("nvalues", VALUES_PER_DOCUMENT),
+                        Filters.exists(ValueLogBucketCodec.FIELD_SCHEMA, false))),
+                Aggregates.sort(Sorts.ascending(IDREF_FIELD_NAME, "first")),
+                Aggregates.group("$" + IDREF_FIELD_NAME,
+                        Accumulators.last("bucketId", "$_id"),
+                        Accumulators.last("nvalues", "$nvalues")));
+
+        //Fill cache
+        for (Document document : bucketCollection.aggregate(aggregateStages).allowDiskUse(true)) {
+            Object bucketId = document.get("bucketId");
+            if ((document.getString("_id") != null) && (bucketId instanceof ObjectId)) {
+                bucketCache.put(document.getString("_id"), (ObjectId) bucketId, ((Number) document.get("nvalues")).intValue());
+            }
+        }
+    }
+
+    /**
+     * Inserts the value logs of a certain component directly as closed documents in columnar format, bypassing
+     * the bucket cache and the update path of regular writes. The value logs are split into documents of the
+     * regular size, each with its exact time range, number of values and statistics. Since the documents carry
+     * a schema, they are never reopened for further values by regular writes. All value logs must be sorted
+     * chronologically and must share the same topic, component type and QoS.
+     *
+     * @param idref     The idref of the component
+     * @param valueLogs The value logs to insert
+     * @return The ids of the inserted documents in chronological order
+     */
+    @Override
+    public List<ObjectId> insertClosedBuckets(String idref, List<ValueLog> valueLogs) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (valueLogs == null) {
+            throw new IllegalArgumentException("Value logs must not be null.");
+        }
+
+        //Split value logs into documents
+        List<Document> documents = new ArrayList<>();
+        List<ObjectId> ids = new ArrayList<>();
+        for (int offset = 0; offset < valueLogs.size(); offset += VALUES_PER_DOCUMENT) {
+            List<ValueLog> chunk = valueLogs.subList(offset, Math.min(offset + VALUES_PER_DOCUMENT, valueLogs.size()));
+            ObjectId id = new ObjectId();
+            documents.add(ValueLogBucketCodec.encodeColumnar(id, idref,
+                    chunk.get(0).getTime().getEpochSecond(), chunk.get(chunk.size() - 1).getTime().getEpochSecond(), chunk));
+            ids.add(id);
+        }
+
+        if (!documents.isEmpty()) {
+            bucketCollection.insertMany(documents, new InsertManyOptions().ordered(false));
+        }
+        return ids;
+    }
+
+    /**
+     * Checks whether documents of a certain component exist that overlap with a given time range. The check is
+     * performed on the granularity of the time ranges of the documents (seconds).
+     *
+     * @param idref       The idref of the component
+     * @param from        The inclusive start of the time range
+     * @param to          The inclusive end of the time range
+     * @param excludedIds The ids of documents to ignore
+     * @return True, if overlapping documents exist; false otherwise
+     */
+    @Override
+    public boolean hasBucketsInTimeRange(String idref, Instant from, Instant to, Collection<ObjectId> excludedIds) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if ((from == null) || (to == null)) {
+            throw new IllegalArgumentException("Time range must not be null.");
+        }
+
+        Bson filter = Filters.and(Filters.eq(IDREF_FIELD_NAME, idref),
+                Filters.lte("first", to.getEpochSecond()),
+                Filters.gte("last", from.getEpochSecond()),
+                Filters.nin("_id", (excludedIds == null) ? Collections.emptyList() : excludedIds));
+        if (bucketCollection.find(filter).projection(Projections.include("_id")).first() != null) {
+            return true;
+        }
+
+        //Check archived documents as well
+        return !archive.findSegments(idref, from.getEpochSecond(), to.getEpochSecond(), true).isEmpty();
+    }
+
+    /**
+     * Converts all documents of the collection that are full and still stored in row format to the compressed
+     * columnar format (see {@link ValueLogBucketCodec}). Documents that are open for further values are never
+     * touched. Each replacement is guarded by the number of values and the schema of the original document,
+     * so that documents that were modified concurrently are skipped.
+     *
+     * @param maxDocuments The maximum number of documents to convert within this call
+     * @return The number of documents that were converted
+     */
+    @Override
+    public int compactClosedBuckets(int maxDocuments) {
+        //Filter for full documents in row format
+        Bson filter = Filters.and(Filters.exists(ValueLogBucketCodec.FIELD_SCHEMA, false),
+                Filters.gte("nvalues", VALUES_PER_DOCUMENT));
+
+        int converted = 0;
+        for (Document rowBucket : bucketCollection.find(filter).limit(maxDocuments)) {
+            Document columnarBucket = ValueLogBucketCodec.toColumnar(rowBucket);
+
+            //Mark documents that cannot be converted (e.g. due to varying topics) as final row documents
+            if (columnarBucket == null) {
+                bucketCollection.updateOne(Filters.eq("_id", rowBucket.get("_id")), Updates.combine(
+                        Updates.set(ValueLogBucketCodec.FIELD_SCHEMA, ValueLogBucketCodec.SCHEMA_ROW),
+                        Updates.set(ValueLogBucketCodec.FIELD_STATS, ValueLogBucketCodec.computeStats(ValueLogBucketCodec.decode(rowBucket))),
+                        Updates.set(ValueLogBucketCodec.FIELD_STATS_COMPLETE, true)));
+                continue;
+            }
+
+            //Replace document only if it was not modified in the meantime
+            Bson replaceFilter = Filters.and(Filters.eq("_id", rowBucket.get("_id")),
+                    Filters.exists(ValueLogBucketCodec.FIELD_SCHEMA, false),
+                    Filters.eq("nvalues", rowBucket.get("nvalues")));
+            if (bucketCollection.replaceOne(replaceFilter, columnarBucket).getModifiedCount() > 0) {
+                converted++;
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Removes the oldest closed documents of a certain component whose value logs were all received before a given
+     * point in time. Optionally, the documents are moved to the archive tier, where they remain available to all
+     * queries of this repository. The document that is open for further values is never removed.
+     *
+     * @param idref          The idref of the component
+     * @param before         The point in time before which value logs expire
+     * @param maxDocuments   The maximum number of documents to remove within this call
+     * @param archiveBuckets True, if the documents are supposed to be archived; false, if they are to be deleted
+     * @return The number of documents that were removed
+     */
+    @Override
+    public int expireBuckets(String idref, Instant before, int maxDocuments, boolean archiveBuckets) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (before == null) {
+            throw new IllegalArgumentException("Point in time must not be null.");
+        }
+
+        //Find expired documents that are closed, i.e. imported, compacted or full
+        Bson filter = Filters.and(Filters.eq(IDREF_FIELD_NAME, idref),
+                Filters.lt("last", before.getEpochSecond()),
+                Filters.or(Filters.exists(ValueLogBucketCodec.FIELD_SCHEMA, true), Filters.gte("nvalues", VALUES_PER_DOCUMENT)));
+        List<Document> buckets = bucketCollection.find(filter).sort(Sorts.ascending("first", "_id"))
+                .limit(maxDocuments).into(new ArrayList<>());
+        if (buckets.isEmpty()) {
+            return 0;
+        }
+
+        List<Object> bucketIds = new ArrayList<>(buckets.size());
+        for (Document bucket : buckets) {
+            bucketIds.add(bucket.get("_id"));
+        }
+
+        //Simply delete the documents if no archive is desired
+        if (!archiveBuckets) {
+            return (int) bucketCollection.deleteMany(Filters.in("_id", bucketIds)).getDeletedCount();
+        }
+
+        //Archive documents before removing them
+        Document segment = archive.writeSegment(idref, buckets);
+        try {
+            bucketCollection.deleteMany(Filters.in("_id", bucketIds));
+        } catch (RuntimeException e) {
+            archive.discardSegment(segment);
+            throw e;
+        }
+        archive.completeSegment(segment);
+        return buckets.size();
+    }
+
+    /**
+     * Resolves all segments of the archive tier that remained pending, e.g. due to a crash while archiving
+     * documents. If the segment file exists, the archived documents are removed from the collection and the
+     * segment is completed; otherwise, the segment is discarded.
+     */
+    @Override
+    public void recoverArchive() {
+        for (Document segment : archive.findPendingSegments()) {
+            if (archive.existsFile(segment)) {
+                bucketCollection.deleteMany(Filters.in("_id", archive.getBucketIds(segment)));
+                archive.completeSegment(segment);
+            } else {
+                archive.discardSegment(segment);
+            }
+        }
+        archive.refresh();
+    }
+
+    /**
+     * Returns the idrefs of all components for which documents are stored in the collection.
+     *
+     * @return The list of idrefs
+     */
+    @Override
+    public List<String> findAllIdRefs() {
+        return bucketCollection.distinct(IDREF_FIELD_NAME, String.class).into(new ArrayList<>());
+    }
+
+    /**
+     * Finds and returns a list of value logs that match a certain id reference of a component. Documents in row
+     * format and in columnar format as well as archived documents are supported.
+     *
+     * @param idref The idref to match
+     * @return The requested list of value logs
+     */
+    @Override
+    public List<ValueLog> findAllByIdRef(String idref) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        //Create result list
+        List<ValueLog> resultList = new ArrayList<>();
+
+        //Decode all documents of the component in chronological order
+        try (BucketIterator buckets = findBuckets(idref, null, null, true, 0)) {
+            while (buckets.hasNext()) {
+                resultList.addAll(ValueLogBucketCodec.decode(buckets.next()));
+            }
+        }
+
+        return resultList;
+    }
+
+    /**
+     * Finds and returns a page of value logs that match a certain id reference of a component. Documents in row
+     * format and in columnar format are both supported.
+     *
+     * @param idref    The idref to match
+     * @param pageable The pageable describing the desired page of value logs
+     * @return The requested page of value logs
+     */
+    @Override
+    public Page<ValueLog> findAllByIdRef(String idref, Pageable pageable) {
+        return findAllByIdRef(idref, null, null, pageable);
+    }
+
+    /**
+     * Finds and returns a page of value logs that match a certain id reference of a component and were received
+     * within a given time range. Documents are pruned by their time range, so that only the documents that overlap
+     * with the requested time range are decoded.
+     *
+     * @param idref    The idref to match
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @param pageable The pageable describing the desired page of value logs
+     * @return The requested page of value logs
+     */
+    @Override
+    public Page<ValueLog> findAllByIdRef(String idref, Instant from, Instant to, Pageable pageable) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        //Create result list
+        List<ValueLog> resultList = new ArrayList<>();
+
+        //Get limit and offset from pageable
+        int limit = pageable.getPageSize();
+        int offset = pageable.getOffset();
+
+        //Check if values need to be retrieved
+        if (limit <= 0) {
+            return new PageImpl<>(resultList, pageable, 0);
+        }
+
+        //Get sort parameters from pageable
+        Sort sort = pageable.getSort();
+
+        //Desired sort direction
+        boolean ascending = false;
+
+        //Iterate over all specified sort parameters
+        for (Sort.Order order : sort) {
+            //Only sorting for time property is supported, thus ignore the other ones
+            if (!order.getProperty().equals("time")) {
+                continue;
+            }
+
+            //Check sort direction
+            ascending = order.isAscending();
+
+            //Only ordering for time is supported, so no need to consider other properties
+            break;
+        }
+
+        //Coarse-grained sorting and limit on document level
+        int calculatedLimit = (int) Math.ceil(((double) offset + limit) / ((double) VALUES_PER_DOCUMENT)) + 1;
+
+        //Decode all candidate documents that overlap with the time range
+        try (BucketIterator buckets = findBuckets(idref, toEpochSeconds(from), toEpochSeconds(to), ascending, calculatedLimit)) {
+            for (int i = 0; (i < calculatedLimit) && buckets.hasNext(); i++) {
+                for (ValueLog valueLog : ValueLogBucketCodec.decode(buckets.next())) {
+                    if (((from == null) && (to == null)) || isInTimeRange(valueLog, from, to)) {
+                        resultList.add(valueLog);
+                    }
+                }
+            }
+        }
+
+        //Fine-grained sorting on value log level
+        Comparator<ValueLog> fineComparator = Comparator.comparing(ValueLog::getTime, Comparator.nullsFirst(Comparator.naturalOrder()));
+        resultList.sort(ascending ? fineComparator : fineComparator.reversed());
+
+        //Fine-grained offset and limit for pagination on value log level
+        int fromIndex = Math.min(offset, resultList.size());
+        int toIndex = Math.min(fromIndex + limit, resultList.size());
+        List<ValueLog> pageList = new ArrayList<>(resultList.subList(fromIndex, toIndex));
+
+        //Return value logs as page
+        return new PageImpl<>(pageList, pageable, countByIdRef(idref, from, to));
+    }
+
+    /**
+     * Finds and returns a page of value logs that match a certain id reference of a component and were received
+     * within a given time range by using keyset pagination. Instead of skipping the value logs of all previous pages,
+     * the page starts right after the position that is encoded in the given continuation token, so that retrieving
+     * deep pages costs the same as retrieving the first page. The total number of value logs within the time range
+     * is only determined for the first page, i.e. if no continuation token is given, since counting them takes
+     * time proportional to the size of the time range; further pages report
+     * {@link ValueLogCursorPage#UNKNOWN_TOTAL}.
+     *
+     * @param idref     The idref to match
+     * @param from      The inclusive start of the time range or null, if unbounded
+     * @param to        The exclusive end of the time range or null, if unbounded
+     * @param cursor    The continuation token of the previous page or null, if the first page is requested
+     * @param size      The maximum number of value logs of the page
+     * @param ascending True, if the value logs are to be sorted in ascending order of time; false otherwise.
+     *                  Ignored if a continuation token is given, since the token determines the order.
+     * @return The requested page of value logs
+     * @throws IllegalArgumentException In case the continuation token is invalid
+     */
+    @Override
+    public ValueLogCursorPage findAllByIdRef(String idref, Instant from, Instant to, String cursor, int size, boolean ascending) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+
+        //Decode position of the previous page
+        ValueLogCursor position = ((cursor == null) || cursor.isEmpty()) ? null : ValueLogCursor.decode(cursor);
+        boolean sortAscending = (position == null) ? ascending : position.isAscending();
+
+        //Bounds of the documents that may contain value logs after the position
+        Long minLast = toEpochSeconds(from);
+        Long maxFirst = toEpochSeconds(to);
+        if (position != null) {
+            long positionSeconds = position.getTime().getEpochSecond();
+            if (sortAscending) {
+                minLast = (minLast == null) ? positionSeconds : Math.max(minLast, positionSeconds);
+            } else {
+                maxFirst = (maxFirst == null) ? positionSeconds : Math.min(maxFirst, positionSeconds);
+            }
+        }
+
+        //Comparator for the desired order
+        Comparator<CursorEntry> comparator = Comparator.comparing(entry -> entry.position);
+        if (!sortAscending) {
+            comparator = comparator.reversed();
+        }
+
+        //Collect one more value log than requested in order to detect whether further pages exist
+        int collectLimit = size + 1;
+        List<CursorEntry> entries = new ArrayList<>();
+        try (BucketIterator buckets = findBuckets(idref, minLast, maxFirst, sortAscending, 0)) {
+            while (buckets.hasNext()) {
+                Document bucket = buckets.next();
+
+                //Stop as soon as the remaining documents only contain value logs that follow the collected ones,
+                //which holds since the documents of a component are filled one after another
+                if (entries.size() >= collectLimit) {
+                    Instant threshold = entries.get(collectLimit - 1).position.getTime();
+                    boolean exhausted = sortAscending
+                            ? Instant.ofEpochSecond(((Number) bucket.get("first")).longValue()).isAfter(threshold)
+                            : !Instant.ofEpochSecond(((Number) bucket.get("last")).longValue() + 1).isAfter(threshold);
+                    if (exhausted) {
+                        break;
+                    }
+                }
+
+                //Collect all value logs of the document that follow the position
+                List<ValueLog> valueLogs = ValueLogBucketCodec.decode(bucket);
+                ObjectId bucketId = bucket.getObjectId("_id");
+                for (int i = 0; i < valueLogs.size(); i++) {
+                    ValueLog valueLog = valueLogs.get(i);
+                    if (!isInTimeRange(valueLog, from, to)) {
+                        continue;
+                    }
+                    CursorEntry entry = new CursorEntry(new ValueLogCursor(valueLog.getTime(), bucketId, i, sortAscending), valueLog);
+                    if ((position == null) || (comparator.compare(entry, new CursorEntry(position, null)) > 0)) {
+                        entries.add(entry);
+                    }
+                }
+
+                //Keep only the first value logs in the desired order
+                entries.sort(comparator);
+                if (entries.size() > collectLimit) {
+                    entries.subList(collectLimit, entries.size()).clear();
+                }
+            }
+        }
+
+        //Create continuation token if further value logs exist
+        String nextCursor = null;
+        if (entries.size() > size) {
+            entries.remove(size);
+            nextCursor = entries.get(size - 1).position.encode();
+        }
+
+        List<ValueLog> content = new ArrayList<>(entries.size());
+        for (CursorEntry entry : entries) {
+            content.add(entry.valueLog);
+        }
+
+        //Count value logs only for the first page, since counting is proportional to the time range
+        long totalElements = (position == null) ? countByIdRef(idref, from, to) : ValueLogCursorPage.UNKNOWN_TOTAL;
+        return new ValueLogCursorPage(content, nextCursor, totalElements);
+    }
+
+    /**
+     * Counts the value logs of a certain component that were received within a given time range. The numbers of
+     * values of all documents that lie completely within the time range are summed up inside the database, so that
+     * only the documents at the boundaries of the time range need to be decoded.
+     *
+     * @param idref The idref of the component
+     * @param from  The inclusive start of the time range or null, if unbounded
+     * @param to    The exclusive end of the time range or null, if unbounded
+     * @return The number of value logs
+     */
+    @Override
+    public long countByIdRef(String idref, Instant from, Instant to) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        //Sum up the numbers of values of the documents within the time range
+        Bson filter = Filters.and(Filters.eq(IDREF_FIELD_NAME, idref), timeRangeFilter(from, to));
+        Bson containedFilter = Filters.and(filter, containedInTimeRangeFilter(from, to));
+        Document sumResult = bucketCollection.aggregate(Arrays.asList(
+                Aggregates.match(containedFilter),
+                Aggregates.group(null, Accumulators.sum("count", "$nvalues")))).first();
+        long count = (sumResult == null) ? 0 : ((Number) sumResult.get("count")).longValue();
+
+        //Count the value logs of the documents at the boundaries
+        if ((from != null) || (to != null)) {
+            for (Document bucket : bucketCollection.find(Filters.and(filter, Filters.nor(containedFilter)))) {
+                for (ValueLog valueLog : ValueLogBucketCodec.decode(bucket)) {
+                    if (isInTimeRange(valueLog, from, to)) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        //Count the value logs of archived documents; only segments at the boundaries need to be read
+        for (Document segment : archive.findSegments(idref, toEpochSeconds(from), toEpochSeconds(to), true)) {
+            if (isContainedInTimeRange(segment, from, to)) {
+                count += ((Number) segment.get("nvalues")).longValue();
+                continue;
+            }
+            for (Document bucket : archive.readBuckets(segment)) {
+                if (!overlapsTimeRange(bucket, from, to)) {
+                    continue;
+                }
+                if (isContainedInTimeRange(bucket, from, to)) {
+                    count += ((Number) bucket.get("nvalues")).longValue();
+                    continue;
+                }
+                for (ValueLog valueLog : ValueLogBucketCodec.decode(bucket)) {
+                    if (isInTimeRange(valueLog, from, to)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Passes all value logs of all components that were received within a given time range to a consumer.
+     * The value logs are passed document by document, i.e. without materializing the whole time range.
+     *
+     * @param from     The inclusive start of the time range
+     * @param to       The exclusive end of the time range
+     * @param consumer The consumer to pass the value logs to
+     */
+    @Override
+    public void forEachInTimeRange(Instant from, Instant to, Consumer<ValueLog> consumer) {
+        //Sanity check
+        if ((from == null) || (to == null) || (consumer == null)) {
+            throw new IllegalArgumentException("Time range and consumer must not be null.");
+        }
+
+        //Decode all documents that overlap with the time range
+        for (Document bucket : bucketCollection.find(timeRangeFilter(from, to))) {
+            for (ValueLog valueLog : ValueLogBucketCodec.decode(bucket)) {
+                if (isInTimeRange(valueLog, from, to)) {
+                    consumer.accept(valueLog);
+                }
+            }
+        }
+
+        //Decode all archived documents that overlap with the time range
+        for (Document segment : archive.findSegments(null, from.getEpochSecond(), to.getEpochSecond(), true)) {
+            for (Document bucket : archive.readBuckets(segment)) {
+                if (!overlapsTimeRange(bucket, from, to)) {
+                    continue;
+                }
+                for (ValueLog valueLog : ValueLogBucketCodec.decode(bucket)) {
+                    if (isInTimeRange(valueLog, from, to)) {
+                        consumer.accept(valueLog);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes all value logs of a certain component that were received within a given time range to a consumer,
+     * in chronological order of their documents. The value logs are passed document by document, i.e. without
+     * materializing the whole time range.
+     *
+     * @param idref    The idref of the component
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @param consumer The consumer to pass the value logs to
+     */
+    @Override
+    public void forEachByIdRef(String idref, Instant from, Instant to, Consumer<ValueLog> consumer) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (consumer == null) {
+            throw new IllegalArgumentException("Consumer must not be null.");
+        }
+
+        //Decode all documents of the component that overlap with the time range; the cursor is closed explicitly,
+        //so that it is released on the server in case the consumer aborts the iteration by throwing an exception
+        try (BucketIterator buckets = findBuckets(idref, toEpochSeconds(from), toEpochSeconds(to), true, 0)) {
+            while (buckets.hasNext()) {
+                for (ValueLog valueLog : ValueLogBucketCodec.decode(buckets.next())) {
+                    if (isInTimeRange(valueLog, from, to)) {
+                        consumer.accept(valueLog);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes the receive times and values of a certain component within a given time range to a consumer as compact
+     * series. Each document is decoded directly into the series, which is reused from document to document.
+     *
+     * @param idref    The idref of the component
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @param consumer The consumer to pass the series to
+     */
+    @Override
+    public void forEachSeriesByIdRef(String idref, Instant from, Instant to, Consumer<ValueLogSeries> consumer) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (consumer == null) {
+            throw new IllegalArgumentException("Consumer must not be null.");
+        }
+
+        long fromMillis = ValueLogBucketCodec.toMillisBound(from, Long.MIN_VALUE);
+        long toMillis = ValueLogBucketCodec.toMillisBound(to, Long.MAX_VALUE);
+        ValueLogSeries series = new ValueLogSeries(idref, VALUES_PER_DOCUMENT);
+        try (BucketIterator buckets = findBuckets(idref, toEpochSeconds(from), toEpochSeconds(to), true, 0)) {
+            while (buckets.hasNext()) {
+                series.clear();
+                ValueLogBucketCodec.decodeSeries(buckets.next(), fromMillis, toMillis, series);
+                if (series.size() > 0) {
+                    consumer.accept(series);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the time intervals within a given time range in which consecutive values of a certain component
+     * satisfied a given predicate. The documents are first retrieved without their values, so that documents
+     * whose running statistics show that none of their values can satisfy the predicate are neither transferred
+     * nor decoded. The remaining candidate documents are then fetched batch by batch.
+     *
+     * @param idref        The idref of the component
+     * @param from         The inclusive start of the time range or null, if unbounded
+     * @param to           The exclusive end of the time range or null, if unbounded
+     * @param predicate    The predicate the values need to satisfy
+     * @param maxIntervals The maximum number of intervals to return
+     * @return The search result holding the intervals in chronological order
+     */
+    @Override
+    public ValueLogIntervalSearchResult findIntervalsByIdRef(String idref, Instant from, Instant to, ValueLogPredicate predicate, int maxIntervals) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (predicate == null) {
+            throw new IllegalArgumentException("Predicate must not be null.");
+        } else if (maxIntervals <= 0) {
+            throw new IllegalArgumentException("Maximum number of intervals must be positive.");
+        }
+
+        long fromMillis = ValueLogBucketCodec.toMillisBound(from, Long.MIN_VALUE);
+        long toMillis = ValueLogBucketCodec.toMillisBound(to, Long.MAX_VALUE);
+        ValueLogIntervalCollector collector = new ValueLogIntervalCollector(predicate, maxIntervals);
+        ValueLogSeries series = new ValueLogSeries(idref, VALUES_PER_DOCUMENT);
+
+        //Retrieve the headers of the documents in chronological order and process them batch by batch
+        Bson headerProjection = Projections.exclude(ValueLogBucketCodec.FIELD_VALUES,
+                ValueLogBucketCodec.FIELD_TIMES_COLUMN, ValueLogBucketCodec.FIELD_VALUES_COLUMN);
+        List<Document> headers = new ArrayList<>(CURSOR_BATCH_SIZE);
+        try (BucketIterator buckets = findBuckets(idref, toEpochSeconds(from), toEpochSeconds(to), true, 0, headerProjection)) {
+            while (buckets.hasNext() && !collector.isTruncated()) {
+                headers.add(buckets.next());
+                if ((headers.size() >= CURSOR_BATCH_SIZE) || !buckets.hasNext()) {
+                    collectIntervals(headers, fromMillis, toMillis, series, collector);
+                    headers.clear();
+                }
+            }
+        }
+        return collector.finish();
+    }
+
+    /**
+     * Passes a batch of documents to an interval collector in the given order. Candidate documents that were only
+     * retrieved as headers are fetched from the collection within a single query; all others are skipped.
+     *
+     * @param headers    The documents in chronological order, either as headers or complete (archived documents)
+     * @param fromMillis The inclusive start of the time range in epoch milliseconds
+     * @param toMillis   The exclusive end of the time range in epoch milliseconds
+     * @param series     The series to reuse for decoding the documents
+     * @param collector  The collector to pass the documents to
+     */
+    private void collectIntervals(List<Document> headers, long fromMillis, long toMillis, ValueLogSeries series, ValueLogIntervalCollector collector) {
+        //Fetch the values of all candidate documents of the batch at once
+        List<Object> fetchIds = new ArrayList<>();
+        for (Document header : headers) {
+            if (isIntervalCandidate(header, collector) && !hasValues(header)) {
+                fetchIds.add(header.get("_id"));
+            }
+        }
+        Map<Object, Document> fetched = new HashMap<>();
+        if (!fetchIds.isEmpty()) {
+            for (Document bucket : bucketCollection.find(Filters.in("_id", fetchIds))) {
+                fetched.put(bucket.get("_id"), bucket);
+            }
+        }
+
+        //Pass documents in chronological order
+        for (Document header : headers) {
+            if (collector.isTruncated()) {
+                return;
+            } else if (!isIntervalCandidate(header, collector)) {
+                collector.addPrunedBucket();
+                continue;
+            }
+
+            //Documents might have been removed concurrently
+            Document bucket = hasValues(header) ? header : fetched.get(header.get("_id"));
+            if (bucket == null) {
+                continue;
+            }
+            series.clear();
+            ValueLogBucketCodec.decodeSeries(bucket, fromMillis, toMillis, series);
+            collector.addSeries(series);
+        }
+    }
+
+    /**
+     * Checks whether a given document may contain values that are relevant to an interval collector. Documents
+     * without complete statistics are always candidates.
+     *
+     * @param bucket    The document to check
+     * @param collector The collector to check against
+     * @return True, if the document needs to be decoded; false otherwise
+     */
+    private boolean isIntervalCandidate(Document bucket, ValueLogIntervalCollector collector) {
+        ValueLogRollup stats = ValueLogBucketCodec.readStats(bucket);
+        return (stats == null) || collector.isCandidate(stats.getMin(), stats.getMax());
+    }
+
+    /**
+     * Checks whether a given document contains its values, i.e. was not retrieved as header only.
+     *
+     * @param bucket The document to check
+     * @return True, if the values are contained; false otherwise
+     */
+    private boolean hasValues(Document bucket) {
+        return bucket.containsKey(ValueLogBucketCodec.FIELD_VALUES) || bucket.containsKey(ValueLogBucketCodec.FIELD_TIMES_COLUMN);
+    }
+
+    /**
+     * Summarizes the values of the value logs of a certain component within a given time range. The running
+     * statistics of all documents that lie completely within the time range are summed up by a single aggregation
+     * within the database, so that only the documents at the boundaries of the time range and documents without
+     * complete statistics need to be transferred and decoded. These documents are streamed from a cursor and
+     * summarized in a single pass. Optionally, a transformation (e.g. a unit conversion) can be applied to each
+     * value before it is summarized; in this case all documents need to be decoded.
+     *
+     * @param idref          The idref of the component
+     * @param from           The inclusive start of the time range or null, if unbounded
+     * @param to             The exclusive end of the time range or null, if unbounded
+     * @param transformation The transformation to apply to each value or null, if the values are to be used as-is
+     * @return The summary of the values as rollup
+     */
+    @Override
+    public ValueLogRollup summarizeByIdRef(String idref, Instant from, Instant to, DoubleUnaryOperator transformation) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        ValueLogRollup summary = new ValueLogRollup(idref, from);
+
+        //Filter for all documents of the component that overlap with the time range
+        Bson filter = Filters.and(Filters.eq(IDREF_FIELD_NAME, idref), timeRangeFilter(from, to));
+
+        //Sum up the running statistics of the documents within the time range inside the database
+        if (transformation == null) {
+            Bson statsFilter = Filters.and(filter, Filters.eq(ValueLogBucketCodec.FIELD_STATS_COMPLETE, true),
+                    containedInTimeRangeFilter(from, to));
+            String statsPrefix = "$" + ValueLogBucketCodec.FIELD_STATS + ".";
+            List<Bson> aggregateStages = Arrays.asList(
+                    Aggregates.match(statsFilter),
+                    Aggregates.group(null,
+                            Accumulators.sum("count", statsPrefix + "count"),
+                            Accumulators.sum("sum", statsPrefix + "sum"),
+                            Accumulators.sum("sumsq", statsPrefix + "sumsq"),
+                            Accumulators.min("min", statsPrefix + "min"),
+                            Accumulators.max("max", statsPrefix + "max")));
+            Document statsResult = bucketCollection.aggregate(aggregateStages).first();
+            if (statsResult != null) {
+                summary.merge(ValueLogBucketCodec.readStats(new Document(ValueLogBucketCodec.FIELD_STATS, statsResult)
+                        .append(ValueLogBucketCodec.FIELD_STATS_COMPLETE, true)));
+            }
+
+            //Only the remaining documents need to be decoded
+            filter = Filters.and(filter, Filters.nor(statsFilter));
+        }
+
+        //Stream and decode the remaining documents
+        for (Document bucket : bucketCollection.find(filter)) {
+            summarizeBucket(summary, bucket, from, to, transformation);
+        }
+
+        //Summarize archived documents; segments and documents within the time range contribute their statistics
+        for (Document segment : archive.findSegments(idref, toEpochSeconds(from), toEpochSeconds(to), true)) {
+            ValueLogRollup segmentStats = ((transformation == null) && isContainedInTimeRange(segment, from, to))
+                    ? ValueLogBucketCodec.readStats(segment) : null;
+            if (segmentStats != null) {
+                summary.merge(segmentStats);
+                continue;
+            }
+            for (Document bucket : archive.readBuckets(segment)) {
+                if (!overlapsTimeRange(bucket, from, to)) {
+                    continue;
+                }
+                ValueLogRollup bucketStats = ((transformation == null) && isContainedInTimeRange(bucket, from, to))
+                        ? ValueLogBucketCodec.readStats(bucket) : null;
+                if (bucketStats != null) {
+                    summary.merge(bucketStats);
+                } else {
+                    summarizeBucket(summary, bucket, from, to, transformation);
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Decodes a given document and adds the values of all its value logs within a given time range to a summary.
+     *
+     * @param summary        The summary to add the values to
+     * @param bucket         The document to decode
+     * @param from           The inclusive start of the time range or null, if unbounded
+     * @param to             The exclusive end of the time range or null, if unbounded
+     * @param transformation The transformation to apply to each value or null, if the values are to be used as-is
+     */
+    private void summarizeBucket(ValueLogRollup summary, Document bucket, Instant from, Instant to, DoubleUnaryOperator transformation) {
+        ValueLogSeries series = new ValueLogSeries(summary.getIdref(), VALUES_PER_DOCUMENT);
+        ValueLogBucketCodec.decodeSeries(bucket, ValueLogBucketCodec.toMillisBound(from, Long.MIN_VALUE),
+                ValueLogBucketCodec.toMillisBound(to, Long.MAX_VALUE), series);
+        double[] values = series.getValues();
+        for (int i = 0; i < series.size(); i++) {
+            summary.add((transformation == null) ? values[i] : transformation.applyAsDouble(values[i]));
+        }
+    }
+
+    /**
+     * Finds and returns the oldest value log of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The oldest value log or null, if no value logs are available
+     */
+    @Override
+    public ValueLog findOldestByIdRef(String idref) {
+        try (BucketIterator buckets = findBuckets(idref, null, null, true, 1)) {
+            Document bucket = buckets.hasNext() ? buckets.next() : null;
+            return selectValueLog(bucket, Comparator.comparing(ValueLog::getTime).reversed());
+        }
+    }
+
+    /**
+     * Finds and returns the most recent value log of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The most recent value log or null, if no value logs are available
+     */
+    @Override
+    public ValueLog findNewestByIdRef(String idref) {
+        try (BucketIterator buckets = findBuckets(idref, null, null, false, 1)) {
+            Document bucket = buckets.hasNext() ? buckets.next() : null;
+            return selectValueLog(bucket, Comparator.comparing(ValueLog::getTime));
+        }
+    }
+
+    /**
+     * Finds and returns the value log with the smallest value of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The value log with the smallest value or null, if no value logs are available
+     */
+    @Override
+    public ValueLog findMinimumByIdRef(String idref) {
+        return findExtremeByIdRef(idref, false);
+    }
+
+    /**
+     * Finds and returns the value log with the biggest value of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The value log with the biggest value or null, if no value logs are available
+     */
+    @Override
+    public ValueLog findMaximumByIdRef(String idref) {
+        return findExtremeByIdRef(idref, true);
+    }
+
+    /**
+     * Returns the receive time of the oldest value log that is stored in the repository.
+     *
+     * @return The receive time or null, if the repository is empty
+     */
+    @Override
+    public Instant findEarliestTime() {
+        Document bucket = bucketCollection.find().sort(Sorts.ascending("first"))
+                .projection(Projections.include("first")).first();
+        Long earliestFirst = ((bucket == null) || !(bucket.get("first") instanceof Number)) ? null : ((Number) bucket.get("first")).longValue();
+
+        //Archived documents may be older
+        Long archivedFirst = archive.findEarliestFirst();
+        if ((archivedFirst != null) && ((earliestFirst == null) || (archivedFirst < earliestFirst))) {
+            earliestFirst = archivedFirst;
+        }
+        return (earliestFirst == null) ? null : Instant.ofEpochSecond(earliestFirst);
+    }
+
+    /**
+     * Finds the value log with the smallest or biggest value of a certain component. The candidate document
+     * is determined from the running statistics of the documents; documents without complete statistics are
+     * decoded and checked as well.
+     *
+     * @param idref   The idref of the component
+     * @param maximum True, if the value log with the biggest value is requested; false for the smallest value
+     * @return The requested value log or null, if no value logs are available
+     */
+    private ValueLog findExtremeByIdRef(String idref, boolean maximum) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        Comparator<ValueLog> comparator = Comparator.comparingDouble(ValueLog::getValue);
+        if (!maximum) {
+            comparator = comparator.reversed();
+        }
+
+        //Find candidate document with complete statistics
+        String statsField = ValueLogBucketCodec.FIELD_STATS + "." + (maximum ? "max" : "min");
+        Document candidate = bucketCollection.find(Filters.and(Filters.eq(IDREF_FIELD_NAME, idref),
+                Filters.eq(ValueLogBucketCodec.FIELD_STATS_COMPLETE, true)))
+                .sort(maximum ? Sorts.descending(statsField) : Sorts.ascending(statsField)).first();
+        ValueLog extremeLog = selectValueLog(candidate, comparator);
+
+        //Check documents without complete statistics
+        Bson incompleteFilter = Filters.and(Filters.eq(IDREF_FIELD_NAME, idref),
+                Filters.ne(ValueLogBucketCodec.FIELD_STATS_COMPLETE, true));
+        for (Document bucket : bucketCollection.find(incompleteFilter)) {
+            ValueLog bucketLog = selectValueLog(bucket, comparator);
+            if ((bucketLog != null) && ((extremeLog == null) || (comparator.compare(bucketLog, extremeLog) > 0))) {
+                extremeLog = bucketLog;
+            }
+        }
+
+        //Check the archived segment with the most extreme value, whose statistics are always complete
+        Document segment = archive.findExtremeSegment(idref, maximum);
+        if (segment != null) {
+            for (Document bucket : archive.readBuckets(segment)) {
+                ValueLog bucketLog = selectValueLog(bucket, comparator);
+                if ((bucketLog != null) && ((extremeLog == null) || (comparator.compare(bucketLog, extremeLog) > 0))) {
+                    extremeLog = bucketLog;
+                }
+            }
+        }
+        return extremeLog;
+    }
+
+    /**
+     * Decodes a given document and selects the greatest value log with respect to a given comparator.
+     *
+     * @param bucket     The document to decode (may be null)
+     * @param comparator The comparator to use
+     * @return The greatest value log or null, if the document is null or empty
+     */
+    private ValueLog selectValueLog(Document bucket, Comparator<ValueLog> comparator) {
+        if (bucket == null) {
+            return null;
+        }
+        return ValueLogBucketCodec.decode(bucket).stream()
+                .filter(valueLog -> valueLog.getTime() != null)
+                .max(comparator).orElse(null);
+    }
+
+    /**
+     * Creates a filter that matches all documents that may contain value logs within a given time range.
+     *
+     * @param from The inclusive start of the time range or null, if unbounded
+     * @param to   The exclusive end of the time range or null, if unbounded
+     * @return The filter
+     */
+    private Bson timeRangeFilter(Instant from, Instant to) {
+        List<Bson> filters = new ArrayList<>();
+        if (from != null) {
+            filters.add(Filters.gte("last", from.getEpochSecond()));
+        }
+        if (to != null) {
+            filters.add(Filters.lte("first", to.getEpochSecond()));
+        }
+        return filters.isEmpty() ? new Document() : Filters.and(filters);
+    }
+
+    /**
+     * Creates a filter that matches all documents whose value logs lie completely within a given time range.
+     * Since the time range of the documents is truncated to seconds, a document ends one second after its
+     * last field.
+     *
+     * @param from The inclusive start of the time range or null, if unbounded
+     * @param to   The exclusive end of the time range or null, if unbounded
+     * @return The filter
+     */
+    private Bson containedInTimeRangeFilter(Instant from, Instant to) {
+        List<Bson> filters = new ArrayList<>();
+        if (from != null) {
+            filters.add(Filters.gte("first", from.getEpochSecond() + ((from.getNano() > 0) ? 1 : 0)));
+        }
+        if (to != null) {
+            filters.add(Filters.lte("last", to.getEpochSecond() - 1));
+        }
+        return filters.isEmpty() ? new Document() : Filters.and(filters);
+    }
+
+    /**
+     * Checks whether the time range of a given document or archive segment overlaps with a given time range,
+     * analogous to {@link #timeRangeFilter(Instant, Instant)}.
+     *
+     * @param document The document or segment to check
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @return True, if the time ranges overlap; false otherwise
+     */
+    private boolean overlapsTimeRange(Document document, Instant from, Instant to) {
+        return ((from == null) || (((Number) document.get("last")).longValue() >= from.getEpochSecond()))
+                && ((to == null) || (((Number) document.get("first")).longValue() <= to.getEpochSecond()));
+    }
+
+    /**
+     * Checks whether the value logs of a given document or archive segment lie completely within a given time
+     * range, analogous to {@link #containedInTimeRangeFilter(Instant, Instant)}.
+     *
+     * @param document The document or segment to check
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @return True, if the value logs lie within the time range; false otherwise
+     */
+    private boolean isContainedInTimeRange(Document document, Instant from, Instant to) {
+        return ((from == null) || (((Number) document.get("first")).longValue() >= from.getEpochSecond() + ((from.getNano() > 0) ? 1 : 0)))
+                && ((to == null) || (((Number) document.get("last")).longValue() <= to.getEpochSecond() - 1));
+    }
+
+    /**
+     * Converts a given point in time to epoch seconds.
+     *
+     * @param instant The point in time to convert or null
+     * @return The epoch seconds or null, if the point in time is null
+     */
+    private Long toEpochSeconds(Instant instant) {
+        return (instant == null) ? null : instant.getEpochSecond();
+    }
+
+    /**
+     * Returns an iterator over the documents of a certain component within given bounds, including the archived
+     * documents. Since archived documents always precede the documents of the collection, the archived documents
+     * are returned first in ascending order and last in descending order.
+     *
+     * @param idref     The idref of the component
+     * @param minLast   The minimum end of the time range of the documents (epoch seconds) or null, if unbounded
+     * @param maxFirst  The maximum start of the time range of the documents (epoch seconds) or null, if unbounded
+     * @param ascending True, if the documents are to be returned in ascending order of time; false otherwise
+     * @param limit     The maximum number of documents to retrieve from the collection or 0, if unlimited
+     * @return The iterator over the documents, which needs to be closed
+     */
+    private BucketIterator findBuckets(String idref, Long minLast, Long maxFirst, boolean ascending, int limit) {
+        return findBuckets(idref, minLast, maxFirst, ascending, limit, null);
+    }
+
+    /**
+     * Returns an iterator over the documents of a certain component within given bounds, including the archived
+     * documents. The documents of the collection are retrieved with a given projection, while archived documents
+     * are always returned completely.
+     *
+     * @param idref      The idref of the component
+     * @param minLast    The minimum end of the time range of the documents (epoch seconds) or null, if unbounded
+     * @param maxFirst   The maximum start of the time range of the documents (epoch seconds) or null, if unbounded
+     * @param ascending  True, if the documents are to be returned in ascending order of time; false otherwise
+     * @param limit      The maximum number of documents to retrieve from the collection or 0, if unlimited
+     * @param projection The projection to apply to the documents of the collection or null, if none
+     * @return The iterator over the documents, which needs to be closed
+     */
+    private BucketIterator findBuckets(String idref, Long minLast, Long maxFirst, boolean ascending, int limit, Bson projection) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.eq(IDREF_FIELD_NAME, idref));
+        if (minLast != null) {
+            filters.add(Filters.gte("last", minLast));
+        }
+        if (maxFirst != null) {
+            filters.add(Filters.lte("first", maxFirst));
+        }
+        Bson sort = ascending ? Sorts.ascending("first", "_id") : Sorts.descending("first", "_id");
+        MongoCursor<Document> cursor = bucketCollection.find(Filters.and(filters)).projection(projection).sort(sort)
+                .limit(limit).batchSize(CURSOR_BATCH_SIZE).iterator();
+
+        //Skip the archive for components without archived documents
+        if (!archive.hasSegments(idref)) {
+            return new BucketIterator(cursor, Collections.emptyIterator(), ascending);
+        }
+        return new BucketIterator(cursor, archive.iterateBuckets(idref, minLast, maxFirst, ascending), ascending);
+    }
+
+    /**
+     * Checks whether a given value log was received within a given time range.
+     *
+     * @param valueLog The value log to check
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @return True, if the value log lies within the time range; false otherwise
+     */
+    private boolean isInTimeRange(ValueLog valueLog, Instant from, Instant to) {
+        Instant time = valueLog.getTime();
+        if (time == null) {
+            return false;
+        }
+        return ((from == null) || !time.isBefore(from)) && ((to == null) || time.isBefore(to));
+    }
+
+    /**
+     * Loads the most recent document of a certain component that is still open for further values from
+     * the database.
+     *
+     * @param idref The idref of the component
+     * @return The open document as cache entry or null, if no such document exists
+     */
+    private ValueLogBucketCache.OpenBucket findOpenBucket(String idref) {
+        Document document = bucketCollection.find(openBucketFilter(idref))
+                .sort(Sorts.descending("first"))
+                .projection(Projections.include("nvalues"))
+                .first();
+
+        //Check if a document was found with an id that can be addressed
+        if ((document == null) || !(document.get("_id") instanceof ObjectId)) {
+            return null;
+        }
+        return new ValueLogBucketCache.OpenBucket(document.getObjectId("_id"), ((Number) document.get("nvalues")).intValue());
+    }
+
+    /**
+     * Creates a filter that matches the document of a component that is still open for further values.
+     *
+     * @param idref The idref of the component
+     * @return The filter
+     */
+    private Bson openBucketFilter(String idref) {
+        //Filtering by idref and nvalues; documents with a schema (e.g. imported ones) are closed
+        Document filterQuery = new Document(IDREF_FIELD_NAME, idref);
+        filterQuery.append("nvalues", new Document("$lt", VALUES_PER_DOCUMENT));
+        filterQuery.append(ValueLogBucketCodec.FIELD_SCHEMA, new Document("$exists", false));
+        return filterQuery;
+    }
+
+    /**
+     * Creates an update that pushes several value logs of the same component to a document at once and adjusts
+     * the time range, the number of values and the running statistics of the document accordingly.
+     *
+     * @param valueLogs The value logs to push, all belonging to the same component
+     * @return The update
+     */
+    private Document pushManyUpdate(List<ValueLog> valueLogs) {
+        //Determine time range of the value logs
+        long minEpochSeconds = Long.MAX_VALUE;
+        long maxEpochSeconds = Long.MIN_VALUE;
+        for (ValueLog valueLog : valueLogs) {
+            long epochSeconds = valueLog.getTime().getEpochSecond();
+            minEpochSeconds = Math.min(minEpochSeconds, epochSeconds);
+            maxEpochSeconds = Math.max(maxEpochSeconds, epochSeconds);
+        }
+
+        //Determine running statistics of the value logs
+        Document stats = ValueLogBucketCodec.computeStats(valueLogs);
+        String statsPrefix = ValueLogBucketCodec.FIELD_STATS + ".";
+
+        //Push all value logs at once and update the running statistics of the document
+        Document updateQuery = new Document("$push", new Document("values", new Document("$each", valueLogs)));
+        updateQuery.append("$min", new Document("first", minEpochSeconds)
+                .append(statsPrefix + "min", stats.get("min")));
+        updateQuery.append("$max", new Document("last", maxEpochSeconds)
+                .append(statsPrefix + "max", stats.get("max")));
+        updateQuery.append("$inc", new Document("nvalues", valueLogs.size())
+                .append(statsPrefix + "count", stats.get("count"))
+                .append(statsPrefix + "sum", stats.get("sum"))
+                .append(statsPrefix + "sumsq", stats.get("sumsq")));
+
+        //Statistics are only complete for documents that were created with them
+        updateQuery.append("$setOnInsert", new Document(ValueLogBucketCodec.FIELD_STATS_COMPLETE, true));
+        return updateQuery;
+    }
+
+    /**
+     * Deletes all value logs that match a given idref.
+     *
+     * @param idref The idref to match for
+     */
+    @Override
+    public void deleteByIdRef(String idref) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        //Build filter for deleting all documents with the given idref
+        Bson filter = Filters.eq(IDREF_FIELD_NAME, idref);
+
+        //Perform deletion
+        this.valueLogCollection.deleteMany(filter);
+
+        //Forget the open document of this component
+        bucketCache.invalidate(idref);
+
+        //Delete archived documents as well
+        archive.deleteByIdRef(idref);
+    }
+
+    /**
+     * Iterator over the archived documents and the documents of the collection of a component in chronological
+     * order. Closing the iterator releases the cursor of the collection.
+     */
+    private static class BucketIterator implements Iterator<Document>, AutoCloseable {
+        private final Iterator<Document> first;
+        private final Iterator<Document> second;
+        private final MongoCursor<Document> cursor;
+
+        private BucketIterator(MongoCursor<Document> cursor, Iterator<Document> archived, boolean ascending) {
+            this.cursor = cursor;
+            this.first = ascending ? archived : cursor;
+            this.second = ascending ? cursor : archived;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return first.hasNext() || second.hasNext();
+        }
+
+        @Override
+        public Document next() {
+            if (first.hasNext()) {
+                return first.next();
+            } else if (second.hasNext()) {
+                return second.next();
+            }
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void close() {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Chunk of value logs of a single component that is pushed to a document by one update.
+     */
+    private static class WriteChunk {
+        //Value logs of the chunk in chronological order
+        private final List<ValueLog> valueLogs;
+
+        //Unique tag that is stored within the document the chunk is pushed to
+        private final ObjectId tag = new ObjectId();
+
+        //Id of the document the chunk was last written to
+        private ObjectId bucketId;
+
+        //Whether the last write was rejected due to a conflict rather than failing
+        private boolean conflicted = false;
+
+        /**
+         * Creates a new chunk.
+         *
+         * @param valueLogs The value logs of the chunk
+         */
+        private WriteChunk(List<ValueLog> valueLogs) {
+            this.valueLogs = valueLogs;
+        }
+    }
+
+    /**
+     * Value log together with its position for keyset pagination.
+     */
+    private static class CursorEntry {
+        private final ValueLogCursor position;
+        private final ValueLog valueLog;
+
+        private CursorEntry(ValueLogCursor position, ValueLog valueLog) {
+            this.position = position;
+            this.valueLog = valueLog;
+        }
+    }
+}
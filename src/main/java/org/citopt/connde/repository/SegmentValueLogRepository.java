@@ -0,0 +1,791 @@
+package org.citopt.connde.repository;
+
+import org.bson.types.ObjectId;
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogCursorPage;
+import org.citopt.connde.domain.valueLog.ValueLogIntervalSearchResult;
+import org.citopt.connde.domain.valueLog.ValueLogPredicate;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
+import org.citopt.connde.exception.ValueLogWriteException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Embedded implementation of the value log repository for deployments that cannot afford a database for high-rate
+ * value logs, e.g. on small edge hardware. The value logs of each component are appended to memory-mapped segment
+ * files (see {@link ValueLogSegment}) within a dedicated directory. The blocks of the segments are summarized by
+ * an in-memory sparse time index, which is used to prune blocks by their time ranges and to answer counts,
+ * summaries and extreme values without decoding the blocks that lie completely within the requested time range.
+ * <p>
+ * Since segments are append-only, value logs are not required to arrive in chronological order; queries never rely
+ * on disjoint time ranges of the blocks. Raw messages of the value logs are not retained. Expiry removes whole
+ * segments; expired segments of components whose value logs are supposed to be archived are kept, since the
+ * segment files already form a local archive.
+ */
+public class SegmentValueLogRepository implements ValueLogRepository {
+    //File extension of segment files
+    private static final String SEGMENT_FILE_EXTENSION = ".seg";
+
+    //Base directory of the segment files
+    private final Path directory;
+
+    //Number of blocks per segment
+    private final int blocksPerSegment;
+
+    //Whether segments are flushed to the storage device after each write
+    private final boolean forceOnWrite;
+
+    //Map (idref --> segments) of the segments of all components
+    private final Map<String, ComponentSegments> components = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the repository and opens all existing segment files within the base directory.
+     *
+     * @param directory        The base directory of the segment files
+     * @param blocksPerSegment The number of blocks per segment
+     * @param forceOnWrite     True, if segments are supposed to be flushed to the storage device after each write;
+     *                         false, if flushing is left to the operating system
+     */
+    public SegmentValueLogRepository(Path directory, int blocksPerSegment, boolean forceOnWrite) {
+        this.directory = directory;
+        this.blocksPerSegment = Math.max(blocksPerSegment, 1);
+        this.forceOnWrite = forceOnWrite;
+
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> componentDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path componentDirectory : componentDirectories) {
+                    ComponentSegments componentSegments = ComponentSegments.open(componentDirectory, this.blocksPerSegment);
+                    if (componentSegments != null) {
+                        components.put(componentSegments.idref, componentSegments);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open value log segments in " + directory + ".", e);
+        }
+    }
+
+    @Override
+    public void write(ValueLog valueLog) {
+        //Sanity check
+        if (valueLog == null) {
+            throw new IllegalArgumentException("Value log must not be null.");
+        }
+
+        writeAll(Collections.singletonList(valueLog));
+    }
+
+    @Override
+    public void writeAll(Collection<ValueLog> valueLogs) {
+        //Sanity check
+        if (valueLogs == null) {
+            throw new IllegalArgumentException("Value logs must not be null.");
+        }
+
+        //Group value logs by idref while preserving their order
+        Map<String, List<ValueLog>> groups = new LinkedHashMap<>();
+        for (ValueLog valueLog : valueLogs) {
+            groups.computeIfAbsent(valueLog.getIdref(), k -> new ArrayList<>()).add(valueLog);
+        }
+
+        //Append each group to the segments of its component and collect the groups that failed
+        List<ValueLog> failedValueLogs = new ArrayList<>();
+        RuntimeException failure = null;
+        for (Map.Entry<String, List<ValueLog>> group : groups.entrySet()) {
+            try {
+                getOrCreateSegments(group.getKey()).append(group.getValue(), false, forceOnWrite);
+            } catch (RuntimeException e) {
+                failedValueLogs.addAll(group.getValue());
+                failure = e;
+            }
+        }
+
+        //Report the value logs that could not be written
+        if (!failedValueLogs.isEmpty()) {
+            throw new ValueLogWriteException(failedValueLogs, failure);
+        }
+    }
+
+    @Override
+    public List<ObjectId> insertClosedBuckets(String idref, List<ValueLog> valueLogs) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (valueLogs == null) {
+            throw new IllegalArgumentException("Value logs must not be null.");
+        }
+
+        if (valueLogs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return getOrCreateSegments(idref).append(valueLogs, true, forceOnWrite);
+    }
+
+    @Override
+    public boolean hasBucketsInTimeRange(String idref, Instant from, Instant to, Collection<ObjectId> excludedIds) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if ((from == null) || (to == null)) {
+            throw new IllegalArgumentException("Time range must not be null.");
+        }
+
+        //Compare on the granularity of seconds
+        for (BlockRef block : findBlocks(idref, null, null)) {
+            if ((Math.floorDiv(block.block.getMinMillis(), 1000) <= to.getEpochSecond())
+                    && (Math.floorDiv(block.block.getMaxMillis(), 1000) >= from.getEpochSecond())
+                    && ((excludedIds == null) || !excludedIds.contains(block.block.getId()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int expireBuckets(String idref, Instant before, int maxDocuments, boolean archiveBuckets) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (before == null) {
+            throw new IllegalArgumentException("Point in time must not be null.");
+        }
+
+        //Segment files are kept as archive
+        ComponentSegments componentSegments = components.get(idref);
+        if (archiveBuckets || (componentSegments == null)) {
+            return 0;
+        }
+        return componentSegments.expire(before, maxDocuments);
+    }
+
+    @Override
+    public List<String> findAllIdRefs() {
+        return new ArrayList<>(components.keySet());
+    }
+
+    @Override
+    public List<ValueLog> findAllByIdRef(String idref) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        List<ValueLog> resultList = new ArrayList<>();
+        for (BlockRef block : findBlocks(idref, null, null)) {
+            resultList.addAll(block.read());
+        }
+        resultList.sort(Comparator.comparing(ValueLog::getTime));
+        return resultList;
+    }
+
+    @Override
+    public Page<ValueLog> findAllByIdRef(String idref, Pageable pageable) {
+        return findAllByIdRef(idref, null, null, pageable);
+    }
+
+    @Override
+    public Page<ValueLog> findAllByIdRef(String idref, Instant from, Instant to, Pageable pageable) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        //Check if values need to be retrieved
+        int limit = pageable.getPageSize();
+        int offset = pageable.getOffset();
+        if (limit <= 0) {
+            return new PageImpl<>(new ArrayList<>(), pageable, 0);
+        }
+
+        //Only sorting for time is supported
+        boolean ascending = false;
+        for (Sort.Order order : pageable.getSort()) {
+            if (order.getProperty().equals("time")) {
+                ascending = order.isAscending();
+                break;
+            }
+        }
+
+        //Collect the first value logs in the desired order
+        Comparator<CursorEntry> comparator = Comparator.comparing(entry -> entry.position);
+        List<CursorEntry> entries = collect(findBlocks(idref, from, to), from, to, null,
+                ascending ? comparator : comparator.reversed(), ascending, offset + limit);
+
+        //Apply offset
+        List<ValueLog> pageList = new ArrayList<>();
+        for (int i = offset; i < entries.size(); i++) {
+            pageList.add(entries.get(i).valueLog);
+        }
+        return new PageImpl<>(pageList, pageable, countByIdRef(idref, from, to));
+    }
+
+    @Override
+    public ValueLogCursorPage findAllByIdRef(String idref, Instant from, Instant to, String cursor, int size, boolean ascending) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+
+        //Decode position of the previous page
+        ValueLogCursor position = ((cursor == null) || cursor.isEmpty()) ? null : ValueLogCursor.decode(cursor);
+        boolean sortAscending = (position == null) ? ascending : position.isAscending();
+        Comparator<CursorEntry> comparator = Comparator.comparing(entry -> entry.position);
+        if (!sortAscending) {
+            comparator = comparator.reversed();
+        }
+
+        //Collect one more value log than requested in order to detect whether further pages exist
+        List<CursorEntry> entries = collect(findBlocks(idref, from, to), from, to, position, comparator, sortAscending, size + 1);
+
+        //Create continuation token if further value logs exist
+        String nextCursor = null;
+        if (entries.size() > size) {
+            entries.remove(size);
+            nextCursor = entries.get(size - 1).position.encode();
+        }
+
+        List<ValueLog> content = new ArrayList<>(entries.size());
+        for (CursorEntry entry : entries) {
+            content.add(entry.valueLog);
+        }
+
+        //Count value logs only for the first page, since counting is proportional to the time range
+        long totalElements = (position == null) ? countByIdRef(idref, from, to) : ValueLogCursorPage.UNKNOWN_TOTAL;
+        return new ValueLogCursorPage(content, nextCursor, totalElements);
+    }
+
+    @Override
+    public long countByIdRef(String idref, Instant from, Instant to) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        //Only blocks at the boundaries of the time range need to be decoded
+        long count = 0;
+        for (BlockRef block : findBlocks(idref, from, to)) {
+            if (block.isContainedIn(from, to)) {
+                count += block.block.getCount();
+                continue;
+            }
+            for (ValueLog valueLog : block.read()) {
+                if (isInTimeRange(valueLog, from, to)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void forEachInTimeRange(Instant from, Instant to, Consumer<ValueLog> consumer) {
+        //Sanity check
+        if ((from == null) || (to == null) || (consumer == null)) {
+            throw new IllegalArgumentException("Time range and consumer must not be null.");
+        }
+
+        for (String idref : components.keySet()) {
+            forEachByIdRef(idref, from, to, consumer);
+        }
+    }
+
+    @Override
+    public void forEachByIdRef(String idref, Instant from, Instant to, Consumer<ValueLog> consumer) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (consumer == null) {
+            throw new IllegalArgumentException("Consumer must not be null.");
+        }
+
+        //Pass value logs block by block in chronological order of the blocks
+        List<BlockRef> blocks = findBlocks(idref, from, to);
+        blocks.sort(Comparator.comparingLong(block -> block.block.getMinMillis()));
+        for (BlockRef block : blocks) {
+            for (ValueLog valueLog : block.read()) {
+                if (isInTimeRange(valueLog, from, to)) {
+                    consumer.accept(valueLog);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachSeriesByIdRef(String idref, Instant from, Instant to, Consumer<ValueLogSeries> consumer) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (consumer == null) {
+            throw new IllegalArgumentException("Consumer must not be null.");
+        }
+
+        //Read the blocks directly into a reused series in chronological order of the blocks
+        long fromMillis = ValueLogBucketCodec.toMillisBound(from, Long.MIN_VALUE);
+        long toMillis = ValueLogBucketCodec.toMillisBound(to, Long.MAX_VALUE);
+        ValueLogSeries series = new ValueLogSeries(idref, ValueLogSegment.BLOCK_CAPACITY);
+        List<BlockRef> blocks = findBlocks(idref, from, to);
+        blocks.sort(Comparator.comparingLong(block -> block.block.getMinMillis()));
+        for (BlockRef block : blocks) {
+            series.clear();
+            block.segment.readSeries(block.block, fromMillis, toMillis, series);
+            if (series.size() > 0) {
+                consumer.accept(series);
+            }
+        }
+    }
+
+    @Override
+    public ValueLogIntervalSearchResult findIntervalsByIdRef(String idref, Instant from, Instant to, ValueLogPredicate predicate, int maxIntervals) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (predicate == null) {
+            throw new IllegalArgumentException("Predicate must not be null.");
+        } else if (maxIntervals <= 0) {
+            throw new IllegalArgumentException("Maximum number of intervals must be positive.");
+        }
+
+        //Skip blocks based on the value ranges of the sparse index and read the remaining ones in chronological order
+        long fromMillis = ValueLogBucketCodec.toMillisBound(from, Long.MIN_VALUE);
+        long toMillis = ValueLogBucketCodec.toMillisBound(to, Long.MAX_VALUE);
+        ValueLogIntervalCollector collector = new ValueLogIntervalCollector(predicate, maxIntervals);
+        ValueLogSeries series = new ValueLogSeries(idref, ValueLogSegment.BLOCK_CAPACITY);
+        List<BlockRef> blocks = findBlocks(idref, from, to);
+        blocks.sort(Comparator.comparingLong(block -> block.block.getMinMillis()));
+        for (BlockRef block : blocks) {
+            if (collector.isTruncated()) {
+                break;
+            }
+            ValueLogRollup stats = block.block.getStats();
+            if (!collector.isCandidate(stats.getMin(), stats.getMax())) {
+                collector.addPrunedBucket();
+                continue;
+            }
+            series.clear();
+            block.segment.readSeries(block.block, fromMillis, toMillis, series);
+            collector.addSeries(series);
+        }
+        return collector.finish();
+    }
+
+    @Override
+    public ValueLogRollup summarizeByIdRef(String idref, Instant from, Instant to, DoubleUnaryOperator transformation) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        ValueLogRollup summary = new ValueLogRollup(idref, from);
+        long fromMillis = ValueLogBucketCodec.toMillisBound(from, Long.MIN_VALUE);
+        long toMillis = ValueLogBucketCodec.toMillisBound(to, Long.MAX_VALUE);
+        ValueLogSeries series = new ValueLogSeries(idref, ValueLogSegment.BLOCK_CAPACITY);
+        for (BlockRef block : findBlocks(idref, from, to)) {
+            //Use the statistics of the sparse index for blocks within the time range
+            if ((transformation == null) && block.isContainedIn(from, to)) {
+                summary.merge(block.block.getStats());
+                continue;
+            }
+            series.clear();
+            block.segment.readSeries(block.block, fromMillis, toMillis, series);
+            double[] values = series.getValues();
+            for (int i = 0; i < series.size(); i++) {
+                summary.add((transformation == null) ? values[i] : transformation.applyAsDouble(values[i]));
+            }
+        }
+        return summary;
+    }
+
+    @Override
+    public ValueLog findOldestByIdRef(String idref) {
+        BlockRef block = findBlocks(idref, null, null).stream()
+                .min(Comparator.comparingLong(candidate -> candidate.block.getMinMillis())).orElse(null);
+        return selectValueLog(block, Comparator.comparing(ValueLog::getTime).reversed());
+    }
+
+    @Override
+    public ValueLog findNewestByIdRef(String idref) {
+        BlockRef block = findBlocks(idref, null, null).stream()
+                .max(Comparator.comparingLong(candidate -> candidate.block.getMaxMillis())).orElse(null);
+        return selectValueLog(block, Comparator.comparing(ValueLog::getTime));
+    }
+
+    @Override
+    public ValueLog findMinimumByIdRef(String idref) {
+        BlockRef block = findBlocks(idref, null, null).stream()
+                .min(Comparator.comparingDouble(candidate -> candidate.block.getStats().getMin())).orElse(null);
+        return selectValueLog(block, Comparator.comparingDouble(ValueLog::getValue).reversed());
+    }
+
+    @Override
+    public ValueLog findMaximumByIdRef(String idref) {
+        BlockRef block = findBlocks(idref, null, null).stream()
+                .max(Comparator.comparingDouble(candidate -> candidate.block.getStats().getMax())).orElse(null);
+        return selectValueLog(block, Comparator.comparingDouble(ValueLog::getValue));
+    }
+
+    @Override
+    public Instant findEarliestTime() {
+        long earliestMillis = Long.MAX_VALUE;
+        for (String idref : components.keySet()) {
+            for (BlockRef block : findBlocks(idref, null, null)) {
+                earliestMillis = Math.min(earliestMillis, block.block.getMinMillis());
+            }
+        }
+        return (earliestMillis == Long.MAX_VALUE) ? null : Instant.ofEpochMilli(earliestMillis);
+    }
+
+    @Override
+    public void deleteByIdRef(String idref) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        ComponentSegments componentSegments = components.remove(idref);
+        if (componentSegments != null) {
+            componentSegments.delete();
+        }
+    }
+
+    /**
+     * Collects the first value logs of a list of blocks in a given order. Blocks are visited in the order of their
+     * time ranges, so that the collection stops as soon as the remaining blocks only contain value logs that follow
+     * the collected ones. This holds even if the time ranges of the blocks overlap.
+     *
+     * @param blocks     The blocks to collect the value logs from
+     * @param from       The inclusive start of the time range or null, if unbounded
+     * @param to         The exclusive end of the time range or null, if unbounded
+     * @param position   The position after which value logs are collected or null, if unbounded
+     * @param comparator The comparator describing the desired order
+     * @param ascending  True, if the desired order is ascending in time; false otherwise
+     * @param limit      The maximum number of value logs to collect
+     * @return The collected value logs together with their positions, in the desired order
+     */
+    private List<CursorEntry> collect(List<BlockRef> blocks, Instant from, Instant to, ValueLogCursor position,
+                                      Comparator<CursorEntry> comparator, boolean ascending, int limit) {
+        //Skip blocks before the position
+        if (position != null) {
+            Instant positionTime = position.getTime();
+            blocks.removeIf(block -> ascending ? block.block.getMaxTime().isBefore(positionTime)
+                    : block.block.getMinTime().isAfter(positionTime));
+        }
+
+        //Visit blocks in the desired order of their time ranges
+        blocks.sort(ascending ? Comparator.comparingLong(block -> block.block.getMinMillis())
+                : Comparator.comparingLong((BlockRef block) -> block.block.getMaxMillis()).reversed());
+
+        CursorEntry positionEntry = (position == null) ? null : new CursorEntry(position, null);
+        List<CursorEntry> entries = new ArrayList<>();
+        for (BlockRef block : blocks) {
+            //Stop as soon as the remaining blocks only contain value logs that follow the collected ones
+            if (entries.size() >= limit) {
+                Instant threshold = entries.get(limit - 1).position.getTime();
+                if (ascending ? block.block.getMinTime().isAfter(threshold) : block.block.getMaxTime().isBefore(threshold)) {
+                    break;
+                }
+            }
+
+            List<ValueLog> valueLogs = block.read();
+            for (int i = 0; i < valueLogs.size(); i++) {
+                ValueLog valueLog = valueLogs.get(i);
+                if (!isInTimeRange(valueLog, from, to)) {
+                    continue;
+                }
+                CursorEntry entry = new CursorEntry(new ValueLogCursor(valueLog.getTime(), block.block.getId(), i, ascending), valueLog);
+                if ((positionEntry == null) || (comparator.compare(entry, positionEntry) > 0)) {
+                    entries.add(entry);
+                }
+            }
+
+            //Keep only the first value logs in the desired order
+            entries.sort(comparator);
+            if (entries.size() > limit) {
+                entries.subList(limit, entries.size()).clear();
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the blocks of a certain component that may contain value logs within a given time range.
+     *
+     * @param idref The idref of the component
+     * @param from  The inclusive start of the time range or null, if unbounded
+     * @param to    The exclusive end of the time range or null, if unbounded
+     * @return The list of blocks
+     */
+    private List<BlockRef> findBlocks(String idref, Instant from, Instant to) {
+        ComponentSegments componentSegments = components.get(idref);
+        if (componentSegments == null) {
+            return new ArrayList<>();
+        }
+        List<BlockRef> blocks = componentSegments.snapshot();
+        blocks.removeIf(block -> !block.overlaps(from, to));
+        return blocks;
+    }
+
+    /**
+     * Returns the segments of a certain component, creating them if necessary.
+     *
+     * @param idref The idref of the component
+     * @return The segments of the component
+     */
+    private ComponentSegments getOrCreateSegments(String idref) {
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+        return components.computeIfAbsent(idref, key -> new ComponentSegments(key,
+                directory.resolve(key.replaceAll("[^A-Za-z0-9@._-]", "_")), blocksPerSegment));
+    }
+
+    /**
+     * Decodes a given block and selects the greatest value log with respect to a given comparator.
+     *
+     * @param block      The block to decode (may be null)
+     * @param comparator The comparator to use
+     * @return The greatest value log or null, if the block is null or empty
+     */
+    private ValueLog selectValueLog(BlockRef block, Comparator<ValueLog> comparator) {
+        if (block == null) {
+            return null;
+        }
+        return block.read().stream().max(comparator).orElse(null);
+    }
+
+    /**
+     * Checks whether a given value log was received within a given time range.
+     *
+     * @param valueLog The value log to check
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @return True, if the value log lies within the time range; false otherwise
+     */
+    private static boolean isInTimeRange(ValueLog valueLog, Instant from, Instant to) {
+        Instant time = valueLog.getTime();
+        return ((from == null) || !time.isBefore(from)) && ((to == null) || time.isBefore(to));
+    }
+
+    /**
+     * Segments of a single component. All modifications of the segments are synchronized on this object.
+     */
+    private static class ComponentSegments {
+        private final String idref;
+        private final Path directory;
+        private final int blocksPerSegment;
+        private final List<ValueLogSegment> segments = new ArrayList<>();
+        private int nextSequence = 0;
+
+        private ComponentSegments(String idref, Path directory, int blocksPerSegment) {
+            this.idref = idref;
+            this.directory = directory;
+            this.blocksPerSegment = blocksPerSegment;
+        }
+
+        /**
+         * Opens the segments within a given directory.
+         *
+         * @param directory        The directory of the component
+         * @param blocksPerSegment The number of blocks of new segments
+         * @return The segments of the component or null, if the directory does not contain any segments
+         * @throws IOException In case the directory could not be read
+         */
+        private static ComponentSegments open(Path directory, int blocksPerSegment) throws IOException {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_FILE_EXTENSION)) {
+                stream.forEach(files::add);
+            }
+            if (files.isEmpty()) {
+                return null;
+            }
+            Collections.sort(files);
+
+            List<ValueLogSegment> segments = new ArrayList<>();
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                int sequence = Integer.parseInt(fileName.substring(0, fileName.length() - SEGMENT_FILE_EXTENSION.length()));
+                segments.add(ValueLogSegment.open(file, sequence));
+            }
+
+            ComponentSegments componentSegments = new ComponentSegments(segments.get(0).getIdref(), directory, blocksPerSegment);
+            componentSegments.segments.addAll(segments);
+            componentSegments.nextSequence = segments.get(segments.size() - 1).getSequence() + 1;
+            return componentSegments;
+        }
+
+        /**
+         * Appends value logs to the segments, creating new segments whenever the current one is full or does not
+         * accept the value logs.
+         *
+         * @param valueLogs The value logs to append
+         * @param closed    True, if the value logs are supposed to be written as closed blocks; false otherwise
+         * @param force     True, if the segments are supposed to be flushed to the storage device afterwards
+         * @return The ids of the blocks that were written by closed appends; empty for regular appends
+         */
+        private synchronized List<ObjectId> append(List<ValueLog> valueLogs, boolean closed, boolean force) {
+            List<ObjectId> blockIds = new ArrayList<>();
+            Set<ValueLogSegment> modifiedSegments = new HashSet<>();
+            int offset = 0;
+            while (offset < valueLogs.size()) {
+                ValueLog next = valueLogs.get(offset);
+                ValueLogSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if ((segment == null) || segment.isFull() || !segment.accepts(next)) {
+                    segment = createSegment(next);
+                }
+
+                int firstBlock = segment.getUsedBlockCount();
+                int appended = segment.append(valueLogs, offset, closed);
+                if (appended == 0) {
+                    segment = createSegment(next);
+                    firstBlock = 0;
+                    appended = segment.append(valueLogs, offset, closed);
+                }
+                if (closed) {
+                    blockIds.addAll(segment.getBlockIds(firstBlock));
+                }
+                modifiedSegments.add(segment);
+                offset += appended;
+            }
+
+            if (force) {
+                modifiedSegments.forEach(ValueLogSegment::force);
+            }
+            return blockIds;
+        }
+
+        /**
+         * Returns references to copies of the summaries of all blocks.
+         *
+         * @return The list of block references
+         */
+        private synchronized List<BlockRef> snapshot() {
+            List<BlockRef> blocks = new ArrayList<>();
+            for (ValueLogSegment segment : segments) {
+                for (ValueLogSegment.Block block : segment.snapshotBlocks()) {
+                    blocks.add(new BlockRef(segment, block));
+                }
+            }
+            return blocks;
+        }
+
+        /**
+         * Deletes the oldest segments whose value logs were all received before a given point in time. The segment
+         * that receives new value logs is never deleted.
+         *
+         * @param before    The point in time before which value logs expire
+         * @param maxBlocks The maximum number of blocks to delete, exceeded at most by a single segment
+         * @return The number of deleted blocks
+         */
+        private synchronized int expire(Instant before, int maxBlocks) {
+            int deleted = 0;
+            while ((segments.size() > 1) && (deleted < maxBlocks)) {
+                ValueLogSegment segment = segments.get(0);
+                if (!segment.isEmpty() && !Instant.ofEpochMilli(segment.getMaxMillis()).isBefore(before)) {
+                    break;
+                }
+                deleteFile(segment.getFile());
+                segments.remove(0);
+                deleted += segment.getUsedBlockCount();
+            }
+            return deleted;
+        }
+
+        /**
+         * Deletes all segments of the component together with its directory.
+         */
+        private synchronized void delete() {
+            for (ValueLogSegment segment : segments) {
+                deleteFile(segment.getFile());
+            }
+            segments.clear();
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete value log segments of component " + idref + ".", e);
+            }
+        }
+
+        private ValueLogSegment createSegment(ValueLog reference) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create directory for value log segments of component " + idref + ".", e);
+            }
+            int sequence = nextSequence++;
+            Path file = directory.resolve(String.format("%010d", sequence) + SEGMENT_FILE_EXTENSION);
+            ValueLogSegment segment = ValueLogSegment.create(file, sequence, idref, reference, blocksPerSegment);
+            segments.add(segment);
+            return segment;
+        }
+
+        private void deleteFile(Path file) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete value log segment " + file + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Reference to the summary of a block together with the segment that holds it.
+     */
+    private static class BlockRef {
+        private final ValueLogSegment segment;
+        private final ValueLogSegment.Block block;
+
+        private BlockRef(ValueLogSegment segment, ValueLogSegment.Block block) {
+            this.segment = segment;
+            this.block = block;
+        }
+
+        private List<ValueLog> read() {
+            return segment.read(block);
+        }
+
+        private boolean overlaps(Instant from, Instant to) {
+            return ((from == null) || !block.getMaxTime().isBefore(from)) && ((to == null) || block.getMinTime().isBefore(to));
+        }
+
+        private boolean isContainedIn(Instant from, Instant to) {
+            return ((from == null) || !block.getMinTime().isBefore(from)) && ((to == null) || block.getMaxTime().isBefore(to));
+        }
+    }
+
+    /**
+     * Value log together with its position for pagination.
+     */
+    private static class CursorEntry {
+        private final ValueLogCursor position;
+        private final ValueLog valueLog;
+
+        private CursorEntry(ValueLogCursor position, ValueLog valueLog) {
+            this.position = position;
+            this.valueLog = valueLog;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package org.citopt.connde.repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.citopt.connde.domain.valueLog.ValueLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive tier of the value log repository that keeps expired documents (buckets) of the value log collection in
+ * compressed segment files on the local disk. Each segment file holds a sequence of buckets of a single component
+ * in chronological order, preferably in columnar format (see {@link ValueLogBucketCodec}), as GZIP-compressed
+ * stream of BSON documents. A sparse index of the segments, containing their time ranges, numbers of values and
+ * statistics, is kept in a separate collection, so that segments can be pruned and partially summarized without
+ * reading the files.
+ * <p>
+ * Segments are written in two steps: the segment is registered as pending together with the ids of the archived
+ * buckets, before the buckets are removed from the value log collection and the segment is completed. Pending
+ * segments are not visible to queries; segments that remained pending due to a crash are resolved by the
+ * repository on recovery.
+ */
+final class ValueLogArchive {
+    //Name of the collection to use for the segment index
+    static final String SEGMENT_COLLECTION_NAME = "valueLogArchiveSegments";
+
+    //Field names of the segment index documents
+    private static final String FIELD_IDREF = "idref";
+    private static final String FIELD_FILE = "file";
+    private static final String FIELD_COMPLETE = "complete";
+    private static final String FIELD_BUCKET_IDS = "bucketIds";
+
+    //File extension of segment files
+    private static final String SEGMENT_FILE_EXTENSION = ".seg";
+
+    //Buffer size for reading and writing segment files
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //Codec for converting buckets from and to BSON
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+
+    //Base directory of the segment files
+    private final Path directory;
+
+    //Collection holding the segment index
+    private final MongoCollection<Document> segmentCollection;
+
+    //Idrefs of the components for which segments exist, so that components without archive skip the index
+    private final Set<String> archivedIdRefs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the archive.
+     *
+     * @param database  The database holding the segment index
+     * @param directory The base directory of the segment files
+     */
+    ValueLogArchive(MongoDatabase database, Path directory) {
+        this.directory = directory;
+        this.segmentCollection = database.getCollection(SEGMENT_COLLECTION_NAME);
+        this.segmentCollection.createIndex(Indexes.ascending(FIELD_IDREF, "first", "last"));
+        refresh();
+    }
+
+    /**
+     * Reloads the set of idrefs for which segments exist from the segment index, so that segments that were
+     * written by other application instances become visible.
+     */
+    void refresh() {
+        List<String> idrefs = segmentCollection.distinct(FIELD_IDREF, String.class).into(new ArrayList<>());
+        archivedIdRefs.retainAll(idrefs);
+        archivedIdRefs.addAll(idrefs);
+    }
+
+    /**
+     * Checks whether segments may exist for a certain component.
+     *
+     * @param idref The idref of the component
+     * @return True, if segments may exist; false otherwise
+     */
+    boolean hasSegments(String idref) {
+        return archivedIdRefs.contains(idref);
+    }
+
+    /**
+     * Checks whether segments exist at all.
+     *
+     * @return True, if segments exist; false otherwise
+     */
+    boolean isEmpty() {
+        return archivedIdRefs.isEmpty();
+    }
+
+    /**
+     * Writes a list of buckets of a certain component into a new segment file and registers the segment as pending
+     * within the segment index. Row buckets are converted to the columnar format where possible.
+     *
+     * @param idref   The idref of the component
+     * @param buckets The buckets to archive in chronological order
+     * @return The index document of the pending segment
+     */
+    Document writeSegment(String idref, List<Document> buckets) {
+        ObjectId segmentId = new ObjectId();
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        long nvalues = 0;
+        List<ValueLog> valueLogs = new ArrayList<>();
+        List<Object> bucketIds = new ArrayList<>(buckets.size());
+
+        //Write segment to a temporary file first, so that partially written segments are never visible
+        Path componentDirectory = directory.resolve(toDirectoryName(idref));
+        String fileName = segmentId.toHexString() + SEGMENT_FILE_EXTENSION;
+        Path temporaryFile = componentDirectory.resolve(fileName + ".tmp");
+        try {
+            Files.createDirectories(componentDirectory);
+            try (OutputStream outputStream = new GZIPOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryFile), BUFFER_SIZE), BUFFER_SIZE)) {
+                for (Document bucket : buckets) {
+                    Document columnarBucket = ValueLogBucketCodec.isColumnar(bucket) ? bucket : ValueLogBucketCodec.toColumnar(bucket);
+                    Document archivedBucket = (columnarBucket == null) ? bucket : columnarBucket;
+                    outputStream.write(toBytes(archivedBucket));
+
+                    //Collect the data of the segment index
+                    first = Math.min(first, ((Number) bucket.get("first")).longValue());
+                    last = Math.max(last, ((Number) bucket.get("last")).longValue());
+                    nvalues += ((Number) bucket.get("nvalues")).longValue();
+                    valueLogs.addAll(ValueLogBucketCodec.decode(archivedBucket));
+                    bucketIds.add(bucket.get("_id"));
+                }
+            }
+            Files.move(temporaryFile, componentDirectory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (IOException ignored) {
+            }
+            throw new UncheckedIOException("Failed to write archive segment of component " + idref + ".", e);
+        }
+
+        //Register segment as pending
+        Document segment = new Document("_id", segmentId)
+                .append(FIELD_IDREF, idref)
+                .append(FIELD_FILE, toDirectoryName(idref) + "/" + fileName)
+                .append("first", first)
+                .append("last", last)
+                .append("nvalues", nvalues)
+                .append(ValueLogBucketCodec.FIELD_STATS, ValueLogBucketCodec.computeStats(valueLogs))
+                .append(ValueLogBucketCodec.FIELD_STATS_COMPLETE, true)
+                .append(FIELD_COMPLETE, false)
+                .append(FIELD_BUCKET_IDS, bucketIds);
+        segmentCollection.insertOne(segment);
+        archivedIdRefs.add(idref);
+        return segment;
+    }
+
+    /**
+     * Marks a pending segment as complete, which makes it visible to queries.
+     *
+     * @param segment The index document of the segment
+     */
+    void completeSegment(Document segment) {
+        segmentCollection.updateOne(Filters.eq("_id", segment.get("_id")), Updates.combine(
+                Updates.set(FIELD_COMPLETE, true), Updates.unset(FIELD_BUCKET_IDS)));
+    }
+
+    /**
+     * Discards a pending segment together with its file, e.g. because the buckets could not be removed from the
+     * value log collection.
+     *
+     * @param segment The index document of the segment
+     */
+    void discardSegment(Document segment) {
+        deleteFile(segment);
+        segmentCollection.deleteOne(Filters.eq("_id", segment.get("_id")));
+    }
+
+    /**
+     * Returns the index documents of all pending segments.
+     *
+     * @return The pending segments
+     */
+    List<Document> findPendingSegments() {
+        return segmentCollection.find(Filters.eq(FIELD_COMPLETE, false)).into(new ArrayList<>());
+    }
+
+    /**
+     * Checks whether the file of a given segment exists.
+     *
+     * @param segment The index document of the segment
+     * @return True, if the file exists; false otherwise
+     */
+    boolean existsFile(Document segment) {
+        return Files.isRegularFile(directory.resolve(segment.getString(FIELD_FILE)));
+    }
+
+    /**
+     * Returns the ids of the buckets that were archived into a pending segment.
+     *
+     * @param segment The index document of the segment
+     * @return The ids of the buckets
+     */
+    List<Object> getBucketIds(Document segment) {
+        List<?> bucketIds = segment.get(FIELD_BUCKET_IDS, List.class);
+        return (bucketIds == null) ? Collections.emptyList() : new ArrayList<>(bucketIds);
+    }
+
+    /**
+     * Finds the index documents of all complete segments that may contain buckets within a given time range.
+     *
+     * @param idref     The idref of the component or null, if the segments of all components are requested
+     * @param minLast   The minimum end of the time range of the segments (epoch seconds) or null, if unbounded
+     * @param maxFirst  The maximum start of the time range of the segments (epoch seconds) or null, if unbounded
+     * @param ascending True, if the segments are to be sorted in ascending order of time; false otherwise
+     * @return The index documents of the segments
+     */
+    List<Document> findSegments(String idref, Long minLast, Long maxFirst, boolean ascending) {
+        if (((idref == null) && isEmpty()) || ((idref != null) && !hasSegments(idref))) {
+            return Collections.emptyList();
+        }
+
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.eq(FIELD_COMPLETE, true));
+        if (idref != null) {
+            filters.add(Filters.eq(FIELD_IDREF, idref));
+        }
+        if (minLast != null) {
+            filters.add(Filters.gte("last", minLast));
+        }
+        if (maxFirst != null) {
+            filters.add(Filters.lte("first", maxFirst));
+        }
+        Bson sort = ascending ? Sorts.ascending("first", "_id") : Sorts.descending("first", "_id");
+        return segmentCollection.find(Filters.and(filters)).sort(sort).into(new ArrayList<>());
+    }
+
+    /**
+     * Finds the index document of the complete segment of a certain component with the smallest or biggest value.
+     *
+     * @param idref   The idref of the component
+     * @param maximum True, if the segment with the biggest value is requested; false for the smallest value
+     * @return The index document of the segment or null, if no segments exist
+     */
+    Document findExtremeSegment(String idref, boolean maximum) {
+        if (!hasSegments(idref)) {
+            return null;
+        }
+        String statsField = ValueLogBucketCodec.FIELD_STATS + "." + (maximum ? "max" : "min");
+        return segmentCollection.find(Filters.and(Filters.eq(FIELD_IDREF, idref), Filters.eq(FIELD_COMPLETE, true)))
+                .sort(maximum ? Sorts.descending(statsField) : Sorts.ascending(statsField)).first();
+    }
+
+    /**
+     * Returns the start of the time range of the oldest complete segment (epoch seconds).
+     *
+     * @return The start or null, if no segments exist
+     */
+    Long findEarliestFirst() {
+        if (isEmpty()) {
+            return null;
+        }
+        Document segment = segmentCollection.find(Filters.eq(FIELD_COMPLETE, true)).sort(Sorts.ascending("first")).first();
+        return (segment == null) ? null : ((Number) segment.get("first")).longValue();
+    }
+
+    /**
+     * Reads all buckets of a given segment from its file.
+     *
+     * @param segment The index document of the segment
+     * @return The buckets of the segment in chronological order
+     */
+    List<Document> readBuckets(Document segment) {
+        List<Document> buckets = new ArrayList<>();
+        Path file = directory.resolve(segment.getString(FIELD_FILE));
+        try (DataInputStream inputStream = new DataInputStream(new GZIPInputStream(new BufferedInputStream(
+                Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+            Document bucket;
+            while ((bucket = readBucket(inputStream)) != null) {
+                buckets.add(bucket);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive segment " + file + ".", e);
+        }
+        return buckets;
+    }
+
+    /**
+     * Returns an iterator over the buckets of all complete segments of a certain component that overlap with a
+     * given time range. The segment files are read lazily, one after another.
+     *
+     * @param idref     The idref of the component
+     * @param minLast   The minimum end of the time range of the buckets (epoch seconds) or null, if unbounded
+     * @param maxFirst  The maximum start of the time range of the buckets (epoch seconds) or null, if unbounded
+     * @param ascending True, if the buckets are to be returned in ascending order of time; false otherwise
+     * @return The iterator over the buckets
+     */
+    Iterator<Document> iterateBuckets(String idref, Long minLast, Long maxFirst, boolean ascending) {
+        Iterator<Document> segments = findSegments(idref, minLast, maxFirst, ascending).iterator();
+        return new Iterator<Document>() {
+            private Iterator<Document> buckets = Collections.emptyIterator();
+            private Document next = null;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (buckets.hasNext()) {
+                        Document bucket = buckets.next();
+                        if (((minLast == null) || (((Number) bucket.get("last")).longValue() >= minLast))
+                                && ((maxFirst == null) || (((Number) bucket.get("first")).longValue() <= maxFirst))) {
+                            next = bucket;
+                        }
+                    } else if (segments.hasNext()) {
+                        List<Document> segmentBuckets = readBuckets(segments.next());
+                        if (!ascending) {
+                            Collections.reverse(segmentBuckets);
+                        }
+                        buckets = segmentBuckets.iterator();
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Document next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Document bucket = next;
+                next = null;
+                return bucket;
+            }
+        };
+    }
+
+    /**
+     * Deletes all segments of a certain component, including their files.
+     *
+     * @param idref The idref of the component
+     */
+    void deleteByIdRef(String idref) {
+        segmentCollection.deleteMany(Filters.eq(FIELD_IDREF, idref));
+        archivedIdRefs.remove(idref);
+
+        Path componentDirectory = directory.resolve(toDirectoryName(idref));
+        if (!Files.isDirectory(componentDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(componentDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(componentDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete archive segments of component " + idref + ".", e);
+        }
+    }
+
+    /**
+     * Deletes the file of a given segment, if it exists.
+     *
+     * @param segment The index document of the segment
+     */
+    private void deleteFile(Document segment) {
+        try {
+            Files.deleteIfExists(directory.resolve(segment.getString(FIELD_FILE)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete archive segment " + segment.getString(FIELD_FILE) + ".", e);
+        }
+    }
+
+    /**
+     * Reads the next bucket from the stream of a segment file. Each bucket is stored as BSON document, which
+     * starts with its total length as 32 bit little-endian integer.
+     *
+     * @param inputStream The stream to read from
+     * @return The bucket or null, if the end of the stream was reached
+     * @throws IOException In case the stream could not be read or is truncated
+     */
+    private static Document readBucket(DataInputStream inputStream) throws IOException {
+        int firstByte = inputStream.read();
+        if (firstByte < 0) {
+            return null;
+        }
+        byte[] lengthBytes = new byte[4];
+        lengthBytes[0] = (byte) firstByte;
+        inputStream.readFully(lengthBytes, 1, 3);
+        int length = (lengthBytes[0] & 0xFF) | ((lengthBytes[1] & 0xFF) << 8)
+                | ((lengthBytes[2] & 0xFF) << 16) | ((lengthBytes[3] & 0xFF) << 24);
+        if (length < 5) {
+            throw new EOFException("Invalid document length " + length + ".");
+        }
+
+        byte[] bytes = new byte[length];
+        System.arraycopy(lengthBytes, 0, bytes, 0, 4);
+        inputStream.readFully(bytes, 4, length - 4);
+        return new RawBsonDocument(bytes).decode(DOCUMENT_CODEC);
+    }
+
+    /**
+     * Encodes a bucket as BSON document.
+     *
+     * @param bucket The bucket to encode
+     * @return The BSON bytes
+     */
+    private static byte[] toBytes(Document bucket) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            DOCUMENT_CODEC.encode(writer, bucket, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Maps the idref of a component to the name of its directory within the archive.
+     *
+     * @param idref The idref of the component
+     * @return The directory name
+     */
+    private static String toDirectoryName(String idref) {
+        return idref.replaceAll("[^A-Za-z0-9@._-]", "_");
+    }
+}
@@ -0,0 +1,164 @@
+package org.citopt.connde.repository;
+
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory cache that maps the idrefs of components to the document (bucket) of the value log collection that is
+ * currently open for further values, together with its number of values. The cache allows writers to address the
+ * open bucket directly by its id and to roll over to a new bucket on the client side once the bucket is full.
+ * The counts are only a local view; writers still need to guard their updates against buckets that were filled
+ * concurrently by other application instances.
+ */
+class ValueLogBucketCache {
+    //Map (idref --> open bucket) of cached buckets
+    private final Map<String, OpenBucket> openBuckets = new ConcurrentHashMap<>();
+
+    //Maximum number of values per bucket
+    private final int bucketCapacity;
+
+    //Function for loading the open bucket of a component from the database in case of a cache miss
+    private final Function<String, OpenBucket> loader;
+
+    /**
+     * Creates a new bucket cache.
+     *
+     * @param bucketCapacity The maximum number of values per bucket
+     * @param loader         Function that loads the open bucket of a component from the database; may return null
+     *                       if the component has no open bucket
+     */
+    ValueLogBucketCache(int bucketCapacity, Function<String, OpenBucket> loader) {
+        this.bucketCapacity = bucketCapacity;
+        this.loader = loader;
+    }
+
+    /**
+     * Reserves space for a given number of values of a certain component. The values are assigned to the currently
+     * open bucket as long as it has space left; the remaining values are assigned to newly created bucket ids.
+     *
+     * @param idref The idref of the component
+     * @param count The number of values to reserve space for
+     * @return The list of reserved slots, in the order in which the values are supposed to be distributed
+     */
+    List<Slot> reserve(String idref, int count) {
+        OpenBucket bucket = openBuckets.get(idref);
+
+        //Load bucket from database on cache miss
+        if (bucket == null) {
+            OpenBucket loadedBucket = loader.apply(idref);
+            if (loadedBucket == null) {
+                loadedBucket = new OpenBucket(new ObjectId(), 0);
+            }
+            OpenBucket existingBucket = openBuckets.putIfAbsent(idref, loadedBucket);
+            bucket = (existingBucket == null) ? loadedBucket : existingBucket;
+        }
+
+        List<Slot> slots = new ArrayList<>();
+        synchronized (bucket) {
+            int remaining = count;
+            while (remaining > 0) {
+                //Roll over to a new bucket if the current one is full
+                if (bucket.count >= bucketCapacity) {
+                    bucket.id = new ObjectId();
+                    bucket.count = 0;
+                }
+
+                //Assign as many values as possible to the current bucket
+                int assigned = Math.min(remaining, bucketCapacity - bucket.count);
+                slots.add(new Slot(bucket.id, assigned));
+                bucket.count += assigned;
+                remaining -= assigned;
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Stores the open bucket of a certain component in the cache.
+     *
+     * @param idref    The idref of the component
+     * @param bucketId The id of the open bucket
+     * @param count    The number of values within the open bucket
+     */
+    void put(String idref, ObjectId bucketId, int count) {
+        openBuckets.put(idref, new OpenBucket(bucketId, count));
+    }
+
+    /**
+     * Removes the cached bucket of a certain component, so that it is loaded from the database again on the
+     * next write.
+     *
+     * @param idref The idref of the component
+     */
+    void invalidate(String idref) {
+        openBuckets.remove(idref);
+    }
+
+    /**
+     * Removes all cached buckets.
+     */
+    void clear() {
+        openBuckets.clear();
+    }
+
+    /**
+     * Mutable cache entry describing the open bucket of a component.
+     */
+    static class OpenBucket {
+        private ObjectId id;
+        private int count;
+
+        /**
+         * Creates a new cache entry.
+         *
+         * @param id    The id of the bucket
+         * @param count The number of values within the bucket
+         */
+        OpenBucket(ObjectId id, int count) {
+            this.id = id;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Reserved space within a certain bucket.
+     */
+    static class Slot {
+        private final ObjectId bucketId;
+        private final int count;
+
+        /**
+         * Creates a new slot.
+         *
+         * @param bucketId The id of the bucket
+         * @param count    The number of values reserved within the bucket
+         */
+        Slot(ObjectId bucketId, int count) {
+            this.bucketId = bucketId;
+            this.count = count;
+        }
+
+        /**
+         * Returns the id of the bucket.
+         *
+         * @return The bucket id
+         */
+        ObjectId getBucketId() {
+            return bucketId;
+        }
+
+        /**
+         * Returns the number of values reserved within the bucket.
+         *
+         * @return The number of reserved values
+         */
+        int getCount() {
+            return count;
+        }
+    }
+}
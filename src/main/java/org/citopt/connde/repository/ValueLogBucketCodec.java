@@ -0,0 +1,574 @@
+package org.citopt.connde.repository;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Converts documents (buckets) of the value log collection between the row format, in which each value log is stored
+ * as a separate sub-document within the "values" array, and the compressed columnar format. Columnar buckets store
+ * the fields that are identical for all value logs of the bucket only once, the receive times as delta-of-delta
+ * encoded bit stream and the values as XOR-compressed bit stream (as described in "Gorilla: A Fast, Scalable,
+ * In-Memory Time Series Database" by Pelkonen et al.).
+ */
+final class ValueLogBucketCodec {
+    //Schema versions; open row buckets do not have a schema field, full row buckets that cannot be converted have 1
+    static final int SCHEMA_ROW = 1;
+    static final int SCHEMA_COLUMNAR = 2;
+
+    //Field names of the bucket documents
+    static final String FIELD_SCHEMA = "schema";
+    static final String FIELD_VALUES = "values";
+    static final String FIELD_TIMES_COLUMN = "times";
+    static final String FIELD_VALUES_COLUMN = "vals";
+    static final String FIELD_STATS = "stats";
+    static final String FIELD_STATS_COMPLETE = "statsComplete";
+
+    private ValueLogBucketCodec() {
+
+    }
+
+    /**
+     * Checks whether a given bucket document is stored in the columnar format.
+     *
+     * @param bucket The bucket document to check
+     * @return True, if the bucket is columnar; false otherwise
+     */
+    static boolean isColumnar(Document bucket) {
+        Object schema = bucket.get(FIELD_SCHEMA);
+        return (schema instanceof Number) && (((Number) schema).intValue() == SCHEMA_COLUMNAR);
+    }
+
+    /**
+     * Converts a bucket document in row format to a bucket document in columnar format. The id, idref, time range
+     * and number of values are taken over. Conversion is only possible if topic, component type and QoS are
+     * identical for all value logs of the bucket; the raw messages of the value logs are not retained.
+     *
+     * @param rowBucket The bucket in row format
+     * @return The bucket in columnar format or null, if the bucket cannot be converted
+     */
+    static Document toColumnar(Document rowBucket) {
+        List<ValueLog> valueLogs = decode(rowBucket);
+        if (valueLogs.isEmpty()) {
+            return null;
+        }
+
+        //Per-bucket constants must be identical for all value logs
+        ValueLog reference = valueLogs.get(0);
+        for (ValueLog valueLog : valueLogs) {
+            if (!Objects.equals(valueLog.getTopic(), reference.getTopic())
+                    || !Objects.equals(valueLog.getComponent(), reference.getComponent())
+                    || !Objects.equals(valueLog.getQos(), reference.getQos())
+                    || (valueLog.getTime() == null)) {
+                return null;
+            }
+        }
+
+        return encodeColumnar(rowBucket.get("_id"), rowBucket.getString("idref"), rowBucket.get("first"),
+                rowBucket.get("last"), valueLogs);
+    }
+
+    /**
+     * Encodes a list of value logs of a certain component as document in columnar format. All value logs must
+     * share the same topic, component type and QoS and must have a time.
+     *
+     * @param id        The id of the document
+     * @param idref     The idref of the component
+     * @param first     The start of the time range of the document (epoch seconds)
+     * @param last      The end of the time range of the document (epoch seconds)
+     * @param valueLogs The value logs to encode in chronological order
+     * @return The document in columnar format
+     */
+    static Document encodeColumnar(Object id, String idref, Object first, Object last, List<ValueLog> valueLogs) {
+        ValueLog reference = valueLogs.get(0);
+
+        //Encode columns
+        BitWriter timeWriter = new BitWriter();
+        BitWriter valueWriter = new BitWriter();
+        TimestampEncoder timestampEncoder = new TimestampEncoder(timeWriter);
+        ValueEncoder valueEncoder = new ValueEncoder(valueWriter);
+        for (ValueLog valueLog : valueLogs) {
+            timestampEncoder.write(valueLog.getTime().toEpochMilli());
+            valueEncoder.write(valueLog.getValue());
+        }
+
+        //Build columnar document
+        Document columnarBucket = new Document("_id", id);
+        columnarBucket.append("idref", idref);
+        columnarBucket.append(FIELD_SCHEMA, SCHEMA_COLUMNAR);
+        columnarBucket.append("first", first);
+        columnarBucket.append("last", last);
+        columnarBucket.append("nvalues", valueLogs.size());
+        columnarBucket.append("topic", reference.getTopic());
+        columnarBucket.append("component", reference.getComponent());
+        columnarBucket.append("qos", reference.getQos());
+        columnarBucket.append(FIELD_TIMES_COLUMN, new Binary(timeWriter.toByteArray()));
+        columnarBucket.append(FIELD_VALUES_COLUMN, new Binary(valueWriter.toByteArray()));
+        columnarBucket.append(FIELD_STATS, computeStats(valueLogs));
+        columnarBucket.append(FIELD_STATS_COMPLETE, true);
+        return columnarBucket;
+    }
+
+    /**
+     * Computes the running statistics (count, sum, sum of squares, minimum and maximum) of a list of value logs
+     * in the form in which they are stored within the bucket documents.
+     *
+     * @param valueLogs The value logs to compute the statistics for
+     * @return The statistics document
+     */
+    static Document computeStats(List<ValueLog> valueLogs) {
+        ValueLogRollup rollup = new ValueLogRollup();
+        for (ValueLog valueLog : valueLogs) {
+            rollup.add(valueLog.getValue());
+        }
+        return new Document("count", rollup.getCount())
+                .append("sum", rollup.getSum())
+                .append("sumsq", rollup.getSumOfSquares())
+                .append("min", rollup.getMin())
+                .append("max", rollup.getMax());
+    }
+
+    /**
+     * Reads the running statistics of a given bucket document. Statistics are only available if they were
+     * maintained for all values of the bucket, i.e. not for buckets that were created by older versions.
+     *
+     * @param bucket The bucket document to read the statistics from
+     * @return The statistics as rollup or null, if no complete statistics are available
+     */
+    static ValueLogRollup readStats(Document bucket) {
+        Object stats = bucket.get(FIELD_STATS);
+        if (!Boolean.TRUE.equals(bucket.get(FIELD_STATS_COMPLETE)) || !(stats instanceof Document)) {
+            return null;
+        }
+
+        Document statsDocument = (Document) stats;
+        ValueLogRollup rollup = new ValueLogRollup(bucket.getString("idref"), null);
+        rollup.setCount(((Number) statsDocument.get("count")).longValue());
+        rollup.setSum(((Number) statsDocument.get("sum")).doubleValue());
+        rollup.setSumOfSquares(((Number) statsDocument.get("sumsq")).doubleValue());
+        rollup.setMin(((Number) statsDocument.get("min")).doubleValue());
+        rollup.setMax(((Number) statsDocument.get("max")).doubleValue());
+
+        //Running statistics do not contain the sum of squared deviations, so derive it from the sums
+        rollup.setSumOfSquaredDeviations(Double.NaN);
+        return rollup;
+    }
+
+    /**
+     * Decodes the value logs of a given bucket document, regardless of whether it is stored in row or in
+     * columnar format. The value logs are returned in the order in which they are stored within the bucket.
+     *
+     * @param bucket The bucket document to decode
+     * @return The list of value logs
+     */
+    @SuppressWarnings("unchecked")
+    static List<ValueLog> decode(Document bucket) {
+        //Columnar format
+        if (isColumnar(bucket)) {
+            return decodeColumnar(bucket);
+        }
+
+        //Row format
+        List<ValueLog> valueLogs = new ArrayList<>();
+        Object values = bucket.get(FIELD_VALUES);
+        if (values instanceof List) {
+            for (Object value : (List<Object>) values) {
+                if (value instanceof Document) {
+                    valueLogs.add(toValueLog((Document) value));
+                }
+            }
+        }
+        return valueLogs;
+    }
+
+    /**
+     * Decodes the receive times and values of a given bucket document directly into a series, without creating
+     * value log objects. Only the values that were received within a given time range are appended, in the order
+     * in which they are stored within the bucket.
+     *
+     * @param bucket     The bucket document to decode
+     * @param fromMillis The inclusive start of the time range in epoch milliseconds
+     * @param toMillis   The exclusive end of the time range in epoch milliseconds
+     * @param series     The series to append the values to
+     */
+    @SuppressWarnings("unchecked")
+    static void decodeSeries(Document bucket, long fromMillis, long toMillis, ValueLogSeries series) {
+        //Columnar format
+        if (isColumnar(bucket)) {
+            int count = ((Number) bucket.get("nvalues")).intValue();
+            TimestampDecoder timestampDecoder = new TimestampDecoder(new BitReader(((Binary) bucket.get(FIELD_TIMES_COLUMN)).getData()));
+            ValueDecoder valueDecoder = new ValueDecoder(new BitReader(((Binary) bucket.get(FIELD_VALUES_COLUMN)).getData()));
+            for (int i = 0; i < count; i++) {
+                long time = timestampDecoder.read();
+                double value = valueDecoder.read();
+                if ((time >= fromMillis) && (time < toMillis)) {
+                    series.add(time, value);
+                }
+            }
+            return;
+        }
+
+        //Row format
+        Object values = bucket.get(FIELD_VALUES);
+        if (!(values instanceof List)) {
+            return;
+        }
+        for (Object entry : (List<Object>) values) {
+            if (!(entry instanceof Document)) {
+                continue;
+            }
+            Object time = ((Document) entry).get("time");
+            Object value = ((Document) entry).get("value");
+            if (time instanceof Date) {
+                long millis = ((Date) time).getTime();
+                if ((millis >= fromMillis) && (millis < toMillis)) {
+                    series.add(millis, (value instanceof Number) ? ((Number) value).doubleValue() : 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a bound of a time range to the smallest number of epoch milliseconds that does not lie before it,
+     * so that receive times with millisecond precision can be compared against the bound directly.
+     *
+     * @param instant   The bound of the time range or null, if unbounded
+     * @param unbounded The value to return for unbounded sides
+     * @return The bound in epoch milliseconds
+     */
+    static long toMillisBound(Instant instant, long unbounded) {
+        if (instant == null) {
+            return unbounded;
+        }
+        long millis = instant.toEpochMilli();
+        return ((instant.getNano() % 1_000_000) == 0) ? millis : millis + 1;
+    }
+
+    /**
+     * Decodes the value logs of a bucket document in columnar format.
+     *
+     * @param bucket The bucket document to decode
+     * @return The list of value logs
+     */
+    private static List<ValueLog> decodeColumnar(Document bucket) {
+        int count = ((Number) bucket.get("nvalues")).intValue();
+        String idref = bucket.getString("idref");
+        String topic = bucket.getString("topic");
+        String component = bucket.getString("component");
+        Integer qos = bucket.getInteger("qos");
+
+        //Create readers for both columns
+        TimestampDecoder timestampDecoder = new TimestampDecoder(new BitReader(((Binary) bucket.get(FIELD_TIMES_COLUMN)).getData()));
+        ValueDecoder valueDecoder = new ValueDecoder(new BitReader(((Binary) bucket.get(FIELD_VALUES_COLUMN)).getData()));
+
+        //Decode all value logs
+        List<ValueLog> valueLogs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ValueLog valueLog = new ValueLog();
+            valueLog.setIdref(idref);
+            valueLog.setTopic(topic);
+            valueLog.setComponent(component);
+            valueLog.setQos(qos);
+            valueLog.setTime(Instant.ofEpochMilli(timestampDecoder.read()));
+            valueLog.setValue(valueDecoder.read());
+            valueLogs.add(valueLog);
+        }
+        return valueLogs;
+    }
+
+    /**
+     * Converts a value log sub-document of a row bucket to a value log object.
+     *
+     * @param document The sub-document to convert
+     * @return The resulting value log
+     */
+    private static ValueLog toValueLog(Document document) {
+        ValueLog valueLog = new ValueLog();
+
+        //Receive time is stored as date
+        Object time = document.get("time");
+        if (time instanceof Date) {
+            valueLog.setTime(((Date) time).toInstant());
+        }
+
+        //Value is stored as number
+        Object value = document.get("value");
+        if (value instanceof Number) {
+            valueLog.setValue(((Number) value).doubleValue());
+        }
+
+        valueLog.setQos(document.getInteger("qos"));
+        valueLog.setTopic(document.getString("topic"));
+        valueLog.setMessage(document.getString("message"));
+        valueLog.setIdref(document.getString("idref"));
+        valueLog.setComponent(document.getString("component"));
+        return valueLog;
+    }
+
+    /**
+     * Delta-of-delta encoder for timestamps. The first timestamp is stored with 64 bits, all following timestamps
+     * as difference between their delta and the previous delta with a variable number of bits.
+     */
+    private static class TimestampEncoder {
+        private final BitWriter writer;
+        private long previousTimestamp;
+        private long previousDelta;
+        private boolean first = true;
+
+        TimestampEncoder(BitWriter writer) {
+            this.writer = writer;
+        }
+
+        void write(long timestamp) {
+            if (first) {
+                writer.writeBits(timestamp, 64);
+                previousTimestamp = timestamp;
+                first = false;
+                return;
+            }
+
+            long delta = timestamp - previousTimestamp;
+            long deltaOfDelta = delta - previousDelta;
+            previousTimestamp = timestamp;
+            previousDelta = delta;
+
+            //Choose the smallest representation
+            if (deltaOfDelta == 0) {
+                writer.writeBit(false);
+            } else if (fitsInBits(deltaOfDelta, 7)) {
+                writer.writeBits(0b10, 2);
+                writer.writeBits(deltaOfDelta, 7);
+            } else if (fitsInBits(deltaOfDelta, 9)) {
+                writer.writeBits(0b110, 3);
+                writer.writeBits(deltaOfDelta, 9);
+            } else if (fitsInBits(deltaOfDelta, 12)) {
+                writer.writeBits(0b1110, 4);
+                writer.writeBits(deltaOfDelta, 12);
+            } else {
+                writer.writeBits(0b1111, 4);
+                writer.writeBits(deltaOfDelta, 64);
+            }
+        }
+
+        private static boolean fitsInBits(long value, int bits) {
+            long limit = 1L << (bits - 1);
+            return (value >= -limit) && (value < limit);
+        }
+    }
+
+    /**
+     * Decoder for timestamps that were encoded by the delta-of-delta encoder.
+     */
+    private static class TimestampDecoder {
+        private final BitReader reader;
+        private long previousTimestamp;
+        private long previousDelta;
+        private boolean first = true;
+
+        TimestampDecoder(BitReader reader) {
+            this.reader = reader;
+        }
+
+        long read() {
+            if (first) {
+                previousTimestamp = reader.readBits(64);
+                first = false;
+                return previousTimestamp;
+            }
+
+            //Determine number of bits from control prefix
+            long deltaOfDelta;
+            if (!reader.readBit()) {
+                deltaOfDelta = 0;
+            } else if (!reader.readBit()) {
+                deltaOfDelta = reader.readSignedBits(7);
+            } else if (!reader.readBit()) {
+                deltaOfDelta = reader.readSignedBits(9);
+            } else if (!reader.readBit()) {
+                deltaOfDelta = reader.readSignedBits(12);
+            } else {
+                deltaOfDelta = reader.readBits(64);
+            }
+
+            previousDelta += deltaOfDelta;
+            previousTimestamp += previousDelta;
+            return previousTimestamp;
+        }
+    }
+
+    /**
+     * XOR encoder for double values. Each value is XORed with its predecessor and only the meaningful bits of the
+     * result are stored, re-using the previous block position if possible.
+     */
+    private static class ValueEncoder {
+        private final BitWriter writer;
+        private long previousBits;
+        private int previousLeadingZeros = Integer.MAX_VALUE;
+        private int previousTrailingZeros = 0;
+        private boolean first = true;
+
+        ValueEncoder(BitWriter writer) {
+            this.writer = writer;
+        }
+
+        void write(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            if (first) {
+                writer.writeBits(bits, 64);
+                previousBits = bits;
+                first = false;
+                return;
+            }
+
+            long xor = bits ^ previousBits;
+            previousBits = bits;
+
+            //Identical value
+            if (xor == 0) {
+                writer.writeBit(false);
+                return;
+            }
+            writer.writeBit(true);
+
+            int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailingZeros = Long.numberOfTrailingZeros(xor);
+
+            //Re-use previous block if the meaningful bits fit into it
+            if ((leadingZeros >= previousLeadingZeros) && (trailingZeros >= previousTrailingZeros)) {
+                writer.writeBit(false);
+                writer.writeBits(xor >>> previousTrailingZeros, 64 - previousLeadingZeros - previousTrailingZeros);
+                return;
+            }
+
+            //Write new block position
+            int meaningfulBits = 64 - leadingZeros - trailingZeros;
+            writer.writeBit(true);
+            writer.writeBits(leadingZeros, 5);
+            writer.writeBits(meaningfulBits - 1, 6);
+            writer.writeBits(xor >>> trailingZeros, meaningfulBits);
+            previousLeadingZeros = leadingZeros;
+            previousTrailingZeros = trailingZeros;
+        }
+    }
+
+    /**
+     * Decoder for double values that were encoded by the XOR encoder.
+     */
+    private static class ValueDecoder {
+        private final BitReader reader;
+        private long previousBits;
+        private int previousLeadingZeros;
+        private int previousTrailingZeros;
+        private boolean first = true;
+
+        ValueDecoder(BitReader reader) {
+            this.reader = reader;
+        }
+
+        double read() {
+            if (first) {
+                previousBits = reader.readBits(64);
+                first = false;
+                return Double.longBitsToDouble(previousBits);
+            }
+
+            //Identical value
+            if (!reader.readBit()) {
+                return Double.longBitsToDouble(previousBits);
+            }
+
+            //Read new block position if necessary
+            if (reader.readBit()) {
+                previousLeadingZeros = (int) reader.readBits(5);
+                int meaningfulBits = (int) reader.readBits(6) + 1;
+                previousTrailingZeros = 64 - previousLeadingZeros - meaningfulBits;
+            }
+
+            int meaningfulBits = 64 - previousLeadingZeros - previousTrailingZeros;
+            long xor = reader.readBits(meaningfulBits) << previousTrailingZeros;
+            previousBits ^= xor;
+            return Double.longBitsToDouble(previousBits);
+        }
+    }
+
+    /**
+     * Writes a stream of bits into a growing byte array.
+     */
+    private static class BitWriter {
+        private byte[] buffer = new byte[64];
+        private int bitPosition = 0;
+
+        void writeBit(boolean bit) {
+            ensureCapacity(1);
+            if (bit) {
+                buffer[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+            }
+            bitPosition++;
+        }
+
+        void writeBits(long value, int count) {
+            ensureCapacity(count);
+            for (int i = count - 1; i >= 0; i--) {
+                if (((value >>> i) & 1L) != 0) {
+                    buffer[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+                }
+                bitPosition++;
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[(bitPosition + 7) >>> 3];
+            System.arraycopy(buffer, 0, result, 0, result.length);
+            return result;
+        }
+
+        private void ensureCapacity(int additionalBits) {
+            int requiredBytes = ((bitPosition + additionalBits) >>> 3) + 1;
+            if (requiredBytes > buffer.length) {
+                byte[] newBuffer = new byte[Math.max(requiredBytes, buffer.length * 2)];
+                System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
+                buffer = newBuffer;
+            }
+        }
+    }
+
+    /**
+     * Reads a stream of bits from a byte array.
+     */
+    private static class BitReader {
+        private final byte[] buffer;
+        private int bitPosition = 0;
+
+        BitReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean readBit() {
+            boolean bit = (buffer[bitPosition >>> 3] & (0x80 >>> (bitPosition & 7))) != 0;
+            bitPosition++;
+            return bit;
+        }
+
+        long readBits(int count) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value = (value << 1) | (readBit() ? 1L : 0L);
+            }
+            return value;
+        }
+
+        long readSignedBits(int count) {
+            long value = readBits(count);
+            //Sign extension
+            return (value << (64 - count)) >> (64 - count);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.citopt.connde.repository;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position within the value logs of a component for keyset pagination. The value logs are ordered by their
+ * receive time, the id of the document (bucket) that contains them and their index within this document.
+ * Positions are passed to clients as opaque continuation tokens.
+ */
+class ValueLogCursor implements Comparable<ValueLogCursor> {
+    //Version prefix of the token format
+    private static final String TOKEN_VERSION = "v1";
+
+    //Separator of the token fields
+    private static final String TOKEN_SEPARATOR = "|";
+
+    //Key of the position
+    private final Instant time;
+    private final ObjectId bucketId;
+    private final int index;
+
+    //Sort direction the position refers to
+    private final boolean ascending;
+
+    /**
+     * Creates a new position.
+     *
+     * @param time      The receive time of the value log
+     * @param bucketId  The id of the document that contains the value log
+     * @param index     The index of the value log within the document
+     * @param ascending True, if the value logs are sorted in ascending order; false otherwise
+     */
+    ValueLogCursor(Instant time, ObjectId bucketId, int index, boolean ascending) {
+        this.time = time;
+        this.bucketId = bucketId;
+        this.index = index;
+        this.ascending = ascending;
+    }
+
+    /**
+     * Encodes the position as opaque continuation token.
+     *
+     * @return The token
+     */
+    String encode() {
+        String plain = String.join(TOKEN_SEPARATOR, TOKEN_VERSION, ascending ? "asc" : "desc",
+                Long.toString(time.getEpochSecond()), Integer.toString(time.getNano()),
+                bucketId.toHexString(), Integer.toString(index));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token that was previously created by {@link #encode()}.
+     *
+     * @param token The token to decode
+     * @return The position
+     * @throws IllegalArgumentException In case the token is malformed
+     */
+    static ValueLogCursor decode(String token) {
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] fields = plain.split("\\|");
+            if ((fields.length != 6) || !TOKEN_VERSION.equals(fields[0])) {
+                throw new IllegalArgumentException("Unsupported cursor format.");
+            }
+
+            Instant time = Instant.ofEpochSecond(Long.parseLong(fields[2]), Integer.parseInt(fields[3]));
+            return new ValueLogCursor(time, new ObjectId(fields[4]), Integer.parseInt(fields[5]), "asc".equals(fields[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    /**
+     * Compares this position with another position in ascending order of time, document id and index.
+     *
+     * @param other The position to compare with
+     * @return A negative integer, zero or a positive integer as this position is before, equal to or after the
+     * other position
+     */
+    @Override
+    public int compareTo(ValueLogCursor other) {
+        int result = time.compareTo(other.time);
+        if (result == 0) {
+            result = bucketId.compareTo(other.bucketId);
+        }
+        if (result == 0) {
+            result = Integer.compare(index, other.index);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the receive time of the value log.
+     *
+     * @return The receive time
+     */
+    Instant getTime() {
+        return time;
+    }
+
+    /**
+     * Returns whether the value logs are sorted in ascending order.
+     *
+     * @return True, if ascending; false otherwise
+     */
+    boolean isAscending() {
+        return ascending;
+    }
+}
@@ -0,0 +1,129 @@
+package org.citopt.connde.repository;
+
+import org.citopt.connde.domain.valueLog.ValueLogInterval;
+import org.citopt.connde.domain.valueLog.ValueLogIntervalSearchResult;
+import org.citopt.connde.domain.valueLog.ValueLogPredicate;
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the time intervals in which consecutive values of a component satisfy a given predicate, while the
+ * buckets of the component are visited in chronological order. Buckets whose value ranges show that none of their
+ * values can satisfy the predicate are reported as pruned without being decoded; since they contain at least one
+ * value, they terminate the current interval.
+ */
+final class ValueLogIntervalCollector {
+    //Predicate to evaluate and maximum number of intervals
+    private final ValueLogPredicate predicate;
+    private final int maxIntervals;
+
+    //Completed intervals
+    private final List<ValueLogInterval> intervals = new ArrayList<>();
+    private boolean truncated = false;
+
+    //Interval that is currently open
+    private boolean open = false;
+    private long openStart;
+    private long openEnd;
+    private long openCount;
+    private double openMin;
+    private double openMax;
+
+    //Number of decoded and pruned buckets
+    private long decodedBuckets = 0;
+    private long prunedBuckets = 0;
+
+    /**
+     * Creates a new collector.
+     *
+     * @param predicate    The predicate the values need to satisfy
+     * @param maxIntervals The maximum number of intervals to collect
+     */
+    ValueLogIntervalCollector(ValueLogPredicate predicate, int maxIntervals) {
+        this.predicate = predicate;
+        this.maxIntervals = maxIntervals;
+    }
+
+    /**
+     * Checks whether a bucket with a given value range needs to be decoded.
+     *
+     * @param min The smallest value of the bucket
+     * @param max The biggest value of the bucket
+     * @return True, if the bucket may contain matching values; false otherwise
+     */
+    boolean isCandidate(double min, double max) {
+        return predicate.mayMatch(min, max);
+    }
+
+    /**
+     * Reports a bucket that was skipped since none of its values satisfy the predicate.
+     */
+    void addPrunedBucket() {
+        prunedBuckets++;
+        closeInterval();
+    }
+
+    /**
+     * Reports the values of a decoded bucket that lie within the requested time range.
+     *
+     * @param series The values of the bucket in chronological order
+     */
+    void addSeries(ValueLogSeries series) {
+        decodedBuckets++;
+        long[] times = series.getTimes();
+        double[] values = series.getValues();
+        for (int i = 0; (i < series.size()) && !truncated; i++) {
+            double value = values[i];
+            if (!predicate.test(value)) {
+                closeInterval();
+            } else if (open) {
+                openEnd = times[i];
+                openCount++;
+                openMin = Math.min(openMin, value);
+                openMax = Math.max(openMax, value);
+            } else {
+                open = true;
+                openStart = times[i];
+                openEnd = times[i];
+                openCount = 1;
+                openMin = value;
+                openMax = value;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the maximum number of intervals was exceeded, so that no further buckets need to be visited.
+     *
+     * @return True, if the collection is complete; false otherwise
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Completes the interval that is currently open and returns the result of the search.
+     *
+     * @return The search result
+     */
+    ValueLogIntervalSearchResult finish() {
+        closeInterval();
+        return new ValueLogIntervalSearchResult(intervals, truncated, decodedBuckets, prunedBuckets);
+    }
+
+    private void closeInterval() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        if (intervals.size() >= maxIntervals) {
+            truncated = true;
+            return;
+        }
+        intervals.add(new ValueLogInterval(Instant.ofEpochMilli(openStart), Instant.ofEpochMilli(openEnd),
+                openCount, openMin, openMax));
+    }
+}
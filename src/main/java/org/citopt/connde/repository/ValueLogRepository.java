@@ -1,148 +1,117 @@
 package org.citopt.connde.repository;
 
-import com.mongodb.MongoClient;
-import com.mongodb.client.AggregateIterable;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
-import com.mongodb.client.model.Aggregates;
-import com.mongodb.client.model.Filters;
-import com.mongodb.client.model.UpdateOptions;
-import org.bson.Document;
-import org.bson.codecs.configuration.CodecRegistry;
-import org.bson.codecs.pojo.PojoCodecProvider;
-import org.bson.conversions.Bson;
-import org.citopt.connde.MongoConfiguration;
+import org.bson.types.ObjectId;
 import org.citopt.connde.domain.valueLog.ValueLog;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.citopt.connde.domain.valueLog.ValueLogCursorPage;
+import org.citopt.connde.domain.valueLog.ValueLogIntervalSearchResult;
+import org.citopt.connde.domain.valueLog.ValueLogPredicate;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
+import org.citopt.connde.exception.ValueLogWriteException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.stereotype.Component;
 
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
-
-import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
-import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+import java.util.function.DoubleUnaryOperator;
 
 /**
- * Represents a repository for persisting and querying value logs, powered by the MongoDB database. Since value
- * logs are time series data, a special way of storing the values is needed in order to preserve efficiency.
- * The approach implemented within this repository is described and recommended by the MongoDB blog post
- * "Time Series Data and MongoDB".
- * (https://www.mongodb.com/blog/post/time-series-data-and-mongodb-part-1-introduction)
+ * Interface for storage backends that persist and query the value logs of components. Since value logs are time
+ * series data, implementations are expected to store the value logs of a component in chronologically ordered
+ * buckets (documents, blocks, ...) of limited size, which can be pruned by their time ranges and addressed by ids.
+ * The backend that is supposed to be used is chosen by the value log storage configuration; the MongoDB-based
+ * implementation {@link MongoValueLogRepository} is the default.
+ * <p>
+ * All time ranges are given as inclusive start and exclusive end; null denotes an unbounded side. Value logs
+ * may be returned without their raw messages.
  */
-@Component
-public class ValueLogRepository {
-    //Name of the database to use for the value logs
-    private static final String DATABASE_NAME = MongoConfiguration.DB_NAME;
-
-    //Name of the collection to use for the value logs
-    private static final String COLLECTION_NAME = "mongoValueLogs";
-
-    //Name of the idref field
-    private static final String IDREF_FIELD_NAME = "idref";
+public interface ValueLogRepository {
 
-    //Number of value logs per document in the collection
-    private static final long VALUES_PER_DOCUMENT = 80;
-
-    //MongoDB bean to use
-    private MongoClient mongoClient;
+    /**
+     * Writes a given value log object into the repository.
+     *
+     * @param valueLog The value log to write
+     */
+    void write(ValueLog valueLog);
 
-    //Value log database and collection of the MongoDB
-    private MongoDatabase valueLogDatabase;
-    private MongoCollection<ValueLog> valueLogCollection;
+    /**
+     * Writes a collection of value log objects into the repository. The order of the value logs within a component
+     * is preserved.
+     *
+     * @param valueLogs The value logs to write
+     * @throws ValueLogWriteException In case some of the value logs could not be written; lists exactly these
+     */
+    void writeAll(Collection<ValueLog> valueLogs);
 
     /**
-     * Instantiates the repository by passing a reference to the MongoDB bean that is supposed to be used (auto-wired).
+     * Inserts the value logs of a certain component directly as closed buckets, which are never reopened for
+     * further values by regular writes. All value logs must be sorted chronologically and must share the same
+     * topic, component type and QoS.
      *
-     * @param mongoClient The MongoDB bean to use
+     * @param idref     The idref of the component
+     * @param valueLogs The value logs to insert
+     * @return The ids of the inserted buckets in chronological order
      */
-    @Autowired
-    private ValueLogRepository(MongoClient mongoClient) {
-        //Store reference to MongoDB bean
-        this.mongoClient = mongoClient;
+    List<ObjectId> insertClosedBuckets(String idref, List<ValueLog> valueLogs);
 
-        //Fetch coded registry for mapping value log objects from and to BSON documents
-        CodecRegistry codecRegistry = fromRegistries(MongoClient.getDefaultCodecRegistry(), fromProviders(PojoCodecProvider.builder().automatic(true).build()));
+    /**
+     * Checks whether buckets of a certain component exist that overlap with a given time range. The check is
+     * performed on the granularity of seconds.
+     *
+     * @param idref       The idref of the component
+     * @param from        The inclusive start of the time range
+     * @param to          The inclusive end of the time range
+     * @param excludedIds The ids of buckets to ignore
+     * @return True, if overlapping buckets exist; false otherwise
+     */
+    boolean hasBucketsInTimeRange(String idref, Instant from, Instant to, Collection<ObjectId> excludedIds);
 
-        //Get value log database and collection with codec registry
-        this.valueLogDatabase = mongoClient.getDatabase(DATABASE_NAME).withCodecRegistry(codecRegistry);
-        this.valueLogCollection = valueLogDatabase.getCollection(COLLECTION_NAME, ValueLog.class);
+    /**
+     * Converts a limited number of closed buckets to a more compact representation, if the backend supports this.
+     *
+     * @param maxDocuments The maximum number of buckets to convert within this call
+     * @return The number of buckets that were converted
+     */
+    default int compactClosedBuckets(int maxDocuments) {
+        return 0;
     }
 
     /**
-     * Writes a given value log object into the repository.
+     * Removes the oldest closed buckets of a certain component whose value logs were all received before a given
+     * point in time.
      *
-     * @param valueLog The value log to write
+     * @param idref          The idref of the component
+     * @param before         The point in time before which value logs expire
+     * @param maxDocuments   The maximum number of buckets to remove within this call
+     * @param archiveBuckets True, if the buckets are supposed to be archived, so that they remain available to
+     *                       queries; false, if they are to be deleted
+     * @return The number of buckets that were removed
      */
-    public void write(ValueLog valueLog) {
-        //Sanity check
-        if (valueLog == null) {
-            throw new IllegalArgumentException("Value log must not be null.");
-        }
-
-        //Get time from value log
-        ZonedDateTime valueLogTime = valueLog.getTime().atZone(ZoneId.systemDefault());
-
-        //Get epoch seconds from value log
-        long epochSeconds = valueLog.getTime().getEpochSecond();
-
-        //Filtering by idref and nvalues
-        Document filterQuery = new Document(IDREF_FIELD_NAME, valueLog.getIdref());
-        filterQuery.append("nvalues", new Document("$lt", VALUES_PER_DOCUMENT));
-
-        //Query for updating existing documents or creating new ones
-        Document updateQuery = new Document("$push", new Document("values", valueLog));
-        updateQuery.append("$min", new Document("first", epochSeconds));
-        updateQuery.append("$max", new Document("last", epochSeconds));
-        updateQuery.append("$inc", new Document("nvalues", 1));
+    int expireBuckets(String idref, Instant before, int maxDocuments, boolean archiveBuckets);
 
-        //Allow for creating new documents when VALUES_PER_DOCUMENT is reached
-        UpdateOptions updateOptions = new UpdateOptions();
-        updateOptions.upsert(true);
+    /**
+     * Resolves archive operations that were interrupted, if the backend supports archiving.
+     */
+    default void recoverArchive() {
 
-        //Perform update
-        this.valueLogCollection.updateOne(filterQuery, updateQuery, updateOptions);
     }
 
+    /**
+     * Returns the idrefs of all components for which value logs are stored.
+     *
+     * @return The list of idrefs
+     */
+    List<String> findAllIdRefs();
+
     /**
      * Finds and returns a list of value logs that match a certain id reference of a component.
      *
      * @param idref The idref to match
-     * @return The requested list of value logs
+     * @return The requested list of value logs in chronological order
      */
-    public List<ValueLog> findAllByIdRef(String idref) {
-        //Sanity check
-        if ((idref == null) || idref.isEmpty()) {
-            throw new IllegalArgumentException("Idref must not be null or empty.");
-        }
-
-        //Create result list
-        List<ValueLog> resultList = new ArrayList<>();
-
-        //Matching for idref
-        Bson matchStage = Aggregates.match(Filters.eq(IDREF_FIELD_NAME, idref));
-
-        //Unwinding
-        Bson unwindStage = Aggregates.unwind("$values");
-
-        //Replace root elements with value log sub-documents
-        Bson replaceRootStage = Aggregates.replaceRoot("$values");
-
-        //Perform aggregation
-        AggregateIterable<ValueLog> aggregateResult = this.valueLogCollection.aggregate(Arrays.asList(matchStage, unwindStage, replaceRootStage), ValueLog.class);
-
-        //Convert aggregation result to a list
-        aggregateResult.forEach((Consumer<ValueLog>) resultList::add);
-
-        return resultList;
-    }
+    List<ValueLog> findAllByIdRef(String idref);
 
     /**
      * Finds and returns a page of value logs that match a certain id reference of a component.
@@ -151,103 +120,166 @@ public class ValueLogRepository {
      * @param pageable The pageable describing the desired page of value logs
      * @return The requested page of value logs
      */
-    public Page<ValueLog> findAllByIdRef(String idref, Pageable pageable) {
-        //Sanity check
-        if ((idref == null) || idref.isEmpty()) {
-            throw new IllegalArgumentException("Idref must not be null or empty.");
-        }
-
-        //Create result list
-        List<ValueLog> resultList = new ArrayList<>();
-
-        //Get limit and offset from pageable
-        int limit = pageable.getPageSize();
-        int offset = pageable.getOffset();
-
-        //Check if values need to be retrieved
-        if (limit <= 0) {
-            return new PageImpl<>(resultList, pageable, 0);
-        }
-
-        //Get sort parameters from pageable
-        Sort sort = pageable.getSort();
+    Page<ValueLog> findAllByIdRef(String idref, Pageable pageable);
 
-        //Documents representing the desired sort direction
-        Document coarseSortDocument = new Document("first", -1);
-        Document fineSortDocument = new Document("time", -1);
-
-        //Iterate over all specified sort parameters
-        for (Sort.Order order : sort) {
-            //Only sorting for time property is supported, thus ignore the other ones
-            if (!order.getProperty().equals("time")) {
-                continue;
-            }
-
-            //Check sort direction and adjust document if necessary
-            if (order.isAscending()) {
-                coarseSortDocument = new Document("first", 1);
-                fineSortDocument = new Document("time", 1);
-            }
+    /**
+     * Finds and returns a page of value logs that match a certain id reference of a component and were received
+     * within a given time range.
+     *
+     * @param idref    The idref to match
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @param pageable The pageable describing the desired page of value logs
+     * @return The requested page of value logs
+     */
+    Page<ValueLog> findAllByIdRef(String idref, Instant from, Instant to, Pageable pageable);
 
-            //Only ordering for time is supported, so no need to consider other properties
-            break;
-        }
+    /**
+     * Finds and returns a page of value logs that match a certain id reference of a component and were received
+     * within a given time range by using keyset pagination. The total number of value logs within the time range
+     * is only determined for the first page, i.e. if no continuation token is given, since counting them takes
+     * time proportional to the size of the time range; further pages report
+     * {@link ValueLogCursorPage#UNKNOWN_TOTAL}.
+     *
+     * @param idref     The idref to match
+     * @param from      The inclusive start of the time range or null, if unbounded
+     * @param to        The exclusive end of the time range or null, if unbounded
+     * @param cursor    The continuation token of the previous page or null, if the first page is requested
+     * @param size      The maximum number of value logs of the page
+     * @param ascending True, if the value logs are to be sorted in ascending order of time; false otherwise.
+     *                  Ignored if a continuation token is given, since the token determines the order.
+     * @return The requested page of value logs
+     * @throws IllegalArgumentException In case the continuation token is invalid
+     */
+    ValueLogCursorPage findAllByIdRef(String idref, Instant from, Instant to, String cursor, int size, boolean ascending);
 
-        //List of all aggregation stages to execute
-        List<Bson> aggregateStages = new ArrayList<>();
+    /**
+     * Counts the value logs of a certain component that were received within a given time range.
+     *
+     * @param idref The idref of the component
+     * @param from  The inclusive start of the time range or null, if unbounded
+     * @param to    The exclusive end of the time range or null, if unbounded
+     * @return The number of value logs
+     */
+    long countByIdRef(String idref, Instant from, Instant to);
 
-        //Matching for idref
-        aggregateStages.add(Aggregates.match(Filters.eq(IDREF_FIELD_NAME, idref)));
+    /**
+     * Passes all value logs of all components that were received within a given time range to a consumer,
+     * without materializing the whole time range.
+     *
+     * @param from     The inclusive start of the time range
+     * @param to       The exclusive end of the time range
+     * @param consumer The consumer to pass the value logs to
+     */
+    void forEachInTimeRange(Instant from, Instant to, Consumer<ValueLog> consumer);
 
-        //Coarse-grained sorting on document level
-        aggregateStages.add(Aggregates.sort(coarseSortDocument));
+    /**
+     * Passes all value logs of a certain component that were received within a given time range to a consumer,
+     * in chronological order of their buckets and without materializing the whole time range.
+     *
+     * @param idref    The idref of the component
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @param consumer The consumer to pass the value logs to
+     */
+    void forEachByIdRef(String idref, Instant from, Instant to, Consumer<ValueLog> consumer);
 
-        //Coarse-grained limit on document level
-        int calculatedLimit = (int) Math.ceil(((double) offset + limit) / ((double) VALUES_PER_DOCUMENT)) + 1;
-        aggregateStages.add(Aggregates.limit(calculatedLimit));
+    /**
+     * Passes the receive times and values of a certain component within a given time range to a consumer as compact
+     * series, bucket by bucket in chronological order and without creating value log objects. The passed series
+     * object is reused for the next bucket and must therefore not be retained by the consumer.
+     *
+     * @param idref    The idref of the component
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @param consumer The consumer to pass the series to
+     */
+    void forEachSeriesByIdRef(String idref, Instant from, Instant to, Consumer<ValueLogSeries> consumer);
 
-        //Unwinding
-        aggregateStages.add(Aggregates.unwind("$values"));
+    /**
+     * Returns the receive times and values of a certain component within a given time range as a single compact
+     * series in chronological order of the buckets.
+     *
+     * @param idref The idref of the component
+     * @param from  The inclusive start of the time range or null, if unbounded
+     * @param to    The exclusive end of the time range or null, if unbounded
+     * @return The series
+     */
+    default ValueLogSeries findSeriesByIdRef(String idref, Instant from, Instant to) {
+        ValueLogSeries series = new ValueLogSeries(idref);
+        forEachSeriesByIdRef(idref, from, to, series::addAll);
+        return series;
+    }
 
-        //Replace root elements with value log sub-documents
-        aggregateStages.add(Aggregates.replaceRoot("$values"));
+    /**
+     * Finds the time intervals within a given time range in which consecutive values of a certain component
+     * satisfied a given predicate. Buckets whose stored value ranges show that none of their values can satisfy
+     * the predicate are skipped without being decoded.
+     *
+     * @param idref        The idref of the component
+     * @param from         The inclusive start of the time range or null, if unbounded
+     * @param to           The exclusive end of the time range or null, if unbounded
+     * @param predicate    The predicate the values need to satisfy
+     * @param maxIntervals The maximum number of intervals to return
+     * @return The search result holding the intervals in chronological order
+     */
+    ValueLogIntervalSearchResult findIntervalsByIdRef(String idref, Instant from, Instant to, ValueLogPredicate predicate, int maxIntervals);
 
-        //Fine-grained Sorting on value log level
-        aggregateStages.add(Aggregates.sort(fineSortDocument));
+    /**
+     * Summarizes the values of the value logs of a certain component within a given time range. Optionally,
+     * a transformation (e.g. a unit conversion) can be applied to each value before it is summarized.
+     *
+     * @param idref          The idref of the component
+     * @param from           The inclusive start of the time range or null, if unbounded
+     * @param to             The exclusive end of the time range or null, if unbounded
+     * @param transformation The transformation to apply to each value or null, if the values are to be used as-is
+     * @return The summary of the values as rollup
+     */
+    ValueLogRollup summarizeByIdRef(String idref, Instant from, Instant to, DoubleUnaryOperator transformation);
 
-        //Fine-grained offset for pagination on value log level (if necessary)
-        if (offset > 0) {
-            aggregateStages.add(Aggregates.skip(offset));
-        }
+    /**
+     * Finds and returns the oldest value log of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The oldest value log or null, if no value logs are available
+     */
+    ValueLog findOldestByIdRef(String idref);
 
-        //Fine-grained Limit for pagination on value log level (if necessary)
-        aggregateStages.add(Aggregates.limit(limit));
+    /**
+     * Finds and returns the most recent value log of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The most recent value log or null, if no value logs are available
+     */
+    ValueLog findNewestByIdRef(String idref);
 
-        //Perform aggregation
-        AggregateIterable<ValueLog> aggregateResult = this.valueLogCollection.aggregate(aggregateStages, ValueLog.class);
+    /**
+     * Finds and returns the value log with the smallest value of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The value log with the smallest value or null, if no value logs are available
+     */
+    ValueLog findMinimumByIdRef(String idref);
 
-        //Convert aggregation result to a list
-        aggregateResult.forEach((Consumer<ValueLog>) resultList::add);
+    /**
+     * Finds and returns the value log with the biggest value of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The value log with the biggest value or null, if no value logs are available
+     */
+    ValueLog findMaximumByIdRef(String idref);
 
-        //Return value logs as page
-        return new PageImpl<>(resultList, pageable, resultList.size());
-    }
+    /**
+     * Returns the receive time of the oldest value log that is stored in the repository.
+     *
+     * @return The receive time or null, if the repository is empty
+     */
+    Instant findEarliestTime();
 
     /**
      * Deletes all value logs that match a given idref.
      *
      * @param idref The idref to match for
      */
-    public void deleteByIdRef(String idref) {
-        //Sanity check
-        if ((idref == null) || idref.isEmpty()) {
-            throw new IllegalArgumentException("Idref must not be null or empty.");
-        }
-
-        //Build filter for deleting all documents with the given idref
-        Bson filter = Filters.eq(IDREF_FIELD_NAME, idref);
-
-        //Perform deletion
-        this.valueLogCollection.deleteMany(filter);
-    }
+    void deleteByIdRef(String idref);
 }
@@ -0,0 +1,17 @@
+package org.citopt.connde.repository;
+
+import org.citopt.connde.domain.valueLog.ValueLogRetentionPolicy;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+/**
+ * Spring Data MongoDB repository for the value log retention policy entity. The policies are only exposed via the
+ * REST controller for administrators.
+ */
+@RepositoryRestResource(exported = false)
+public interface ValueLogRetentionPolicyRepository extends MongoRepository<ValueLogRetentionPolicy, String> {
+
+    ValueLogRetentionPolicy findByComponentId(String componentId);
+
+    ValueLogRetentionPolicy findByAdapterId(String adapterId);
+}
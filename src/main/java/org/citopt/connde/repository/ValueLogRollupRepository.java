@@ -0,0 +1,547 @@
+package org.citopt.connde.repository;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.citopt.connde.MongoConfiguration;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogRollupInterval;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repository for materializing and querying rollups of value logs, powered by the MongoDB database. Rollups are
+ * stored in one collection per rollup interval. Minute rollups are computed from the raw value logs, hour rollups
+ * from the minute rollups and day rollups from the hour rollups. For each interval, a watermark marks the point
+ * in time up to which the rollups are complete.
+ */
+@Component
+public class ValueLogRollupRepository {
+    //Name of the database to use for the rollups
+    private static final String DATABASE_NAME = MongoConfiguration.DB_NAME;
+
+    //Prefix of the names of the rollup collections
+    private static final String COLLECTION_NAME_PREFIX = "valueLogRollups";
+
+    //Name of the collection holding the watermarks
+    private static final String WATERMARK_COLLECTION_NAME = "valueLogRollupWatermarks";
+
+    //Name of the idref field
+    private static final String IDREF_FIELD_NAME = "idref";
+
+    //Rollup intervals from the coarsest to the finest one
+    private static final List<ValueLogRollupInterval> INTERVALS_DESCENDING = Arrays.asList(
+            ValueLogRollupInterval.DAY, ValueLogRollupInterval.HOUR, ValueLogRollupInterval.MINUTE);
+
+    //Repository of the raw value logs
+    private ValueLogRepository valueLogRepository;
+
+    //Rollup collections and watermark collection
+    private Map<ValueLogRollupInterval, MongoCollection<Document>> rollupCollections = new EnumMap<>(ValueLogRollupInterval.class);
+    private MongoCollection<Document> watermarkCollection;
+
+    /**
+     * Instantiates the repository by passing references to the MongoDB bean and the value log repository
+     * that are supposed to be used (auto-wired).
+     *
+     * @param mongoClient        The MongoDB bean of the value logs to use
+     * @param valueLogRepository The value log repository to use
+     */
+    @Autowired
+    private ValueLogRollupRepository(@Qualifier("valueLogMongoClient") MongoClient mongoClient, ValueLogRepository valueLogRepository) {
+        this.valueLogRepository = valueLogRepository;
+
+        //Get collections and create indices
+        MongoDatabase database = mongoClient.getDatabase(DATABASE_NAME);
+        for (ValueLogRollupInterval interval : ValueLogRollupInterval.values()) {
+            MongoCollection<Document> collection = database.getCollection(COLLECTION_NAME_PREFIX + interval.getSuffix());
+            collection.createIndex(Indexes.ascending(IDREF_FIELD_NAME, "start"), new IndexOptions().unique(true));
+            collection.createIndex(Indexes.ascending("start"));
+            rollupCollections.put(interval, collection);
+        }
+        this.watermarkCollection = database.getCollection(WATERMARK_COLLECTION_NAME);
+    }
+
+    /**
+     * Materializes the rollups of all intervals for which new data is available, up to a given point in time.
+     * In order to limit the load, at most a given time span of raw value logs is processed per call.
+     *
+     * @param until           The point in time up to which value logs are considered to be complete
+     * @param maxRangeSeconds The maximum time span in seconds of raw value logs to process
+     * @return True, if the rollups did not yet catch up with the given point in time; false otherwise
+     */
+    public boolean materialize(Instant until, long maxRangeSeconds) {
+        boolean behind = materializeMinutes(until.getEpochSecond(), maxRangeSeconds);
+        materializeFromFinerInterval(ValueLogRollupInterval.HOUR, ValueLogRollupInterval.MINUTE);
+        materializeFromFinerInterval(ValueLogRollupInterval.DAY, ValueLogRollupInterval.HOUR);
+        return behind;
+    }
+
+    /**
+     * Recomputes the rollups of a certain component within a given time range, e.g. after value logs were
+     * imported for a time range whose rollups were already materialized. The time range is extended to whole
+     * days and processed day by day; for each interval, only the part up to its watermark is recomputed, since
+     * later rollups are created by the regular materialization anyway.
+     *
+     * @param idref The idref of the component
+     * @param from  The inclusive start of the time range
+     * @param to    The inclusive end of the time range
+     */
+    public void rebuildByIdRef(String idref, Instant from, Instant to) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if ((from == null) || (to == null)) {
+            throw new IllegalArgumentException("Time range must not be null.");
+        }
+
+        //Nothing to do if no rollups were materialized yet
+        Map<ValueLogRollupInterval, Long> watermarks = getWatermarks();
+        Long minuteWatermark = watermarks.get(ValueLogRollupInterval.MINUTE);
+        if (minuteWatermark == null) {
+            return;
+        }
+
+        ValueLogRollupInterval day = ValueLogRollupInterval.DAY;
+        long end = Math.min(day.ceil(to.getEpochSecond() + 1), minuteWatermark);
+        for (long dayStart = day.floor(from.getEpochSecond()); dayStart < end; dayStart += day.getSeconds()) {
+            long dayEnd = dayStart + day.getSeconds();
+
+            //Recompute minute rollups from the raw value logs
+            Map<Long, ValueLogRollup> minuteRollups = new HashMap<>();
+            long minuteEnd = Math.min(dayEnd, minuteWatermark);
+            valueLogRepository.forEachByIdRef(idref, Instant.ofEpochSecond(dayStart), Instant.ofEpochSecond(minuteEnd), valueLog -> {
+                long start = ValueLogRollupInterval.MINUTE.floor(valueLog.getTime().getEpochSecond());
+                minuteRollups.computeIfAbsent(start, k -> new ValueLogRollup(idref, Instant.ofEpochSecond(start)))
+                        .add(valueLog.getValue());
+            });
+            replaceRollups(idref, ValueLogRollupInterval.MINUTE, dayStart, minuteEnd, minuteRollups.values());
+
+            //Recompute hour and day rollups by merging the finer ones
+            Collection<ValueLogRollup> finerRollups = minuteRollups.values();
+            for (ValueLogRollupInterval interval : Arrays.asList(ValueLogRollupInterval.HOUR, ValueLogRollupInterval.DAY)) {
+                Long watermark = watermarks.get(interval);
+                if ((watermark == null) || (watermark <= dayStart)) {
+                    break;
+                }
+                long intervalEnd = Math.min(dayEnd, watermark);
+                Map<Long, ValueLogRollup> rollups = new HashMap<>();
+                for (ValueLogRollup finerRollup : finerRollups) {
+                    long start = interval.floor(finerRollup.getStart().getEpochSecond());
+                    if (start < intervalEnd) {
+                        rollups.computeIfAbsent(start, k -> new ValueLogRollup(idref, Instant.ofEpochSecond(start)))
+                                .merge(finerRollup);
+                    }
+                }
+                replaceRollups(idref, interval, dayStart, intervalEnd, rollups.values());
+                finerRollups = rollups.values();
+            }
+        }
+    }
+
+    /**
+     * Finds and returns the rollups of a certain component for a given interval and time range.
+     *
+     * @param idref    The idref of the component
+     * @param interval The rollup interval
+     * @param from     The inclusive start of the time range or null, if unbounded
+     * @param to       The exclusive end of the time range or null, if unbounded
+     * @return The list of rollups, sorted by their start
+     */
+    public List<ValueLogRollup> findByIdRef(String idref, ValueLogRollupInterval interval, Instant from, Instant to) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (interval == null) {
+            throw new IllegalArgumentException("Interval must not be null.");
+        }
+
+        Long fromSeconds = (from == null) ? null : interval.floor(from.getEpochSecond());
+        Long toSeconds = (to == null) ? null : to.getEpochSecond();
+
+        List<ValueLogRollup> resultList = new ArrayList<>();
+        for (Document document : findRollupDocuments(idref, interval, fromSeconds, toSeconds)) {
+            resultList.add(toRollup(document));
+        }
+        return resultList;
+    }
+
+    /**
+     * Returns the watermark of a certain interval, i.e. the point in time up to which the rollups of this
+     * interval are complete.
+     *
+     * @param interval The rollup interval
+     * @return The watermark or null, if no rollups were materialized for this interval yet
+     */
+    public Instant getWatermark(ValueLogRollupInterval interval) {
+        Long watermark = getWatermarks().get(interval);
+        return (watermark == null) ? null : Instant.ofEpochSecond(watermark);
+    }
+
+    /**
+     * Deletes all rollups of a certain component.
+     *
+     * @param idref The idref of the component
+     */
+    public void deleteByIdRef(String idref) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        for (MongoCollection<Document> collection : rollupCollections.values()) {
+            collection.deleteMany(Filters.eq(IDREF_FIELD_NAME, idref));
+        }
+    }
+
+    /**
+     * Deletes all rollups of a certain component whose intervals ended before a given point in time.
+     *
+     * @param idref  The idref of the component
+     * @param before The point in time before which rollups expire
+     * @return The number of deleted rollups
+     */
+    public long deleteByIdRefBefore(String idref, Instant before) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        } else if (before == null) {
+            throw new IllegalArgumentException("Point in time must not be null.");
+        }
+
+        long deleted = 0;
+        for (Map.Entry<ValueLogRollupInterval, MongoCollection<Document>> entry : rollupCollections.entrySet()) {
+            long latestStart = before.getEpochSecond() - entry.getKey().getSeconds();
+            deleted += entry.getValue().deleteMany(Filters.and(Filters.eq(IDREF_FIELD_NAME, idref),
+                    Filters.lte("start", latestStart))).getDeletedCount();
+        }
+        return deleted;
+    }
+
+    /**
+     * Returns the idrefs of all components for which rollups are stored.
+     *
+     * @return The set of idrefs
+     */
+    public Set<String> findAllIdRefs() {
+        Set<String> idrefs = new HashSet<>();
+        for (MongoCollection<Document> collection : rollupCollections.values()) {
+            collection.distinct(IDREF_FIELD_NAME, String.class).into(idrefs);
+        }
+        return idrefs;
+    }
+
+    /**
+     * Summarizes the values of a certain component within a given time range. The time range is covered by the
+     * coarsest rollups that are available and complete; only the remaining parts at the boundaries of the time
+     * range and after the watermarks are computed from the raw value logs.
+     *
+     * @param idref The idref of the component
+     * @param from  The inclusive start of the time range or null, if unbounded
+     * @param to    The exclusive end of the time range or null, if unbounded
+     * @return The summary as rollup
+     */
+    public ValueLogRollup summarizeByIdRef(String idref, Instant from, Instant to) {
+        //Sanity check
+        if ((idref == null) || idref.isEmpty()) {
+            throw new IllegalArgumentException("Idref must not be null or empty.");
+        }
+
+        //Fall back to raw value logs if no rollups are available yet
+        Map<ValueLogRollupInterval, Long> watermarks = getWatermarks();
+        Long minuteWatermark = watermarks.get(ValueLogRollupInterval.MINUTE);
+        if (minuteWatermark == null) {
+            return valueLogRepository.summarizeByIdRef(idref, from, to, null);
+        }
+
+        //Unbounded time ranges are limited by the smallest and biggest possible instants
+        long fromSeconds = (from == null) ? Instant.MIN.getEpochSecond() : from.getEpochSecond();
+        long toSeconds = (to == null) ? Instant.MAX.getEpochSecond() : to.getEpochSecond();
+
+        ValueLogRollup summary = new ValueLogRollup(idref, from);
+        summarizeRange(summary, idref, watermarks, 0, from, to, fromSeconds, toSeconds);
+        return summary;
+    }
+
+    /**
+     * Recursively summarizes a time range by using the rollups of the interval with the given index and
+     * delegating the remaining parts of the time range to the next finer interval or the raw value logs.
+     *
+     * @param summary       The summary to merge the results into
+     * @param idref         The idref of the component
+     * @param watermarks    The current watermarks of all intervals
+     * @param intervalIndex The index of the interval within INTERVALS_DESCENDING
+     * @param from          The inclusive start of the time range or null, if unbounded
+     * @param to            The exclusive end of the time range or null, if unbounded
+     * @param fromSeconds   The start of the time range as epoch seconds
+     * @param toSeconds     The end of the time range as epoch seconds
+     */
+    private void summarizeRange(ValueLogRollup summary, String idref, Map<ValueLogRollupInterval, Long> watermarks,
+                                int intervalIndex, Instant from, Instant to, long fromSeconds, long toSeconds) {
+        //Use raw value logs if no finer interval is left
+        if (intervalIndex >= INTERVALS_DESCENDING.size()) {
+            summary.merge(valueLogRepository.summarizeByIdRef(idref, from, to, null));
+            return;
+        }
+
+        //Determine the part of the time range that can be covered by rollups of this interval
+        ValueLogRollupInterval interval = INTERVALS_DESCENDING.get(intervalIndex);
+        Long watermark = watermarks.get(interval);
+        long alignedFrom = interval.ceil(((from != null) && (from.getNano() > 0)) ? fromSeconds + 1 : fromSeconds);
+        long alignedTo = (watermark == null) ? alignedFrom : Math.min(interval.floor(toSeconds), watermark);
+
+        //Delegate the whole range to the next finer interval if no rollups are usable
+        if (alignedFrom >= alignedTo) {
+            summarizeRange(summary, idref, watermarks, intervalIndex + 1, from, to, fromSeconds, toSeconds);
+            return;
+        }
+
+        //Merge rollups of the covered part
+        for (Document document : findRollupDocuments(idref, interval, alignedFrom, alignedTo)) {
+            summary.merge(toRollup(document));
+        }
+
+        //Summarize remaining parts before and after the covered part; rollups start at the oldest value log,
+        //so there is nothing left before the covered part for unbounded time ranges
+        Instant alignedFromInstant = Instant.ofEpochSecond(alignedFrom);
+        Instant alignedToInstant = Instant.ofEpochSecond(alignedTo);
+        if ((from != null) && from.isBefore(alignedFromInstant)) {
+            summarizeRange(summary, idref, watermarks, intervalIndex + 1, from, alignedFromInstant, fromSeconds, alignedFrom);
+        }
+        if ((to == null) || to.isAfter(alignedToInstant)) {
+            summarizeRange(summary, idref, watermarks, intervalIndex + 1, alignedToInstant, to, alignedTo, toSeconds);
+        }
+    }
+
+    /**
+     * Computes the minute rollups from the raw value logs, starting at the current minute watermark. The value
+     * logs are processed component by component and the watermark is advanced once all components are done.
+     *
+     * @param untilSeconds    The point in time (epoch seconds) up to which value logs are considered to be complete
+     * @param maxRangeSeconds The maximum time span in seconds to process
+     * @return True, if further value logs remain to be processed; false otherwise
+     */
+    private boolean materializeMinutes(long untilSeconds, long maxRangeSeconds) {
+        ValueLogRollupInterval interval = ValueLogRollupInterval.MINUTE;
+
+        //Determine start of the time range to process
+        Long watermark = getWatermarks().get(interval);
+        if (watermark == null) {
+            Instant earliestTime = valueLogRepository.findEarliestTime();
+            if (earliestTime == null) {
+                return false;
+            }
+            watermark = interval.floor(earliestTime.getEpochSecond());
+        }
+
+        //Determine end of the time range to process
+        long end = interval.floor(untilSeconds);
+        boolean behind = false;
+        if (end - watermark > maxRangeSeconds) {
+            end = watermark + Math.max(interval.floor(maxRangeSeconds), interval.getSeconds());
+            behind = true;
+        }
+        if (end <= watermark) {
+            return false;
+        }
+
+        //Aggregate the raw value logs of the time range one component at a time, so that at most the rollups of a
+        //single component need to be held in memory; rewriting them after an interruption is harmless
+        Instant fromInstant = Instant.ofEpochSecond(watermark);
+        Instant toInstant = Instant.ofEpochSecond(end);
+        for (String idref : valueLogRepository.findAllIdRefs()) {
+            Map<Long, ValueLogRollup> rollups = new HashMap<>();
+            valueLogRepository.forEachByIdRef(idref, fromInstant, toInstant, valueLog -> {
+                long start = interval.floor(valueLog.getTime().getEpochSecond());
+                rollups.computeIfAbsent(start, k -> new ValueLogRollup(idref, Instant.ofEpochSecond(start)))
+                        .add(valueLog.getValue());
+            });
+            writeRollups(interval, rollups.values());
+        }
+
+        setWatermark(interval, end);
+        return behind;
+    }
+
+    /**
+     * Computes the rollups of a certain interval from the rollups of a finer interval, starting at the current
+     * watermark of the interval and ending at the watermark of the finer interval.
+     *
+     * @param interval      The interval to compute rollups for
+     * @param finerInterval The finer interval to compute the rollups from
+     */
+    private void materializeFromFinerInterval(ValueLogRollupInterval interval, ValueLogRollupInterval finerInterval) {
+        Map<ValueLogRollupInterval, Long> watermarks = getWatermarks();
+        Long finerWatermark = watermarks.get(finerInterval);
+        if (finerWatermark == null) {
+            return;
+        }
+
+        //Determine start of the time range to process
+        MongoCollection<Document> finerCollection = rollupCollections.get(finerInterval);
+        Long watermark = watermarks.get(interval);
+        if (watermark == null) {
+            Document earliest = finerCollection.find().sort(Sorts.ascending("start")).first();
+            if (earliest == null) {
+                return;
+            }
+            watermark = interval.floor(((Number) earliest.get("start")).longValue());
+        }
+
+        //Only complete intervals can be processed
+        long end = interval.floor(finerWatermark);
+        if (end <= watermark) {
+            return;
+        }
+
+        //Merge the finer rollups into the rollups of the coarser interval, which keeps the variance stable
+        Map<String, ValueLogRollup> rollups = new HashMap<>();
+        Bson filter = Filters.and(Filters.gte("start", watermark), Filters.lt("start", end));
+        for (Document document : finerCollection.find(filter)) {
+            ValueLogRollup finerRollup = toRollup(document);
+            long start = interval.floor(finerRollup.getStart().getEpochSecond());
+            rollups.computeIfAbsent(finerRollup.getIdref() + "|" + start,
+                    k -> new ValueLogRollup(finerRollup.getIdref(), Instant.ofEpochSecond(start)))
+                    .merge(finerRollup);
+        }
+
+        writeRollups(interval, rollups.values());
+        setWatermark(interval, end);
+    }
+
+    /**
+     * Writes a collection of rollups into the collection of a certain interval, replacing existing rollups for
+     * the same component and start.
+     *
+     * @param interval The interval of the rollups
+     * @param rollups  The rollups to write
+     */
+    private void writeRollups(ValueLogRollupInterval interval, Iterable<ValueLogRollup> rollups) {
+        List<WriteModel<Document>> writeModels = new ArrayList<>();
+        for (ValueLogRollup rollup : rollups) {
+            long start = rollup.getStart().getEpochSecond();
+            Document document = new Document(IDREF_FIELD_NAME, rollup.getIdref())
+                    .append("start", start)
+                    .append("count", rollup.getCount())
+                    .append("sum", rollup.getSum())
+                    .append("sumsq", rollup.getSumOfSquares())
+                    .append("min", rollup.getMin())
+                    .append("max", rollup.getMax())
+                    .append("m2", rollup.getSumOfSquaredDeviations());
+            Bson filter = Filters.and(Filters.eq(IDREF_FIELD_NAME, rollup.getIdref()), Filters.eq("start", start));
+            writeModels.add(new ReplaceOneModel<>(filter, document, new ReplaceOptions().upsert(true)));
+        }
+
+        if (!writeModels.isEmpty()) {
+            rollupCollections.get(interval).bulkWrite(writeModels);
+        }
+    }
+
+    /**
+     * Replaces the rollups of a certain component and interval within a given time range.
+     *
+     * @param idref       The idref of the component
+     * @param interval    The interval of the rollups
+     * @param fromSeconds The inclusive start of the time range as epoch seconds
+     * @param toSeconds   The exclusive end of the time range as epoch seconds
+     * @param rollups     The new rollups of the time range
+     */
+    private void replaceRollups(String idref, ValueLogRollupInterval interval, long fromSeconds, long toSeconds, Collection<ValueLogRollup> rollups) {
+        rollupCollections.get(interval).deleteMany(Filters.and(Filters.eq(IDREF_FIELD_NAME, idref),
+                Filters.gte("start", fromSeconds), Filters.lt("start", toSeconds)));
+        writeRollups(interval, rollups);
+    }
+
+    /**
+     * Finds the rollup documents of a certain component and interval within a given time range.
+     *
+     * @param idref       The idref of the component
+     * @param interval    The rollup interval
+     * @param fromSeconds The inclusive start of the time range as epoch seconds or null, if unbounded
+     * @param toSeconds   The exclusive end of the time range as epoch seconds or null, if unbounded
+     * @return The matching rollup documents, sorted by their start
+     */
+    private Iterable<Document> findRollupDocuments(String idref, ValueLogRollupInterval interval, Long fromSeconds, Long toSeconds) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.eq(IDREF_FIELD_NAME, idref));
+        if (fromSeconds != null) {
+            filters.add(Filters.gte("start", fromSeconds));
+        }
+        if (toSeconds != null) {
+            filters.add(Filters.lt("start", toSeconds));
+        }
+        return rollupCollections.get(interval).find(Filters.and(filters)).sort(Sorts.ascending("start"));
+    }
+
+    /**
+     * Converts a rollup document to a rollup object.
+     *
+     * @param document The document to convert
+     * @return The resulting rollup
+     */
+    private ValueLogRollup toRollup(Document document) {
+        ValueLogRollup rollup = new ValueLogRollup(document.getString(IDREF_FIELD_NAME),
+                Instant.ofEpochSecond(((Number) document.get("start")).longValue()));
+        rollup.setCount(((Number) document.get("count")).longValue());
+        rollup.setSum(((Number) document.get("sum")).doubleValue());
+        rollup.setSumOfSquares(((Number) document.get("sumsq")).doubleValue());
+        rollup.setMin(((Number) document.get("min")).doubleValue());
+        rollup.setMax(((Number) document.get("max")).doubleValue());
+
+        //Sum of squared deviations needs to be derived from the sums if not available
+        Object sumOfSquaredDeviations = document.get("m2");
+        rollup.setSumOfSquaredDeviations((sumOfSquaredDeviations instanceof Number) ? ((Number) sumOfSquaredDeviations).doubleValue() : Double.NaN);
+        return rollup;
+    }
+
+    /**
+     * Returns the current watermarks of all intervals for which rollups were materialized.
+     *
+     * @return Map (interval --> watermark as epoch seconds)
+     */
+    private Map<ValueLogRollupInterval, Long> getWatermarks() {
+        Map<ValueLogRollupInterval, Long> watermarks = new EnumMap<>(ValueLogRollupInterval.class);
+        for (Document document : watermarkCollection.find()) {
+            try {
+                watermarks.put(ValueLogRollupInterval.valueOf(document.getString("_id")),
+                        ((Number) document.get("until")).longValue());
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return watermarks;
+    }
+
+    /**
+     * Sets the watermark of a certain interval.
+     *
+     * @param interval     The interval
+     * @param untilSeconds The watermark as epoch seconds
+     */
+    private void setWatermark(ValueLogRollupInterval interval, long untilSeconds) {
+        watermarkCollection.updateOne(Filters.eq("_id", interval.name()), Updates.set("until", untilSeconds),
+                new UpdateOptions().upsert(true));
+    }
+}
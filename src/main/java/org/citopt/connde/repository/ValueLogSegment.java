@@ -0,0 +1,496 @@
+package org.citopt.connde.repository;
+
+import org.bson.types.ObjectId;
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Append-only, memory-mapped segment file that holds the value logs of a single component for the embedded
+ * value log repository. A segment consists of a header, which stores the fields that are identical for all value
+ * logs of the segment (idref, topic, component type and QoS), and a fixed number of blocks. Each block holds up to
+ * {@link #BLOCK_CAPACITY} entries of receive time (epoch milliseconds) and value. The number of entries of a block
+ * is written after the entries themselves, so that partially appended entries are ignored after a crash.
+ * <p>
+ * For each used block, a summary with its time range and running statistics is kept in memory. These summaries
+ * form a sparse time index of the segment, which is rebuilt from the file when the segment is opened.
+ * Instances are not thread-safe; access needs to be synchronized externally.
+ */
+final class ValueLogSegment {
+    //Maximum number of entries per block
+    static final int BLOCK_CAPACITY = 80;
+
+    //Magic number and version of the file format
+    private static final int MAGIC = 0x4D42504C;
+    private static final int VERSION = 1;
+
+    //Layout of the file
+    private static final int HEADER_SIZE = 4096;
+    private static final int BLOCK_HEADER_SIZE = 8;
+    private static final int ENTRY_SIZE = 16;
+    private static final int BLOCK_SIZE = BLOCK_HEADER_SIZE + (BLOCK_CAPACITY * ENTRY_SIZE);
+
+    //Flag of blocks that must not receive further entries
+    private static final int FLAG_CLOSED = 1;
+
+    //Marker for value logs without QoS
+    private static final int NO_QOS = Integer.MIN_VALUE;
+
+    //File, sequence number and mapped content of the segment
+    private final Path file;
+    private final int sequence;
+    private final MappedByteBuffer buffer;
+
+    //Fields that are identical for all value logs of the segment
+    private final String idref;
+    private final String topic;
+    private final String component;
+    private final Integer qos;
+
+    //Number of blocks the segment can hold
+    private final int blockCount;
+
+    //Summaries of the used blocks
+    private final List<Block> blocks = new ArrayList<>();
+
+    private ValueLogSegment(Path file, int sequence, MappedByteBuffer buffer, String idref, String topic,
+                            String component, Integer qos, int blockCount) {
+        this.file = file;
+        this.sequence = sequence;
+        this.buffer = buffer;
+        this.idref = idref;
+        this.topic = topic;
+        this.component = component;
+        this.qos = qos;
+        this.blockCount = blockCount;
+    }
+
+    /**
+     * Creates a new segment file for value logs that share the fields of a given reference value log.
+     *
+     * @param file       The file to create
+     * @param sequence   The sequence number of the segment within its component
+     * @param idref      The idref of the component
+     * @param reference  The reference value log
+     * @param blockCount The number of blocks the segment is supposed to hold
+     * @return The created segment
+     */
+    static ValueLogSegment create(Path file, int sequence, String idref, ValueLog reference, int blockCount) {
+        MappedByteBuffer buffer = map(file, HEADER_SIZE + ((long) blockCount * BLOCK_SIZE));
+        ValueLogSegment segment = new ValueLogSegment(file, sequence, buffer, idref, reference.getTopic(),
+                reference.getComponent(), reference.getQos(), blockCount);
+
+        //Write header
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, blockCount);
+        buffer.putInt(12, (reference.getQos() == null) ? NO_QOS : reference.getQos());
+        ByteBuffer header = buffer.duplicate();
+        header.position(16);
+        writeString(header, idref);
+        writeString(header, reference.getTopic());
+        writeString(header, reference.getComponent());
+        return segment;
+    }
+
+    /**
+     * Opens an existing segment file and rebuilds the summaries of its blocks.
+     *
+     * @param file     The file to open
+     * @param sequence The sequence number of the segment within its component
+     * @return The opened segment
+     */
+    static ValueLogSegment open(Path file, int sequence) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = map(file, Files.size(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open value log segment " + file + ".", e);
+        }
+
+        //Read header
+        if ((buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION)) {
+            throw new IllegalStateException("Unsupported value log segment " + file + ".");
+        }
+        int blockCount = buffer.getInt(8);
+        int qos = buffer.getInt(12);
+        ByteBuffer header = buffer.duplicate();
+        header.position(16);
+        ValueLogSegment segment = new ValueLogSegment(file, sequence, buffer, readString(header), readString(header),
+                readString(header), (qos == NO_QOS) ? null : qos, blockCount);
+
+        //Rebuild block summaries until the first unused block
+        for (int index = 0; index < blockCount; index++) {
+            int count = buffer.getInt(blockOffset(index));
+            if (count <= 0) {
+                break;
+            }
+            Block block = new Block(segment.blockId(index), index);
+            block.closed = (buffer.getInt(blockOffset(index) + 4) & FLAG_CLOSED) != 0;
+            for (int i = 0; i < Math.min(count, BLOCK_CAPACITY); i++) {
+                int entryOffset = entryOffset(index, i);
+                block.add(buffer.getLong(entryOffset), buffer.getDouble(entryOffset + 8));
+            }
+            segment.blocks.add(block);
+        }
+        return segment;
+    }
+
+    /**
+     * Checks whether a given value log can be stored in this segment, i.e. whether it shares the fields that are
+     * stored in the header of the segment.
+     *
+     * @param valueLog The value log to check
+     * @return True, if the value log can be stored; false otherwise
+     */
+    boolean accepts(ValueLog valueLog) {
+        return Objects.equals(topic, valueLog.getTopic()) && Objects.equals(component, valueLog.getComponent())
+                && Objects.equals(qos, valueLog.getQos());
+    }
+
+    /**
+     * Appends value logs to the segment, starting with a given offset within the list, as long as space is left
+     * and the value logs can be stored in this segment. Regular appends continue the last block of the segment;
+     * closed appends start a new block and close all blocks they fill, so that no further entries are added to them.
+     *
+     * @param valueLogs The value logs to append
+     * @param offset    The index of the first value log to append
+     * @param closed    True, if the blocks are supposed to be closed; false otherwise
+     * @return The number of appended value logs
+     */
+    int append(List<ValueLog> valueLogs, int offset, boolean closed) {
+        int appended = 0;
+        Block block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+
+        //Closed appends always start a new block
+        if (closed && (block != null) && !block.closed) {
+            closeBlock(block);
+        }
+
+        while ((offset + appended < valueLogs.size()) && accepts(valueLogs.get(offset + appended))) {
+            //Start a new block if necessary
+            if ((block == null) || block.closed || (block.count >= BLOCK_CAPACITY)) {
+                if (blocks.size() >= blockCount) {
+                    break;
+                }
+                block = new Block(blockId(blocks.size()), blocks.size());
+                blocks.add(block);
+            }
+
+            //Write entries first and publish them by updating the number of entries afterwards
+            int blockAppended = 0;
+            while ((block.count + blockAppended < BLOCK_CAPACITY) && (offset + appended + blockAppended < valueLogs.size())) {
+                ValueLog valueLog = valueLogs.get(offset + appended + blockAppended);
+                if (!accepts(valueLog)) {
+                    break;
+                }
+                int entryOffset = entryOffset(block.index, block.count + blockAppended);
+                buffer.putLong(entryOffset, valueLog.getTime().toEpochMilli());
+                buffer.putDouble(entryOffset + 8, valueLog.getValue());
+                blockAppended++;
+            }
+            for (int i = 0; i < blockAppended; i++) {
+                ValueLog valueLog = valueLogs.get(offset + appended + i);
+                block.add(valueLog.getTime().toEpochMilli(), valueLog.getValue());
+            }
+            buffer.putInt(blockOffset(block.index), block.count);
+            appended += blockAppended;
+
+            if (closed && (block.count >= BLOCK_CAPACITY)) {
+                closeBlock(block);
+            }
+            if (blockAppended == 0) {
+                break;
+            }
+        }
+
+        //The last block of a closed append is closed even if it is not full
+        if (closed && (block != null) && !block.closed && (appended > 0)) {
+            closeBlock(block);
+        }
+        return appended;
+    }
+
+    /**
+     * Checks whether no further value logs can be appended to this segment.
+     *
+     * @return True, if the segment is full; false otherwise
+     */
+    boolean isFull() {
+        if (blocks.size() < blockCount) {
+            return false;
+        }
+        Block lastBlock = blocks.get(blocks.size() - 1);
+        return lastBlock.closed || (lastBlock.count >= BLOCK_CAPACITY);
+    }
+
+    /**
+     * Reads the first entries of a given block as value logs.
+     *
+     * @param block The summary of the block, which determines the number of entries to read
+     * @return The value logs in the order in which they were appended
+     */
+    List<ValueLog> read(Block block) {
+        List<ValueLog> valueLogs = new ArrayList<>(block.count);
+        for (int i = 0; i < block.count; i++) {
+            int entryOffset = entryOffset(block.index, i);
+            ValueLog valueLog = new ValueLog();
+            valueLog.setIdref(idref);
+            valueLog.setTopic(topic);
+            valueLog.setComponent(component);
+            valueLog.setQos(qos);
+            valueLog.setTime(Instant.ofEpochMilli(buffer.getLong(entryOffset)));
+            valueLog.setValue(buffer.getDouble(entryOffset + 8));
+            valueLogs.add(valueLog);
+        }
+        return valueLogs;
+    }
+
+    /**
+     * Reads the receive times and values of all entries of a certain block that lie within a given time range
+     * directly into a series, without creating value log objects.
+     *
+     * @param block      The block to read
+     * @param fromMillis The inclusive start of the time range in epoch milliseconds
+     * @param toMillis   The exclusive end of the time range in epoch milliseconds
+     * @param series     The series to append the entries to
+     */
+    void readSeries(Block block, long fromMillis, long toMillis, ValueLogSeries series) {
+        for (int i = 0; i < block.count; i++) {
+            int entryOffset = entryOffset(block.index, i);
+            long millis = buffer.getLong(entryOffset);
+            if ((millis >= fromMillis) && (millis < toMillis)) {
+                series.add(millis, buffer.getDouble(entryOffset + 8));
+            }
+        }
+    }
+
+    /**
+     * Flushes the content of the segment to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Returns copies of the summaries of all used blocks, which remain valid while further entries are appended.
+     *
+     * @return The copies of the block summaries
+     */
+    List<Block> snapshotBlocks() {
+        List<Block> snapshot = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            snapshot.add(block.copy());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the ids of the used blocks, starting with a given index.
+     *
+     * @param fromIndex The index of the first block
+     * @return The ids of the blocks in the order of their indices
+     */
+    List<ObjectId> getBlockIds(int fromIndex) {
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = fromIndex; i < blocks.size(); i++) {
+            ids.add(blocks.get(i).id);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the number of used blocks.
+     *
+     * @return The number of used blocks
+     */
+    int getUsedBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Returns whether the segment contains no value logs.
+     *
+     * @return True, if the segment is empty; false otherwise
+     */
+    boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    /**
+     * Returns the time of the most recent value log of the segment.
+     *
+     * @return The time as epoch milliseconds or Long.MIN_VALUE, if the segment is empty
+     */
+    long getMaxMillis() {
+        long maxMillis = Long.MIN_VALUE;
+        for (Block block : blocks) {
+            maxMillis = Math.max(maxMillis, block.maxMillis);
+        }
+        return maxMillis;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int getSequence() {
+        return sequence;
+    }
+
+    String getIdref() {
+        return idref;
+    }
+
+    /**
+     * Marks a given block as closed.
+     *
+     * @param block The block to close
+     */
+    private void closeBlock(Block block) {
+        block.closed = true;
+        buffer.putInt(blockOffset(block.index) + 4, FLAG_CLOSED);
+    }
+
+    /**
+     * Creates the id of a block from the sequence number of the segment and the index of the block, so that the
+     * ids are stable and ordered in the same way as the blocks.
+     *
+     * @param index The index of the block
+     * @return The id of the block
+     */
+    private ObjectId blockId(int index) {
+        return new ObjectId(ByteBuffer.allocate(12).putInt(sequence).putInt(index).putInt(0).array());
+    }
+
+    private static int blockOffset(int index) {
+        return HEADER_SIZE + (index * BLOCK_SIZE);
+    }
+
+    private static int entryOffset(int blockIndex, int entryIndex) {
+        return blockOffset(blockIndex) + BLOCK_HEADER_SIZE + (entryIndex * ENTRY_SIZE);
+    }
+
+    /**
+     * Maps a file of a given size into memory, creating the file if it does not exist.
+     *
+     * @param file The file to map
+     * @param size The size of the file
+     * @return The mapped buffer
+     */
+    private static MappedByteBuffer map(Path file, long size) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            if (randomAccessFile.length() < size) {
+                randomAccessFile.setLength(size);
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map value log segment " + file + ".", e);
+        }
+    }
+
+    private static void writeString(ByteBuffer header, String value) {
+        if (value == null) {
+            header.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (header.remaining() < bytes.length + 2) {
+            throw new IllegalArgumentException("Header fields of the value log segment are too long.");
+        }
+        header.putShort((short) bytes.length);
+        header.put(bytes);
+    }
+
+    private static String readString(ByteBuffer header) {
+        int length = header.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        header.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Summary of a block of the segment, serving as entry of the sparse time index.
+     */
+    static final class Block {
+        private final ObjectId id;
+        private final int index;
+        private int count = 0;
+        private boolean closed = false;
+        private long minMillis = Long.MAX_VALUE;
+        private long maxMillis = Long.MIN_VALUE;
+        private final ValueLogRollup stats = new ValueLogRollup();
+
+        private Block(ObjectId id, int index) {
+            this.id = id;
+            this.index = index;
+        }
+
+        private void add(long millis, double value) {
+            count++;
+            minMillis = Math.min(minMillis, millis);
+            maxMillis = Math.max(maxMillis, millis);
+            stats.add(value);
+        }
+
+        private Block copy() {
+            Block copy = new Block(id, index);
+            copy.count = count;
+            copy.closed = closed;
+            copy.minMillis = minMillis;
+            copy.maxMillis = maxMillis;
+            copy.stats.merge(stats);
+            return copy;
+        }
+
+        ObjectId getId() {
+            return id;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        Instant getMinTime() {
+            return Instant.ofEpochMilli(minMillis);
+        }
+
+        Instant getMaxTime() {
+            return Instant.ofEpochMilli(maxMillis);
+        }
+
+        long getMinMillis() {
+            return minMillis;
+        }
+
+        long getMaxMillis() {
+            return maxMillis;
+        }
+
+        ValueLogRollup getStats() {
+            return stats;
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package org.citopt.connde.service;
 
 import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
 import org.springframework.stereotype.Component;
 
 import javax.measure.converter.UnitConverter;
+import javax.measure.unit.Unit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Service that provides means for converting values from one unit into another unit.
+ * Service that provides means for converting values from one unit into another unit. Parsed units and the
+ * converters between pairs of units are cached, since both are requested for nearly every query of value logs.
  *
  * @author Jan
  */
@@ -15,6 +21,77 @@ public class UnitConverterService {
     //Number of decimal places to spare from rounding
     private static final int ROUNDING_DECIMAL_PLACES = 4;
 
+    //Factor for rounding to the number of decimal places
+    private static final double ROUNDING_FACTOR = Math.pow(10, ROUNDING_DECIMAL_PLACES);
+
+    //Maximum number of cached units and converters, since unit strings may originate from requests
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    //Map (unit string --> unit) of parsed units
+    private final Map<String, Unit> unitCache = new ConcurrentHashMap<>();
+
+    //Map (source unit --> (target unit --> converter)) of converters between pairs of units
+    private final Map<Unit, Map<Unit, UnitConverter>> converterCache = new ConcurrentHashMap<>();
+
+    /**
+     * Parses a unit from its string representation. Parsed units are cached.
+     *
+     * @param unit The string representation of the unit
+     * @return The unit
+     * @throws IllegalArgumentException In case the unit could not be parsed
+     */
+    public Unit parseUnit(String unit) {
+        //Sanity check
+        if ((unit == null) || unit.isEmpty()) {
+            throw new IllegalArgumentException("Unit must not be null or empty.");
+        }
+
+        Unit cachedUnit = unitCache.get(unit);
+        if (cachedUnit != null) {
+            return cachedUnit;
+        }
+
+        Unit parsedUnit;
+        try {
+            parsedUnit = Unit.valueOf(unit);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid unit: " + unit, e);
+        }
+        if (unitCache.size() < MAX_CACHE_SIZE) {
+            unitCache.put(unit, parsedUnit);
+        }
+        return parsedUnit;
+    }
+
+    /**
+     * Returns the converter that converts values from a source unit into a target unit. Converters are cached per
+     * pair of units.
+     *
+     * @param sourceUnit The unit to convert from
+     * @param targetUnit The unit to convert to
+     * @return The unit converter
+     * @throws IllegalArgumentException In case the units are not compatible
+     */
+    public UnitConverter getConverter(Unit sourceUnit, Unit targetUnit) {
+        Map<Unit, UnitConverter> targetConverters = converterCache.get(sourceUnit);
+        UnitConverter converter = (targetConverters == null) ? null : targetConverters.get(targetUnit);
+        if (converter != null) {
+            return converter;
+        }
+
+        if (!sourceUnit.isCompatible(targetUnit)) {
+            throw new IllegalArgumentException("Units are not compatible.");
+        }
+        converter = sourceUnit.getConverterTo(targetUnit);
+        if (converterCache.size() < MAX_CACHE_SIZE) {
+            targetConverters = converterCache.computeIfAbsent(sourceUnit, unit -> new ConcurrentHashMap<>());
+            if (targetConverters.size() < MAX_CACHE_SIZE) {
+                targetConverters.put(targetUnit, converter);
+            }
+        }
+        return converter;
+    }
+
     /**
      * Converts the value of a value log into a different unit by using a given unit converter.
      * Rounding to a certain number of decimal places (as specified in ROUNDING_DECIMAL_PLACES)
@@ -25,19 +102,96 @@ public class UnitConverterService {
      *                  desired target unit
      */
     public void convertValueLogValue(ValueLog valueLog, UnitConverter converter) {
-        //Get value of current log
-        double value = Double.valueOf(valueLog.getValue());
+        valueLog.setValue(round(converter.convert(valueLog.getValue())));
+    }
+
+    /**
+     * Converts all values of a series into a different unit by using a given unit converter. The values are
+     * converted in place and rounded like the values of single value logs. For affine converters, the conversion
+     * is reduced to a multiplication and an addition per value.
+     *
+     * @param series    The series whose values are supposed to be converted
+     * @param converter The unit converter which converts the values into the desired target unit
+     */
+    public void convertSeries(ValueLogSeries series, UnitConverter converter) {
+        double[] values = series.getValues();
+        int size = series.size();
+        if (size == 0) {
+            return;
+        }
 
-        //Convert value
-        double convertedValue = converter.convert(value);
+        if (isAffine(converter)) {
+            double offset = converter.convert(0);
+            double factor = converter.convert(1) - offset;
+            for (int i = 0; i < size; i++) {
+                values[i] = round(factor * values[i] + offset);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                values[i] = round(converter.convert(values[i]));
+            }
+        }
+    }
 
-        //Determine rounding constant
-        double roundingConst = Math.pow(10, ROUNDING_DECIMAL_PLACES);
+    /**
+     * Checks whether a given unit converter is affine, i.e. of the form convert(x) = a * x + b. Aggregates such as
+     * sums, averages, variances and extrema can be converted directly for affine converters, without the need to
+     * convert each single value.
+     *
+     * @param converter The unit converter to check
+     * @return True, if the converter is affine; false otherwise
+     */
+    public boolean isAffine(UnitConverter converter) {
+        double offset = converter.convert(0);
+        double factor = converter.convert(1) - offset;
 
-        //Apply rounding
-        convertedValue = Math.round(convertedValue * roundingConst) / roundingConst;
+        //Compare the converter with the affine function at further points
+        for (double x : new double[]{-1000, 2, 1000}) {
+            double expected = factor * x + offset;
+            if (Math.abs(converter.convert(x) - expected) > 1e-9 * Math.max(1, Math.abs(expected))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        //Write value to log
-        valueLog.setValue(convertedValue);
+    /**
+     * Converts the aggregated values of a rollup into a different unit by using a given affine unit converter.
+     *
+     * @param rollup    The rollup whose aggregated values are supposed to be converted
+     * @param converter The affine unit converter which converts the values into the desired target unit
+     */
+    public void convertRollup(ValueLogRollup rollup, UnitConverter converter) {
+        //Sanity check
+        if (!isAffine(converter)) {
+            throw new IllegalArgumentException("Rollups can only be converted by affine converters.");
+        }
+
+        //Determine factor and offset of the converter
+        double offset = converter.convert(0);
+        double factor = converter.convert(1) - offset;
+
+        //Convert sums: sum(a * x + b), sum((a * x + b)^2) and the squared deviations, which scale with a^2
+        double count = rollup.getCount();
+        double sum = rollup.getSum();
+        rollup.setSumOfSquaredDeviations(factor * factor * rollup.getSumOfSquaredDeviations());
+        rollup.setSumOfSquares(factor * factor * rollup.getSumOfSquares() + 2 * factor * offset * sum + offset * offset * count);
+        rollup.setSum(factor * sum + offset * count);
+
+        //Convert extrema, which are swapped for negative factors
+        double convertedMin = converter.convert(rollup.getMin());
+        double convertedMax = converter.convert(rollup.getMax());
+        rollup.setMin(Math.min(convertedMin, convertedMax));
+        rollup.setMax(Math.max(convertedMin, convertedMax));
+    }
+
+    /**
+     * Rounds a value to a certain number of decimal places (as specified in ROUNDING_DECIMAL_PLACES).
+     *
+     * @param value The value to round
+     * @return The rounded value
+     */
+    private static double round(double value) {
+        return Math.round(value * ROUNDING_FACTOR) / ROUNDING_FACTOR;
     }
 }
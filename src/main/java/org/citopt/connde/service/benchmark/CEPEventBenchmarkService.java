@@ -0,0 +1,154 @@
+package org.citopt.connde.service.benchmark;
+
+import org.citopt.connde.service.cep.engine.core.CEPEngine;
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchExecutor;
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchPolicy;
+import org.citopt.connde.service.cep.engine.core.events.CEPEvent;
+import org.citopt.connde.service.cep.engine.core.events.CEPEventType;
+import org.citopt.connde.service.cep.engine.core.events.CEPPrimitiveDataTypes;
+import org.citopt.connde.service.cep.engine.core.exceptions.EventNotRegisteredException;
+import org.citopt.connde.service.cep.engine.esper.EsperCEPEngine;
+import org.citopt.connde.service.cep.engine.esper.PartitionedCEPEngine;
+import org.citopt.connde.service.benchmark.model.CEPEventBenchmarkResult;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service for measuring the throughput of the CEP engine with a large number of registered event types, e.g. one
+ * per component of a large deployment. The benchmark runs on a separate Esper provider, so that the event types
+ * and queries of the application are not affected, and registers one event type with the fields of value log
+ * events per simulated component. Events are then sent to the components in round-robin order, while a single
+ * filter query is evaluated on the last component. With more than one partition, the events are processed by a
+ * partitioned engine and sent by one thread per partition.
+ */
+@Service
+public class CEPEventBenchmarkService {
+    //Maximum number of event types and events
+    private static final int MAX_EVENT_TYPES = 100000;
+    private static final int MAX_EVENTS = 10000000;
+    private static final int MAX_PARTITIONS = 64;
+
+    //Number of benchmark runs so far, used for unique provider URIs
+    private int runs = 0;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param eventTypes The number of event types to register
+     * @param events     The number of events to send
+     * @param partitions The number of engine partitions and sending threads
+     * @return The result of the benchmark
+     * @throws IllegalArgumentException In case the parameters are invalid
+     */
+    public synchronized CEPEventBenchmarkResult run(int eventTypes, int events, int partitions) {
+        //Sanity checks
+        if ((eventTypes <= 0) || (eventTypes > MAX_EVENT_TYPES)) {
+            throw new IllegalArgumentException("Number of event types must be between 1 and " + MAX_EVENT_TYPES + ".");
+        } else if ((events <= 0) || (events > MAX_EVENTS)) {
+            throw new IllegalArgumentException("Number of events must be between 1 and " + MAX_EVENTS + ".");
+        } else if ((partitions <= 0) || (partitions > MAX_PARTITIONS)) {
+            throw new IllegalArgumentException("Number of partitions must be between 1 and " + MAX_PARTITIONS + ".");
+        }
+
+        //Create separate engine
+        CEPDispatchExecutor dispatchExecutor = new CEPDispatchExecutor(1, 16, CEPDispatchPolicy.BLOCK);
+        String name = "benchmark-" + (++runs);
+        EsperCEPEngine esperEngine = null;
+        PartitionedCEPEngine partitionedEngine = null;
+        CEPEngine engine;
+        if (partitions > 1) {
+            engine = partitionedEngine = new PartitionedCEPEngine(name, partitions, dispatchExecutor);
+        } else {
+            engine = esperEngine = new EsperCEPEngine(name, dispatchExecutor);
+        }
+
+        try {
+            //Register one event type per simulated component
+            String[] names = new String[eventTypes];
+            long start = System.nanoTime();
+            for (int i = 0; i < eventTypes; i++) {
+                names[i] = "benchmark_" + i;
+                CEPEventType eventType = new CEPEventType(names[i]);
+                eventType.addField("value", CEPPrimitiveDataTypes.DOUBLE);
+                eventType.addField("time", CEPPrimitiveDataTypes.LONG);
+                engine.registerEventType(eventType);
+            }
+            long registrationMillis = (System.nanoTime() - start) / 1_000_000;
+            engine.createQuery("benchmark", "SELECT * FROM " + names[eventTypes - 1] + "(value < 0)");
+
+            //Send events in round-robin order, split over one thread per partition
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            List<Thread> senders = new ArrayList<>(partitions);
+            for (int t = 0; t < partitions; t++) {
+                int offset = t;
+                senders.add(new Thread(() -> {
+                    try {
+                        for (int i = offset; i < events; i += partitions) {
+                            engine.sendEvent(new BenchmarkEvent(names[i % eventTypes], i, i));
+                        }
+                    } catch (EventNotRegisteredException e) {
+                        failure.set(e);
+                    }
+                }, "cep-benchmark-" + t));
+            }
+            start = System.nanoTime();
+            for (Thread sender : senders) {
+                sender.start();
+            }
+            for (Thread sender : senders) {
+                sender.join();
+            }
+            long sendMillis = (System.nanoTime() - start) / 1_000_000;
+
+            //Check for failures of the senders
+            if (failure.get() != null) {
+                throw new IllegalStateException(failure.get());
+            }
+
+            return new CEPEventBenchmarkResult(eventTypes, events, partitions, registrationMillis, sendMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            if (partitionedEngine != null) {
+                partitionedEngine.destroy();
+            } else {
+                esperEngine.destroy();
+            }
+            dispatchExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Event with the fields of value log events whose values are provided directly.
+     */
+    private static class BenchmarkEvent extends CEPEvent {
+        private final String eventTypeName;
+        private final double value;
+        private final long time;
+
+        private BenchmarkEvent(String eventTypeName, double value, long time) {
+            this.eventTypeName = eventTypeName;
+            this.value = value;
+            this.time = time;
+        }
+
+        @Override
+        public Object getFieldValue(String fieldName) {
+            if ("value".equals(fieldName)) {
+                return value;
+            } else if ("time".equals(fieldName)) {
+                return time;
+            }
+            return null;
+        }
+
+        @Override
+        public String getEventTypeName() {
+            return eventTypeName;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.citopt.connde.service.benchmark.model;
+
+/**
+ * Objects of this class hold the result of a benchmark of the CEP engine with a large number of registered event
+ * types. They can be used as DTOs in order to retrieve the results to the client.
+ */
+public class CEPEventBenchmarkResult {
+    //Number of registered event types and sent events
+    private int eventTypes;
+    private int events;
+
+    //Number of engine partitions and sending threads
+    private int partitions;
+
+    //Durations of the registration and of sending the events
+    private long registrationMillis;
+    private long sendMillis;
+
+    /**
+     * Creates a new result object.
+     *
+     * @param eventTypes         The number of event types that were registered
+     * @param events             The number of events that were sent
+     * @param partitions         The number of engine partitions and sending threads
+     * @param registrationMillis The duration of registering the event types in milliseconds
+     * @param sendMillis         The duration of sending the events in milliseconds
+     */
+    public CEPEventBenchmarkResult(int eventTypes, int events, int partitions, long registrationMillis,
+                                   long sendMillis) {
+        this.eventTypes = eventTypes;
+        this.events = events;
+        this.partitions = partitions;
+        this.registrationMillis = registrationMillis;
+        this.sendMillis = sendMillis;
+    }
+
+    /**
+     * Returns the number of event types that were registered.
+     *
+     * @return The number of event types
+     */
+    public int getEventTypes() {
+        return eventTypes;
+    }
+
+    /**
+     * Returns the number of events that were sent.
+     *
+     * @return The number of events
+     */
+    public int getEvents() {
+        return events;
+    }
+
+    /**
+     * Returns the number of engine partitions and sending threads.
+     *
+     * @return The number of partitions
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the duration of registering the event types.
+     *
+     * @return The duration in milliseconds
+     */
+    public long getRegistrationMillis() {
+        return registrationMillis;
+    }
+
+    /**
+     * Returns the duration of sending the events.
+     *
+     * @return The duration in milliseconds
+     */
+    public long getSendMillis() {
+        return sendMillis;
+    }
+
+    /**
+     * Returns the throughput of sending the events.
+     *
+     * @return The number of events per second
+     */
+    public double getThroughput() {
+        return (sendMillis == 0) ? events * 1000.0 : events * 1000.0 / sendMillis;
+    }
+}
@@ -0,0 +1,212 @@
+package org.citopt.connde.service.cache;
+
+import org.citopt.connde.service.cache.model.ValueLogQueryCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache for the results of value log queries, such as pages of value logs, statistics and aggregations.
+ * Results are keyed by the kind of query, the component, the time range, the unit and further query-specific
+ * parameters (e.g. the page) and are evicted in least-recently-used order once the maximum number of entries is
+ * reached or after a configurable time to live.
+ * <p>
+ * For each component, two version counters are maintained: The live version is increased whenever new value logs
+ * of the component are written by the ingestion path, while the rewrite version is increased whenever value logs
+ * are imported, deleted or expired. Results for time ranges that ended sufficiently long before they were computed
+ * are historical and only depend on the rewrite version, so that they stay valid while new value logs arrive.
+ * All other results are invalidated by any change of the component.
+ * <p>
+ * Cached results are shared between requests and must therefore not be modified by callers.
+ */
+@Service
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogQueryCache {
+
+    //Cache configuration
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long historicalGraceMillis;
+
+    //Cached entries in access order
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    //Map (component id --> versions) of the version counters of all components
+    private final Map<String, Versions> versions = new ConcurrentHashMap<>();
+
+    //Metrics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     *
+     * @param enabled               True, if query results are supposed to be cached; false otherwise
+     * @param maxEntries            The maximum number of cached results
+     * @param ttlMillis             The time to live of cached results in milliseconds
+     * @param historicalGraceMillis The time in milliseconds after which the end of a time range is considered
+     *                              historical, i.e. no longer affected by value logs that are currently ingested
+     */
+    public ValueLogQueryCache(@Value("${value-logs.query-cache.enabled:true}") boolean enabled,
+                              @Value("${value-logs.query-cache.max-entries:1000}") int maxEntries,
+                              @Value("${value-logs.query-cache.ttl-ms:300000}") long ttlMillis,
+                              @Value("${value-logs.query-cache.historical-grace-ms:60000}") long historicalGraceMillis) {
+        this.enabled = enabled && (maxEntries > 0);
+        this.maxEntries = Math.max(maxEntries, 0);
+        this.ttlMillis = Math.max(ttlMillis, 0);
+        this.historicalGraceMillis = Math.max(historicalGraceMillis, 0);
+    }
+
+    /**
+     * Returns the cached result of a query or computes and caches it by using a given loader, if no valid result
+     * is available. Exceptions of the loader are passed to the caller and nothing is cached in this case.
+     *
+     * @param kind   The kind of the query, e.g. "page" or "stats"
+     * @param idref  The idref of the component
+     * @param from   The inclusive start of the time range or null, if unbounded
+     * @param to     The exclusive end of the time range or null, if unbounded
+     * @param unit   The unit of the result or null, if the values are not converted
+     * @param params Further parameters that distinguish the query, e.g. the page
+     * @param loader The loader that computes the result
+     * @param <T>    The type of the result
+     * @return The cached or computed result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String kind, String idref, Instant from, Instant to, String unit, Object params, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        List<Object> key = Arrays.asList(kind, idref, from, to, unit, params);
+        Versions componentVersions = versions.computeIfAbsent(idref, id -> new Versions());
+        long now = System.currentTimeMillis();
+
+        //Look up valid entry
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (isValid(entry, componentVersions, now)) {
+                    hitCount.incrementAndGet();
+                    return (T) entry.result;
+                }
+                entries.remove(key);
+                invalidationCount.incrementAndGet();
+            }
+        }
+        missCount.incrementAndGet();
+
+        //Read versions before computing, so that concurrent changes invalidate the result
+        long liveVersion = componentVersions.live.get();
+        long rewriteVersion = componentVersions.rewrite.get();
+        boolean historical = (to != null) && (to.toEpochMilli() <= now - historicalGraceMillis);
+        T result = loader.get();
+
+        //Add entry and evict least recently used entries
+        synchronized (entries) {
+            entries.put(key, new Entry(result, now, liveVersion, rewriteVersion, historical));
+            Iterator<Map.Entry<List<Object>, Entry>> iterator = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries) && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Notifies the cache that new value logs of a certain component were written by the ingestion path.
+     *
+     * @param idref The idref of the component
+     */
+    public void onValueLogsWritten(String idref) {
+        Versions componentVersions = versions.get(idref);
+        if (componentVersions != null) {
+            componentVersions.live.incrementAndGet();
+        }
+    }
+
+    /**
+     * Notifies the cache that value logs of a certain component were changed in arbitrary time ranges, e.g. by
+     * an import, a deletion or the expiry of value logs.
+     *
+     * @param idref The idref of the component
+     */
+    public void onValueLogsChanged(String idref) {
+        Versions componentVersions = versions.get(idref);
+        if (componentVersions != null) {
+            componentVersions.rewrite.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the current statistics of the cache.
+     *
+     * @return The statistics
+     */
+    public ValueLogQueryCacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new ValueLogQueryCacheStats(enabled, size, maxEntries, hitCount.get(), missCount.get(),
+                evictionCount.get(), invalidationCount.get());
+    }
+
+    /**
+     * Checks whether a cached entry is still valid with respect to its age and the versions of its component.
+     *
+     * @param entry    The entry to check
+     * @param versions The current versions of the component
+     * @param now      The current time in epoch milliseconds
+     * @return True, if the entry is valid; false otherwise
+     */
+    private boolean isValid(Entry entry, Versions versions, long now) {
+        if ((ttlMillis > 0) && (now - entry.createdAt > ttlMillis)) {
+            return false;
+        } else if (entry.rewriteVersion != versions.rewrite.get()) {
+            return false;
+        }
+        return entry.historical || (entry.liveVersion == versions.live.get());
+    }
+
+    /**
+     * Version counters of a component.
+     */
+    private static class Versions {
+        private final AtomicLong live = new AtomicLong();
+        private final AtomicLong rewrite = new AtomicLong();
+    }
+
+    /**
+     * Cached result together with the versions of its component at the time it was computed.
+     */
+    private static class Entry {
+        private final Object result;
+        private final long createdAt;
+        private final long liveVersion;
+        private final long rewriteVersion;
+        private final boolean historical;
+
+        private Entry(Object result, long createdAt, long liveVersion, long rewriteVersion, boolean historical) {
+            this.result = result;
+            this.createdAt = createdAt;
+            this.liveVersion = liveVersion;
+            this.rewriteVersion = rewriteVersion;
+            this.historical = historical;
+        }
+    }
+}
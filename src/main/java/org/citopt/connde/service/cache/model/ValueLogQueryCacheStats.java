@@ -0,0 +1,115 @@
+package org.citopt.connde.service.cache.model;
+
+/**
+ * Objects of this class hold the current statistics of the cache for value log query results. They can be used
+ * as DTOs in order to retrieve the statistics to the client.
+ */
+public class ValueLogQueryCacheStats {
+    //Whether the cache is enabled
+    private boolean enabled;
+
+    //Current and maximum number of entries
+    private int size;
+    private int maxEntries;
+
+    //Counters of hits, misses, evicted and invalidated entries
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    /**
+     * Creates a new stats object for the query cache.
+     *
+     * @param enabled           True, if the cache is enabled; false otherwise
+     * @param size              The current number of cached results
+     * @param maxEntries        The maximum number of cached results
+     * @param hitCount          The number of queries that were answered from the cache so far
+     * @param missCount         The number of queries that had to be computed so far
+     * @param evictionCount     The number of entries that were evicted due to the size limit so far
+     * @param invalidationCount The number of entries that were discarded due to changes or expiry so far
+     */
+    public ValueLogQueryCacheStats(boolean enabled, int size, int maxEntries, long hitCount, long missCount,
+                                   long evictionCount, long invalidationCount) {
+        this.enabled = enabled;
+        this.size = size;
+        this.maxEntries = maxEntries;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+    }
+
+    /**
+     * Returns whether the cache is enabled.
+     *
+     * @return True, if enabled; false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the current number of cached results.
+     *
+     * @return The number of cached results
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of cached results.
+     *
+     * @return The maximum number of cached results
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the number of queries that were answered from the cache.
+     *
+     * @return The number of hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of queries that had to be computed.
+     *
+     * @return The number of misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of queries that were answered from the cache.
+     *
+     * @return The hit ratio between 0 and 1
+     */
+    public double getHitRatio() {
+        long total = hitCount + missCount;
+        return (total == 0) ? 0 : ((double) hitCount) / total;
+    }
+
+    /**
+     * Returns the number of entries that were evicted due to the size limit.
+     *
+     * @return The number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of entries that were discarded since their component changed or they expired.
+     *
+     * @return The number of invalidations
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+}
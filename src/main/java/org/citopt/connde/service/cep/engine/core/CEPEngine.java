@@ -7,6 +7,7 @@ import org.citopt.connde.service.cep.engine.core.queries.CEPQuery;
 import org.citopt.connde.service.cep.engine.core.queries.CEPQueryValidation;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Interface for implementations of Complex Event Processing (CEP) engines.
@@ -23,6 +24,20 @@ public interface CEPEngine {
      */
     CEPQuery createQuery(String name, String queryString);
 
+    /**
+     * Creates and registers a new CEP query from a given name, a query string and the partition keys of the events
+     * the query refers to. Partitioned engines use the keys in order to place the query on the partition that
+     * processes these events; other engines ignore them.
+     *
+     * @param name          The name of the query to create
+     * @param queryString   The query string of the query
+     * @param partitionKeys The partition keys of the events the query refers to
+     * @return The CEPQuery object representing the query
+     */
+    default CEPQuery createQuery(String name, String queryString, Set<String> partitionKeys) {
+        return createQuery(name, queryString);
+    }
+
     /**
      * Returns a CEPQuery object for a certain query given by its name.
      *
@@ -55,6 +70,18 @@ public interface CEPEngine {
      */
     CEPQueryValidation validateQuery(String queryString);
 
+    /**
+     * Validates a given query string that refers to events with certain partition keys and checks whether it is
+     * syntactically and semantically valid on the partition the query would be placed on.
+     *
+     * @param queryString   The query string to check
+     * @param partitionKeys The partition keys of the events the query refers to
+     * @return The result of the validation wrapped in a validation object
+     */
+    default CEPQueryValidation validateQuery(String queryString, Set<String> partitionKeys) {
+        return validateQuery(queryString);
+    }
+
     /**
      * Returns a list of all names of queries that are currently registered at the engine.
      *
@@ -0,0 +1,305 @@
+package org.citopt.connde.service.cep.engine.core.dispatch;
+
+import org.citopt.connde.service.cep.engine.core.dispatch.model.CEPDispatchStats;
+import org.citopt.connde.service.cep.engine.core.output.CEPOutput;
+import org.citopt.connde.service.cep.engine.core.queries.CEPQuerySubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded executor that notifies the subscribers of CEP queries about matches, so that the threads of the CEP
+ * engine are not blocked by the subscribers. The executor consists out of a fixed number of workers with a bounded
+ * queue each. Matches are assigned to the workers by hashing the name of their query, so that the matches of a
+ * certain query are always delivered one after another and in the order in which they occurred. If the queue of
+ * a worker is full, the configured {@link CEPDispatchPolicy} is applied; coalescing is applied to every match.
+ */
+public class CEPDispatchExecutor {
+    //Queues and workers
+    private final List<BlockingQueue<Dispatch>> queues;
+    private final List<Thread> workers;
+    private final int queueCapacity;
+    private final CEPDispatchPolicy policy;
+
+    //Map (query name --> dispatch) of the queued dispatch per query that was not yet taken (only for coalescing)
+    private final Map<String, Dispatch> pendingDispatches = new ConcurrentHashMap<>();
+
+    //Counters
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+
+    //Sum and maximum of the times dispatches spent in the queues (nanoseconds)
+    private final AtomicLong totalQueueLatency = new AtomicLong();
+    private final AtomicLong maxQueueLatency = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates and starts a new dispatch executor.
+     *
+     * @param workerCount   The number of workers
+     * @param queueCapacity The capacity of the queue of each worker
+     * @param policy        The policy to apply if the queue of a worker is full
+     */
+    public CEPDispatchExecutor(int workerCount, int queueCapacity, CEPDispatchPolicy policy) {
+        //Sanity checks
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Number of workers must be at least one.");
+        } else if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least one.");
+        } else if (policy == null) {
+            throw new IllegalArgumentException("Policy must not be null.");
+        }
+
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.queues = new ArrayList<>(workerCount);
+        this.workers = new ArrayList<>(workerCount);
+
+        //Create and start one worker per queue
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Dispatch> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+
+            Thread worker = new Thread(() -> work(queue), "cep-dispatch-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Enqueues the output of a matching query for notifying the subscriber of the query.
+     *
+     * @param queryName  The name of the query
+     * @param subscriber The subscriber to notify
+     * @param output     The output of the query
+     */
+    public void dispatch(String queryName, CEPQuerySubscriber subscriber, CEPOutput output) {
+        //Sanity checks
+        if (queryName == null) {
+            throw new IllegalArgumentException("Query name must not be null.");
+        } else if (subscriber == null) {
+            throw new IllegalArgumentException("Subscriber must not be null.");
+        }
+
+        //Select worker by query name, so that the order per query is preserved
+        BlockingQueue<Dispatch> queue = queues.get(Math.floorMod(queryName.hashCode(), queues.size()));
+        dispatchedCount.incrementAndGet();
+
+        switch (policy) {
+            case DROP_OLDEST:
+                dropOldest(queue, new Dispatch(queryName, subscriber, output));
+                return;
+            case COALESCE:
+                coalesce(queue, queryName, subscriber, output);
+                return;
+            default:
+                Dispatch dispatch = new Dispatch(queryName, subscriber, output);
+                if (!queue.offer(dispatch)) {
+                    blockedCount.incrementAndGet();
+                    putBlocking(queue, dispatch);
+                }
+        }
+    }
+
+    /**
+     * Stops all workers of the executor. Dispatches that are still queued are discarded.
+     */
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Returns the current statistics of the executor.
+     *
+     * @return The statistics
+     */
+    public CEPDispatchStats getStats() {
+        //Sum up the depths of all queues
+        int queueDepth = 0;
+        for (BlockingQueue<Dispatch> queue : queues) {
+            queueDepth += queue.size();
+        }
+
+        //Calculate average queue latency of all dispatches that were started
+        long started = completedCount.get() + failedCount.get();
+        double averageQueueLatency = (started == 0) ? 0 : totalQueueLatency.get() / (started * 1e6);
+
+        return new CEPDispatchStats(policy.name(), workers.size(), queueDepth, queues.size() * queueCapacity,
+                dispatchedCount.get(), completedCount.get(), failedCount.get(), rejectedCount.get(),
+                coalescedCount.get(), blockedCount.get(), averageQueueLatency, maxQueueLatency.get() / 1e6);
+    }
+
+    /**
+     * Adds a dispatch to a queue and discards the oldest queued dispatch of the same query as long as the queue
+     * is full. If no dispatch of the query is queued, it waits until the queue has capacity.
+     *
+     * @param queue    The queue of the worker that is responsible for the query
+     * @param dispatch The dispatch to add
+     */
+    private void dropOldest(BlockingQueue<Dispatch> queue, Dispatch dispatch) {
+        while (!queue.offer(dispatch)) {
+            Dispatch oldest = findOldest(queue, dispatch.queryName);
+            if (oldest == null) {
+                blockedCount.incrementAndGet();
+                putBlocking(queue, dispatch);
+                return;
+            }
+
+            //Oldest dispatch might have been taken by the worker in the meantime
+            if (queue.remove(oldest)) {
+                rejectedCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Enqueues the output of a matching query if no dispatch of the query is queued yet and otherwise replaces
+     * the output of the queued dispatch. A new dispatch is registered as pending before it is added to the queue,
+     * so that the worker always finds the registration when taking the dispatch.
+     *
+     * @param queue      The queue of the worker that is responsible for the query
+     * @param queryName  The name of the query
+     * @param subscriber The subscriber to notify
+     * @param output     The output of the query
+     */
+    private void coalesce(BlockingQueue<Dispatch> queue, String queryName, CEPQuerySubscriber subscriber, CEPOutput output) {
+        Dispatch pending = pendingDispatches.get(queryName);
+        if ((pending != null) && pending.replaceOutput(output)) {
+            coalescedCount.incrementAndGet();
+            return;
+        }
+
+        //Register new dispatch, which can be coalesced with while waiting for capacity
+        Dispatch dispatch = new Dispatch(queryName, subscriber, output);
+        pendingDispatches.put(queryName, dispatch);
+        if (queue.offer(dispatch)) {
+            return;
+        }
+        blockedCount.incrementAndGet();
+        if (!putBlocking(queue, dispatch)) {
+            pendingDispatches.remove(queryName, dispatch);
+        }
+    }
+
+    /**
+     * Finds the oldest dispatch of a certain query within a queue.
+     *
+     * @param queue     The queue to search
+     * @param queryName The name of the query
+     * @return The oldest dispatch or null, if no dispatch of the query is queued
+     */
+    private Dispatch findOldest(BlockingQueue<Dispatch> queue, String queryName) {
+        for (Dispatch dispatch : queue) {
+            if (dispatch.queryName.equals(queryName)) {
+                return dispatch;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a dispatch to a queue and waits until the queue has capacity if necessary.
+     *
+     * @param queue    The queue to use
+     * @param dispatch The dispatch to add
+     * @return True, if the dispatch was added; false, if the executor was shut down in the meantime
+     */
+    private boolean putBlocking(BlockingQueue<Dispatch> queue, Dispatch dispatch) {
+        try {
+            while (running) {
+                if (queue.offer(dispatch, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Main loop of a worker that takes dispatches from its queue and notifies the subscribers.
+     *
+     * @param queue The queue of the worker
+     */
+    private void work(BlockingQueue<Dispatch> queue) {
+        while (running) {
+            Dispatch dispatch;
+            try {
+                dispatch = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            //Take over output, so that the dispatch can no longer be coalesced
+            pendingDispatches.remove(dispatch.queryName, dispatch);
+            CEPOutput output = dispatch.take();
+
+            //Update queue latency
+            long latency = System.nanoTime() - dispatch.enqueueTime;
+            totalQueueLatency.addAndGet(latency);
+            maxQueueLatency.accumulateAndGet(latency, Math::max);
+
+            //Notify subscriber, but do not let a failing subscriber kill the worker
+            try {
+                dispatch.subscriber.onQueryTriggered(output);
+                completedCount.incrementAndGet();
+            } catch (Exception e) {
+                failedCount.incrementAndGet();
+                System.err.println("Subscriber of query " + dispatch.queryName + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Queued notification of a subscriber about the output of a query.
+     */
+    private static class Dispatch {
+        private final String queryName;
+        private final CEPQuerySubscriber subscriber;
+        private final long enqueueTime = System.nanoTime();
+        private CEPOutput output;
+        private boolean taken = false;
+
+        private Dispatch(String queryName, CEPQuerySubscriber subscriber, CEPOutput output) {
+            this.queryName = queryName;
+            this.subscriber = subscriber;
+            this.output = output;
+        }
+
+        /**
+         * Replaces the output of the dispatch, unless a worker already took it.
+         *
+         * @param output The new output
+         * @return True, if the output was replaced; false otherwise
+         */
+        private synchronized boolean replaceOutput(CEPOutput output) {
+            if (taken) {
+                return false;
+            }
+            this.output = output;
+            return true;
+        }
+
+        private synchronized CEPOutput take() {
+            taken = true;
+            return output;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.citopt.connde.service.cep.engine.core.dispatch;
+
+/**
+ * Enumeration of the policies that may be applied by the CEP dispatch executor when a CEP query matches while the
+ * queue of the responsible worker is full. Dispatches of other queries are never discarded, since the queue of
+ * a worker is shared by several queries.
+ */
+public enum CEPDispatchPolicy {
+    /**
+     * The thread of the CEP engine waits until the queue has capacity again.
+     */
+    BLOCK,
+
+    /**
+     * The oldest queued dispatch of the same query is discarded in favour of the new one. If no dispatch of the
+     * query is queued, the thread of the CEP engine waits until the queue has capacity again.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The output of a queued dispatch of the same query is replaced by the new output, so that only the most
+     * recent match of the query is delivered. This is done regardless of whether the queue is full, so that at
+     * most one dispatch per query is queued. If no dispatch of the query is queued and the queue is full, the
+     * thread of the CEP engine waits until the queue has capacity again.
+     */
+    COALESCE
+}
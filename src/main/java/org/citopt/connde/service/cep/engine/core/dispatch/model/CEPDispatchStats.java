@@ -0,0 +1,168 @@
+package org.citopt.connde.service.cep.engine.core.dispatch.model;
+
+/**
+ * Objects of this class hold the current statistics of the executor that notifies the subscribers of CEP queries.
+ * They can be used as DTOs in order to retrieve the statistics to the client.
+ */
+public class CEPDispatchStats {
+    //Policy that is applied if a queue is full
+    private String policy;
+
+    //Number of workers and queue fill level
+    private int workers;
+    private int queueDepth;
+    private int queueCapacity;
+
+    //Counters of dispatches
+    private long dispatchedCount;
+    private long completedCount;
+    private long failedCount;
+    private long rejectedCount;
+    private long coalescedCount;
+    private long blockedCount;
+
+    //Times dispatches spent in the queues
+    private double averageQueueLatencyMillis;
+    private double maxQueueLatencyMillis;
+
+    /**
+     * Creates a new stats object for the dispatch executor.
+     *
+     * @param policy                    The name of the policy that is applied if a queue is full
+     * @param workers                   The number of workers
+     * @param queueDepth                The total number of dispatches that are currently queued
+     * @param queueCapacity             The total capacity of all queues
+     * @param dispatchedCount           The number of query matches that were handed over to the executor so far
+     * @param completedCount            The number of subscriber notifications that completed so far
+     * @param failedCount               The number of subscriber notifications that failed so far
+     * @param rejectedCount             The number of dispatches that were discarded due to full queues so far
+     * @param coalescedCount            The number of dispatches that were merged into queued dispatches so far
+     * @param blockedCount              The number of dispatches for which the engine had to wait so far
+     * @param averageQueueLatencyMillis The average time dispatches spent in the queues in milliseconds
+     * @param maxQueueLatencyMillis     The maximum time a dispatch spent in the queues in milliseconds
+     */
+    public CEPDispatchStats(String policy, int workers, int queueDepth, int queueCapacity, long dispatchedCount,
+                            long completedCount, long failedCount, long rejectedCount, long coalescedCount,
+                            long blockedCount, double averageQueueLatencyMillis, double maxQueueLatencyMillis) {
+        this.policy = policy;
+        this.workers = workers;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.dispatchedCount = dispatchedCount;
+        this.completedCount = completedCount;
+        this.failedCount = failedCount;
+        this.rejectedCount = rejectedCount;
+        this.coalescedCount = coalescedCount;
+        this.blockedCount = blockedCount;
+        this.averageQueueLatencyMillis = averageQueueLatencyMillis;
+        this.maxQueueLatencyMillis = maxQueueLatencyMillis;
+    }
+
+    /**
+     * Returns the name of the policy that is applied if a queue is full.
+     *
+     * @return The name of the policy
+     */
+    public String getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of workers.
+     *
+     * @return The number of workers
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Returns the total number of dispatches that are currently queued.
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns the total capacity of all queues.
+     *
+     * @return The queue capacity
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Returns the number of query matches that were handed over to the executor.
+     *
+     * @return The number of dispatches
+     */
+    public long getDispatchedCount() {
+        return dispatchedCount;
+    }
+
+    /**
+     * Returns the number of subscriber notifications that completed.
+     *
+     * @return The number of completed notifications
+     */
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    /**
+     * Returns the number of subscriber notifications that failed with an exception.
+     *
+     * @return The number of failed notifications
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of dispatches that were discarded due to full queues.
+     *
+     * @return The number of rejected dispatches
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the number of dispatches that were merged into queued dispatches of the same query.
+     *
+     * @return The number of coalesced dispatches
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Returns the number of dispatches for which the engine had to wait until a queue had capacity.
+     *
+     * @return The number of blocked dispatches
+     */
+    public long getBlockedCount() {
+        return blockedCount;
+    }
+
+    /**
+     * Returns the average time dispatches spent in the queues before their subscribers were notified.
+     *
+     * @return The average queue latency in milliseconds
+     */
+    public double getAverageQueueLatencyMillis() {
+        return averageQueueLatencyMillis;
+    }
+
+    /**
+     * Returns the maximum time a dispatch spent in the queues before its subscriber was notified.
+     *
+     * @return The maximum queue latency in milliseconds
+     */
+    public double getMaxQueueLatencyMillis() {
+        return maxQueueLatencyMillis;
+    }
+}
@@ -1,5 +1,6 @@
 package org.citopt.connde.service.cep.engine.core.events;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -8,16 +9,19 @@ import java.util.Map;
  * of event processing. Each single event type implementation needs to extend this class. An event object
  * can be considered as an instance of a certain event type object and needs to provide at least the fields that
  * are defined in the dedicated event type object of the same name.
+ * <p>
+ * Subclasses with a fixed set of fields may override {@link #getFieldValue(String)} and
+ * {@link #getFieldValues()} in order to provide their values directly, without building a map per event.
  */
 public abstract class CEPEvent {
-    //Map (field name --> field value) of field values that are part of the event
+    //Map (field name --> field value) of field values that are part of the event (created on demand)
     private Map<String, Object> fieldValues;
 
     /**
      * Creates a new CEP event.
      */
     protected CEPEvent() {
-        this.fieldValues = new HashMap<>();
+
     }
 
     /**
@@ -30,6 +34,8 @@ public abstract class CEPEvent {
         //Sanity checks
         if ((fieldName == null) || (fieldName.isEmpty())) {
             throw new IllegalArgumentException("Field name must not be null or empty.");
+        } else if (fieldValues == null) {
+            fieldValues = new HashMap<>();
         } else if (fieldValues.containsKey(fieldName)) {
             throw new IllegalArgumentException("A value for a field of this name has been added already.");
         }
@@ -38,13 +44,23 @@ public abstract class CEPEvent {
         fieldValues.put(fieldName, fieldValue);
     }
 
+    /**
+     * Returns the value of a certain field of this event.
+     *
+     * @param fieldName The name of the field
+     * @return The value of the field or null, if no value has been added for this field
+     */
+    public Object getFieldValue(String fieldName) {
+        return (fieldValues == null) ? null : fieldValues.get(fieldName);
+    }
+
     /**
      * Returns a map (field name --> field value) of field values that have been added to this object.
      *
      * @return The mao of field values
      */
     public Map<String, Object> getFieldValues() {
-        return fieldValues;
+        return (fieldValues == null) ? Collections.emptyMap() : fieldValues;
     }
 
     /**
@@ -55,4 +71,15 @@ public abstract class CEPEvent {
      * @return The event type name
      */
     public abstract String getEventTypeName();
+
+    /**
+     * Returns the key that is used by partitioned CEP engines in order to decide which partition processes this
+     * event. Events with the same key are always processed by the same partition. By default, the name of the
+     * event type is used.
+     *
+     * @return The partition key
+     */
+    public String getPartitionKey() {
+        return getEventTypeName();
+    }
 }
@@ -1,15 +1,19 @@
 package org.citopt.connde.service.cep.engine.core.events;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * Objects of this class represent definitions of event types that might be registered at the CEP engine.
  * A event type definition consists out of a name and a map of typed fields that need to be available
- * in event instances.
+ * in event instances. The fields keep the order in which they were added.
  */
 public class CEPEventType {
+    //Pattern for names of event types and fields that may be used within queries
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
     //Name of the event type and its instances
     private String name;
     //Map (field name --> data type) of fields that are part of instances of this event type
@@ -25,7 +29,7 @@ public class CEPEventType {
         setName(name);
 
         //Set empty map of fields
-        this.fields = new HashMap<>();
+        this.fields = new LinkedHashMap<>();
     }
 
     /**
@@ -49,6 +53,26 @@ public class CEPEventType {
         fields.put(fieldName, dataType);
     }
 
+    /**
+     * Validates the schema of this event type, i.e. checks whether the event type provides at least one field and
+     * whether its name and the names of its fields can be used as identifiers within queries. This check is
+     * supposed to be performed once when the event type is registered.
+     *
+     * @throws IllegalArgumentException In case the schema is invalid
+     */
+    public void validateSchema() {
+        if (!IDENTIFIER_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("Event type name \"" + name + "\" is not a valid identifier.");
+        } else if (fields.isEmpty()) {
+            throw new IllegalArgumentException("Event type \"" + name + "\" must provide at least one field.");
+        }
+        for (String fieldName : fields.keySet()) {
+            if (!IDENTIFIER_PATTERN.matcher(fieldName).matches()) {
+                throw new IllegalArgumentException("Field name \"" + fieldName + "\" is not a valid identifier.");
+            }
+        }
+    }
+
     /**
      * Checks whether a given event object is a valid instance of this event type. In order to be
      * a valid instance of this event type, the event object needs to have the same name and to provide
@@ -69,19 +93,11 @@ public class CEPEventType {
             return false;
         }
 
-        //Get field values of the provided event
-        Map<String, Object> fieldValues = event.getFieldValues();
-
         //Iterate over all defined fields of this event type
         Set<String> fieldNames = fields.keySet();
         for (String fieldName : fieldNames) {
             //Event object must contain at least fields of the same name as those defined in the event type
-            if (!fieldValues.containsKey(fieldName)) {
-                return false;
-            }
-
-            //Get value of the field
-            Object fieldValue = fieldValues.get(fieldName);
+            Object fieldValue = event.getFieldValue(fieldName);
 
             //Get reference class of the field as defined in the corresponding event type
             Class referenceClass = fields.get(fieldName).getReferenceClass();
@@ -119,7 +135,8 @@ public class CEPEventType {
     }
 
     /**
-     * Returns a map (field name --> data type) of fields that need to be part of instances of this event type.
+     * Returns a map (field name --> data type) of fields that need to be part of instances of this event type,
+     * in the order in which the fields were added.
      *
      * @return The map of fields
      */
@@ -1,8 +1,9 @@
 package org.citopt.connde.service.cep.engine.core.output;
 
-import com.espertech.esper.event.map.MapEventBean;
+import com.espertech.esper.client.EventBean;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -54,11 +55,14 @@ public class CEPOutput {
         for (Object key : outputMap.keySet()) {
             Object value = outputMap.get(key);
 
-            //Check if MapEventBean object
-            if (value instanceof MapEventBean) {
-                //Replace MapEventBean object with its properties map
-                MapEventBean mapEventBean = (MapEventBean) value;
-                Map propertiesMap = mapEventBean.getProperties();
+            //Check if event bean object (e.g. backed by a map or an object array)
+            if (value instanceof EventBean) {
+                //Replace event bean object with a map of its properties
+                EventBean eventBean = (EventBean) value;
+                Map<String, Object> propertiesMap = new LinkedHashMap<>();
+                for (String propertyName : eventBean.getEventType().getPropertyNames()) {
+                    propertiesMap.put(propertyName, eventBean.get(propertyName));
+                }
                 outputMap.put(key, propertiesMap);
             }
         }
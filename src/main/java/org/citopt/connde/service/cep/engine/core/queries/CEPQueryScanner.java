@@ -0,0 +1,77 @@
+package org.citopt.connde.service.cep.engine.core.queries;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Utility class for scanning CEP query strings lexically, e.g. in order to find the event types a query refers to.
+ * The content of string literals is skipped, so that quoted names are not mistaken for references.
+ */
+public final class CEPQueryScanner {
+
+    private CEPQueryScanner() {
+    }
+
+    /**
+     * Determines all identifiers within a given query, excluding the content of string literals.
+     *
+     * @param query The query
+     * @return The set of identifiers
+     */
+    public static Set<String> findIdentifiers(String query) {
+        Set<String> identifiers = new HashSet<>();
+        int position = 0;
+        while ((query != null) && (position < query.length())) {
+            char c = query.charAt(position);
+            if ((c == '\'') || (c == '"')) {
+                position = skipStringLiteral(query, position);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = skipIdentifier(query, position);
+                identifiers.add(query.substring(position, end));
+                position = end;
+            } else {
+                position++;
+            }
+        }
+        return identifiers;
+    }
+
+    /**
+     * Returns the position after the identifier that starts at a given position of a query.
+     *
+     * @param query    The query
+     * @param position The start position of the identifier
+     * @return The position after the identifier
+     */
+    public static int skipIdentifier(String query, int position) {
+        while ((position < query.length()) && Character.isJavaIdentifierPart(query.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the position after the string literal that starts at a given position of a query, taking escaped
+     * characters into account. Unterminated string literals extend to the end of the query.
+     *
+     * @param query    The query
+     * @param position The position of the opening quote
+     * @return The position after the closing quote
+     */
+    public static int skipStringLiteral(String query, int position) {
+        char quote = query.charAt(position);
+        position++;
+        while (position < query.length()) {
+            char c = query.charAt(position);
+            if (c == '\\') {
+                position += 2;
+                continue;
+            }
+            position++;
+            if (c == quote) {
+                break;
+            }
+        }
+        return Math.min(position, query.length());
+    }
+}
@@ -2,6 +2,7 @@ package org.citopt.connde.service.cep.engine.esper;
 
 import com.espertech.esper.client.*;
 import org.citopt.connde.service.cep.engine.core.CEPEngine;
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchExecutor;
 import org.citopt.connde.service.cep.engine.core.events.CEPEvent;
 import org.citopt.connde.service.cep.engine.core.events.CEPEventType;
 import org.citopt.connde.service.cep.engine.core.events.CEPPrimitiveDataTypes;
@@ -9,10 +10,20 @@ import org.citopt.connde.service.cep.engine.core.exceptions.EventNotRegisteredEx
 import org.citopt.connde.service.cep.engine.core.queries.CEPQueryValidation;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * This component implements the interface of CEP engines by making use of the
  * CEP engine Esper (http://esper.espertech.com). It provides basic functionality for working with this engine.
+ * <p>
+ * Event types are registered as object-array types and kept in a registry that is keyed by their names, so that
+ * the event type of an event is found in constant time, regardless of the number of registered event types.
+ * The schema of each event type is validated once at registration and the order of its fields is precomputed,
+ * so that events can be passed to Esper as arrays of field values via a dedicated event sender.
+ * <p>
+ * Subscribers of queries are notified by a bounded dispatch executor that preserves the order of the matches
+ * of each query.
  */
 public class EsperCEPEngine implements CEPEngine {
     //Internal fields
@@ -20,23 +31,55 @@ public class EsperCEPEngine implements CEPEngine {
     private EPAdministrator cepAdmin;
     private EPRuntime cepRuntime;
 
-    //Stores the event types that have been registered at the engine
-    private Set<CEPEventType> registeredEventTypes;
+    //Map (event type name --> registered event type) of the event types that have been registered at the engine
+    private Map<String, RegisteredEventType> registeredEventTypes;
+
+    //Executor that notifies the subscribers of queries
+    private CEPDispatchExecutor dispatchExecutor;
+
+    /**
+     * Creates the component by initializing the default Esper provider and the corresponding internal fields.
+     *
+     * @param dispatchExecutor The executor to use for notifying the subscribers of queries
+     */
+    public EsperCEPEngine(CEPDispatchExecutor dispatchExecutor) {
+        this(EPServiceProviderManager.getDefaultProvider(), dispatchExecutor);
+    }
+
+    /**
+     * Creates the component by initializing a separate Esper provider with a given URI and the corresponding
+     * internal fields. Engines with different URIs do not share any event types or queries.
+     *
+     * @param providerURI      The URI of the Esper provider to use
+     * @param dispatchExecutor The executor to use for notifying the subscribers of queries
+     */
+    public EsperCEPEngine(String providerURI, CEPDispatchExecutor dispatchExecutor) {
+        this(EPServiceProviderManager.getProvider(providerURI), dispatchExecutor);
+    }
 
     /**
-     * Creates the component by initializing Esper and the corresponding internal fields.
+     * Creates the component by initializing a given Esper provider and the corresponding internal fields.
+     *
+     * @param cepService       The Esper provider to use
+     * @param dispatchExecutor The executor to use for notifying the subscribers of queries
      */
-    public EsperCEPEngine() {
-        //Get and initialize CEP service
-        cepService = EPServiceProviderManager.getDefaultProvider();
+    private EsperCEPEngine(EPServiceProvider cepService, CEPDispatchExecutor dispatchExecutor) {
+        //Sanity check
+        if (dispatchExecutor == null) {
+            throw new IllegalArgumentException("Dispatch executor must not be null.");
+        }
+        this.dispatchExecutor = dispatchExecutor;
+
+        //Initialize CEP service
+        this.cepService = cepService;
         cepService.initialize();
 
         //Get admin and runtime objects
         cepAdmin = cepService.getEPAdministrator();
         cepRuntime = cepService.getEPRuntime();
 
-        //Create empty set of registered event types
-        registeredEventTypes = new HashSet<>();
+        //Create empty registry of event types
+        registeredEventTypes = new ConcurrentHashMap<>();
     }
 
     /**
@@ -46,6 +89,7 @@ public class EsperCEPEngine implements CEPEngine {
      * @param name        The name of the query to create
      * @param queryString The query string of the query
      * @return The CEPQuery object representing the query
+     * @throws IllegalArgumentException In case the name is already in use or the query string is invalid
      */
     public EsperCEPQuery createQuery(String name, String queryString) {
         //Sanity checks
@@ -62,10 +106,15 @@ public class EsperCEPEngine implements CEPEngine {
         }
 
         //Create statement with name and query string
-        EPStatement statement = cepAdmin.createEPL(queryString, name);
+        EPStatement statement;
+        try {
+            statement = cepAdmin.createEPL(queryString, name);
+        } catch (EPException e) {
+            throw new IllegalArgumentException("Invalid query: " + e.getMessage(), e);
+        }
 
         //Create query object from statement and return
-        return new EsperCEPQuery(statement);
+        return new EsperCEPQuery(statement, dispatchExecutor);
     }
 
     /**
@@ -90,23 +139,27 @@ public class EsperCEPEngine implements CEPEngine {
         }
 
         //Create query object from statement and return
-        return new EsperCEPQuery(statement);
+        return new EsperCEPQuery(statement, dispatchExecutor);
     }
 
     /**
      * Registers a new event type at the CEP engine. After that, events of the new event type might be
-     * sent to the engine or used in queries.
+     * sent to the engine or used in queries. The schema of the event type is validated and the event type is
+     * registered as object-array type whose fields are ordered as in the event type.
      *
      * @param eventType The event type to register
      */
-    public void registerEventType(CEPEventType eventType) {
+    public synchronized void registerEventType(CEPEventType eventType) {
         //Sanity checks
         if (eventType == null) {
             throw new IllegalArgumentException("Event type object must not be null.");
-        } else if (registeredEventTypes.contains(eventType)) {
+        } else if (registeredEventTypes.containsKey(eventType.getName())) {
             throw new IllegalArgumentException("This event type has already been registered.");
         }
 
+        //Validate schema once, so that events of this type only need to be type-checked
+        eventType.validateSchema();
+
         /*
         Build up a query string containing the event name and its typed fields for registering
         the event type at the Esper engine.
@@ -116,7 +169,7 @@ public class EsperCEPEngine implements CEPEngine {
         Map<String, CEPPrimitiveDataTypes> eventFields = eventType.getFields();
 
         //Build query
-        StringBuilder queryBuilder = new StringBuilder("Create schema");
+        StringBuilder queryBuilder = new StringBuilder("Create objectarray schema");
         queryBuilder.append(" ");
         queryBuilder.append(eventType.getName());
         queryBuilder.append("(");
@@ -145,8 +198,9 @@ public class EsperCEPEngine implements CEPEngine {
         //Create statement for query
         cepAdmin.createEPL(queryBuilder.toString());
 
-        //Add event type to set of registered types
-        registeredEventTypes.add(eventType);
+        //Add event type to the registry, together with its field order and event sender
+        registeredEventTypes.put(eventType.getName(),
+                new RegisteredEventType(eventType, cepRuntime.getEventSender(eventType.getName())));
     }
 
     /**
@@ -156,23 +210,62 @@ public class EsperCEPEngine implements CEPEngine {
      * @param event The event to publish
      */
     public void sendEvent(CEPEvent event) throws EventNotRegisteredException {
-        //Iterate over all registered event types and Try to find matching event type
-        CEPEventType matchingEventType = null;
-        for (CEPEventType eventType : registeredEventTypes) {
-            //Check if current event type matches the given event
-            if (eventType.isValidInstance(event)) {
-                matchingEventType = eventType;
-                break;
-            }
+        //Sanity check
+        if (event == null) {
+            throw new IllegalArgumentException("Event object must not be null.");
         }
 
-        //Check if event type could be found
-        if (matchingEventType == null) {
+        //Look up the event type by the name of the event
+        RegisteredEventType eventType = registeredEventTypes.get(event.getEventTypeName());
+        if (eventType == null) {
             throw new EventNotRegisteredException("No event type has been registered for event \"" + event.getEventTypeName() + "\".");
         }
 
+        //Collect the field values in the order of the event type
+        Object[] fieldValues = eventType.toFieldValues(event);
+        if (fieldValues == null) {
+            throw new EventNotRegisteredException("Event \"" + event.getEventTypeName() + "\" does not match its registered event type.");
+        }
+
         //Send valid event to Esper
-        cepRuntime.sendEvent(event.getFieldValues(), event.getEventTypeName());
+        eventType.sender.sendEvent(fieldValues);
+    }
+
+    /**
+     * Checks whether an event type with a given name is registered at the engine.
+     *
+     * @param name The name of the event type
+     * @return True, if the event type is registered; false otherwise
+     */
+    public boolean isEventTypeRegistered(String name) {
+        return registeredEventTypes.containsKey(name);
+    }
+
+    /**
+     * Returns the number of event types that are currently registered at the engine.
+     *
+     * @return The number of event types
+     */
+    public int getRegisteredEventTypeCount() {
+        return registeredEventTypes.size();
+    }
+
+    /**
+     * Returns the executor that notifies the subscribers of queries.
+     *
+     * @return The dispatch executor
+     */
+    public CEPDispatchExecutor getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    /**
+     * Destroys the Esper provider of this engine together with all its event types and queries. The dispatch
+     * executor is owned by the creator of the engine and keeps running. The engine must not be used afterwards.
+     */
+    public void destroy() {
+        registeredEventTypes.clear();
+        cepService.destroy();
     }
 
     /**
@@ -206,6 +299,27 @@ public class EsperCEPEngine implements CEPEngine {
         return new CEPQueryValidation(queryString, true);
     }
 
+    /**
+     * Registers a listener that is notified with the name of each query that is unregistered from the engine,
+     * regardless of which query object was used for unregistering it.
+     *
+     * @param listener The listener to register
+     */
+    void addQueryRemovalListener(Consumer<String> listener) {
+        cepService.addStatementStateListener(new EPStatementStateListener() {
+            @Override
+            public void onStatementCreate(EPServiceProvider serviceProvider, EPStatement statement) {
+            }
+
+            @Override
+            public void onStatementStateChange(EPServiceProvider serviceProvider, EPStatement statement) {
+                if (statement.isDestroyed()) {
+                    listener.accept(statement.getName());
+                }
+            }
+        });
+    }
+
     /**
      * Returns a list of all names of queries that are currently registered at the engine.
      *
@@ -218,4 +332,42 @@ public class EsperCEPEngine implements CEPEngine {
         //Convert array to list
         return Arrays.asList(names);
     }
+
+    /**
+     * Event type that has been registered at the engine, together with the precomputed order and reference
+     * classes of its fields and the event sender of Esper.
+     */
+    private static class RegisteredEventType {
+        private final String[] fieldNames;
+        private final Class[] fieldClasses;
+        private final EventSender sender;
+
+        private RegisteredEventType(CEPEventType eventType, EventSender sender) {
+            Map<String, CEPPrimitiveDataTypes> fields = eventType.getFields();
+            this.fieldNames = fields.keySet().toArray(new String[0]);
+            this.fieldClasses = new Class[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                fieldClasses[i] = fields.get(fieldNames[i]).getReferenceClass();
+            }
+            this.sender = sender;
+        }
+
+        /**
+         * Collects the values of the fields of a given event in the order of the event type.
+         *
+         * @param event The event
+         * @return The array of field values or null, if the event does not provide type-compatible values
+         */
+        private Object[] toFieldValues(CEPEvent event) {
+            Object[] fieldValues = new Object[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                Object fieldValue = event.getFieldValue(fieldNames[i]);
+                if (!fieldClasses[i].isInstance(fieldValue)) {
+                    return null;
+                }
+                fieldValues[i] = fieldValue;
+            }
+            return fieldValues;
+        }
+    }
 }
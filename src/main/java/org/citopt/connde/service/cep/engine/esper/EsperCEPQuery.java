@@ -2,6 +2,7 @@ package org.citopt.connde.service.cep.engine.esper;
 
 import com.espertech.esper.client.EPStatement;
 import com.espertech.esper.client.EPStatementState;
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchExecutor;
 import org.citopt.connde.service.cep.engine.core.queries.CEPQuery;
 import org.citopt.connde.service.cep.engine.core.queries.CEPQuerySubscriber;
 
@@ -12,13 +13,19 @@ public class EsperCEPQuery implements CEPQuery {
     //The dedicated query statement created by the engine
     private EPStatement statement;
 
+    //The executor that notifies the subscriber of the query
+    private final CEPDispatchExecutor dispatchExecutor;
+
     /**
-     * Creates a new query object by passing a dedicated statement created by the CEP engine.
+     * Creates a new query object by passing a dedicated statement created by the CEP engine and the executor
+     * that is supposed to notify the subscriber of the query.
      *
-     * @param statement The statement of the query to wrap
+     * @param statement        The statement of the query to wrap
+     * @param dispatchExecutor The dispatch executor of the engine
      */
-    EsperCEPQuery(EPStatement statement) {
+    EsperCEPQuery(EPStatement statement, CEPDispatchExecutor dispatchExecutor) {
         setStatement(statement);
+        this.dispatchExecutor = dispatchExecutor;
     }
 
     /**
@@ -35,7 +42,8 @@ public class EsperCEPQuery implements CEPQuery {
         }
 
         //Create subscriber dispatcher that will notify the subscriber on callback
-        EsperCEPQueryDispatcher dispatcher = new EsperCEPQueryDispatcher(subscriber);
+        EsperCEPQueryDispatcher dispatcher = new EsperCEPQueryDispatcher(subscriber, statement.getName(),
+                dispatchExecutor);
 
         //Set subscriber
         statement.setSubscriber(dispatcher);
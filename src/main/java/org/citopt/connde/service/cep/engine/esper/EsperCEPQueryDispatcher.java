@@ -1,26 +1,35 @@
 package org.citopt.connde.service.cep.engine.esper;
 
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchExecutor;
 import org.citopt.connde.service.cep.engine.core.output.CEPOutput;
 import org.citopt.connde.service.cep.engine.core.queries.CEPQuerySubscriber;
 
 import java.util.Map;
 
 /**
- * Dispatcher for CEP query callbacks that converts the query result to a CEPOutput object, creates a new thread
- * and notifies the subscriber within this thread.
+ * Dispatcher for CEP query callbacks that converts the query result to a CEPOutput object and hands it over to
+ * the dispatch executor of the engine, which notifies the subscriber asynchronously and in order of the matches.
  */
 class EsperCEPQueryDispatcher {
     //The subscriber that should be notified by the dispatcher
     private CEPQuerySubscriber subscriber;
 
+    //The name of the query and the executor that notifies the subscriber
+    private final String queryName;
+    private final CEPDispatchExecutor executor;
+
     /**
      * Creates a new callback dispatcher by passing a dedicated subscriber that is supposed to be
-     * notified in case of a callback.
+     * notified in case of a callback, the name of the query and the executor to use for notifying the subscriber.
      *
      * @param subscriber The subscriber
+     * @param queryName  The name of the query
+     * @param executor   The dispatch executor to use
      */
-    EsperCEPQueryDispatcher(CEPQuerySubscriber subscriber) {
+    EsperCEPQueryDispatcher(CEPQuerySubscriber subscriber, String queryName, CEPDispatchExecutor executor) {
         setSubscriber(subscriber);
+        this.queryName = queryName;
+        this.executor = executor;
     }
 
     /**
@@ -32,9 +41,8 @@ class EsperCEPQueryDispatcher {
         //Create object from result
         CEPOutput result = new CEPOutput(resultMap);
 
-        //Create new thread so that Esper is not blocked
-        Thread subscriberThread = new Thread(() -> subscriber.onQueryTriggered(result));
-        subscriberThread.start();
+        //Notify subscriber asynchronously so that Esper is not blocked
+        executor.dispatch(queryName, subscriber, result);
     }
 
     /**
@@ -0,0 +1,375 @@
+package org.citopt.connde.service.cep.engine.esper;
+
+import org.citopt.connde.service.cep.engine.core.CEPEngine;
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchExecutor;
+import org.citopt.connde.service.cep.engine.core.events.CEPEvent;
+import org.citopt.connde.service.cep.engine.core.events.CEPEventType;
+import org.citopt.connde.service.cep.engine.core.exceptions.EventNotRegisteredException;
+import org.citopt.connde.service.cep.engine.core.queries.CEPQueryScanner;
+import org.citopt.connde.service.cep.engine.core.queries.CEPQueryValidation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CEP engine that distributes the event processing over several independent Esper engines, so that events of
+ * different components can be processed in parallel. Each event is routed to the partition that is selected by
+ * the hash of its partition key, which is the id of the component in general. Queries that only refer to the
+ * events of a single partition key are placed on the partition of this key. Queries that span multiple partition
+ * keys (or all events of an event type) are placed on an additional coordinating engine, which receives copies
+ * of the events it requires as long as at least one of its queries refers to them.
+ * <p>
+ * Event types are only registered at the engines that actually need them, i.e. on the first event or query
+ * that is routed to the engine. All engines share the same dispatch executor for notifying subscribers.
+ */
+public class PartitionedCEPEngine implements CEPEngine {
+    //Engines of the partitions and the coordinating engine
+    private final List<EsperCEPEngine> partitions;
+    private final EsperCEPEngine coordinator;
+
+    //Map (event type name --> event type) of all event types that have been registered
+    private final Map<String, CEPEventType> eventTypes = new ConcurrentHashMap<>();
+
+    //Maps (partition key/event type --> number of queries) of the events to forward to the coordinating engine
+    private final Map<String, Integer> coordinatedKeys = new ConcurrentHashMap<>();
+    private final Map<String, Integer> coordinatedEventTypes = new ConcurrentHashMap<>();
+
+    //Map (query name --> forwarded events) of the queries of the coordinating engine
+    private final Map<String, CoordinatedEvents> coordinatedQueries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the engine together with a given number of partitions.
+     *
+     * @param name             The name of the engine, used as prefix for the URIs of the Esper providers
+     * @param partitionCount   The number of partitions
+     * @param dispatchExecutor The executor to use for notifying the subscribers of queries
+     */
+    public PartitionedCEPEngine(String name, int partitionCount, CEPDispatchExecutor dispatchExecutor) {
+        //Sanity check
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Number of partitions must be at least one.");
+        }
+
+        //Create one Esper engine per partition and the coordinating engine
+        this.partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new EsperCEPEngine(name + "-partition-" + i, dispatchExecutor));
+        }
+        this.coordinator = new EsperCEPEngine(name + "-coordinator", dispatchExecutor);
+
+        //Stop forwarding events that are no longer required when queries of the coordinating engine are removed
+        this.coordinator.addQueryRemovalListener(this::releaseCoordinatedEvents);
+    }
+
+    /**
+     * Creates and registers a new CEP query from a given name and a query string. The event types the query
+     * refers to are used as partition keys.
+     *
+     * @param name        The name of the query to create
+     * @param queryString The query string of the query
+     * @return The CEPQuery object representing the query
+     */
+    @Override
+    public EsperCEPQuery createQuery(String name, String queryString) {
+        return createQuery(name, queryString, findReferencedEventTypes(queryString));
+    }
+
+    /**
+     * Creates and registers a new CEP query from a given name, a query string and the partition keys of the events
+     * the query refers to. If the query refers to exactly one partition key, it is placed on the partition of
+     * this key; otherwise it is placed on the coordinating engine.
+     *
+     * @param name          The name of the query to create
+     * @param queryString   The query string of the query
+     * @param partitionKeys The partition keys of the events the query refers to
+     * @return The CEPQuery object representing the query
+     */
+    @Override
+    public synchronized EsperCEPQuery createQuery(String name, String queryString, Set<String> partitionKeys) {
+        //Sanity checks
+        if ((name == null) || (name.isEmpty())) {
+            throw new IllegalArgumentException("Name must not be null or empty.");
+        } else if ((queryString == null) || (queryString.isEmpty())) {
+            throw new IllegalArgumentException("Query string must not be null or empty.");
+        } else if (getAllQueryNames().contains(name)) {
+            throw new IllegalArgumentException("A query with this name is already registered.");
+        }
+
+        //Select engine and register the required event types
+        Set<String> referencedEventTypes = findReferencedEventTypes(queryString);
+        EsperCEPEngine engine = selectEngine(partitionKeys);
+        ensureEventTypesRegistered(engine, referencedEventTypes);
+
+        //Partition engines receive all events they require anyway
+        if (engine != coordinator) {
+            return engine.createQuery(name, queryString);
+        }
+
+        //Let the coordinating engine receive the events it requires, starting before the query is created
+        CoordinatedEvents events = ((partitionKeys == null) || partitionKeys.isEmpty()) ?
+                new CoordinatedEvents(Collections.emptySet(), referencedEventTypes) :
+                new CoordinatedEvents(new HashSet<>(partitionKeys), Collections.emptySet());
+        acquireCoordinatedEvents(name, events);
+        try {
+            return engine.createQuery(name, queryString);
+        } catch (RuntimeException e) {
+            releaseCoordinatedEvents(name);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a CEPQuery object for a certain query given by its name. If no query with such a name
+     * is registered at any of the engines, null is returned.
+     *
+     * @param name The name of the query for which the CEPQuery object is supposed to be returned
+     * @return A dedicated CEPQuery object representing the query
+     */
+    @Override
+    public EsperCEPQuery getQueryByName(String name) {
+        EsperCEPQuery query = coordinator.getQueryByName(name);
+        for (int i = 0; (query == null) && (i < partitions.size()); i++) {
+            query = partitions.get(i).getQueryByName(name);
+        }
+        return query;
+    }
+
+    /**
+     * Registers a new event type. The event type is registered at the individual engines as soon as they
+     * receive the first event or query that requires it.
+     *
+     * @param eventType The event type to register
+     */
+    @Override
+    public void registerEventType(CEPEventType eventType) {
+        //Sanity checks
+        if (eventType == null) {
+            throw new IllegalArgumentException("Event type object must not be null.");
+        }
+
+        //Validate schema before accepting the event type
+        eventType.validateSchema();
+        if (eventTypes.putIfAbsent(eventType.getName(), eventType) != null) {
+            throw new IllegalArgumentException("This event type has already been registered.");
+        }
+    }
+
+    /**
+     * Sends a given event to the partition that is responsible for its partition key and, if required, to the
+     * coordinating engine.
+     *
+     * @param event The event to publish
+     */
+    @Override
+    public void sendEvent(CEPEvent event) throws EventNotRegisteredException {
+        //Sanity check
+        if (event == null) {
+            throw new IllegalArgumentException("Event object must not be null.");
+        }
+
+        //Send event to its partition
+        String partitionKey = event.getPartitionKey();
+        EsperCEPEngine partition = getPartition(partitionKey);
+        ensureEventTypeRegistered(partition, event.getEventTypeName());
+        partition.sendEvent(event);
+
+        //Forward event to the coordinating engine if required by one of its queries
+        if (((partitionKey != null) && coordinatedKeys.containsKey(partitionKey))
+                || coordinatedEventTypes.containsKey(event.getEventTypeName())) {
+            coordinator.sendEvent(event);
+        }
+    }
+
+    /**
+     * Validates a given query string and checks whether it is syntactically and semantically valid. The event
+     * types the query refers to are used as partition keys.
+     *
+     * @param queryString The query string to check
+     * @return The result of the validation wrapped in a validation object
+     */
+    @Override
+    public CEPQueryValidation validateQuery(String queryString) {
+        return validateQuery(queryString, findReferencedEventTypes(queryString));
+    }
+
+    /**
+     * Validates a given query string on the engine the query would be placed on.
+     *
+     * @param queryString   The query string to check
+     * @param partitionKeys The partition keys of the events the query refers to
+     * @return The result of the validation wrapped in a validation object
+     */
+    @Override
+    public CEPQueryValidation validateQuery(String queryString, Set<String> partitionKeys) {
+        //Sanity check
+        if ((queryString) == null || queryString.isEmpty()) {
+            throw new IllegalArgumentException("Query string must not be null or empty.");
+        }
+
+        EsperCEPEngine engine = selectEngine(partitionKeys);
+        ensureEventTypesRegistered(engine, findReferencedEventTypes(queryString));
+        return engine.validateQuery(queryString);
+    }
+
+    /**
+     * Returns a list of all names of queries that are currently registered at any of the engines.
+     *
+     * @return The list of names
+     */
+    @Override
+    public List<String> getAllQueryNames() {
+        List<String> names = new ArrayList<>(coordinator.getAllQueryNames());
+        for (EsperCEPEngine partition : partitions) {
+            names.addAll(partition.getAllQueryNames());
+        }
+        return names;
+    }
+
+    /**
+     * Returns the number of partitions.
+     *
+     * @return The number of partitions
+     */
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Destroys all engines together with their event types and queries. The dispatch executor is owned by the
+     * creator of the engine and keeps running. The engine must not be used afterwards.
+     */
+    public void destroy() {
+        for (EsperCEPEngine partition : partitions) {
+            partition.destroy();
+        }
+        coordinator.destroy();
+    }
+
+    /**
+     * Selects the engine on which a query with given partition keys is placed.
+     *
+     * @param partitionKeys The partition keys of the events the query refers to
+     * @return The partition of the key in case of exactly one key; the coordinating engine otherwise
+     */
+    private EsperCEPEngine selectEngine(Set<String> partitionKeys) {
+        if ((partitionKeys != null) && (partitionKeys.size() == 1)) {
+            return getPartition(partitionKeys.iterator().next());
+        }
+        return coordinator;
+    }
+
+    /**
+     * Returns the partition that is responsible for a given partition key.
+     *
+     * @param partitionKey The partition key
+     * @return The responsible partition
+     */
+    private EsperCEPEngine getPartition(String partitionKey) {
+        int index = (partitionKey == null) ? 0 : Math.floorMod(partitionKey.hashCode(), partitions.size());
+        return partitions.get(index);
+    }
+
+    /**
+     * Determines the names of all registered event types that are referenced within a given query string,
+     * ignoring the content of string literals.
+     *
+     * @param queryString The query string
+     * @return The set of event type names
+     */
+    private Set<String> findReferencedEventTypes(String queryString) {
+        if (queryString == null) {
+            return Collections.emptySet();
+        }
+
+        //Names within string literals are no references
+        Set<String> referencedEventTypes = new HashSet<>();
+        for (String identifier : CEPQueryScanner.findIdentifiers(queryString)) {
+            if (eventTypes.containsKey(identifier)) {
+                referencedEventTypes.add(identifier);
+            }
+        }
+        return referencedEventTypes;
+    }
+
+    /**
+     * Starts forwarding the events that are required by a query of the coordinating engine.
+     *
+     * @param queryName The name of the query
+     * @param events    The events that are required by the query
+     */
+    private void acquireCoordinatedEvents(String queryName, CoordinatedEvents events) {
+        coordinatedQueries.put(queryName, events);
+        for (String key : events.partitionKeys) {
+            coordinatedKeys.merge(key, 1, Integer::sum);
+        }
+        for (String eventType : events.eventTypes) {
+            coordinatedEventTypes.merge(eventType, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Stops forwarding the events that were required by a query of the coordinating engine, unless they are still
+     * required by other queries. Queries that are unknown (e.g. test statements of validations) are ignored.
+     *
+     * @param queryName The name of the query
+     */
+    private void releaseCoordinatedEvents(String queryName) {
+        CoordinatedEvents events = (queryName == null) ? null : coordinatedQueries.remove(queryName);
+        if (events == null) {
+            return;
+        }
+        for (String key : events.partitionKeys) {
+            coordinatedKeys.computeIfPresent(key, (k, count) -> (count > 1) ? count - 1 : null);
+        }
+        for (String eventType : events.eventTypes) {
+            coordinatedEventTypes.computeIfPresent(eventType, (k, count) -> (count > 1) ? count - 1 : null);
+        }
+    }
+
+    private void ensureEventTypesRegistered(EsperCEPEngine engine, Set<String> eventTypeNames) {
+        for (String eventTypeName : eventTypeNames) {
+            ensureEventTypeRegistered(engine, eventTypeName);
+        }
+    }
+
+    /**
+     * Registers an event type at a given engine, unless it is registered already.
+     *
+     * @param engine        The engine
+     * @param eventTypeName The name of the event type
+     */
+    private void ensureEventTypeRegistered(EsperCEPEngine engine, String eventTypeName) {
+        if (engine.isEventTypeRegistered(eventTypeName)) {
+            return;
+        }
+
+        CEPEventType eventType = eventTypes.get(eventTypeName);
+        if (eventType == null) {
+            return;
+        }
+
+        synchronized (engine) {
+            if (!engine.isEventTypeRegistered(eventTypeName)) {
+                engine.registerEventType(eventType);
+            }
+        }
+    }
+
+    /**
+     * Partition keys and event types whose events are forwarded to the coordinating engine for a certain query.
+     */
+    private static class CoordinatedEvents {
+        private final Set<String> partitionKeys;
+        private final Set<String> eventTypes;
+
+        private CoordinatedEvents(Set<String> partitionKeys, Set<String> eventTypes) {
+            this.partitionKeys = partitionKeys;
+            this.eventTypes = eventTypes;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package org.citopt.connde.service.cep.trigger;
+
+import org.citopt.connde.service.cep.engine.core.queries.CEPQueryScanner;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the event types of all known components and translates trigger queries that refer to the event
+ * types of individual components (e.g. "sensor_abc") into
+ * queries on the single event type that is shared by all components. Each reference to a known component event
+ * type is replaced by a filtered stream of the shared event type, e.g.
+ * <pre>
+ *     a=sensor_abc(value &gt; 20)              --&gt;  a=ValueEvent(componentId = 'abc', value &gt; 20)
+ *     FROM sensor_abc.win:time(10 sec)        --&gt;  FROM ValueEvent(componentId = 'abc').win:time(10 sec) as sensor_abc
+ * </pre>
+ * Since the equality condition on the component id comes first, Esper is able to dispatch the events of the
+ * shared stream by using its filter index. Streams in FROM clauses without an explicit alias are named after the
+ * original event type, so that property expressions like "sensor_abc.value" remain valid. References to unknown
+ * event types and string literals are left untouched.
+ */
+class CEPQueryTranslator {
+    //Keywords that may directly follow a stream in the FROM clause and thus do not denote an alias
+    private static final Set<String> STREAM_FOLLOWING_KEYWORDS = new HashSet<>(Arrays.asList("where", "group",
+            "having", "order", "output", "limit", "inner", "left", "right", "full", "join", "on", "unidirectional",
+            "retain", "for", "match_recognize", "select", "insert", "union"));
+
+    //Keywords that end the FROM clause
+    private static final Set<String> FROM_CLAUSE_END_KEYWORDS = new HashSet<>(Arrays.asList("where", "group",
+            "having", "order", "output", "limit", "select", "match_recognize", "for"));
+
+    //Map (event type name --> component id) of the event types of all known components
+    private final Map<String, String> componentEventTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the event type name of a certain component, so that references to it can be translated.
+     *
+     * @param eventTypeName The name of the event type of the component
+     * @param componentId   The id of the component
+     */
+    void registerComponent(String eventTypeName, String componentId) {
+        componentEventTypes.put(eventTypeName, componentId);
+    }
+
+    /**
+     * Returns the number of components whose event types are known to the translator.
+     *
+     * @return The number of components
+     */
+    int getComponentCount() {
+        return componentEventTypes.size();
+    }
+
+    /**
+     * Checks whether the event type of a certain component is known to the translator.
+     *
+     * @param eventTypeName The name of the event type
+     * @return True, if the event type is known; false otherwise
+     */
+    boolean isComponentKnown(String eventTypeName) {
+        return componentEventTypes.containsKey(eventTypeName);
+    }
+
+    /**
+     * Determines the names of the event types of all known components that are referenced within a given query.
+     * These names also serve as partition keys of the events of the components.
+     *
+     * @param query The query
+     * @return The set of referenced event type names
+     */
+    Set<String> findReferencedEventTypes(String query) {
+        Set<String> referencedEventTypes = new HashSet<>();
+        for (String identifier : CEPQueryScanner.findIdentifiers(query)) {
+            if (componentEventTypes.containsKey(identifier)) {
+                referencedEventTypes.add(identifier);
+            }
+        }
+        return referencedEventTypes;
+    }
+
+    /**
+     * Translates a given query that refers to component event types into a query on the shared event type.
+     *
+     * @param query The query to translate
+     * @return The translated query
+     */
+    String translate(String query) {
+        //Sanity check
+        if (query == null) {
+            return null;
+        }
+
+        StringBuilder result = new StringBuilder(query.length() + 64);
+
+        //Nesting depths of brackets at which a FROM clause is currently open
+        Deque<Integer> fromClauseDepths = new ArrayDeque<>();
+        int depth = 0;
+
+        //Whether the previous token allows a stream of the FROM clause to follow
+        boolean streamMayFollow = false;
+
+        int position = 0;
+        while (position < query.length()) {
+            char c = query.charAt(position);
+
+            //Copy string literals
+            if ((c == '\'') || (c == '"')) {
+                int end = CEPQueryScanner.skipStringLiteral(query, position);
+                result.append(query, position, end);
+                position = end;
+                streamMayFollow = false;
+                continue;
+            }
+
+            //Copy other characters and keep track of brackets and the FROM clause
+            if (!Character.isJavaIdentifierStart(c)) {
+                if ((c == '(') || (c == '[')) {
+                    depth++;
+                } else if ((c == ')') || (c == ']')) {
+                    while (!fromClauseDepths.isEmpty() && (fromClauseDepths.peek() >= depth)) {
+                        fromClauseDepths.pop();
+                    }
+                    depth--;
+                }
+                if (!Character.isWhitespace(c)) {
+                    streamMayFollow = (c == ',') && isInFromClause(fromClauseDepths, depth);
+                }
+                result.append(c);
+                position++;
+                continue;
+            }
+
+            //Read identifier
+            int end = CEPQueryScanner.skipIdentifier(query, position);
+            String identifier = query.substring(position, end);
+            String keyword = identifier.toLowerCase();
+
+            //Replace references to component event types
+            String componentId = componentEventTypes.get(identifier);
+            if ((componentId != null) && !isPropertyReference(query, position, end)) {
+                boolean fromStream = streamMayFollow && isInFromClause(fromClauseDepths, depth);
+                position = appendStream(result, query, identifier, componentId, end, fromStream);
+                streamMayFollow = false;
+                continue;
+            }
+            result.append(identifier);
+            position = end;
+
+            //Keep track of the FROM clause
+            if (keyword.equals("from")) {
+                fromClauseDepths.push(depth);
+                streamMayFollow = true;
+            } else if (FROM_CLAUSE_END_KEYWORDS.contains(keyword)) {
+                if (isInFromClause(fromClauseDepths, depth)) {
+                    fromClauseDepths.pop();
+                }
+                streamMayFollow = false;
+            } else {
+                streamMayFollow = keyword.equals("join");
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Appends a filtered stream of the shared event type that replaces a reference to a component event type.
+     *
+     * @param result        The builder of the translated query
+     * @param query         The query to translate
+     * @param eventTypeName The name of the component event type
+     * @param componentId   The id of the component
+     * @param position      The position in the query directly after the reference
+     * @param fromStream    True, if the reference denotes a stream of a FROM clause; false otherwise
+     * @return The position in the query after the translated part
+     */
+    private int appendStream(StringBuilder result, String query, String eventTypeName, String componentId,
+                             int position, boolean fromStream) {
+        //Check for a filter of the original stream
+        String filter = null;
+        int filterStart = skipWhitespace(query, position);
+        if ((filterStart < query.length()) && (query.charAt(filterStart) == '(')) {
+            int filterEnd = findClosingBracket(query, filterStart);
+            if (filterEnd < 0) {
+                //Malformed query, leave it to the engine to report the error
+                result.append(eventTypeName);
+                return position;
+            }
+            filter = translate(query.substring(filterStart + 1, filterEnd)).trim();
+            position = filterEnd + 1;
+        }
+
+        //Filter for the component id first, so that the filter index of the engine can be used
+        result.append(CEPSharedValueLogEvent.EVENT_TYPE_NAME).append('(')
+                .append(CEPSharedValueLogEvent.FIELD_COMPONENT_ID).append(" = '")
+                .append(componentId.replace("\\", "\\\\").replace("'", "\\'")).append('\'');
+        if ((filter != null) && !filter.isEmpty()) {
+            result.append(", ").append(filter);
+        }
+        result.append(')');
+
+        //Name streams of the FROM clause after the original event type unless they have an alias
+        if (fromStream) {
+            int viewsEnd = skipViews(query, position);
+            result.append(query, position, viewsEnd);
+            position = viewsEnd;
+            if (!hasAlias(query, position)) {
+                result.append(" as ").append(eventTypeName);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Checks whether an identifier is used as part of a property expression (e.g. "a.sensor_abc" or
+     * "sensor_abc.value") rather than as a reference to an event type.
+     *
+     * @param query The query
+     * @param start The start position of the identifier
+     * @param end   The end position of the identifier
+     * @return True, if the identifier is part of a property expression; false otherwise
+     */
+    private boolean isPropertyReference(String query, int start, int end) {
+        //Check for preceding dot
+        int before = start - 1;
+        while ((before >= 0) && Character.isWhitespace(query.charAt(before))) {
+            before--;
+        }
+        if ((before >= 0) && (query.charAt(before) == '.')) {
+            return true;
+        }
+
+        //Check for subsequent dot that does not start a view (e.g. ".win:time(...)")
+        int after = skipWhitespace(query, end);
+        if ((after >= query.length()) || (query.charAt(after) != '.')) {
+            return false;
+        }
+        int nameEnd = CEPQueryScanner.skipIdentifier(query, skipWhitespace(query, after + 1));
+        int colon = skipWhitespace(query, nameEnd);
+        return (colon >= query.length()) || (query.charAt(colon) != ':');
+    }
+
+    /**
+     * Skips the views (e.g. ".win:time(10 sec)" or "#length(5)") that follow a stream.
+     *
+     * @param query    The query
+     * @param position The position directly after the stream
+     * @return The position after the last view
+     */
+    private int skipViews(String query, int position) {
+        while (true) {
+            int next = skipWhitespace(query, position);
+            if (next >= query.length()) {
+                return position;
+            }
+
+            //Read name of the view
+            int nameEnd;
+            if (query.charAt(next) == '.') {
+                int namespaceEnd = CEPQueryScanner.skipIdentifier(query, skipWhitespace(query, next + 1));
+                int colon = skipWhitespace(query, namespaceEnd);
+                if ((colon >= query.length()) || (query.charAt(colon) != ':')) {
+                    return position;
+                }
+                nameEnd = CEPQueryScanner.skipIdentifier(query, skipWhitespace(query, colon + 1));
+            } else if (query.charAt(next) == '#') {
+                nameEnd = CEPQueryScanner.skipIdentifier(query, skipWhitespace(query, next + 1));
+            } else {
+                return position;
+            }
+
+            //Read parameters of the view
+            int parametersStart = skipWhitespace(query, nameEnd);
+            if ((parametersStart < query.length()) && (query.charAt(parametersStart) == '(')) {
+                int parametersEnd = findClosingBracket(query, parametersStart);
+                if (parametersEnd < 0) {
+                    return position;
+                }
+                position = parametersEnd + 1;
+            } else {
+                position = nameEnd;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a stream of the FROM clause is followed by an alias.
+     *
+     * @param query    The query
+     * @param position The position directly after the stream and its views
+     * @return True, if an alias follows; false otherwise
+     */
+    private boolean hasAlias(String query, int position) {
+        int start = skipWhitespace(query, position);
+        if ((start >= query.length()) || !Character.isJavaIdentifierStart(query.charAt(start))) {
+            return false;
+        }
+        String word = query.substring(start, CEPQueryScanner.skipIdentifier(query, start)).toLowerCase();
+        return word.equals("as") || !STREAM_FOLLOWING_KEYWORDS.contains(word);
+    }
+
+    private boolean isInFromClause(Deque<Integer> fromClauseDepths, int depth) {
+        return !fromClauseDepths.isEmpty() && (fromClauseDepths.peek() == depth);
+    }
+
+    private int skipWhitespace(String query, int position) {
+        while ((position < query.length()) && Character.isWhitespace(query.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private int findClosingBracket(String query, int position) {
+        int depth = 0;
+        while (position < query.length()) {
+            char c = query.charAt(position);
+            if ((c == '\'') || (c == '"')) {
+                position = CEPQueryScanner.skipStringLiteral(query, position);
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return position;
+                }
+            }
+            position++;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,81 @@
+package org.citopt.connde.service.cep.trigger;
+
+import org.citopt.connde.domain.valueLog.ValueLog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CEP event wrapping a value log that is sent to the CEP engine as instance of the single event type that is
+ * shared by all components. In addition to the value and the time, the event provides the id and the type name
+ * of the component, so that queries are able to filter the shared event stream for a certain component.
+ */
+public class CEPSharedValueLogEvent extends CEPValueLogEvent {
+    //Name of the shared event type
+    static final String EVENT_TYPE_NAME = "ValueEvent";
+
+    //Names of the additional fields of shared value log events
+    static final String FIELD_COMPONENT_ID = "componentId";
+    static final String FIELD_TYPE = "type";
+
+    /**
+     * Creates a new shared CEP value log event from a given value log.
+     *
+     * @param valueLog The value log to use
+     */
+    CEPSharedValueLogEvent(ValueLog valueLog) {
+        super(valueLog);
+    }
+
+    /**
+     * Returns the value of a certain field of this event, which is either the id of the component, its type name,
+     * the value of the value log or its receive time in epoch seconds.
+     *
+     * @param fieldName The name of the field
+     * @return The value of the field or null, if the event does not provide such a field
+     */
+    @Override
+    public Object getFieldValue(String fieldName) {
+        if (FIELD_COMPONENT_ID.equals(fieldName)) {
+            return getValueLog().getIdref();
+        } else if (FIELD_TYPE.equals(fieldName)) {
+            String componentType = getValueLog().getComponent();
+            return (componentType == null) ? null : componentType.toLowerCase();
+        }
+        return super.getFieldValue(fieldName);
+    }
+
+    /**
+     * Returns a map (field name --> field value) of the field values of this event.
+     *
+     * @return The map of field values
+     */
+    @Override
+    public Map<String, Object> getFieldValues() {
+        Map<String, Object> fieldValues = new HashMap<>(super.getFieldValues());
+        fieldValues.put(FIELD_COMPONENT_ID, getFieldValue(FIELD_COMPONENT_ID));
+        fieldValues.put(FIELD_TYPE, getFieldValue(FIELD_TYPE));
+        return fieldValues;
+    }
+
+    /**
+     * Returns the name of the shared event type, which is the same for all components.
+     *
+     * @return The event type name
+     */
+    @Override
+    public String getEventTypeName() {
+        return EVENT_TYPE_NAME;
+    }
+
+    /**
+     * Returns the name of the event type of the component as partition key, so that the events of a component
+     * are processed by the same partition as with one event type per component.
+     *
+     * @return The partition key
+     */
+    @Override
+    public String getPartitionKey() {
+        return super.getEventTypeName();
+    }
+}
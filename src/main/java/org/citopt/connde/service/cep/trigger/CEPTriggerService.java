@@ -1,6 +1,8 @@
 package org.citopt.connde.service.cep.trigger;
 
+import org.citopt.connde.domain.component.Actuator;
 import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.component.Sensor;
 import org.citopt.connde.domain.device.Device;
 import org.citopt.connde.domain.monitoring.MonitoringAdapter;
 import org.citopt.connde.domain.monitoring.MonitoringComponent;
@@ -15,38 +17,84 @@ import org.citopt.connde.service.cep.engine.core.events.CEPEventType;
 import org.citopt.connde.service.cep.engine.core.events.CEPPrimitiveDataTypes;
 import org.citopt.connde.service.cep.engine.core.exceptions.EventNotRegisteredException;
 import org.citopt.connde.service.cep.engine.core.queries.CEPQuery;
+import org.citopt.connde.service.cep.engine.core.queries.CEPQueryScanner;
 import org.citopt.connde.service.cep.engine.core.queries.CEPQueryValidation;
 import org.citopt.connde.service.receiver.ValueLogReceiver;
 import org.citopt.connde.service.receiver.ValueLogReceiverObserver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This service provides means for registering rule triggers with callbacks at the CEP engine. Furthermore,
  * it takes care about registering event types for different the different components entities at the CEP engine
  * and works as a observer for the received value logs.
+ * <p>
+ * Optionally, a single event type that is shared by all components may be used instead of one event type per
+ * component. In this case, the values of all components are sent as events of the shared type and the trigger
+ * queries, which still refer to the event types of the individual components, are translated into queries on
+ * filtered streams of the shared type.
+ * <p>
+ * Event types of components are registered lazily, i.e. as soon as the first value of a component arrives or the
+ * first trigger query that refers to the component is registered or validated. Components that are referenced by
+ * trigger queries but are not known yet are looked up in the repositories on demand.
  */
 @Service
+@PropertySource(value = "classpath:application.properties")
 public class CEPTriggerService implements ValueLogReceiverObserver {
 
     //The CEP engine instance to use
     private CEPEngine engine;
 
+    //Whether a single event type is shared by all components
+    private final boolean sharedEventTypeEnabled;
+
+    //Registry of the component event types that translates trigger queries for the shared event type
+    private final CEPQueryTranslator queryTranslator = new CEPQueryTranslator();
+
+    //Names of the component event types that have been registered at the engine
+    private final Set<String> registeredEventTypes = ConcurrentHashMap.newKeySet();
+
+    //Repositories for looking up components that are referenced by trigger queries
+    private final SensorRepository sensorRepository;
+    private final ActuatorRepository actuatorRepository;
+    private final MonitoringAdapterRepository monitoringAdapterRepository;
+    private final DeviceRepository deviceRepository;
+
     /**
      * Creates and initializes the CEP trigger service by passing a certain rule engine and a value log receiver
      * instance (autowired).
      *
-     * @param engine           The rule engine to use
-     * @param valueLogReceiver The value log receiver instance to use
+     * @param engine                      The rule engine to use
+     * @param valueLogReceiver            The value log receiver instance to use
+     * @param sensorRepository            The sensor repository
+     * @param actuatorRepository          The actuator repository
+     * @param monitoringAdapterRepository The monitoring adapter repository
+     * @param deviceRepository            The device repository
+     * @param sharedEventTypeEnabled      True, if a single event type is supposed to be shared by all components;
+     *                                    false, if one event type per component is supposed to be registered
      */
     @Autowired
-    private CEPTriggerService(CEPEngine engine, ValueLogReceiver valueLogReceiver) {
+    private CEPTriggerService(CEPEngine engine, ValueLogReceiver valueLogReceiver, SensorRepository sensorRepository,
+                              ActuatorRepository actuatorRepository,
+                              MonitoringAdapterRepository monitoringAdapterRepository,
+                              DeviceRepository deviceRepository,
+                              @Value("${cep.shared-event-type.enabled:false}") boolean sharedEventTypeEnabled) {
         this.engine = engine;
+        this.sensorRepository = sensorRepository;
+        this.actuatorRepository = actuatorRepository;
+        this.monitoringAdapterRepository = monitoringAdapterRepository;
+        this.deviceRepository = deviceRepository;
+
+        //Register shared event type if enabled
+        this.sharedEventTypeEnabled = sharedEventTypeEnabled;
+        if (sharedEventTypeEnabled) {
+            registerSharedEventType();
+        }
 
         //Register as observer at the ValueLogReceiver
         valueLogReceiver.registerObserver(this);
@@ -54,9 +102,11 @@ public class CEPTriggerService implements ValueLogReceiverObserver {
 
     /**
      * Registers a certain rule trigger at the CEP engine with a rule trigger callback object which is called
-     * in case the trigger fires.
+     * in case the trigger fires. The event types of the components the trigger refers to are registered
+     * beforehand, if necessary.
      *
      * @param ruleTrigger The rule trigger to register
+     * @throws IllegalArgumentException In case the query of the trigger is invalid
      */
     public void registerTrigger(RuleTrigger ruleTrigger, RuleTriggerCallback callback) {
         //Sanity check
@@ -67,8 +117,10 @@ public class CEPTriggerService implements ValueLogReceiverObserver {
         //Generate query name
         String name = getQueryNameFromTrigger(ruleTrigger);
 
-        //Create query
-        CEPQuery query = engine.createQuery(name, ruleTrigger.getQuery());
+        //Create query on the partition of the referenced components
+        String queryString = ruleTrigger.getQuery();
+        Set<String> eventTypes = resolveReferencedEventTypes(queryString);
+        CEPQuery query = engine.createQuery(name, translateQuery(queryString), eventTypes);
 
         //Set query subscriber
         query.setSubscriber(output -> {
@@ -113,7 +165,15 @@ public class CEPTriggerService implements ValueLogReceiverObserver {
     @Override
     public void onValueReceived(ValueLog valueLog) {
         //Create event from value log
-        CEPValueLogEvent valueLogEvent = new CEPValueLogEvent(valueLog);
+        CEPValueLogEvent valueLogEvent = sharedEventTypeEnabled ? new CEPSharedValueLogEvent(valueLog) :
+                new CEPValueLogEvent(valueLog);
+
+        //Register the event type of the component on its first value
+        String eventName = CEPValueLogEvent.generateEventTypeName(valueLog.getIdref(), valueLog.getComponent());
+        if (!queryTranslator.isComponentKnown(eventName)) {
+            queryTranslator.registerComponent(eventName, valueLog.getIdref());
+        }
+        ensureEventTypeRegistered(eventName);
 
         //Send event to engine
         try {
@@ -139,8 +199,10 @@ public class CEPTriggerService implements ValueLogReceiverObserver {
     }
 
     /**
-     * Registers a separate event type for a certain component at the CEP engine so that derived events for this
-     * component may be sent to the CEP engine in the future.
+     * Makes a certain component known to the service so that trigger queries may refer to it. The event type of
+     * the component is registered at the CEP engine as soon as the first value of the component arrives or the
+     * first trigger query that refers to the component is registered. If the shared event type is used, no
+     * separate event type is registered for the component at all.
      *
      * @param component The component for which the event type is supposed to be registered
      */
@@ -150,18 +212,18 @@ public class CEPTriggerService implements ValueLogReceiverObserver {
             throw new IllegalArgumentException("Component must not be null.");
         }
 
-        //Get generated event type name for this component
+        //Get generated event type name for this component and remember the component
         String eventName = CEPValueLogEvent.generateEventTypeName(component.getId(), component.getComponentTypeName());
+        queryTranslator.registerComponent(eventName, component.getId());
+    }
 
-        //Create new event type (a "template" for such events) for this component
-        CEPEventType eventType = new CEPEventType(eventName);
-
-        //Add fields to this event type that all derived events need to implement
-        eventType.addField("value", CEPPrimitiveDataTypes.DOUBLE);
-        eventType.addField("time", CEPPrimitiveDataTypes.LONG);
-
-        //Register event type
-        engine.registerEventType(eventType);
+    /**
+     * Returns the number of component event types that have been registered at the CEP engine so far.
+     *
+     * @return The number of registered event types
+     */
+    public int getRegisteredEventTypeCount() {
+        return registeredEventTypes.size();
     }
 
     /**
@@ -185,48 +247,128 @@ public class CEPTriggerService implements ValueLogReceiverObserver {
             return new CEPQueryValidation(query, false, "Query must start with a \"SELECT\" clause.");
         }
 
-        //Validity check
-        return engine.validateQuery(query);
+        //Validity check on the partition of the referenced components
+        Set<String> eventTypes = resolveReferencedEventTypes(query);
+        return engine.validateQuery(translateQuery(query), eventTypes);
+    }
+
+    /**
+     * Registers the single event type that is shared by all components at the CEP engine.
+     */
+    private void registerSharedEventType() {
+        CEPEventType eventType = new CEPEventType(CEPSharedValueLogEvent.EVENT_TYPE_NAME);
+        eventType.addField(CEPSharedValueLogEvent.FIELD_COMPONENT_ID, CEPPrimitiveDataTypes.STRING);
+        eventType.addField(CEPSharedValueLogEvent.FIELD_TYPE, CEPPrimitiveDataTypes.STRING);
+        eventType.addField(CEPValueLogEvent.FIELD_VALUE, CEPPrimitiveDataTypes.DOUBLE);
+        eventType.addField(CEPValueLogEvent.FIELD_TIME, CEPPrimitiveDataTypes.LONG);
+        engine.registerEventType(eventType);
     }
 
     /**
-     * Registers all components that are currently stored in their repositories (auto-wired)
-     * as event types at the CEP engine.
+     * Translates a given trigger query into a query on the shared event type, if the shared event type is used.
      *
-     * @param actuatorRepository          The actuator repository
-     * @param sensorRepository            The sensor repository
-     * @param monitoringAdapterRepository The monitoring adapter repository
-     * @param deviceRepository            The device repository
+     * @param query The query to translate
+     * @return The translated query or the unchanged query, if one event type per component is used
      */
-    @Autowired
-    private void registerAvailableEventTypes(ActuatorRepository actuatorRepository, SensorRepository sensorRepository,
-                                             MonitoringAdapterRepository monitoringAdapterRepository,
-                                             DeviceRepository deviceRepository) {
-        //Create set of available components
-        Set<Component> componentSet = new HashSet<>();
-
-        //Add actuators and sensors
-        componentSet.addAll(actuatorRepository.findAll());
-        componentSet.addAll(sensorRepository.findAll());
-
-        //Get all monitoring adapters and devices
-        List<MonitoringAdapter> monitoringAdapters = monitoringAdapterRepository.findAll();
-        List<Device> deviceAdapters = deviceRepository.findAll();
-
-        //Iterate over all monitoring adapters and devices and create monitoring components for them
-        for (MonitoringAdapter monitoringAdapter : monitoringAdapters) {
-            for (Device device : deviceAdapters) {
-                //Create monitoring component
-                MonitoringComponent monitoringComponent = new MonitoringComponent(monitoringAdapter, device);
-
-                //Add component to component set
-                componentSet.add(monitoringComponent);
+    private String translateQuery(String query) {
+        return sharedEventTypeEnabled ? queryTranslator.translate(query) : query;
+    }
+
+    /**
+     * Determines the event types of all components that are referenced within a given query. Components that are
+     * not known yet are looked up in the repositories and the event types of all referenced components are
+     * registered at the CEP engine, if necessary. References to components that do not exist are ignored, so that
+     * the query fails to validate.
+     *
+     * @param query The query
+     * @return The set of names of the referenced component event types
+     */
+    private Set<String> resolveReferencedEventTypes(String query) {
+        //Look up unknown components
+        for (String identifier : CEPQueryScanner.findIdentifiers(query)) {
+            if (!queryTranslator.isComponentKnown(identifier)) {
+                Component component = findComponentByEventTypeName(identifier);
+                if (component != null) {
+                    registerComponentEventType(component);
+                }
+            }
+        }
+
+        //Register event types of all referenced components
+        Set<String> eventTypes = queryTranslator.findReferencedEventTypes(query);
+        for (String eventType : eventTypes) {
+            ensureEventTypeRegistered(eventType);
+        }
+        return eventTypes;
+    }
+
+    /**
+     * Looks up the component that belongs to a given event type name in the repositories.
+     *
+     * @param eventTypeName The name of the event type
+     * @return The component or null, if no such component exists
+     */
+    private Component findComponentByEventTypeName(String eventTypeName) {
+        //Split name into component type name and id
+        int separatorIndex = eventTypeName.indexOf('_');
+        if (separatorIndex < 0) {
+            return null;
+        }
+        String typeName = eventTypeName.substring(0, separatorIndex);
+        String id = eventTypeName.substring(separatorIndex + 1);
+
+        //Look up component depending on its type
+        Component component = null;
+        if (typeName.equals(new Sensor().getComponentTypeName())) {
+            component = sensorRepository.get(id);
+        } else if (typeName.equals(new Actuator().getComponentTypeName())) {
+            component = actuatorRepository.get(id);
+        } else if (typeName.equals("monitoring")) {
+            //Monitoring components are identified by the ids of their adapter and their device
+            int idSeparatorIndex = id.indexOf('_');
+            if (idSeparatorIndex > 0) {
+                MonitoringAdapter monitoringAdapter = monitoringAdapterRepository.get(id.substring(0, idSeparatorIndex));
+                Device device = deviceRepository.get(id.substring(idSeparatorIndex + 1));
+                if ((monitoringAdapter != null) && (device != null)) {
+                    component = new MonitoringComponent(monitoringAdapter, device);
+                }
             }
         }
 
-        //Iterate over all stored components and register the dedicated event types
-        for (Component component : componentSet) {
-            registerComponentEventType(component);
+        //Make sure that the component actually belongs to the event type name
+        if ((component == null) || !eventTypeName.equals(
+                CEPValueLogEvent.generateEventTypeName(component.getId(), component.getComponentTypeName()))) {
+            return null;
+        }
+        return component;
+    }
+
+    /**
+     * Registers the event type of a certain component at the CEP engine, unless it has been registered already
+     * or the shared event type is used.
+     *
+     * @param eventName The name of the event type of the component
+     */
+    private void ensureEventTypeRegistered(String eventName) {
+        if (sharedEventTypeEnabled || registeredEventTypes.contains(eventName)) {
+            return;
+        }
+
+        synchronized (registeredEventTypes) {
+            if (registeredEventTypes.contains(eventName)) {
+                return;
+            }
+
+            //Create new event type (a "template" for such events) for this component
+            CEPEventType eventType = new CEPEventType(eventName);
+
+            //Add fields to this event type that all derived events need to implement
+            eventType.addField(CEPValueLogEvent.FIELD_VALUE, CEPPrimitiveDataTypes.DOUBLE);
+            eventType.addField(CEPValueLogEvent.FIELD_TIME, CEPPrimitiveDataTypes.LONG);
+
+            //Register event type
+            engine.registerEventType(eventType);
+            registeredEventTypes.add(eventName);
         }
     }
-}
\ No newline at end of file
+}
@@ -3,13 +3,18 @@ package org.citopt.connde.service.cep.trigger;
 import org.citopt.connde.domain.valueLog.ValueLog;
 import org.citopt.connde.service.cep.engine.core.events.CEPEvent;
 
-import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * CEP event wrapping a value log that was received for a certain component. This event may be used in order to be
- * further processed by the CEP engine.
+ * further processed by the CEP engine. The fields of the event are read directly from the wrapped value log, so
+ * that no map of field values needs to be created per event.
  */
 public class CEPValueLogEvent extends CEPEvent {
+    //Names of the fields of value log events
+    static final String FIELD_VALUE = "value";
+    static final String FIELD_TIME = "time";
 
     //Value log to wrap
     private ValueLog valueLog;
@@ -27,19 +32,36 @@ public class CEPValueLogEvent extends CEPEvent {
             throw new IllegalArgumentException("Value log must not be null.");
         }
         this.valueLog = valueLog;
+    }
 
-        //Convert value string of value log to double
-        double value = valueLog.getValue();
-
-        //Get Instant object from value log
-        Instant time = valueLog.getTime();
-
-        //Get epoch seconds
-        long unixSeconds = time.getEpochSecond();
+    /**
+     * Returns the value of a certain field of this event, which is either the value of the value log or its
+     * receive time in epoch seconds.
+     *
+     * @param fieldName The name of the field
+     * @return The value of the field or null, if the event does not provide such a field
+     */
+    @Override
+    public Object getFieldValue(String fieldName) {
+        if (FIELD_VALUE.equals(fieldName)) {
+            return valueLog.getValue();
+        } else if (FIELD_TIME.equals(fieldName)) {
+            return valueLog.getTime().getEpochSecond();
+        }
+        return null;
+    }
 
-        //Set event fields
-        this.addValue("value", value);
-        this.addValue("time", unixSeconds);
+    /**
+     * Returns a map (field name --> field value) of the field values of this event.
+     *
+     * @return The map of field values
+     */
+    @Override
+    public Map<String, Object> getFieldValues() {
+        Map<String, Object> fieldValues = new HashMap<>();
+        fieldValues.put(FIELD_VALUE, getFieldValue(FIELD_VALUE));
+        fieldValues.put(FIELD_TIME, getFieldValue(FIELD_TIME));
+        return fieldValues;
     }
 
     /**
@@ -0,0 +1,37 @@
+package org.citopt.connde.service.export;
+
+/**
+ * Enumeration of the formats in which value logs may be exported.
+ */
+public enum ValueLogExportFormat {
+    //One JSON object per line
+    NDJSON("application/x-ndjson", "ndjson"),
+    //Comma-separated values with a header line
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ValueLogExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Returns the content type of the format.
+     *
+     * @return The content type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the file extension of the format.
+     *
+     * @return The file extension
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
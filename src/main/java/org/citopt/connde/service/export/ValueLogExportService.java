@@ -0,0 +1,156 @@
+package org.citopt.connde.service.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.repository.ValueLogRepository;
+import org.citopt.connde.service.UnitConverterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.measure.converter.UnitConverter;
+import javax.measure.unit.Unit;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Service that exports the value logs of a certain component within a time range to an output stream. The value
+ * logs are streamed from a database cursor document by document and written immediately, so that the memory
+ * consumption of an export is constant, regardless of the number of value logs.
+ */
+@Service
+public class ValueLogExportService {
+    //Size of the output buffer in bytes
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //Number of value logs after which the output is flushed, so that it is sent in chunks
+    private static final int FLUSH_INTERVAL = 1000;
+
+    //Header line of CSV exports
+    private static final String CSV_HEADER = "time,value";
+
+    //Factory for JSON generators
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Autowired
+    private ValueLogRepository valueLogRepository;
+
+    @Autowired
+    private UnitConverterService unitConverterService;
+
+    /**
+     * Returns the converter that converts the values of a component into a given unit.
+     *
+     * @param component The component
+     * @param unit      The target unit or null, if no conversion is desired
+     * @return The converter or null, if no conversion is desired
+     * @throws IllegalArgumentException In case the units are not compatible
+     */
+    public UnitConverter getConverter(Component component, Unit unit) {
+        if (unit == null) {
+            return null;
+        }
+
+        return unitConverterService.getConverter(unitConverterService.parseUnit(component.getAdapter().getUnit()), unit);
+    }
+
+    /**
+     * Exports the value logs of a certain component within a time range in chronological order to an output stream.
+     *
+     * @param component    The component whose value logs are supposed to be exported
+     * @param from         The inclusive start of the time range or null, if unbounded
+     * @param to           The exclusive end of the time range or null, if unbounded
+     * @param converter    The converter to apply to the values or null, if no conversion is desired
+     * @param format       The format of the export
+     * @param outputStream The output stream to write the export to
+     * @throws IOException In case the export could not be written to the output stream
+     */
+    public void export(Component component, Instant from, Instant to, UnitConverter converter,
+                       ValueLogExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == ValueLogExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        //Generator for NDJSON exports, which writes each value log as root-level object on its own line
+        JsonGenerator jsonGenerator = null;
+        if (format == ValueLogExportFormat.NDJSON) {
+            jsonGenerator = JSON_FACTORY.createGenerator(writer);
+            jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            jsonGenerator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+        JsonGenerator generator = jsonGenerator;
+
+        //Stream value logs to the writer
+        int[] count = {0};
+        try {
+            valueLogRepository.forEachByIdRef(component.getId(), from, to, valueLog -> {
+                if (converter != null) {
+                    unitConverterService.convertValueLogValue(valueLog, converter);
+                }
+                try {
+                    if (generator != null) {
+                        writeJson(valueLog, generator);
+                    } else {
+                        writeCsv(valueLog, writer);
+                    }
+
+                    //Flush regularly in order to send the export in chunks
+                    if ((++count[0] % FLUSH_INTERVAL) == 0) {
+                        if (generator != null) {
+                            generator.flush();
+                        }
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        //Terminate the last line and flush the remaining output
+        if (generator != null) {
+            if (count[0] > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes a value log as JSON object.
+     *
+     * @param valueLog  The value log to write
+     * @param generator The generator to use
+     * @throws IOException In case the value log could not be written
+     */
+    private void writeJson(ValueLog valueLog, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("idref", valueLog.getIdref());
+        generator.writeStringField("component", valueLog.getComponent());
+        generator.writeStringField("time", String.valueOf(valueLog.getTime()));
+        generator.writeNumberField("value", valueLog.getValue());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes a value log as line of comma-separated values.
+     *
+     * @param valueLog The value log to write
+     * @param writer   The writer to use
+     * @throws IOException In case the value log could not be written
+     */
+    private void writeCsv(ValueLog valueLog, Writer writer) throws IOException {
+        writer.write(String.valueOf(valueLog.getTime()));
+        writer.write(',');
+        writer.write(Double.toString(valueLog.getValue()));
+        writer.write('\n');
+    }
+}
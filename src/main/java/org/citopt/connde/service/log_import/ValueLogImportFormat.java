@@ -0,0 +1,11 @@
+package org.citopt.connde.service.log_import;
+
+/**
+ * Enumeration of the formats from which value logs may be imported.
+ */
+public enum ValueLogImportFormat {
+    //One JSON object per line with the fields "time" and "value"
+    NDJSON,
+    //Comma-separated values with the columns time and value and an optional header line
+    CSV
+}
@@ -0,0 +1,277 @@
+package org.citopt.connde.service.log_import;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.bson.types.ObjectId;
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.repository.ValueLogRepository;
+import org.citopt.connde.repository.ValueLogRollupRepository;
+import org.citopt.connde.service.cache.ValueLogQueryCache;
+import org.citopt.connde.service.cep.trigger.CEPTriggerService;
+import org.citopt.connde.service.log_import.model.ValueLogImportResult;
+import org.citopt.connde.service.log_writer.RecentValueLogBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service for importing historical value logs of a certain component in bulk, e.g. data that was buffered offline.
+ * The uploaded records are streamed and validated one after another; valid records are collected in batches which
+ * are written directly as closed documents, bypassing the regular update path of the value log repository.
+ * Optionally, the imported value logs can be forwarded to the CEP engine, so that they are considered by triggers.
+ */
+@Service
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogImportService {
+    //Number of value logs per document in the value log repository
+    private static final int VALUES_PER_DOCUMENT = 80;
+
+    //Factory for JSON parsers
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Autowired
+    private ValueLogRepository valueLogRepository;
+
+    @Autowired
+    private ValueLogRollupRepository valueLogRollupRepository;
+
+    @Autowired
+    private CEPTriggerService cepTriggerService;
+
+    @Autowired
+    private RecentValueLogBuffer recentValueLogBuffer;
+
+    @Autowired
+    private ValueLogQueryCache valueLogQueryCache;
+
+    //Number of value logs per written batch (multiple of the number of values per document)
+    private final int batchSize;
+
+    /**
+     * Creates the service.
+     *
+     * @param batchSize The number of value logs to write per batch
+     */
+    public ValueLogImportService(@Value("${value-logs.import.batch-size:4000}") int batchSize) {
+        //Round to full documents, so that only the very last document of an import may be partially filled
+        this.batchSize = Math.max(1, batchSize / VALUES_PER_DOCUMENT) * VALUES_PER_DOCUMENT;
+    }
+
+    /**
+     * Imports the value logs of a certain component from an input stream. Records that cannot be parsed, lack a
+     * time or a finite value or are not in chronological order are rejected. The import is aborted if the value
+     * logs overlap with value logs that are already stored for the component. The rollups of the affected time
+     * range are recomputed afterwards.
+     *
+     * @param component    The component to import value logs for
+     * @param inputStream  The input stream to read the records from
+     * @param format       The format of the records
+     * @param forwardToCep True, if the imported value logs are supposed to be forwarded to the CEP engine
+     * @return The result of the import
+     * @throws IOException In case the input stream could not be read
+     */
+    public ValueLogImportResult importValueLogs(Component component, InputStream inputStream, ValueLogImportFormat format,
+                                                boolean forwardToCep) throws IOException {
+        //Sanity checks
+        if (component == null) {
+            throw new IllegalArgumentException("Component must not be null.");
+        } else if (inputStream == null) {
+            throw new IllegalArgumentException("Input stream must not be null.");
+        } else if (format == null) {
+            throw new IllegalArgumentException("Format must not be null.");
+        }
+
+        long startTime = System.currentTimeMillis();
+        ValueLogImportResult result = new ValueLogImportResult();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        //Read records line by line
+        List<ValueLog> batch = new ArrayList<>(batchSize);
+        ObjectId lastBucketId = null;
+        Instant previousTime = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+
+            //Skip empty lines and the CSV header
+            if (line.isEmpty() || ((format == ValueLogImportFormat.CSV) && (lineNumber == 1) && line.toLowerCase().startsWith("time"))) {
+                continue;
+            }
+
+            //Parse and validate record
+            ValueLog valueLog;
+            try {
+                valueLog = (format == ValueLogImportFormat.CSV) ? parseCsv(line) : parseJson(line);
+            } catch (IllegalArgumentException | IOException | DateTimeParseException e) {
+                result.reject(lineNumber, "Invalid record (" + e.getMessage() + ").");
+                continue;
+            }
+            if (!Double.isFinite(valueLog.getValue())) {
+                result.reject(lineNumber, "Value is not a finite number.");
+                continue;
+            } else if ((previousTime != null) && valueLog.getTime().isBefore(previousTime)) {
+                result.reject(lineNumber, "Record is not in chronological order.");
+                continue;
+            }
+            previousTime = valueLog.getTime();
+
+            //Complete value log
+            valueLog.setIdref(component.getId());
+            valueLog.setComponent(component.getComponentTypeName());
+            valueLog.setTopic(component.getTopicName());
+            batch.add(valueLog);
+
+            //Write batch when full
+            if (batch.size() >= batchSize) {
+                lastBucketId = writeBatch(component, batch, lastBucketId, forwardToCep, result);
+                if (!result.isCompleted()) {
+                    break;
+                }
+            }
+        }
+
+        //Write remaining value logs
+        if (result.isCompleted() && !batch.isEmpty()) {
+            writeBatch(component, batch, lastBucketId, forwardToCep, result);
+        }
+
+        //Recompute rollups for the imported time range
+        if (result.getImportedCount() > 0) {
+            valueLogRollupRepository.rebuildByIdRef(component.getId(), result.getFirstTime(), result.getLastTime());
+        }
+
+        result.setDuration(System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    /**
+     * Writes a batch of value logs as closed documents, unless they overlap with value logs that are already
+     * stored for the component. Afterwards, the batch is cleared.
+     *
+     * @param component    The component of the value logs
+     * @param batch        The batch of value logs in chronological order
+     * @param lastBucketId The id of the last document that was written by this import or null, if none
+     * @param forwardToCep True, if the value logs are supposed to be forwarded to the CEP engine
+     * @param result       The result of the import to update
+     * @return The id of the last document that was written by this import or null, if none
+     */
+    private ObjectId writeBatch(Component component, List<ValueLog> batch, ObjectId lastBucketId, boolean forwardToCep,
+                                ValueLogImportResult result) {
+        Instant firstTime = batch.get(0).getTime();
+        Instant lastTime = batch.get(batch.size() - 1).getTime();
+
+        //Abort if the batch overlaps with existing documents, except for the last one of this import
+        if (valueLogRepository.hasBucketsInTimeRange(component.getId(), firstTime, lastTime,
+                (lastBucketId == null) ? Collections.emptyList() : Collections.singletonList(lastBucketId))) {
+            result.abort("Value logs between " + firstTime + " and " + lastTime + " overlap with existing value logs.");
+            batch.clear();
+            return lastBucketId;
+        }
+
+        //Write documents
+        List<ObjectId> bucketIds = valueLogRepository.insertClosedBuckets(component.getId(), batch);
+        result.addImported(batch.size(), bucketIds.size(), firstTime, lastTime);
+
+        //Imported value logs bypass the buffer of recent values, so it must not answer requests for their time range
+        recentValueLogBuffer.onValueLogsStored(component.getId(), lastTime);
+        valueLogQueryCache.onValueLogsChanged(component.getId());
+
+        //Forward to CEP engine if desired
+        if (forwardToCep) {
+            for (ValueLog valueLog : batch) {
+                cepTriggerService.onValueReceived(valueLog);
+            }
+        }
+
+        batch.clear();
+        return bucketIds.isEmpty() ? lastBucketId : bucketIds.get(bucketIds.size() - 1);
+    }
+
+    /**
+     * Parses a line of comma-separated values of the form time,value.
+     *
+     * @param line The line to parse
+     * @return The resulting value log
+     */
+    private ValueLog parseCsv(String line) {
+        int separatorIndex = line.indexOf(',');
+        if (separatorIndex < 0) {
+            throw new IllegalArgumentException("expected time and value");
+        }
+
+        ValueLog valueLog = new ValueLog();
+        valueLog.setTime(parseTime(line.substring(0, separatorIndex).trim()));
+        valueLog.setValue(Double.parseDouble(line.substring(separatorIndex + 1).trim()));
+        return valueLog;
+    }
+
+    /**
+     * Parses a JSON object with the fields "time" and "value". The time may be given as epoch milliseconds or as
+     * ISO-8601 string.
+     *
+     * @param line The line to parse
+     * @return The resulting value log
+     * @throws IOException In case the line is not valid JSON
+     */
+    private ValueLog parseJson(String line) throws IOException {
+        Instant time = null;
+        Double value = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("expected JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("time".equals(fieldName)) {
+                    time = token.isNumeric() ? Instant.ofEpochMilli(parser.getLongValue()) : parseTime(parser.getText());
+                } else if ("value".equals(fieldName) && token.isNumeric()) {
+                    value = parser.getDoubleValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if ((time == null) || (value == null)) {
+            throw new IllegalArgumentException("expected numeric value and time");
+        }
+
+        ValueLog valueLog = new ValueLog();
+        valueLog.setTime(time);
+        valueLog.setValue(value);
+        return valueLog;
+    }
+
+    /**
+     * Parses a time that is given either as epoch milliseconds or as ISO-8601 string.
+     *
+     * @param text The text to parse
+     * @return The resulting time
+     */
+    private Instant parseTime(String text) {
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("missing time");
+        }
+        if (text.chars().allMatch(Character::isDigit)) {
+            return Instant.ofEpochMilli(Long.parseLong(text));
+        }
+        return Instant.parse(text);
+    }
+}
@@ -0,0 +1,186 @@
+package org.citopt.connde.service.log_import.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Objects of this class hold the result of a bulk import of value logs, including the number of imported and
+ * rejected records and the achieved throughput. They can be used as DTOs in order to retrieve the result to
+ * the client.
+ */
+public class ValueLogImportResult {
+    //Maximum number of error messages to keep
+    private static final int MAX_ERRORS = 20;
+
+    //Whether the import was completed
+    private boolean completed = true;
+
+    //Reason why the import was aborted (null if completed)
+    private String abortReason = null;
+
+    //Counters of imported and rejected records and of written documents
+    private long importedCount = 0;
+    private long rejectedCount = 0;
+    private long bucketCount = 0;
+
+    //Time range of the imported value logs
+    private Instant firstTime = null;
+    private Instant lastTime = null;
+
+    //Duration and throughput of the import
+    private long durationMillis = 0;
+    private double valuesPerSecond = 0;
+
+    //Messages describing the first rejected records
+    private List<String> errors = new ArrayList<>();
+
+    /**
+     * Creates a new and empty import result.
+     */
+    public ValueLogImportResult() {
+    }
+
+    /**
+     * Marks the import as aborted.
+     *
+     * @param abortReason The reason why the import was aborted
+     */
+    public void abort(String abortReason) {
+        this.completed = false;
+        this.abortReason = abortReason;
+    }
+
+    /**
+     * Records a rejected record. Only the messages of the first rejected records are kept.
+     *
+     * @param lineNumber The line number of the record
+     * @param message    The message describing why the record was rejected
+     */
+    public void reject(long lineNumber, String message) {
+        rejectedCount++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("Line " + lineNumber + ": " + message);
+        }
+    }
+
+    /**
+     * Records a number of imported value logs that were written into a number of documents.
+     *
+     * @param count     The number of imported value logs
+     * @param buckets   The number of written documents
+     * @param firstTime The time of the first imported value log
+     * @param lastTime  The time of the last imported value log
+     */
+    public void addImported(int count, int buckets, Instant firstTime, Instant lastTime) {
+        if (count == 0) {
+            return;
+        }
+        if (this.firstTime == null) {
+            this.firstTime = firstTime;
+        }
+        this.lastTime = lastTime;
+        this.importedCount += count;
+        this.bucketCount += buckets;
+    }
+
+    /**
+     * Sets the duration of the import and computes the throughput from it.
+     *
+     * @param durationMillis The duration of the import in milliseconds
+     */
+    public void setDuration(long durationMillis) {
+        this.durationMillis = durationMillis;
+        this.valuesPerSecond = (durationMillis > 0) ? (importedCount * 1000.0 / durationMillis) : importedCount;
+    }
+
+    /**
+     * Returns whether the import was completed.
+     *
+     * @return True, if the import was completed; false, if it was aborted
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns the reason why the import was aborted.
+     *
+     * @return The reason or null, if the import was completed
+     */
+    public String getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * Returns the number of imported value logs.
+     *
+     * @return The number of imported value logs
+     */
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    /**
+     * Returns the number of rejected records.
+     *
+     * @return The number of rejected records
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the number of documents that were written.
+     *
+     * @return The number of documents
+     */
+    public long getBucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * Returns the time of the first imported value log.
+     *
+     * @return The time or null, if no value logs were imported
+     */
+    public Instant getFirstTime() {
+        return firstTime;
+    }
+
+    /**
+     * Returns the time of the last imported value log.
+     *
+     * @return The time or null, if no value logs were imported
+     */
+    public Instant getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * Returns the duration of the import in milliseconds.
+     *
+     * @return The duration
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Returns the throughput of the import in imported value logs per second.
+     *
+     * @return The throughput
+     */
+    public double getValuesPerSecond() {
+        return valuesPerSecond;
+    }
+
+    /**
+     * Returns the messages describing the first rejected records.
+     *
+     * @return The list of messages
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
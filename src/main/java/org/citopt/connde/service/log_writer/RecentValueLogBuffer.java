@@ -0,0 +1,176 @@
+package org.citopt.connde.service.log_writer;
+
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.repository.ValueLogRepository;
+import org.citopt.connde.service.log_writer.model.RecentValueLogBufferStats;
+import org.citopt.connde.service.receiver.ValueLogReceiver;
+import org.citopt.connde.service.receiver.ValueLogReceiverObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service that registers itself as observer at the ValueLogReceiver and keeps the most recent values of each
+ * component in a fixed-size ring in memory. Requests for the latest value or the most recent values of a component
+ * are answered from the ring without accessing the value log repository, as long as the requested values lie after
+ * the horizon of the ring. Otherwise, the request falls back to the repository.
+ * <p>
+ * Since the rings are filled from the value log pipeline, they may be slightly ahead of the repository, which
+ * receives the value logs in batches. Value logs that are dropped by the pipeline under overload are missing
+ * from the rings as well.
+ */
+@Service
+@PropertySource(value = "classpath:application.properties")
+public class RecentValueLogBuffer implements ValueLogReceiverObserver {
+
+    //Repository component to use for requests that cannot be answered from the rings (autowired)
+    private ValueLogRepository valueLogRepository;
+
+    //Map (component id --> ring) of the rings of all components
+    private final Map<String, RecentValueRing> rings = new ConcurrentHashMap<>();
+
+    //Ring configuration
+    private final boolean enabled;
+    private final int capacity;
+    private final boolean offHeap;
+
+    //Value logs that were received before this point in time can only be found in the repository
+    private final long startTime;
+
+    //Metrics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates the service and registers it at the value log receiver, if enabled.
+     *
+     * @param valueLogReceiver   The instance of the value log receiver service
+     * @param valueLogRepository The repository component to fall back to
+     * @param enabled            True, if recent values are supposed to be buffered; false otherwise
+     * @param capacity           The maximum number of values to buffer per component
+     * @param offHeap            True, if the values are supposed to be stored outside of the heap; false otherwise
+     */
+    @Autowired
+    public RecentValueLogBuffer(ValueLogReceiver valueLogReceiver, ValueLogRepository valueLogRepository,
+                                @Value("${value-logs.recent-buffer.enabled:true}") boolean enabled,
+                                @Value("${value-logs.recent-buffer.capacity:256}") int capacity,
+                                @Value("${value-logs.recent-buffer.off-heap:false}") boolean offHeap) {
+        //Sanity check
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least one.");
+        }
+
+        this.valueLogRepository = valueLogRepository;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.offHeap = offHeap;
+        this.startTime = Instant.now().toEpochMilli();
+
+        //Register as observer at the ValueLogReceiver
+        if (enabled) {
+            valueLogReceiver.registerObserver(this);
+        }
+    }
+
+    /**
+     * Called in case a new value message arrives at the ValueLogReceiver. The transformed message is passed
+     * as value log.
+     *
+     * @param valueLog The corresponding value log that arrived
+     */
+    @Override
+    public void onValueReceived(ValueLog valueLog) {
+        //Sanity check
+        if (valueLog == null) {
+            throw new IllegalArgumentException("Value log must not be null.");
+        }
+
+        //Ignore value logs that do not belong to a component
+        if ((valueLog.getIdref() == null) || (valueLog.getTime() == null)) {
+            return;
+        }
+
+        rings.computeIfAbsent(valueLog.getIdref(), idref -> new RecentValueRing(capacity, offHeap, startTime)).add(valueLog);
+    }
+
+    /**
+     * Returns the most recent value log of a certain component.
+     *
+     * @param idref The idref of the component
+     * @return The most recent value log or null, if no value logs are available
+     */
+    public ValueLog findNewestByIdRef(String idref) {
+        List<ValueLog> valueLogs = findRecentByIdRef(idref, null, 1);
+        return valueLogs.isEmpty() ? null : valueLogs.get(0);
+    }
+
+    /**
+     * Returns the most recent value logs of a certain component that were received at or after a given point
+     * in time. The request is answered from the ring of the component if possible and from the repository otherwise.
+     *
+     * @param idref The idref of the component
+     * @param from  The inclusive start of the time range or null, if unbounded
+     * @param count The maximum number of value logs to return
+     * @return The value logs in descending order of time
+     */
+    public List<ValueLog> findRecentByIdRef(String idref, Instant from, int count) {
+        //Try to answer the request from the ring
+        RecentValueRing ring = rings.get(idref);
+        if (ring != null) {
+            List<ValueLog> valueLogs = ring.findRecent((from == null) ? Long.MIN_VALUE : from.toEpochMilli(), count);
+            if (valueLogs != null) {
+                hitCount.incrementAndGet();
+                return valueLogs;
+            }
+        }
+
+        //Fall back to the repository
+        missCount.incrementAndGet();
+        return valueLogRepository.findAllByIdRef(idref, from, null, null, count, false).getContent();
+    }
+
+    /**
+     * Notifies the buffer that value logs of a certain component were stored in the repository without passing
+     * the value log pipeline, e.g. by an import. Values that were received until the given point in time are
+     * then no longer answered from the ring.
+     *
+     * @param idref    The idref of the component
+     * @param lastTime The receive time of the most recent value log that was stored
+     */
+    public void onValueLogsStored(String idref, Instant lastTime) {
+        RecentValueRing ring = rings.get(idref);
+        if (ring != null) {
+            ring.advanceHorizon(lastTime.toEpochMilli());
+        }
+    }
+
+    /**
+     * Removes all buffered values of a certain component, e.g. because its value logs were deleted.
+     *
+     * @param idref The idref of the component
+     */
+    public void clear(String idref) {
+        rings.remove(idref);
+    }
+
+    /**
+     * Returns the current statistics of the buffer.
+     *
+     * @return The statistics
+     */
+    public RecentValueLogBufferStats getStats() {
+        long valueCount = 0;
+        for (RecentValueRing ring : rings.values()) {
+            valueCount += ring.size();
+        }
+        return new RecentValueLogBufferStats(rings.size(), valueCount, enabled ? capacity : 0, offHeap,
+                hitCount.get(), missCount.get());
+    }
+}
@@ -0,0 +1,177 @@
+package org.citopt.connde.service.log_writer;
+
+import org.citopt.connde.domain.valueLog.ValueLog;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring of the most recent values of a single component. Each entry consists out of the receive time in
+ * epoch milliseconds and the value, which are either stored in primitive arrays on the heap or in a direct byte
+ * buffer outside of the heap. Once the ring is full, the oldest entry is overwritten by each new value.
+ * <p>
+ * Besides the entries, the ring maintains a horizon: All values of the component that were received after the
+ * horizon are guaranteed to be contained in the ring, while older values may only be available in the value log
+ * repository. The horizon advances whenever an entry is overwritten or values are stored by other means.
+ */
+final class RecentValueRing {
+    //Number of bytes per entry in off-heap mode (time and value)
+    private static final int ENTRY_BYTES = 16;
+
+    //Maximum number of entries
+    private final int capacity;
+
+    //Heap storage (null in off-heap mode)
+    private final long[] times;
+    private final double[] values;
+
+    //Off-heap storage (null in heap mode)
+    private final ByteBuffer buffer;
+
+    //Index of the next entry to write and number of valid entries
+    private int head = 0;
+    private int size = 0;
+
+    //Values received after this point in time (epoch milliseconds, exclusive) are all contained in the ring
+    private long horizon;
+
+    //Common fields of the value logs of the component, taken from the most recent value log
+    private String idref;
+    private String topic;
+    private String componentType;
+    private Integer qos;
+
+    /**
+     * Creates a new ring.
+     *
+     * @param capacity The maximum number of entries
+     * @param offHeap  True, if the entries are supposed to be stored outside of the heap; false otherwise
+     * @param horizon  The initial horizon in epoch milliseconds
+     */
+    RecentValueRing(int capacity, boolean offHeap, long horizon) {
+        this.capacity = capacity;
+        this.horizon = horizon;
+        if (offHeap) {
+            this.buffer = ByteBuffer.allocateDirect(capacity * ENTRY_BYTES);
+            this.times = null;
+            this.values = null;
+        } else {
+            this.buffer = null;
+            this.times = new long[capacity];
+            this.values = new double[capacity];
+        }
+    }
+
+    /**
+     * Adds a value log to the ring, possibly overwriting the oldest entry.
+     *
+     * @param valueLog The value log to add
+     */
+    synchronized void add(ValueLog valueLog) {
+        //Overwriting an entry moves the horizon
+        if (size == capacity) {
+            horizon = Math.max(horizon, getTime(head));
+        } else {
+            size++;
+        }
+
+        setEntry(head, valueLog.getTime().toEpochMilli(), valueLog.getValue());
+        head = (head + 1) % capacity;
+
+        idref = valueLog.getIdref();
+        topic = valueLog.getTopic();
+        componentType = valueLog.getComponent();
+        qos = valueLog.getQos();
+    }
+
+    /**
+     * Moves the horizon forward to a given point in time, so that values that were received until this point in
+     * time are no longer answered from the ring. This is required if values are stored without passing the ring.
+     *
+     * @param time The point in time in epoch milliseconds
+     */
+    synchronized void advanceHorizon(long time) {
+        horizon = Math.max(horizon, time);
+    }
+
+    /**
+     * Returns the most recent value logs that were received at or after a given point in time, if the ring is able
+     * to answer the request completely. This is the case if the ring either contains the requested number of values
+     * after its horizon or if the requested time range lies entirely after the horizon.
+     *
+     * @param from  The inclusive start of the time range in epoch milliseconds or Long.MIN_VALUE, if unbounded
+     * @param count The maximum number of value logs to return
+     * @return The value logs in descending order of time or null, if the ring cannot answer the request
+     */
+    synchronized List<ValueLog> findRecent(long from, int count) {
+        //Determine the entries that are within the time range and after the horizon
+        long lowerBound = Math.max(from, horizon + 1);
+        int[] indices = new int[Math.min(size, count)];
+        int found = 0;
+        for (int i = 1; (i <= size) && (found < indices.length); i++) {
+            int index = (head - i + capacity) % capacity;
+            if (getTime(index) >= lowerBound) {
+                indices[found++] = index;
+            }
+        }
+
+        //Values before the horizon might be missing, so the ring must either deliver enough values or cover the range
+        if ((found < count) && (from <= horizon)) {
+            return null;
+        }
+
+        //Sort entries in descending order of time, since values may have arrived slightly out of order
+        List<ValueLog> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(toValueLog(indices[i]));
+        }
+        result.sort((a, b) -> b.getTime().compareTo(a.getTime()));
+        return result;
+    }
+
+    /**
+     * Returns the number of valid entries of the ring.
+     *
+     * @return The number of entries
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Creates a value log object from a certain entry of the ring. The original message is not available.
+     *
+     * @param index The index of the entry
+     * @return The resulting value log
+     */
+    private ValueLog toValueLog(int index) {
+        ValueLog valueLog = new ValueLog();
+        valueLog.setTime(Instant.ofEpochMilli(getTime(index)));
+        valueLog.setValue(getValue(index));
+        valueLog.setIdref(idref);
+        valueLog.setTopic(topic);
+        valueLog.setComponent(componentType);
+        valueLog.setQos(qos);
+        return valueLog;
+    }
+
+    private long getTime(int index) {
+        return (buffer == null) ? times[index] : buffer.getLong(index * ENTRY_BYTES);
+    }
+
+    private double getValue(int index) {
+        return (buffer == null) ? values[index] : buffer.getDouble(index * ENTRY_BYTES + 8);
+    }
+
+    private void setEntry(int index, long time, double value) {
+        if (buffer == null) {
+            times[index] = time;
+            values[index] = value;
+        } else {
+            buffer.putLong(index * ENTRY_BYTES, time);
+            buffer.putDouble(index * ENTRY_BYTES + 8, value);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.citopt.connde.service.log_writer;
+
+import org.citopt.connde.repository.ValueLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Background service that periodically migrates full documents of the value log repository from the row format
+ * to the compressed columnar format. Documents are converted in limited batches, so that the migration of
+ * existing data does not interfere with the ingestion of new value logs.
+ */
+@Service
+@EnableScheduling
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogCompactor {
+
+    //Repository component that holds the value logs to compact (autowired)
+    private ValueLogRepository valueLogRepository;
+
+    //Whether compaction is enabled
+    private final boolean enabled;
+
+    //Maximum number of documents to convert per run
+    private final int batchSize;
+
+    /**
+     * Creates the service by passing a reference to the value log repository (auto-wired).
+     *
+     * @param valueLogRepository The value log repository to use
+     * @param enabled            True, if documents are supposed to be compacted; false otherwise
+     * @param batchSize          The maximum number of documents to convert per run
+     */
+    @Autowired
+    public ValueLogCompactor(ValueLogRepository valueLogRepository,
+                             @Value("${value-logs.compaction.enabled:true}") boolean enabled,
+                             @Value("${value-logs.compaction.batch-size:200}") int batchSize) {
+        this.valueLogRepository = valueLogRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Converts the next batch of full documents to the columnar format. Further batches are converted immediately
+     * as long as the previous batch was completely filled.
+     */
+    @Scheduled(initialDelayString = "${value-logs.compaction.interval-ms:60000}", fixedDelayString = "${value-logs.compaction.interval-ms:60000}")
+    public void compact() {
+        if (!enabled || (batchSize < 1)) {
+            return;
+        }
+
+        try {
+            int converted;
+            do {
+                converted = valueLogRepository.compactClosedBuckets(batchSize);
+            } while (converted >= batchSize);
+        } catch (Exception e) {
+            System.err.println("Failed to compact value logs: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.citopt.connde.service.log_writer;
+
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.valueLog.ValueLogRetentionPolicy;
+import org.citopt.connde.domain.valueLog.ValueLogRollupInterval;
+import org.citopt.connde.repository.ActuatorRepository;
+import org.citopt.connde.repository.SensorRepository;
+import org.citopt.connde.repository.ValueLogRepository;
+import org.citopt.connde.repository.ValueLogRetentionPolicyRepository;
+import org.citopt.connde.repository.ValueLogRollupRepository;
+import org.citopt.connde.service.cache.ValueLogQueryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Background service that periodically enforces the retention policies of the value logs. For each component, the
+ * applicable policy is resolved (component policy, adapter policy or default policy) and the raw value logs and
+ * rollups that are older than the configured number of days are removed. Expired raw value logs are either deleted
+ * or moved to the local archive, where they remain available to all queries of the value log repository. Documents
+ * are removed in limited batches with pauses in between, so that the expiry does not interfere with the ingestion
+ * of new value logs.
+ */
+@Service
+@EnableScheduling
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogRetentionService {
+
+    @Autowired
+    private ValueLogRepository valueLogRepository;
+
+    @Autowired
+    private ValueLogRollupRepository valueLogRollupRepository;
+
+    @Autowired
+    private ValueLogRetentionPolicyRepository retentionPolicyRepository;
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private ActuatorRepository actuatorRepository;
+
+    @Autowired
+    private ValueLogQueryCache valueLogQueryCache;
+
+    //Whether retention policies are enforced
+    private final boolean enabled;
+
+    //Policy that applies to all components without a dedicated policy
+    private final ValueLogRetentionPolicy defaultPolicy;
+
+    //Whether rollups are materialized, so that raw value logs must not expire before they are rolled up
+    private final boolean rollupsEnabled;
+
+    //Maximum number of documents to remove per batch and per run
+    private final int batchSize;
+    private final int maxDocumentsPerRun;
+
+    //Pause between two batches
+    private final long pauseMillis;
+
+    /**
+     * Creates the service.
+     *
+     * @param enabled                    True, if retention policies are supposed to be enforced; false otherwise
+     * @param defaultRawRetentionDays    The default number of days after which raw value logs expire (0 for unlimited)
+     * @param defaultRollupRetentionDays The default number of days after which rollups expire (0 for unlimited)
+     * @param defaultArchive             True, if expired raw value logs are archived by default; false otherwise
+     * @param rollupsEnabled             True, if rollups are materialized; false otherwise
+     * @param batchSize                  The maximum number of documents to remove per batch
+     * @param maxDocumentsPerRun         The maximum number of documents to remove per run
+     * @param pauseMillis                The pause between two batches in milliseconds
+     */
+    public ValueLogRetentionService(@Value("${value-logs.retention.enabled:true}") boolean enabled,
+                                    @Value("${value-logs.retention.default.raw-days:0}") int defaultRawRetentionDays,
+                                    @Value("${value-logs.retention.default.rollup-days:0}") int defaultRollupRetentionDays,
+                                    @Value("${value-logs.retention.default.archive:false}") boolean defaultArchive,
+                                    @Value("${value-logs.rollups.enabled:true}") boolean rollupsEnabled,
+                                    @Value("${value-logs.retention.batch-size:100}") int batchSize,
+                                    @Value("${value-logs.retention.max-documents-per-run:10000}") int maxDocumentsPerRun,
+                                    @Value("${value-logs.retention.pause-ms:200}") long pauseMillis) {
+        this.enabled = enabled;
+        this.defaultPolicy = new ValueLogRetentionPolicy(defaultRawRetentionDays, defaultRollupRetentionDays, defaultArchive);
+        this.rollupsEnabled = rollupsEnabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxDocumentsPerRun = Math.max(maxDocumentsPerRun, 1);
+        this.pauseMillis = Math.max(pauseMillis, 0);
+    }
+
+    /**
+     * Enforces the retention policies periodically.
+     */
+    @Scheduled(initialDelayString = "${value-logs.retention.interval-ms:3600000}", fixedDelayString = "${value-logs.retention.interval-ms:3600000}")
+    public void enforceRetentionPeriodically() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            enforceRetention();
+        } catch (Exception e) {
+            System.err.println("Failed to enforce value log retention: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Enforces the retention policies of all components once. Raw value logs are only expired if they were
+     * already rolled up.
+     *
+     * @return The number of removed documents of raw value logs
+     */
+    public synchronized int enforceRetention() {
+        //Complete interrupted archive operations first
+        valueLogRepository.recoverArchive();
+
+        //Index policies
+        Map<String, ValueLogRetentionPolicy> componentPolicies = new HashMap<>();
+        Map<String, ValueLogRetentionPolicy> adapterPolicies = new HashMap<>();
+        for (ValueLogRetentionPolicy policy : retentionPolicyRepository.findAll()) {
+            if (policy.getComponentId() != null) {
+                componentPolicies.put(policy.getComponentId(), policy);
+            } else if (policy.getAdapterId() != null) {
+                adapterPolicies.put(policy.getAdapterId(), policy);
+            }
+        }
+
+        //Raw value logs must not expire before they are covered by the minute rollups
+        Instant now = Instant.now();
+        Instant rollupWatermark = rollupsEnabled ? valueLogRollupRepository.getWatermark(ValueLogRollupInterval.MINUTE) : null;
+
+        //Consider all components with raw value logs or rollups
+        Set<String> idrefs = new LinkedHashSet<>(valueLogRepository.findAllIdRefs());
+        idrefs.addAll(valueLogRollupRepository.findAllIdRefs());
+
+        int remaining = maxDocumentsPerRun;
+        for (String idref : idrefs) {
+            ValueLogRetentionPolicy policy = resolvePolicy(idref, componentPolicies, adapterPolicies);
+
+            //Expire rollups
+            if ((policy.getRollupRetentionDays() > 0) && (valueLogRollupRepository.deleteByIdRefBefore(idref,
+                    now.minus(Duration.ofDays(policy.getRollupRetentionDays()))) > 0)) {
+                valueLogQueryCache.onValueLogsChanged(idref);
+            }
+
+            //Expire raw value logs batch by batch
+            if ((policy.getRawRetentionDays() <= 0) || (remaining <= 0)) {
+                continue;
+            }
+            Instant cutoff = now.minus(Duration.ofDays(policy.getRawRetentionDays()));
+            if (rollupsEnabled) {
+                if (rollupWatermark == null) {
+                    continue;
+                } else if (rollupWatermark.isBefore(cutoff)) {
+                    cutoff = rollupWatermark;
+                }
+            }
+
+            int removed;
+            do {
+                removed = valueLogRepository.expireBuckets(idref, cutoff, Math.min(batchSize, remaining), policy.isArchive());
+                remaining -= removed;
+                if ((removed > 0) && !policy.isArchive()) {
+                    valueLogQueryCache.onValueLogsChanged(idref);
+                }
+                if ((removed > 0) && !pause()) {
+                    return maxDocumentsPerRun - remaining;
+                }
+            } while ((removed >= batchSize) && (remaining > 0));
+        }
+        return maxDocumentsPerRun - remaining;
+    }
+
+    /**
+     * Returns the policy that applies to all components without a dedicated policy.
+     *
+     * @return The default policy
+     */
+    public ValueLogRetentionPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Resolves the policy that applies to a certain component. Policies of the component itself take precedence
+     * over policies of its adapter, which take precedence over the default policy.
+     *
+     * @param idref             The idref of the component
+     * @param componentPolicies The map (component id --> policy) of component policies
+     * @param adapterPolicies   The map (adapter id --> policy) of adapter policies
+     * @return The applicable policy
+     */
+    private ValueLogRetentionPolicy resolvePolicy(String idref, Map<String, ValueLogRetentionPolicy> componentPolicies,
+                                                  Map<String, ValueLogRetentionPolicy> adapterPolicies) {
+        ValueLogRetentionPolicy policy = componentPolicies.get(idref);
+        if (policy != null) {
+            return policy;
+        }
+
+        if (!adapterPolicies.isEmpty()) {
+            String adapterId = findAdapterId(idref);
+            if ((adapterId != null) && adapterPolicies.containsKey(adapterId)) {
+                return adapterPolicies.get(adapterId);
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Determines the id of the adapter of a certain component. The ids of monitoring components are composed
+     * of the id of the monitoring adapter and the id of the device.
+     *
+     * @param idref The idref of the component
+     * @return The id of the adapter or null, if it cannot be determined
+     */
+    private String findAdapterId(String idref) {
+        int separatorIndex = idref.indexOf('@');
+        if (separatorIndex > 0) {
+            return idref.substring(0, separatorIndex);
+        }
+
+        Component component = sensorRepository.findOne(idref);
+        if (component == null) {
+            component = actuatorRepository.findOne(idref);
+        }
+        return ((component == null) || (component.getAdapter() == null)) ? null : component.getAdapter().getId();
+    }
+
+    /**
+     * Pauses between two batches.
+     *
+     * @return True, if the pause was completed; false, if the thread was interrupted
+     */
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,32 +1,140 @@
 package org.citopt.connde.service.log_writer;
 
 import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.exception.ValueLogWriteException;
 import org.citopt.connde.repository.ValueLogRepository;
+import org.citopt.connde.service.cache.ValueLogQueryCache;
+import org.citopt.connde.service.log_writer.model.ValueLogWriterStats;
 import org.citopt.connde.service.receiver.ValueLogReceiver;
 import org.citopt.connde.service.receiver.ValueLogReceiverObserver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Service that registers itself as observer at the ValueLogReceiver and writes all arrived value logs
- * into the InfluxDB time series database.
+ * into the value log repository. Value logs are collected in a bounded buffer and written in batches, which are
+ * flushed as soon as either a configurable number of value logs is available or a configurable amount of time
+ * has passed. If the repository falls behind and the buffer is full, the observer blocks, which propagates
+ * backpressure to the value log pipeline. Batches that could not be written are retried with exponential backoff;
+ * until then, they keep occupying the capacity of the buffer, so that producers block instead of losing value logs.
+ * Only after a configurable number of attempts the remaining value logs of a batch are dropped. Value logs for
+ * which the repository cannot determine whether they were written are never retried, since they might be stored
+ * twice otherwise.
+ * <p>
+ * On shutdown, the flush thread writes all value logs that are still buffered, but no longer retries failed
+ * batches, so that shutting down is not delayed by the retry backoff.
  */
 @Service
+@PropertySource(value = "classpath:application.properties")
 public class ValueLogWriter implements ValueLogReceiverObserver {
 
     //Repository component to use for storing value logs (autowired)
     private ValueLogRepository valueLogRepository;
 
+    //Cache of query results that needs to be notified about written value logs (autowired)
+    private ValueLogQueryCache valueLogQueryCache;
+
+    //Buffer of value logs that still need to be written
+    private final BlockingQueue<ValueLog> buffer;
+
+    //Permits for value logs that are either buffered or not written yet, released once a batch is completed
+    private final Semaphore capacity;
+
+    //Batch configuration
+    private final int batchSize;
+    private final long maxDelayMillis;
+
+    //Retry configuration
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+
+    //Receive time of the first value log of the batch that is currently collected or written
+    private final Object pendingLock = new Object();
+    private Instant batchStartTime = null;
+
+    //Time in milliseconds the flush thread waits for value logs before checking for shutdown
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    //Thread that flushes the buffer into the repository
+    private final Thread flushThread;
+    private final Object shutdownLock = new Object();
+    private volatile boolean running = true;
+
+    //Metrics
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong unconfirmedCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong totalBatchSize = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile int lastBatchSize = 0;
+
     /**
      * Creates and starts the service by passing references to a value log receiver service
      * and the repository component that is supposed to be used for storing the received value logs in (auto-wired).
      *
-     * @param valueLogReceiver   The instance of the value log receiver service
-     * @param valueLogRepository The repository component to use
+     * @param valueLogReceiver      The instance of the value log receiver service
+     * @param valueLogRepository    The repository component to use
+     * @param valueLogQueryCache    The cache of query results to notify about written value logs
+     * @param batchSize             The maximum number of value logs per batch
+     * @param maxDelayMillis        The maximum time in milliseconds a value log may wait for its batch to be flushed
+     * @param bufferCapacity        The maximum number of value logs that may be buffered before blocking
+     * @param maxAttempts           The maximum number of attempts per batch before its value logs are dropped
+     * @param retryBackoffMillis    The time in milliseconds to wait before the first retry, doubled for each retry
+     * @param maxRetryBackoffMillis The maximum time in milliseconds to wait before a retry
      */
     @Autowired
-    public ValueLogWriter(ValueLogReceiver valueLogReceiver, ValueLogRepository valueLogRepository) {
+    public ValueLogWriter(ValueLogReceiver valueLogReceiver, ValueLogRepository valueLogRepository,
+                          ValueLogQueryCache valueLogQueryCache,
+                          @Value("${value-logs.writer.batch-size:500}") int batchSize,
+                          @Value("${value-logs.writer.max-delay-ms:100}") long maxDelayMillis,
+                          @Value("${value-logs.writer.buffer-capacity:10000}") int bufferCapacity,
+                          @Value("${value-logs.writer.max-attempts:5}") int maxAttempts,
+                          @Value("${value-logs.writer.retry-backoff-ms:100}") long retryBackoffMillis,
+                          @Value("${value-logs.writer.max-retry-backoff-ms:10000}") long maxRetryBackoffMillis) {
+        //Sanity checks
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least one.");
+        } else if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Maximum delay must not be negative.");
+        } else if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Number of attempts must be at least one.");
+        } else if ((retryBackoffMillis < 0) || (maxRetryBackoffMillis < retryBackoffMillis)) {
+            throw new IllegalArgumentException("Retry backoff must not be negative or exceed its maximum.");
+        }
+
         this.valueLogRepository = valueLogRepository;
+        this.valueLogQueryCache = valueLogQueryCache;
+        this.batchSize = batchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(bufferCapacity, batchSize));
+        this.capacity = new Semaphore(Math.max(bufferCapacity, batchSize));
+
+        //Start flush thread
+        this.flushThread = new Thread(this::flushLoop, "value-log-writer");
+        this.flushThread.setDaemon(true);
+        this.flushThread.start();
 
         //Register as observer at the ValueLogReceiver
         valueLogReceiver.registerObserver(this);
@@ -45,7 +153,209 @@ public class ValueLogWriter implements ValueLogReceiverObserver {
             throw new IllegalArgumentException("Value log must not be null.");
         }
 
-        //Write value log into repository
-        valueLogRepository.write(valueLog);
+        //Add value log to buffer, wait if the repository falls behind or batches are retried
+        try {
+            capacity.acquire();
+            buffer.add(valueLog);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the receive time of the oldest value log that was handed to the writer, but was not written yet,
+     * i.e. that is either buffered or part of the batch that is currently collected, written or retried. All
+     * value logs that were received before this time and passed the writer are written (or dropped).
+     *
+     * @return The receive time of the oldest pending value log or null, if no value logs are pending
+     */
+    public Instant getPendingSince() {
+        synchronized (pendingLock) {
+            ValueLog head = buffer.peek();
+            Instant headTime = (head == null) ? null : head.getTime();
+            if ((headTime == null) || ((batchStartTime != null) && batchStartTime.isBefore(headTime))) {
+                return batchStartTime;
+            }
+            return headTime;
+        }
+    }
+
+    /**
+     * Returns the current statistics of the writer.
+     *
+     * @return The statistics
+     */
+    public ValueLogWriterStats getStats() {
+        long flushes = flushCount.get();
+        double averageBatchSize = (flushes == 0) ? 0 : (double) totalBatchSize.get() / flushes;
+        double averageFlushMillis = (flushes == 0) ? 0 : (totalFlushNanos.get() / 1e6) / flushes;
+
+        return new ValueLogWriterStats(buffer.size(), flushes, writtenCount.get(), failedCount.get(),
+                droppedCount.get(), unconfirmedCount.get(), retryCount.get(), lastBatchSize, averageBatchSize, averageFlushMillis,
+                maxFlushNanos.get() / 1e6);
+    }
+
+    /**
+     * Stops the flush thread after it wrote all value logs that are still buffered into the repository. Ongoing
+     * retries are aborted, so that the remaining value logs of failed batches are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (shutdownLock) {
+            running = false;
+            shutdownLock.notifyAll();
+        }
+
+        //Let the flush thread write the remaining value logs
+        try {
+            flushThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Main loop of the flush thread that collects batches from the buffer and writes them into the repository,
+     * until a shutdown was requested and the buffer is empty.
+     */
+    private void flushLoop() {
+        List<ValueLog> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                //Wait for the first value log of the next batch and remember its time as long as it is pending
+                ValueLog first;
+                synchronized (pendingLock) {
+                    first = buffer.poll();
+                    batchStartTime = (first == null) ? null : first.getTime();
+                }
+                if (first == null) {
+                    //Stop once the buffer is drained after a shutdown was requested
+                    if (!running) {
+                        return;
+                    }
+
+                    //Buffer was empty, so the value log is a recent one that is not missed if briefly unaccounted
+                    first = buffer.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    synchronized (pendingLock) {
+                        batchStartTime = first.getTime();
+                    }
+                }
+                batch.add(first);
+
+                //Collect further value logs until the batch is full or the deadline is reached
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    if (batch.size() >= batchSize) {
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if ((remaining <= 0) || !running) {
+                        break;
+                    }
+                    ValueLog next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                //Thread was interrupted externally, write what has been collected so far
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            }
+
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a batch of value logs into the repository and updates the metrics. Value logs that could not be
+     * written are retried with exponential backoff until the maximum number of attempts is reached or a shutdown
+     * is requested; afterwards, they are dropped. Value logs whose outcome is unknown are not retried. The capacity
+     * occupied by the batch is only released once the batch is completed.
+     *
+     * @param batch The batch to write
+     */
+    private void flush(List<ValueLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        List<ValueLog> remaining = batch;
+        for (int attempt = 1; !remaining.isEmpty(); attempt++) {
+            //Try to write the remaining value logs
+            Object cause;
+            try {
+                valueLogRepository.writeAll(remaining);
+                writtenCount.addAndGet(remaining.size());
+                break;
+            } catch (ValueLogWriteException e) {
+                //Only a part of the value logs was written, the ones with unknown outcome must not be retried
+                int unconfirmed = e.getUnconfirmedValueLogs().size();
+                writtenCount.addAndGet(remaining.size() - e.getFailedValueLogs().size() - unconfirmed);
+                if (unconfirmed > 0) {
+                    unconfirmedCount.addAndGet(unconfirmed);
+                    System.err.println("Outcome of writing " + unconfirmed + " value logs is unknown, not retrying them: " + e.getCause());
+                }
+                remaining = new ArrayList<>(e.getFailedValueLogs());
+                cause = e.getCause();
+            } catch (Exception e) {
+                cause = e;
+            }
+            if (remaining.isEmpty()) {
+                break;
+            }
+            failedCount.addAndGet(remaining.size());
+
+            //Give up after the maximum number of attempts or on shutdown
+            if ((attempt >= maxAttempts) || !running) {
+                droppedCount.addAndGet(remaining.size());
+                System.err.println("Dropped " + remaining.size() + " value logs after " + attempt + " failed attempts: " + cause);
+                break;
+            }
+
+            //Wait before the next attempt, unless a shutdown is requested in the meantime
+            long backoff = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempt - 1, 30));
+            System.err.println("Failed to write " + remaining.size() + " value logs, retrying in " + backoff + " ms: " + cause);
+            retryCount.incrementAndGet();
+            try {
+                synchronized (shutdownLock) {
+                    if (running && (backoff > 0)) {
+                        shutdownLock.wait(backoff);
+                    }
+                }
+            } catch (InterruptedException e) {
+                //Thread was interrupted externally, give up on the remaining value logs
+                Thread.currentThread().interrupt();
+                droppedCount.addAndGet(remaining.size());
+                break;
+            }
+        }
+        long duration = System.nanoTime() - startTime;
+
+        //Invalidate cached query results of the affected components, even if the batch was only written partially
+        Set<String> idrefs = new HashSet<>();
+        for (ValueLog valueLog : batch) {
+            if ((valueLog.getIdref() != null) && idrefs.add(valueLog.getIdref())) {
+                valueLogQueryCache.onValueLogsWritten(valueLog.getIdref());
+            }
+        }
+
+        //Update metrics
+        flushCount.incrementAndGet();
+        totalBatchSize.addAndGet(batch.size());
+        totalFlushNanos.addAndGet(duration);
+        maxFlushNanos.accumulateAndGet(duration, Math::max);
+        lastBatchSize = batch.size();
+
+        //Let producers use the capacity of the completed batch
+        capacity.release(batch.size());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package org.citopt.connde.service.log_writer.model;
+
+/**
+ * Objects of this class hold the current statistics of the in-memory buffer of recent value logs. They can be used
+ * as DTOs in order to retrieve the statistics to the client.
+ */
+public class RecentValueLogBufferStats {
+    //Number of buffered components and values
+    private int componentCount;
+    private long valueCount;
+
+    //Capacity and storage of the ring of each component
+    private int capacityPerComponent;
+    private boolean offHeap;
+
+    //Number of requests that were answered from the buffer and from the repository
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates a new stats object for the buffer of recent value logs.
+     *
+     * @param componentCount       The number of components for which values are buffered
+     * @param valueCount           The total number of buffered values
+     * @param capacityPerComponent The maximum number of buffered values per component
+     * @param offHeap              True, if the values are stored outside of the heap; false otherwise
+     * @param hitCount             The number of requests that were answered from the buffer so far
+     * @param missCount            The number of requests that had to be answered from the repository so far
+     */
+    public RecentValueLogBufferStats(int componentCount, long valueCount, int capacityPerComponent, boolean offHeap,
+                                     long hitCount, long missCount) {
+        this.componentCount = componentCount;
+        this.valueCount = valueCount;
+        this.capacityPerComponent = capacityPerComponent;
+        this.offHeap = offHeap;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+    }
+
+    /**
+     * Returns the number of components for which values are buffered.
+     *
+     * @return The number of components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Returns the total number of buffered values.
+     *
+     * @return The number of values
+     */
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Returns the maximum number of buffered values per component.
+     *
+     * @return The capacity per component
+     */
+    public int getCapacityPerComponent() {
+        return capacityPerComponent;
+    }
+
+    /**
+     * Returns whether the values are stored outside of the heap.
+     *
+     * @return True, if stored off-heap; false otherwise
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the number of requests that were answered from the buffer.
+     *
+     * @return The number of hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of requests that had to be answered from the repository.
+     *
+     * @return The number of misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+}
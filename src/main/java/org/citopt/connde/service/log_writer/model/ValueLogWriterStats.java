@@ -0,0 +1,159 @@
+package org.citopt.connde.service.log_writer.model;
+
+/**
+ * Objects of this class hold the current statistics of the batching value log writer. They can be used as DTOs
+ * in order to retrieve the statistics to the client.
+ */
+public class ValueLogWriterStats {
+    //Number of value logs that are currently waiting to be written
+    private int bufferedCount;
+
+    //Counters of flushes and written/failed/dropped/unconfirmed value logs
+    private long flushCount;
+    private long writtenCount;
+    private long failedCount;
+    private long droppedCount;
+    private long unconfirmedCount;
+
+    //Number of retries of partially or completely failed batches
+    private long retryCount;
+
+    //Batch sizes and flush latencies
+    private int lastBatchSize;
+    private double averageBatchSize;
+    private double averageFlushMillis;
+    private double maxFlushMillis;
+
+    /**
+     * Creates a new stats object for the value log writer.
+     *
+     * @param bufferedCount      The number of value logs that are currently buffered
+     * @param flushCount         The number of flushed batches so far
+     * @param writtenCount       The number of value logs written successfully so far
+     * @param failedCount        The number of failed attempts to write a value log so far
+     * @param droppedCount       The number of value logs that were dropped after the last attempt so far
+     * @param unconfirmedCount   The number of value logs for which it is unknown whether they were written so far
+     * @param retryCount         The number of retries of failed batches so far
+     * @param lastBatchSize      The size of the most recent batch
+     * @param averageBatchSize   The average size of all batches
+     * @param averageFlushMillis The average duration of a flush in milliseconds
+     * @param maxFlushMillis     The maximum duration of a flush in milliseconds
+     */
+    public ValueLogWriterStats(int bufferedCount, long flushCount, long writtenCount, long failedCount,
+                               long droppedCount, long unconfirmedCount, long retryCount, int lastBatchSize,
+                               double averageBatchSize, double averageFlushMillis, double maxFlushMillis) {
+        this.bufferedCount = bufferedCount;
+        this.flushCount = flushCount;
+        this.writtenCount = writtenCount;
+        this.failedCount = failedCount;
+        this.droppedCount = droppedCount;
+        this.unconfirmedCount = unconfirmedCount;
+        this.retryCount = retryCount;
+        this.lastBatchSize = lastBatchSize;
+        this.averageBatchSize = averageBatchSize;
+        this.averageFlushMillis = averageFlushMillis;
+        this.maxFlushMillis = maxFlushMillis;
+    }
+
+    /**
+     * Returns the number of value logs that are currently waiting to be written.
+     *
+     * @return The number of buffered value logs
+     */
+    public int getBufferedCount() {
+        return bufferedCount;
+    }
+
+    /**
+     * Returns the number of batches that were flushed so far.
+     *
+     * @return The number of flushes
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * Returns the number of value logs that were written successfully so far.
+     *
+     * @return The number of written value logs
+     */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * Returns the number of failed attempts to write a value log so far. Value logs of failed attempts are retried
+     * and are only lost if they are also counted as dropped.
+     *
+     * @return The number of failed value log writes
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of value logs that were dropped so far, since they could not be written within the
+     * maximum number of attempts.
+     *
+     * @return The number of dropped value logs
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns the number of value logs for which the repository could not determine whether they were written,
+     * e.g. due to a network timeout. These value logs are not retried, since they might be stored twice otherwise.
+     *
+     * @return The number of unconfirmed value logs
+     */
+    public long getUnconfirmedCount() {
+        return unconfirmedCount;
+    }
+
+    /**
+     * Returns the number of retries of batches that could not be written completely so far.
+     *
+     * @return The number of retries
+     */
+    public long getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Returns the size of the most recently flushed batch.
+     *
+     * @return The last batch size
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * Returns the average size of all flushed batches.
+     *
+     * @return The average batch size
+     */
+    public double getAverageBatchSize() {
+        return averageBatchSize;
+    }
+
+    /**
+     * Returns the average duration of a flush in milliseconds.
+     *
+     * @return The average flush latency
+     */
+    public double getAverageFlushMillis() {
+        return averageFlushMillis;
+    }
+
+    /**
+     * Returns the maximum duration of a flush in milliseconds.
+     *
+     * @return The maximum flush latency
+     */
+    public double getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+}
@@ -0,0 +1,220 @@
+package org.citopt.connde.service.receiver;
+
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.service.receiver.model.ValueLogPipelineStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Staged pipeline that decouples the MQTT callback thread from the observers of the ValueLogReceiver. Each registered
+ * observer gets its own lane that consists out of a configurable number of workers. Every worker owns a bounded queue
+ * and value logs are assigned to the workers by hashing their component id, so that the value logs of a certain
+ * component are always processed in arrival order. Since the lanes are independent of each other, a slow observer
+ * does not delay the other ones. If the queue of a worker is full, the value log is dropped for this lane and
+ * a drop counter is increased.
+ */
+class ValueLogPipeline {
+    //Map (observer --> lane) of all lanes of registered observers
+    private final Map<ValueLogReceiverObserver, ObserverLane> lanes = new ConcurrentHashMap<>();
+
+    //Number of workers per observer and capacity of the queue of each worker
+    private final int workersPerObserver;
+    private final int queueCapacity;
+
+    /**
+     * Creates a new pipeline by passing the number of workers to use per observer and the capacity of the queue
+     * of each worker.
+     *
+     * @param workersPerObserver The number of workers per observer
+     * @param queueCapacity      The capacity of the queue of each worker
+     */
+    ValueLogPipeline(int workersPerObserver, int queueCapacity) {
+        //Sanity checks
+        if (workersPerObserver < 1) {
+            throw new IllegalArgumentException("Number of workers must be at least one.");
+        } else if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least one.");
+        }
+
+        this.workersPerObserver = workersPerObserver;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Adds an observer to the pipeline and starts the workers of its lane. Adding an observer that is already part
+     * of the pipeline has no effect.
+     *
+     * @param observer The observer to add
+     */
+    void addObserver(ValueLogReceiverObserver observer) {
+        lanes.computeIfAbsent(observer, o -> new ObserverLane(o, workersPerObserver, queueCapacity));
+    }
+
+    /**
+     * Removes an observer from the pipeline and stops the workers of its lane. Value logs that are still queued
+     * for this observer are discarded.
+     *
+     * @param observer The observer to remove
+     */
+    void removeObserver(ValueLogReceiverObserver observer) {
+        ObserverLane lane = lanes.remove(observer);
+
+        //Stop lane if it existed
+        if (lane != null) {
+            lane.stop();
+        }
+    }
+
+    /**
+     * Removes all observers from the pipeline and stops the workers of their lanes.
+     */
+    void clearObservers() {
+        for (ValueLogReceiverObserver observer : new ArrayList<>(lanes.keySet())) {
+            removeObserver(observer);
+        }
+    }
+
+    /**
+     * Hands a value log over to the lanes of all registered observers. This method never blocks; in case the
+     * queue of a lane is full, the value log is dropped for this lane.
+     *
+     * @param valueLog The value log to publish
+     */
+    void publish(ValueLog valueLog) {
+        //Sanity check
+        if (valueLog == null) {
+            throw new IllegalArgumentException("Value log must not be null.");
+        }
+
+        //Pass value log to all lanes
+        for (ObserverLane lane : lanes.values()) {
+            lane.offer(valueLog);
+        }
+    }
+
+    /**
+     * Returns the current statistics of all lanes of the pipeline.
+     *
+     * @return The list of lane statistics
+     */
+    List<ValueLogPipelineStats> getStats() {
+        List<ValueLogPipelineStats> statsList = new ArrayList<>();
+        for (ObserverLane lane : lanes.values()) {
+            statsList.add(lane.getStats());
+        }
+        return statsList;
+    }
+
+    /**
+     * Lane of a single observer, consisting out of several workers with a bounded queue each.
+     */
+    private static class ObserverLane {
+        private final ValueLogReceiverObserver observer;
+        private final List<BlockingQueue<ValueLog>> queues;
+        private final List<Thread> workers;
+        private final int queueCapacity;
+
+        //Counters for processed and dropped value logs
+        private final AtomicLong processedCount = new AtomicLong();
+        private final AtomicLong droppedCount = new AtomicLong();
+
+        private volatile boolean running = true;
+
+        /**
+         * Creates and starts a new lane for a given observer.
+         *
+         * @param observer      The observer to notify
+         * @param workerCount   The number of workers to start
+         * @param queueCapacity The capacity of the queue of each worker
+         */
+        ObserverLane(ValueLogReceiverObserver observer, int workerCount, int queueCapacity) {
+            this.observer = observer;
+            this.queueCapacity = queueCapacity;
+            this.queues = new ArrayList<>(workerCount);
+            this.workers = new ArrayList<>(workerCount);
+
+            //Create and start one worker per queue
+            for (int i = 0; i < workerCount; i++) {
+                BlockingQueue<ValueLog> queue = new ArrayBlockingQueue<>(queueCapacity);
+                queues.add(queue);
+
+                Thread worker = new Thread(() -> work(queue), "value-log-" + observer.getClass().getSimpleName() + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        /**
+         * Enqueues a value log at the worker that is responsible for its component.
+         *
+         * @param valueLog The value log to enqueue
+         */
+        void offer(ValueLog valueLog) {
+            //Select worker by component id, so that the order per component is preserved
+            String idref = valueLog.getIdref();
+            int partition = (idref == null) ? 0 : Math.floorMod(idref.hashCode(), queues.size());
+
+            //Try to enqueue without blocking the caller
+            if (!queues.get(partition).offer(valueLog)) {
+                droppedCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Stops all workers of this lane.
+         */
+        void stop() {
+            running = false;
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+
+        /**
+         * Returns the current statistics of this lane.
+         *
+         * @return The statistics
+         */
+        ValueLogPipelineStats getStats() {
+            //Sum up the depths of all queues
+            int queueDepth = 0;
+            for (BlockingQueue<ValueLog> queue : queues) {
+                queueDepth += queue.size();
+            }
+
+            return new ValueLogPipelineStats(observer.getClass().getSimpleName(), workers.size(), queueDepth,
+                    queues.size() * queueCapacity, processedCount.get(), droppedCount.get());
+        }
+
+        /**
+         * Main loop of a worker that takes value logs from its queue and passes them to the observer.
+         *
+         * @param queue The queue of the worker
+         */
+        private void work(BlockingQueue<ValueLog> queue) {
+            while (running) {
+                ValueLog valueLog;
+                try {
+                    valueLog = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                //Notify observer, but do not let a failing observer kill the worker
+                try {
+                    observer.onValueReceived(valueLog);
+                } catch (Exception e) {
+                    System.err.println("Observer " + observer.getClass().getSimpleName() + " failed: " + e.getMessage());
+                }
+                processedCount.incrementAndGet();
+            }
+        }
+    }
+}
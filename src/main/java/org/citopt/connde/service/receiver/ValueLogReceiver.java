@@ -1,41 +1,51 @@
 
 package org.citopt.connde.service.receiver;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 import org.citopt.connde.service.mqtt.MQTTService;
+import org.citopt.connde.service.receiver.model.ValueLogPipelineStats;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Service;
 
 /**
  * Background service that receives incoming MQTT value log messages that comply to certain topics. The service
  * implements the observer pattern which allows other components to register themselves to the ValueLogReceiver
- * and get notified in case a new value message arrives.
+ * and get notified in case a new value message arrives. Observers are notified asynchronously by a staged pipeline,
+ * so that slow observers neither block the MQTT client nor each other.
  */
 @Service
+@PropertySource(value = "classpath:application.properties")
 @EnableScheduling
 public class ValueLogReceiver {
     //Set of MQTT topics to subscribe to
     private static final String[] SUBSCRIBE_TOPICS = {"device/#", "sensor/#", "actuator/#", "monitoring/#"};
 
-    //Set ob observers which want to be notified about incoming value logs
-    private Set<ValueLogReceiverObserver> observerSet;
+    //Pipeline that dispatches incoming value logs to the observers
+    private ValueLogPipeline pipeline;
     private final MQTTService mqttService;
 
     /**
      * Initializes the value logger service.
+     *
+     * @param mqttService        The MQTT service to use for receiving value logs
+     * @param workersPerObserver The number of pipeline workers per observer
+     * @param queueCapacity      The capacity of the queue of each pipeline worker
      */
     @Autowired
-    public ValueLogReceiver(MQTTService mqttService) {
+    public ValueLogReceiver(MQTTService mqttService,
+                            @Value("${value-logs.pipeline.workers-per-observer:2}") int workersPerObserver,
+                            @Value("${value-logs.pipeline.queue-capacity:4096}") int queueCapacity) {
         this.mqttService = mqttService;
-        //Initialize set of observers
-        observerSet = new HashSet<>();
+        //Initialize pipeline for notifying the observers
+        pipeline = new ValueLogPipeline(workersPerObserver, queueCapacity);
 
         //Create MQTT callback handler
-        ValueLogReceiverArrivalHandler handler = new ValueLogReceiverArrivalHandler(observerSet);
+        ValueLogReceiverArrivalHandler handler = new ValueLogReceiverArrivalHandler(pipeline);
 
         //Register callback handler at MQTT service
         mqttService.setMqttCallback(handler);
@@ -62,8 +72,8 @@ public class ValueLogReceiver {
             throw new IllegalArgumentException("Observer must not be null.");
         }
 
-        //Add observer to set
-        observerSet.add(observer);
+        //Add observer to pipeline
+        pipeline.addObserver(observer);
     }
 
     /**
@@ -78,14 +88,24 @@ public class ValueLogReceiver {
             throw new IllegalArgumentException("Observer must not be null.");
         }
 
-        //Remove observer from set
-        observerSet.remove(observer);
+        //Remove observer from pipeline
+        pipeline.removeObserver(observer);
     }
 
     /**
      * Unregisters all observers.
      */
     public void clearObservers() {
-        observerSet.clear();
+        pipeline.clearObservers();
+    }
+
+    /**
+     * Returns the current statistics (queue depths, processed and dropped value logs) of the pipeline lanes
+     * of all registered observers.
+     *
+     * @return The list of pipeline statistics
+     */
+    public List<ValueLogPipelineStats> getPipelineStats() {
+        return pipeline.getStats();
     }
 }
\ No newline at end of file
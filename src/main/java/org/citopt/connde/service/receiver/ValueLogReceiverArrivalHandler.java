@@ -10,9 +10,6 @@ import org.json.JSONObject;
 
 import java.text.SimpleDateFormat;
 import java.time.Instant;
-import java.time.ZonedDateTime;
-import java.util.Set;
-import java.util.Set;
 
 /**
  * then added to the value log repository.
@@ -29,16 +26,19 @@ class ValueLogReceiverArrivalHandler implements MqttCallback {
     private static final String JSON_COMPONENT_ID = "id";
     private static final String JSON_KEY_VALUE = "value";
 
-    //Set of observers
-    private Set<ValueLogReceiverObserver> observerSet;
+    //Pipeline that dispatches the value logs to the observers
+    private ValueLogPipeline pipeline;
+
+    //Parser for reading value messages directly from the payload (only used by the MQTT callback thread)
+    private final ValueMessageParser messageParser = new ValueMessageParser();
 
     /**
      * Creates a new value logger event handler.
      *
-     * @param observerSet The set of observers to notify about incoming value logs.
+     * @param pipeline The pipeline to use for notifying the observers about incoming value logs.
      */
-    ValueLogReceiverArrivalHandler(Set<ValueLogReceiverObserver> observerSet) {
-        this.observerSet = observerSet;
+    ValueLogReceiverArrivalHandler(ValueLogPipeline pipeline) {
+        this.pipeline = pipeline;
     }
 
     /**
@@ -57,9 +57,9 @@ class ValueLogReceiverArrivalHandler implements MqttCallback {
     }
 
     /**
-     * Handles incoming m
-     * qtt messages, i.e. parses the incoming value message to a value log which is then
-     * passed to the observers of the ValueLogReceiver.
+     * Handles incoming mqtt messages, i.e. parses the incoming value message to a value log which is then
+     * passed to the observers of the ValueLogReceiver. Messages are parsed directly from the payload bytes
+     * whenever possible; only messages that are not supported by this parser are converted to a JSON object.
      *
      * @param topic       The topic under which the message was sent
      * @param mqttMessage The received value log message
@@ -68,36 +68,49 @@ class ValueLogReceiverArrivalHandler implements MqttCallback {
     @Override
     public void messageArrived(String topic, MqttMessage mqttMessage) throws JSONException {
         //Record current time
-        Instant time = ZonedDateTime.now().toInstant();
+        Instant time = Instant.now();
 
-        //Extract QoS
+        //Extract QoS and payload
         int qos = mqttMessage.getQos();
+        byte[] payload = mqttMessage.getPayload();
 
-        //Extract message string from the message object
-        String message = new String(mqttMessage.getPayload());
-
-        //Create a json object from the message
-        JSONObject json = new JSONObject(message);
-
-        //Extract all required data from the message and add it to a new value log object
+        //Create new value log object and set the fields that do not depend on the message content
         ValueLog valueLog = new ValueLog();
-
-        String componentType = json.getString(JSON_KEY_COMPONENT_TYPE);
-        String componentID = json.getString(JSON_COMPONENT_ID);
-
-        //Set value log fields
         valueLog.setTopic(topic);
-        valueLog.setMessage(message);
         valueLog.setQos(qos);
         valueLog.setTime(time);
-        valueLog.setIdref(componentID);
-        valueLog.setValue(json.getDouble(JSON_KEY_VALUE));
-        valueLog.setComponent(componentType);
+
+        //Try to parse the payload directly, otherwise fall back to a full JSON object
+        if (!messageParser.parse(payload, valueLog)) {
+            parseJSONMessage(payload, valueLog);
+        }
 
         //Notify all observers
         notifyObservers(valueLog);
     }
 
+    /**
+     * Parses a value message payload by converting it to a JSON object and writes the extracted data
+     * into a given value log. This path also stores the full message string within the value log.
+     *
+     * @param payload  The payload of the value message
+     * @param valueLog The value log to fill
+     * @throws JSONException In case the message could not be parsed
+     */
+    private void parseJSONMessage(byte[] payload, ValueLog valueLog) throws JSONException {
+        //Extract message string from the payload
+        String message = new String(payload);
+
+        //Create a json object from the message
+        JSONObject json = new JSONObject(message);
+
+        //Set value log fields
+        valueLog.setMessage(message);
+        valueLog.setIdref(json.getString(JSON_COMPONENT_ID));
+        valueLog.setValue(json.getDouble(JSON_KEY_VALUE));
+        valueLog.setComponent(json.getString(JSON_KEY_COMPONENT_TYPE));
+    }
+
     /**
      * Handle events that are triggered when the delivery of a message was completed.
      *
@@ -108,7 +121,8 @@ class ValueLogReceiverArrivalHandler implements MqttCallback {
     }
 
     /**
-     * Notifies all observers of the ValueLogReceiver about the received value log.
+     * Notifies all observers of the ValueLogReceiver about the received value log by handing it over to the
+     * pipeline. The observers are then notified asynchronously.
      *
      * @param valueLog The received value log
      */
@@ -118,9 +132,7 @@ class ValueLogReceiverArrivalHandler implements MqttCallback {
             throw new IllegalArgumentException("Value log must not be null.");
         }
 
-        //Iterate over all observers and notify them
-        for (ValueLogReceiverObserver observer : observerSet) {
-            observer.onValueReceived(valueLog);
-        }
+        //Pass value log to the pipeline
+        pipeline.publish(valueLog);
     }
 }
\ No newline at end of file
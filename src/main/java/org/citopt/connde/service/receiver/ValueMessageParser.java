@@ -0,0 +1,427 @@
+package org.citopt.connde.service.receiver;
+
+import org.citopt.connde.domain.valueLog.ValueLog;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Allocation-light parser for value messages that reads the component type, the component id and the value directly
+ * from the raw MQTT payload without building an intermediate string or JSON object. Only flat JSON objects whose
+ * members are strings, numbers, booleans or null values are supported; strings must not contain escape sequences.
+ * In case a message does not match this format, the parser reports a failure and the caller is supposed to fall back
+ * to a full JSON parser.
+ */
+final class ValueMessageParser {
+    //JSON key names as bytes
+    private static final byte[] KEY_COMPONENT_TYPE = "component".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_COMPONENT_ID = "id".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_VALUE = "value".getBytes(StandardCharsets.US_ASCII);
+
+    //Common component type names that are re-used instead of allocating new strings
+    private static final String[] KNOWN_COMPONENT_TYPES = {"SENSOR", "ACTUATOR", "DEVICE", "MONITORING",
+            "sensor", "actuator", "device", "monitoring"};
+    private static final byte[][] KNOWN_COMPONENT_TYPE_BYTES = new byte[KNOWN_COMPONENT_TYPES.length][];
+
+    //Maximum number of significant digits that can be converted exactly via a long mantissa
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    //Exactly representable powers of ten
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    static {
+        for (int i = 0; i < KNOWN_COMPONENT_TYPES.length; i++) {
+            KNOWN_COMPONENT_TYPE_BYTES[i] = KNOWN_COMPONENT_TYPES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    //Current parse position and payload
+    private byte[] buffer;
+    private int position;
+
+    //Extracted fields
+    private String componentType;
+    private String componentId;
+    private double value;
+    private boolean hasValue;
+
+    /**
+     * Tries to parse a given value message payload and writes the extracted component type, component id and value
+     * into the given value log. The value log is only modified if parsing succeeds. Instances of this class are not
+     * thread-safe and are supposed to be re-used by a single thread.
+     *
+     * @param payload  The raw payload of the value message
+     * @param valueLog The value log to fill
+     * @return True, if the message could be parsed; false if the caller needs to fall back to a full JSON parser
+     */
+    boolean parse(byte[] payload, ValueLog valueLog) {
+        //Reset state
+        this.buffer = payload;
+        this.position = 0;
+        this.componentType = null;
+        this.componentId = null;
+        this.hasValue = false;
+
+        try {
+            if (!parseObject()) {
+                return false;
+            }
+        } finally {
+            this.buffer = null;
+        }
+
+        //All required fields must have been found
+        if ((componentType == null) || (componentId == null) || (!hasValue)) {
+            return false;
+        }
+
+        //Write fields to value log
+        valueLog.setComponent(componentType);
+        valueLog.setIdref(componentId);
+        valueLog.setValue(value);
+        return true;
+    }
+
+    /**
+     * Parses the top-level JSON object of the payload.
+     *
+     * @return True, if parsing succeeded; false otherwise
+     */
+    private boolean parseObject() {
+        skipWhitespace();
+        if (!consume('{')) {
+            return false;
+        }
+
+        skipWhitespace();
+        if (consume('}')) {
+            return isAtEnd();
+        }
+
+        //Iterate over all members of the object
+        while (true) {
+            skipWhitespace();
+
+            //Read key boundaries
+            int keyStart = position + 1;
+            int keyEnd = scanString();
+            if (keyEnd < 0) {
+                return false;
+            }
+
+            skipWhitespace();
+            if (!consume(':')) {
+                return false;
+            }
+            skipWhitespace();
+
+            //Dispatch by key
+            if (regionEquals(keyStart, keyEnd, KEY_COMPONENT_TYPE)) {
+                int start = position + 1;
+                int end = scanString();
+                if (end < 0) {
+                    return false;
+                }
+                componentType = toComponentType(start, end);
+            } else if (regionEquals(keyStart, keyEnd, KEY_COMPONENT_ID)) {
+                int start = position + 1;
+                int end = scanString();
+                if (end < 0) {
+                    return false;
+                }
+                componentId = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+            } else if (regionEquals(keyStart, keyEnd, KEY_VALUE)) {
+                if (!parseValue()) {
+                    return false;
+                }
+            } else if (!skipScalar()) {
+                return false;
+            }
+
+            skipWhitespace();
+            if (consume(',')) {
+                continue;
+            }
+            if (consume('}')) {
+                return isAtEnd();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Parses the value member, which may either be a JSON number or a string containing a number.
+     *
+     * @return True, if parsing succeeded; false otherwise
+     */
+    private boolean parseValue() {
+        if ((position < buffer.length) && (buffer[position] == '"')) {
+            int start = position + 1;
+            int end = scanString();
+            if (end < 0) {
+                return false;
+            }
+            return parseNumber(trimStart(start, end), trimEnd(start, end));
+        }
+
+        int start = position;
+        while ((position < buffer.length) && isNumberChar(buffer[position])) {
+            position++;
+        }
+        return parseNumber(start, position);
+    }
+
+    /**
+     * Parses a decimal number within a region of the buffer and stores it as value. Numbers with more significant
+     * digits than can be represented exactly are converted by the JDK.
+     *
+     * @param start Start index of the number (inclusive)
+     * @param end   End index of the number (exclusive)
+     * @return True, if the region contains a valid number; false otherwise
+     */
+    private boolean parseNumber(int start, int end) {
+        int i = start;
+        if (i >= end) {
+            return false;
+        }
+
+        //Sign
+        boolean negative = false;
+        if ((buffer[i] == '-') || (buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+
+        //Integer part
+        while ((i < end) && isDigit(buffer[i])) {
+            anyDigit = true;
+            if ((mantissa != 0) || (buffer[i] != '0')) {
+                digits++;
+            }
+            mantissa = mantissa * 10 + (buffer[i] - '0');
+            i++;
+            if (digits > MAX_EXACT_DIGITS) {
+                return parseNumberSlow(start, end);
+            }
+        }
+
+        //Fractional part
+        if ((i < end) && (buffer[i] == '.')) {
+            i++;
+            while ((i < end) && isDigit(buffer[i])) {
+                anyDigit = true;
+                if ((mantissa != 0) || (buffer[i] != '0')) {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (buffer[i] - '0');
+                exponent--;
+                i++;
+                if (digits > MAX_EXACT_DIGITS) {
+                    return parseNumberSlow(start, end);
+                }
+            }
+        }
+
+        if (!anyDigit) {
+            return false;
+        }
+
+        //Exponent part
+        if ((i < end) && ((buffer[i] == 'e') || (buffer[i] == 'E'))) {
+            i++;
+            boolean negativeExponent = false;
+            if ((i < end) && ((buffer[i] == '-') || (buffer[i] == '+'))) {
+                negativeExponent = buffer[i] == '-';
+                i++;
+            }
+            if ((i >= end) || !isDigit(buffer[i])) {
+                return false;
+            }
+            int explicitExponent = 0;
+            while ((i < end) && isDigit(buffer[i])) {
+                explicitExponent = explicitExponent * 10 + (buffer[i] - '0');
+                i++;
+                if (explicitExponent > 1000) {
+                    return parseNumberSlow(start, end);
+                }
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        //Trailing garbage
+        if (i != end) {
+            return false;
+        }
+
+        //Exact conversion is only possible for small exponents
+        double result;
+        if (exponent == 0) {
+            result = (double) mantissa;
+        } else if ((exponent > 0) && (exponent < POWERS_OF_TEN.length)) {
+            result = mantissa * POWERS_OF_TEN[exponent];
+        } else if ((exponent < 0) && (-exponent < POWERS_OF_TEN.length)) {
+            result = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return parseNumberSlow(start, end);
+        }
+
+        value = negative ? -result : result;
+        hasValue = true;
+        return true;
+    }
+
+    /**
+     * Parses a number within a region of the buffer by using the JDK parser.
+     *
+     * @param start Start index of the number (inclusive)
+     * @param end   End index of the number (exclusive)
+     * @return True, if the region contains a valid number; false otherwise
+     */
+    private boolean parseNumberSlow(int start, int end) {
+        try {
+            value = Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+            hasValue = true;
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Skips a scalar JSON value (string, number, boolean or null) of a member that is not of interest.
+     *
+     * @return True, if a scalar value could be skipped; false otherwise
+     */
+    private boolean skipScalar() {
+        if (position >= buffer.length) {
+            return false;
+        }
+
+        byte current = buffer[position];
+        if (current == '"') {
+            return scanString() >= 0;
+        } else if ((current == '{') || (current == '[')) {
+            //Nested structures are left to the full parser
+            return false;
+        }
+
+        int start = position;
+        while ((position < buffer.length) && (isNumberChar(buffer[position]) || isLetter(buffer[position]))) {
+            position++;
+        }
+        return position > start;
+    }
+
+    /**
+     * Scans a JSON string starting at the current position, which must point to the opening quote. After this
+     * method, the current position points behind the closing quote.
+     *
+     * @return The index of the closing quote or -1 in case of an invalid string or an escape sequence
+     */
+    private int scanString() {
+        if (!consume('"')) {
+            return -1;
+        }
+        while (position < buffer.length) {
+            byte current = buffer[position];
+            if (current == '"') {
+                return position++;
+            } else if ((current == '\\') || ((current >= 0) && (current < 0x20))) {
+                return -1;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a string for the component type within a region of the buffer. Known component types are returned
+     * as constants without allocating new strings.
+     *
+     * @param start Start index of the type (inclusive)
+     * @param end   End index of the type (exclusive)
+     * @return The component type
+     */
+    private String toComponentType(int start, int end) {
+        for (int i = 0; i < KNOWN_COMPONENT_TYPE_BYTES.length; i++) {
+            if (regionEquals(start, end, KNOWN_COMPONENT_TYPE_BYTES[i])) {
+                return KNOWN_COMPONENT_TYPES[i];
+            }
+        }
+        return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether a region of the buffer equals a given byte sequence.
+     *
+     * @param start    Start index of the region (inclusive)
+     * @param end      End index of the region (exclusive)
+     * @param expected The expected byte sequence
+     * @return True, if the region equals the byte sequence; false otherwise
+     */
+    private boolean regionEquals(int start, int end, byte[] expected) {
+        if ((end - start) != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int trimStart(int start, int end) {
+        while ((start < end) && isWhitespace(buffer[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int start, int end) {
+        while ((end > start) && isWhitespace(buffer[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+
+    private boolean consume(char expected) {
+        if ((position < buffer.length) && (buffer[position] == expected)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while ((position < buffer.length) && isWhitespace(buffer[position])) {
+            position++;
+        }
+    }
+
+    private boolean isAtEnd() {
+        skipWhitespace();
+        return position == buffer.length;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return (b == ' ') || (b == '\t') || (b == '\n') || (b == '\r');
+    }
+
+    private static boolean isDigit(byte b) {
+        return (b >= '0') && (b <= '9');
+    }
+
+    private static boolean isLetter(byte b) {
+        return ((b >= 'a') && (b <= 'z')) || ((b >= 'A') && (b <= 'Z'));
+    }
+
+    private static boolean isNumberChar(byte b) {
+        return isDigit(b) || (b == '-') || (b == '+') || (b == '.') || (b == 'e') || (b == 'E');
+    }
+}
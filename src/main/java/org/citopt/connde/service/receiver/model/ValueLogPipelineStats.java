@@ -0,0 +1,93 @@
+package org.citopt.connde.service.receiver.model;
+
+/**
+ * Objects of this class hold the current statistics of the pipeline lane of a single observer of the
+ * ValueLogReceiver. They can be used as DTOs in order to retrieve the statistics to the client.
+ */
+public class ValueLogPipelineStats {
+    //Name of the observer to which the lane belongs
+    private String observer;
+
+    //Number of workers and queue fill level of the lane
+    private int workers;
+    private int queueDepth;
+    private int queueCapacity;
+
+    //Counters for processed and dropped value logs
+    private long processedCount;
+    private long droppedCount;
+
+    /**
+     * Creates a new stats object for a pipeline lane.
+     *
+     * @param observer       The name of the observer
+     * @param workers        The number of workers of the lane
+     * @param queueDepth     The total number of value logs currently queued in the lane
+     * @param queueCapacity  The total capacity of all queues of the lane
+     * @param processedCount The number of value logs processed by the lane so far
+     * @param droppedCount   The number of value logs dropped due to full queues so far
+     */
+    public ValueLogPipelineStats(String observer, int workers, int queueDepth, int queueCapacity,
+                                 long processedCount, long droppedCount) {
+        this.observer = observer;
+        this.workers = workers;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.processedCount = processedCount;
+        this.droppedCount = droppedCount;
+    }
+
+    /**
+     * Returns the name of the observer to which the lane belongs.
+     *
+     * @return The observer name
+     */
+    public String getObserver() {
+        return observer;
+    }
+
+    /**
+     * Returns the number of workers of the lane.
+     *
+     * @return The number of workers
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Returns the total number of value logs that are currently queued in the lane.
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns the total capacity of all queues of the lane.
+     *
+     * @return The queue capacity
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Returns the number of value logs that were processed by the lane so far.
+     *
+     * @return The number of processed value logs
+     */
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    /**
+     * Returns the number of value logs that were dropped by the lane due to full queues so far.
+     *
+     * @return The number of dropped value logs
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+}
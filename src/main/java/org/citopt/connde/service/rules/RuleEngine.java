@@ -6,19 +6,39 @@ import org.citopt.connde.domain.testing.Testing;
 import org.citopt.connde.repository.RuleRepository;
 import org.citopt.connde.repository.TestRepository;
 import org.citopt.connde.service.cep.engine.core.output.CEPOutput;
-import org.citopt.connde.service.cep.engine.core.queries.CEPQueryValidation;
 import org.citopt.connde.service.cep.trigger.CEPTriggerService;
+import org.citopt.connde.service.startup.StartupMonitor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The rule engine component manages all rules and provides means for enabling and disabling them. In addition,
  * it takes care about inducing the execution of a rule in case it was triggering.
+ * <p>
+ * As soon as the application context has been refreshed, the enabled rules are activated in the background by a
+ * configurable number of threads. The application is reported as ready by the startup monitor as soon as all rules
+ * have been activated.
+ * <p>
+ * Since rules may be enabled and disabled concurrently (e.g. via the REST interface during the activation on
+ * startup), all changes that concern a certain trigger, including the registration of the trigger and the
+ * enabled state of its rules, are performed under the lock of the registration entry of this trigger.
  */
 @Component
-public class RuleEngine {
+@PropertySource(value = "classpath:application.properties")
+public class RuleEngine implements ApplicationListener<ContextRefreshedEvent> {
+    //Name of the startup task for activating the enabled rules
+    private static final String WARM_UP_TASK = "rule-warm-up";
 
     private RuleRepository ruleRepository;
 
@@ -26,29 +46,64 @@ public class RuleEngine {
 
     private RuleExecutor ruleExecutor;
 
-    private Map<RuleTrigger, Set<Rule>> triggerMap;
+    private Map<RuleTrigger, TriggerRegistration> triggerMap;
 
     private TestRepository testRepo;
 
+    private StartupMonitor startupMonitor;
+
+    //Number of threads that activate the enabled rules on startup
+    private int warmUpParallelism;
+
+    //Whether the activation of the enabled rules was already started
+    private boolean warmUpStarted = false;
+
     /**
-     * Initializes the rule engine component and activates all already enabled rules.
+     * Initializes the rule engine component and registers the activation of the enabled rules as startup task.
      *
-     * @param ruleRepository The repository in which the rules are stored (autowired)
-     * @param triggerService The CEP trigger service to use (autowired)
-     * @param ruleExecutor   The rule executor to use (autowired)
+     * @param ruleRepository     The repository in which the rules are stored (autowired)
+     * @param triggerService     The CEP trigger service to use (autowired)
+     * @param ruleExecutor       The rule executor to use (autowired)
+     * @param testRepo           The repository for test results (autowired)
+     * @param startupMonitor     The startup monitor to report to (autowired)
+     * @param warmUpParallelism  The number of threads that activate the enabled rules on startup
      */
     @Autowired
-    private RuleEngine(RuleRepository ruleRepository, CEPTriggerService triggerService, RuleExecutor ruleExecutor, TestRepository testRepo) {
+    private RuleEngine(RuleRepository ruleRepository, CEPTriggerService triggerService, RuleExecutor ruleExecutor,
+                       TestRepository testRepo, StartupMonitor startupMonitor,
+                       @Value("${rules.warm-up.parallelism:4}") int warmUpParallelism) {
         this.ruleRepository = ruleRepository;
         this.triggerService = triggerService;
         this.ruleExecutor = ruleExecutor;
         this.testRepo = testRepo;
+        this.startupMonitor = startupMonitor;
+        this.warmUpParallelism = Math.max(warmUpParallelism, 1);
 
         //Initialize trigger map
-        triggerMap = new HashMap<>();
+        triggerMap = new ConcurrentHashMap<>();
+
+        //Register task before the context is refreshed, so that the application is not reported as ready early
+        startupMonitor.beginTask(WARM_UP_TASK);
+    }
+
+    /**
+     * Starts activating all already enabled rules in the background once the application context has been
+     * refreshed, i.e. when all beans are fully initialized.
+     *
+     * @param event The context refreshed event
+     */
+    @Override
+    public synchronized void onApplicationEvent(ContextRefreshedEvent event) {
+        //Only the first refresh starts the activation
+        if (warmUpStarted) {
+            return;
+        }
+        warmUpStarted = true;
 
-        //Load available rules
-        loadRulesOnStartup();
+        //Load available rules in the background
+        Thread warmUpThread = new Thread(() -> loadRulesOnStartup(warmUpParallelism), WARM_UP_TASK);
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
     }
 
     /**
@@ -67,39 +122,38 @@ public class RuleEngine {
         //Get rule trigger
         RuleTrigger trigger = rule.getTrigger();
 
-        //Check if trigger is still valid (all components exist)
-        CEPQueryValidation validationResult = triggerService.isValidTriggerQuery(trigger);
-
-        if (!validationResult.isValid()) {
-            //Trigger is not valid, mark it as disabled
-            rule.setEnabled(false);
-            ruleRepository.save(rule);
-
-            return false;
-        }
-
-        //Add the rule to the trigger map, if trigger is already registered
-        if (triggerMap.containsKey(trigger)) {
-            Set<Rule> rulesOfTrigger = triggerMap.get(trigger);
-            rulesOfTrigger.add(rule);
-        } else {
-            //Register trigger at the trigger service
-            triggerService.registerTrigger(trigger, (ruleTrigger, output) -> {
-                //Induce the executions of rules that use this trigger on callback
-                induceRuleExecution(ruleTrigger, output);
-            });
-
-            Set<Rule> rulesOfTrigger = new HashSet<>();
-            rulesOfTrigger.add(rule);
-            triggerMap.put(trigger, rulesOfTrigger);
+        while (true) {
+            //Get or create the registration entry of the trigger
+            TriggerRegistration registration = triggerMap.computeIfAbsent(trigger, t -> new TriggerRegistration());
+
+            synchronized (registration) {
+                //Entry was discarded concurrently, retry with a new one
+                if (registration.discarded) {
+                    continue;
+                }
+
+                //Register trigger at the trigger service if this is the first rule that uses it
+                if (!registration.registered) {
+                    try {
+                        triggerService.registerTrigger(trigger, (ruleTrigger, output) -> {
+                            //Induce the executions of rules that use this trigger on callback
+                            induceRuleExecution(ruleTrigger, output);
+                        });
+                        registration.registered = true;
+                    } catch (IllegalArgumentException e) {
+                        //Trigger is not valid (e.g. not all components exist), mark rule as disabled
+                        discard(trigger, registration);
+                        setEnabled(rule, false);
+                        return false;
+                    }
+                }
+
+                //Add the rule to the rules of the trigger and save it, if it was not enabled before
+                registration.rules.add(rule);
+                setEnabled(rule, true);
+                return true;
+            }
         }
-
-        //Enable rule and save it
-        rule.setEnabled(true);
-        ruleRepository.save(rule);
-
-        //Everything successful
-        return true;
     }
 
     /**
@@ -116,27 +170,31 @@ public class RuleEngine {
         //Get rule trigger
         RuleTrigger trigger = rule.getTrigger();
 
-        if (!triggerMap.containsKey(trigger)) {
+        //Get registration entry of the trigger
+        TriggerRegistration registration = triggerMap.get(trigger);
+        if (registration == null) {
             return;
         }
 
-        //Get set of rules for this trigger
-        Set<Rule> rules = triggerMap.get(trigger);
+        synchronized (registration) {
+            //Trigger was unregistered concurrently
+            if (registration.discarded) {
+                return;
+            }
 
-        //Remove rule from set
-        rules.remove(rule);
+            //Remove rule from the rules of the trigger
+            registration.rules.remove(rule);
 
-        //Check if rule set is now empty
-        if (rules.isEmpty()) {
-            //Unregister trigger from trigger service
-            triggerService.unregisterTrigger(trigger);
+            //Unregister trigger from trigger service if no other rule uses it
+            if (registration.rules.isEmpty()) {
+                if (registration.registered) {
+                    triggerService.unregisterTrigger(trigger);
+                }
+                discard(trigger, registration);
+            }
 
-            //Remove entry from trigger map
-            triggerMap.remove(trigger);
+            setEnabled(rule, false);
         }
-
-        rule.setEnabled(false);
-        ruleRepository.save(rule);
     }
 
     /**
@@ -153,11 +211,17 @@ public class RuleEngine {
         }
 
         //Get all rules from the map that use the given trigger
-        Set<Rule> ruleSet = triggerMap.get(ruleTrigger);
+        TriggerRegistration registration = triggerMap.get(ruleTrigger);
+
+        //Trigger may have been unregistered while the notification was queued
+        if (registration == null) {
+            return;
+        }
+
         Set<String> ruleNames = new HashSet<>();
 
         //Iterate over all rules and execute them
-        for (Rule rule : ruleSet) {
+        for (Rule rule : registration.rules) {
             ruleExecutor.executeRule(rule, output);
             ruleNames.add(rule.getName());
         }
@@ -172,18 +236,94 @@ public class RuleEngine {
     }
 
     /**
-     * Ensures that enabled rules will be active and working after the startup of the application.
+     * Sets the enabled state of a rule and saves the rule, but only if the state actually changes.
+     *
+     * @param rule    The rule
+     * @param enabled The enabled state to set
+     */
+    private void setEnabled(Rule rule, boolean enabled) {
+        if (rule.isEnabled() != enabled) {
+            rule.setEnabled(enabled);
+            ruleRepository.save(rule);
+        }
+    }
+
+    /**
+     * Marks the registration entry of a trigger as discarded and removes it from the trigger map. Must be called
+     * while holding the lock of the entry.
+     *
+     * @param trigger      The trigger
+     * @param registration The registration entry of the trigger
+     */
+    private void discard(RuleTrigger trigger, TriggerRegistration registration) {
+        registration.discarded = true;
+        triggerMap.remove(trigger, registration);
+    }
+
+    /**
+     * Ensures that enabled rules will be active and working after the startup of the application. The rules are
+     * activated in parallel and are only saved if their trigger turns out to be invalid.
+     *
+     * @param parallelism The number of threads to use
      */
-    private void loadRulesOnStartup() {
-        //Get all rules
-        List<Rule> rules = ruleRepository.findAll();
-
-        //Iterate over all rules
-        for (Rule rule : rules) {
-            //Enable rule if it is enabled
-            if (rule.isEnabled()) {
-                enableRule(rule);
+    private void loadRulesOnStartup(int parallelism) {
+        try {
+            //Get all rules
+            long start = System.currentTimeMillis();
+            List<Rule> rules = ruleRepository.findAll();
+            startupMonitor.recordPhase("rule-loading", System.currentTimeMillis() - start);
+
+            //Activate all enabled rules in parallel
+            start = System.currentTimeMillis();
+            AtomicLong enabledCount = new AtomicLong();
+            AtomicLong failedCount = new AtomicLong();
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            for (Rule rule : rules) {
+                if (rule.isEnabled()) {
+                    executor.execute(() -> {
+                        try {
+                            if (enableRule(rule)) {
+                                enabledCount.incrementAndGet();
+                            } else {
+                                failedCount.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failedCount.incrementAndGet();
+                            System.err.println("Failed to enable rule " + rule.getId() + ": " + e.getMessage());
+                        }
+                    });
+                }
             }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            startupMonitor.recordPhase("rule-enabling", System.currentTimeMillis() - start);
+
+            //Report counters
+            startupMonitor.recordCounter("rules", rules.size());
+            startupMonitor.recordCounter("rules-enabled", enabledCount.get());
+            startupMonitor.recordCounter("rules-failed", failedCount.get());
+            startupMonitor.recordCounter("cep-event-types", triggerService.getRegisteredEventTypeCount());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Failed to load rules on startup: " + e.getMessage());
+        } finally {
+            startupMonitor.completeTask(WARM_UP_TASK);
         }
     }
+
+    /**
+     * Registration entry of a trigger, holding the rules that use the trigger. All fields except for the set of
+     * rules are guarded by the lock of the entry.
+     */
+    private static class TriggerRegistration {
+        //Rules that use the trigger
+        private final Set<Rule> rules = ConcurrentHashMap.newKeySet();
+
+        //Whether the trigger is registered at the trigger service
+        private boolean registered = false;
+
+        //Whether the entry was removed from the trigger map and must no longer be used
+        private boolean discarded = false;
+    }
 }
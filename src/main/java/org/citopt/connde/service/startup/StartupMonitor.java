@@ -0,0 +1,119 @@
+package org.citopt.connde.service.startup;
+
+import org.citopt.connde.service.startup.model.StartupStatus;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the startup of the application. Components may register startup tasks that run in the background
+ * after the application context has been created, such as the warm-up of the rules, and may record the durations
+ * of startup phases and counters. The application is considered ready as soon as the application context has been
+ * refreshed and all registered startup tasks are completed.
+ */
+@Service
+public class StartupMonitor implements ApplicationListener<ContextRefreshedEvent> {
+    //Start time of the JVM in epoch milliseconds
+    private final long startTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    //Startup tasks that are not completed yet
+    private final Set<String> pendingTasks = ConcurrentHashMap.newKeySet();
+
+    //Durations of the startup phases and startup counters in the order they were recorded
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    //Points in time at which the context was refreshed and the application became ready (0 if not yet)
+    private volatile long contextRefreshedAt = 0;
+    private volatile long readyAt = 0;
+
+    /**
+     * Called when the application context has been refreshed.
+     *
+     * @param event The refresh event
+     */
+    @Override
+    public synchronized void onApplicationEvent(ContextRefreshedEvent event) {
+        //Only the first refresh marks the end of the startup of the context
+        if (contextRefreshedAt > 0) {
+            return;
+        }
+        contextRefreshedAt = System.currentTimeMillis();
+        recordPhase("application-context", contextRefreshedAt - startTime);
+        updateReadiness();
+    }
+
+    /**
+     * Registers a startup task that needs to be completed before the application is ready.
+     *
+     * @param name The name of the task
+     */
+    public synchronized void beginTask(String name) {
+        pendingTasks.add(name);
+    }
+
+    /**
+     * Marks a previously registered startup task as completed.
+     *
+     * @param name The name of the task
+     */
+    public synchronized void completeTask(String name) {
+        pendingTasks.remove(name);
+        updateReadiness();
+    }
+
+    /**
+     * Records the duration of a startup phase.
+     *
+     * @param name   The name of the phase
+     * @param millis The duration in milliseconds
+     */
+    public synchronized void recordPhase(String name, long millis) {
+        phaseMillis.put(name, millis);
+    }
+
+    /**
+     * Records the value of a startup counter, e.g. the number of rules that were enabled.
+     *
+     * @param name  The name of the counter
+     * @param value The value of the counter
+     */
+    public synchronized void recordCounter(String name, long value) {
+        counters.put(name, value);
+    }
+
+    /**
+     * Returns whether the application is ready.
+     *
+     * @return True, if the application is ready; false otherwise
+     */
+    public boolean isReady() {
+        return readyAt > 0;
+    }
+
+    /**
+     * Returns the current startup status, including the timing breakdown of the startup phases.
+     *
+     * @return The startup status
+     */
+    public synchronized StartupStatus getStatus() {
+        Long readyAfterMillis = isReady() ? (readyAt - startTime) : null;
+        return new StartupStatus(isReady(), readyAfterMillis, System.currentTimeMillis() - startTime,
+                pendingTasks, new LinkedHashMap<>(phaseMillis), new LinkedHashMap<>(counters));
+    }
+
+    /**
+     * Marks the application as ready if the context has been refreshed and no startup tasks are pending.
+     */
+    private void updateReadiness() {
+        if ((readyAt == 0) && (contextRefreshedAt > 0) && pendingTasks.isEmpty()) {
+            readyAt = System.currentTimeMillis();
+        }
+    }
+}
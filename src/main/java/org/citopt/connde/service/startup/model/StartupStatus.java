@@ -0,0 +1,102 @@
+package org.citopt.connde.service.startup.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Objects of this class hold the startup status of the application, consisting out of its readiness and a
+ * breakdown of the durations of the startup phases. They can be used as DTOs in order to retrieve the status
+ * to the client.
+ */
+public class StartupStatus {
+    //Whether the application is ready
+    private boolean ready;
+
+    //Time from the start of the JVM until the application became ready and until now
+    private Long readyAfterMillis;
+    private long uptimeMillis;
+
+    //Startup tasks that are not completed yet
+    private List<String> pendingTasks;
+
+    //Durations of the startup phases and startup counters
+    private Map<String, Long> phaseMillis;
+    private Map<String, Long> counters;
+
+    /**
+     * Creates a new startup status object.
+     *
+     * @param ready            True, if the application is ready; false otherwise
+     * @param readyAfterMillis The time from the start of the JVM until the application became ready in
+     *                         milliseconds or null, if not ready yet
+     * @param uptimeMillis     The time since the start of the JVM in milliseconds
+     * @param pendingTasks     The names of the startup tasks that are not completed yet
+     * @param phaseMillis      The durations of the startup phases in milliseconds
+     * @param counters         The startup counters
+     */
+    public StartupStatus(boolean ready, Long readyAfterMillis, long uptimeMillis, Set<String> pendingTasks,
+                         Map<String, Long> phaseMillis, Map<String, Long> counters) {
+        this.ready = ready;
+        this.readyAfterMillis = readyAfterMillis;
+        this.uptimeMillis = uptimeMillis;
+        this.pendingTasks = new ArrayList<>(pendingTasks);
+        this.phaseMillis = phaseMillis;
+        this.counters = counters;
+    }
+
+    /**
+     * Returns whether the application is ready.
+     *
+     * @return True, if ready; false otherwise
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the time from the start of the JVM until the application became ready.
+     *
+     * @return The time in milliseconds or null, if the application is not ready yet
+     */
+    public Long getReadyAfterMillis() {
+        return readyAfterMillis;
+    }
+
+    /**
+     * Returns the time since the start of the JVM.
+     *
+     * @return The uptime in milliseconds
+     */
+    public long getUptimeMillis() {
+        return uptimeMillis;
+    }
+
+    /**
+     * Returns the names of the startup tasks that are not completed yet.
+     *
+     * @return The list of pending tasks
+     */
+    public List<String> getPendingTasks() {
+        return pendingTasks;
+    }
+
+    /**
+     * Returns the durations of the startup phases in the order they were recorded.
+     *
+     * @return The map (phase name --> duration in milliseconds)
+     */
+    public Map<String, Long> getPhaseMillis() {
+        return phaseMillis;
+    }
+
+    /**
+     * Returns the startup counters, e.g. the numbers of enabled and failed rules.
+     *
+     * @return The map (counter name --> value)
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+}
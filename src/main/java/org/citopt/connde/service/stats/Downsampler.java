@@ -0,0 +1,115 @@
+package org.citopt.connde.service.stats;
+
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
+
+import java.util.Arrays;
+
+/**
+ * Base class for streaming downsamplers that reduce a chronologically ordered time series of values to a bounded
+ * number of representative points. Points are passed one after another or series by series and the selected points
+ * are collected in a series, so that the raw time series never needs to be materialized completely.
+ */
+abstract class Downsampler {
+    //Selected points
+    private final ValueLogSeries selected = new ValueLogSeries(null, 16);
+
+    /**
+     * Passes the next point of the time series to the downsampler.
+     *
+     * @param time  The time of the point in epoch milliseconds
+     * @param value The value of the point
+     */
+    abstract void add(long time, double value);
+
+    /**
+     * Passes all points of a chronologically ordered series to the downsampler.
+     *
+     * @param series The series to pass
+     */
+    void addAll(ValueLogSeries series) {
+        long[] times = series.getTimes();
+        double[] values = series.getValues();
+        for (int i = 0; i < series.size(); i++) {
+            add(times[i], values[i]);
+        }
+    }
+
+    /**
+     * Notifies the downsampler that all points were passed, so that the remaining points can be selected.
+     */
+    abstract void finish();
+
+    /**
+     * Returns the selected points.
+     *
+     * @return The series of selected points
+     */
+    ValueLogSeries getSelected() {
+        return selected;
+    }
+
+    /**
+     * Adds a point to the selected points.
+     *
+     * @param time  The time of the point in epoch milliseconds
+     * @param value The value of the point
+     */
+    protected void select(long time, double value) {
+        selected.add(time, value);
+    }
+
+    /**
+     * Growable buffer of points that are held while they are waiting to be selected.
+     */
+    protected static class PointBuffer {
+        private long[] times = new long[16];
+        private double[] values = new double[16];
+        private int size = 0;
+
+        void add(long time, double value) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            times[size] = time;
+            values[size] = value;
+            size++;
+        }
+
+        void removeLast() {
+            size--;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long getTime(int index) {
+            return times[index];
+        }
+
+        double getValue(int index) {
+            return values[index];
+        }
+
+        double averageTime() {
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += times[i] - times[0];
+            }
+            return times[0] + (sum / size);
+        }
+
+        double averageValue() {
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += values[i];
+            }
+            return sum / size;
+        }
+    }
+}
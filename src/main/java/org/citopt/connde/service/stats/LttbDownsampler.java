@@ -0,0 +1,127 @@
+package org.citopt.connde.service.stats;
+
+/**
+ * Streaming implementation of the Largest-Triangle-Three-Buckets algorithm (Steinarsson, "Downsampling Time Series
+ * for Visual Representation"). The first and the last point are always selected; all points in between are divided
+ * into buckets of equal count, from each of which the point that forms the largest triangle with the previously
+ * selected point and the average of the next bucket is selected. Only the points of two buckets are held in memory
+ * at the same time.
+ */
+final class LttbDownsampler extends Downsampler {
+    //Number of points to select
+    private final int threshold;
+
+    //Number of points per bucket
+    private final double pointsPerBucket;
+
+    //Whether all points are passed through since the time series is small enough
+    private final boolean passThrough;
+
+    //Number of points passed so far
+    private long count = 0;
+
+    //Bucket from which the next point is selected and bucket that is currently filled
+    private PointBuffer selectBucket = null;
+    private PointBuffer fillBucket = new PointBuffer();
+    private long fillBucketIndex = 0;
+
+    //Most recently selected point and most recently passed point
+    private long previousTime;
+    private double previousValue;
+    private long lastTime;
+    private double lastValue;
+
+    /**
+     * Creates a new downsampler.
+     *
+     * @param expectedCount The expected number of points of the time series
+     * @param threshold     The number of points to select (at least three)
+     */
+    LttbDownsampler(long expectedCount, int threshold) {
+        this.threshold = threshold;
+        this.passThrough = expectedCount <= threshold;
+        this.pointsPerBucket = passThrough ? 1 : ((double) expectedCount - 2) / (threshold - 2);
+    }
+
+    @Override
+    void add(long time, double value) {
+        long index = count++;
+        lastTime = time;
+        lastValue = value;
+
+        //Select first point and all points of small time series directly
+        if (passThrough || (index == 0)) {
+            select(time, value);
+            previousTime = time;
+            previousValue = value;
+            return;
+        }
+
+        //Determine bucket of the point; surplus points are added to the last bucket
+        long bucketIndex = Math.min((long) ((index - 1) / pointsPerBucket), threshold - 3);
+
+        //Complete the bucket that is currently filled if the point belongs to the next bucket
+        if ((bucketIndex > fillBucketIndex) && (fillBucket.size() > 0)) {
+            if (selectBucket != null) {
+                selectFromBucket(selectBucket, fillBucket.averageTime(), fillBucket.averageValue());
+                selectBucket.clear();
+            } else {
+                selectBucket = new PointBuffer();
+            }
+
+            //Swap buffers
+            PointBuffer completedBucket = fillBucket;
+            fillBucket = selectBucket;
+            selectBucket = completedBucket;
+        }
+        fillBucketIndex = bucketIndex;
+        fillBucket.add(time, value);
+    }
+
+    @Override
+    void finish() {
+        //Nothing to do for small time series
+        if (passThrough || (count < 2)) {
+            return;
+        }
+
+        //The last point is always selected and therefore removed from its bucket
+        fillBucket.removeLast();
+
+        //Select from the remaining buckets
+        if ((selectBucket != null) && (fillBucket.size() > 0)) {
+            selectFromBucket(selectBucket, fillBucket.averageTime(), fillBucket.averageValue());
+            selectFromBucket(fillBucket, lastTime, lastValue);
+        } else if (selectBucket != null) {
+            selectFromBucket(selectBucket, lastTime, lastValue);
+        } else if (fillBucket.size() > 0) {
+            selectFromBucket(fillBucket, lastTime, lastValue);
+        }
+        select(lastTime, lastValue);
+    }
+
+    /**
+     * Selects the point of a bucket that forms the largest triangle with the previously selected point and
+     * a given point representing the next bucket.
+     *
+     * @param bucket    The bucket to select from
+     * @param nextTime  The time of the point representing the next bucket
+     * @param nextValue The value of the point representing the next bucket
+     */
+    private void selectFromBucket(PointBuffer bucket, double nextTime, double nextValue) {
+        int selectedIndex = 0;
+        double maxArea = -1;
+        for (int i = 0; i < bucket.size(); i++) {
+            double area = Math.abs((previousTime - nextTime) * (bucket.getValue(i) - previousValue)
+                    - (previousTime - bucket.getTime(i)) * (nextValue - previousValue));
+            if (area > maxArea) {
+                maxArea = area;
+                selectedIndex = i;
+            }
+        }
+
+        previousTime = bucket.getTime(selectedIndex);
+        previousValue = bucket.getValue(selectedIndex);
+        select(previousTime, previousValue);
+    }
+}
@@ -0,0 +1,82 @@
+package org.citopt.connde.service.stats;
+
+/**
+ * Streaming downsampler that divides a time range into buckets of equal duration and selects the points with the
+ * smallest and the biggest value of each bucket, in chronological order. This preserves the visual envelope of the
+ * time series, including all spikes. Only the candidates of the current bucket are held in memory.
+ */
+final class MinMaxDownsampler extends Downsampler {
+    //Start of the time range and duration of the buckets in milliseconds
+    private final long startTime;
+    private final double bucketDuration;
+
+    //Index of the current bucket
+    private long bucketIndex = -1;
+
+    //Candidates of the current bucket
+    private boolean hasCandidates = false;
+    private long minTime;
+    private double minValue;
+    private long maxTime;
+    private double maxValue;
+
+    /**
+     * Creates a new downsampler.
+     *
+     * @param startTime The start of the time range in epoch milliseconds
+     * @param endTime   The end of the time range in epoch milliseconds
+     * @param points    The maximum number of points to select (at least two)
+     */
+    MinMaxDownsampler(long startTime, long endTime, int points) {
+        this.startTime = startTime;
+        this.bucketDuration = Math.max(1, (double) (endTime - startTime) / Math.max(1, points / 2));
+    }
+
+    @Override
+    void add(long time, double value) {
+        //Complete current bucket if the point belongs to another bucket
+        long index = (long) ((time - startTime) / bucketDuration);
+        if (index != bucketIndex) {
+            selectCandidates();
+            bucketIndex = index;
+        }
+
+        //Update candidates
+        if (!hasCandidates) {
+            minTime = maxTime = time;
+            minValue = maxValue = value;
+            hasCandidates = true;
+        } else if (value < minValue) {
+            minTime = time;
+            minValue = value;
+        } else if (value > maxValue) {
+            maxTime = time;
+            maxValue = value;
+        }
+    }
+
+    @Override
+    void finish() {
+        selectCandidates();
+    }
+
+    /**
+     * Selects the candidates of the current bucket in chronological order.
+     */
+    private void selectCandidates() {
+        if (!hasCandidates) {
+            return;
+        }
+
+        if (minTime == maxTime) {
+            select(minTime, minValue);
+        } else if (minTime < maxTime) {
+            select(minTime, minValue);
+            select(maxTime, maxValue);
+        } else {
+            select(maxTime, maxValue);
+            select(minTime, minValue);
+        }
+        hasCandidates = false;
+    }
+}
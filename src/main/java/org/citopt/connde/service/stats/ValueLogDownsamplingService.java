@@ -0,0 +1,311 @@
+package org.citopt.connde.service.stats;
+
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogRollupInterval;
+import org.citopt.connde.domain.valueLog.ValueLogSeries;
+import org.citopt.connde.repository.ValueLogRepository;
+import org.citopt.connde.repository.ValueLogRollupRepository;
+import org.citopt.connde.service.UnitConverterService;
+import org.citopt.connde.service.cache.ValueLogQueryCache;
+import org.citopt.connde.service.stats.model.DownsamplingMethod;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import javax.measure.converter.UnitConverter;
+import javax.measure.unit.Unit;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Service that provides means for reducing the value logs of a certain component within a time range to a bounded
+ * number of points, as needed for rendering charts. Value logs can either be aggregated per time interval, which
+ * is based on the pre-aggregated rollups wherever possible, or visually downsampled to a target number of points.
+ */
+@Service
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogDownsamplingService {
+
+    //Rollup intervals from the coarsest to the finest one
+    private static final List<ValueLogRollupInterval> INTERVALS_DESCENDING = Arrays.asList(
+            ValueLogRollupInterval.DAY, ValueLogRollupInterval.HOUR, ValueLogRollupInterval.MINUTE);
+
+    @Autowired
+    private UnitConverterService unitConverterService;
+
+    @Autowired
+    private ValueLogRepository valueLogRepository;
+
+    @Autowired
+    private ValueLogRollupRepository valueLogRollupRepository;
+
+    @Autowired
+    private ValueLogQueryCache valueLogQueryCache;
+
+    //Maximum number of points per response
+    private final int maxPoints;
+
+    /**
+     * Creates the service.
+     *
+     * @param maxPoints The maximum number of points that may be returned for a single request
+     */
+    public ValueLogDownsamplingService(@Value("${value-logs.downsampling.max-points:10000}") int maxPoints) {
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Aggregates the value logs of a certain component within a time range per time interval. The intervals are
+     * aligned to the epoch and only non-empty intervals are returned. Rollups are used for all parts of the time
+     * range that are covered by a rollup interval which evenly divides the requested interval; the remaining parts
+     * are aggregated from the raw value logs.
+     *
+     * @param component       The component whose value logs are supposed to be aggregated
+     * @param from            The inclusive start of the time range or null for the oldest value log
+     * @param to              The exclusive end of the time range or null for the current time
+     * @param intervalSeconds The length of the intervals in seconds
+     * @param unit            The unit to which the values are supposed to be converted (null for default)
+     * @return The list of aggregates, one per non-empty interval
+     * @throws IllegalArgumentException In case the parameters are invalid or too many intervals were requested
+     */
+    public List<ValueLogRollup> aggregateByInterval(Component component, Instant from, Instant to, long intervalSeconds, Unit unit) {
+        return valueLogQueryCache.get("aggregate", component.getId(), from, to, (unit == null) ? null : unit.toString(),
+                intervalSeconds, () -> computeAggregatesByInterval(component, from, to, intervalSeconds, unit));
+    }
+
+    /**
+     * Aggregates the value logs of a certain component within a time range per time interval without using the
+     * query cache.
+     *
+     * @param component       The component whose value logs are supposed to be aggregated
+     * @param from            The inclusive start of the time range or null for the oldest value log
+     * @param to              The exclusive end of the time range or null for the current time
+     * @param intervalSeconds The length of the intervals in seconds
+     * @param unit            The unit to which the values are supposed to be converted (null for default)
+     * @return The list of aggregates, one per non-empty interval
+     * @throws IllegalArgumentException In case the parameters are invalid or too many intervals were requested
+     */
+    private List<ValueLogRollup> computeAggregatesByInterval(Component component, Instant from, Instant to, long intervalSeconds, Unit unit) {
+        //Sanity check
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("Interval must be positive.");
+        }
+
+        //Determine converter, which needs to be affine for aggregates
+        UnitConverter converter = getConverter(component, unit);
+        if ((converter != null) && !unitConverterService.isAffine(converter)) {
+            throw new IllegalArgumentException("Aggregates cannot be converted to the requested unit.");
+        }
+
+        //Resolve time range
+        String idref = component.getId();
+        Instant[] timeRange = resolveTimeRange(idref, from, to);
+        if (timeRange == null) {
+            return new ArrayList<>();
+        }
+        long fromSeconds = timeRange[0].getEpochSecond();
+        long alignedFrom = Math.floorDiv(fromSeconds, intervalSeconds) * intervalSeconds;
+
+        //Bound the number of intervals
+        long intervalCount = -Math.floorDiv(-(timeRange[1].getEpochSecond() + 1 - alignedFrom), intervalSeconds);
+        if (intervalCount > maxPoints) {
+            throw new IllegalArgumentException("Too many intervals requested.");
+        }
+        ValueLogRollup[] aggregates = new ValueLogRollup[(int) intervalCount];
+
+        //Find the coarsest rollup interval that evenly divides the requested interval
+        ValueLogRollupInterval rollupInterval = null;
+        Instant watermark = null;
+        for (ValueLogRollupInterval candidate : INTERVALS_DESCENDING) {
+            watermark = valueLogRollupRepository.getWatermark(candidate);
+            if (((intervalSeconds % candidate.getSeconds()) == 0) && (watermark != null)) {
+                rollupInterval = candidate;
+                break;
+            }
+        }
+
+        //Determine the part of the time range that is covered by rollups
+        Instant coveredFrom = timeRange[1];
+        Instant coveredTo = timeRange[1];
+        if (rollupInterval != null) {
+            long ceilFrom = rollupInterval.ceil(fromSeconds + ((timeRange[0].getNano() > 0) ? 1 : 0));
+            long floorTo = Math.min(rollupInterval.floor(timeRange[1].getEpochSecond()), watermark.getEpochSecond());
+            if (ceilFrom < floorTo) {
+                coveredFrom = Instant.ofEpochSecond(ceilFrom);
+                coveredTo = Instant.ofEpochSecond(floorTo);
+                for (ValueLogRollup rollup : valueLogRollupRepository.findByIdRef(idref, rollupInterval, coveredFrom, coveredTo)) {
+                    int index = (int) ((rollup.getStart().getEpochSecond() - alignedFrom) / intervalSeconds);
+                    getAggregate(aggregates, index, idref, alignedFrom, intervalSeconds).merge(rollup);
+                }
+            }
+        }
+
+        //Aggregate the remaining parts from the raw value logs
+        for (Instant[] rawRange : new Instant[][]{{timeRange[0], coveredFrom}, {coveredTo, timeRange[1]}}) {
+            if (!rawRange[0].isBefore(rawRange[1])) {
+                continue;
+            }
+            valueLogRepository.forEachSeriesByIdRef(idref, rawRange[0], rawRange[1], series -> {
+                long[] times = series.getTimes();
+                double[] values = series.getValues();
+                for (int i = 0; i < series.size(); i++) {
+                    int index = (int) ((Math.floorDiv(times[i], 1000) - alignedFrom) / intervalSeconds);
+                    getAggregate(aggregates, index, idref, alignedFrom, intervalSeconds).add(values[i]);
+                }
+            });
+        }
+
+        //Collect non-empty intervals and convert them if necessary
+        List<ValueLogRollup> resultList = new ArrayList<>();
+        for (ValueLogRollup aggregate : aggregates) {
+            if (aggregate == null) {
+                continue;
+            }
+            if (converter != null) {
+                unitConverterService.convertRollup(aggregate, converter);
+            }
+            resultList.add(aggregate);
+        }
+        return resultList;
+    }
+
+    /**
+     * Visually downsamples the value logs of a certain component within a time range to a given number of points.
+     * The value logs are streamed from the repository, so that the raw time series is never materialized completely.
+     *
+     * @param component The component whose value logs are supposed to be downsampled
+     * @param from      The inclusive start of the time range or null for the oldest value log
+     * @param to        The exclusive end of the time range or null for the current time
+     * @param points    The maximum number of points to return
+     * @param method    The downsampling method to use
+     * @param unit      The unit to which the values are supposed to be converted (null for default)
+     * @return The list of selected value logs in chronological order
+     * @throws IllegalArgumentException In case the parameters are invalid or too many points were requested
+     */
+    public List<ValueLog> downsample(Component component, Instant from, Instant to, int points, DownsamplingMethod method, Unit unit) {
+        return valueLogQueryCache.get("downsample", component.getId(), from, to, (unit == null) ? null : unit.toString(),
+                Arrays.asList(points, method), () -> computeDownsampled(component, from, to, points, method, unit));
+    }
+
+    /**
+     * Visually downsamples the value logs of a certain component within a time range without using the query cache.
+     *
+     * @param component The component whose value logs are supposed to be downsampled
+     * @param from      The inclusive start of the time range or null for the oldest value log
+     * @param to        The exclusive end of the time range or null for the current time
+     * @param points    The maximum number of points to return
+     * @param method    The downsampling method to use
+     * @param unit      The unit to which the values are supposed to be converted (null for default)
+     * @return The list of selected value logs in chronological order
+     * @throws IllegalArgumentException In case the parameters are invalid or too many points were requested
+     */
+    private List<ValueLog> computeDownsampled(Component component, Instant from, Instant to, int points, DownsamplingMethod method, Unit unit) {
+        //Sanity checks
+        if ((points < 3) || (points > maxPoints)) {
+            throw new IllegalArgumentException("Number of points must be between 3 and " + maxPoints + ".");
+        } else if (method == null) {
+            throw new IllegalArgumentException("Downsampling method must not be null.");
+        }
+
+        //Determine converter
+        UnitConverter converter = getConverter(component, unit);
+
+        //Resolve time range
+        String idref = component.getId();
+        Instant[] timeRange = resolveTimeRange(idref, from, to);
+        if (timeRange == null) {
+            return new ArrayList<>();
+        }
+
+        //Create downsampler
+        Downsampler downsampler;
+        if (method == DownsamplingMethod.LTTB) {
+            downsampler = new LttbDownsampler(valueLogRepository.countByIdRef(idref, timeRange[0], timeRange[1]), points);
+        } else {
+            downsampler = new MinMaxDownsampler(timeRange[0].toEpochMilli(), timeRange[1].toEpochMilli(), points);
+        }
+
+        //Stream the series of the value logs through the downsampler
+        valueLogRepository.forEachSeriesByIdRef(idref, timeRange[0], timeRange[1], downsampler::addAll);
+        downsampler.finish();
+
+        //Convert the selected points in bulk and create value logs for them
+        ValueLogSeries selected = new ValueLogSeries(idref, downsampler.getSelected().size());
+        selected.addAll(downsampler.getSelected());
+        if (converter != null) {
+            unitConverterService.convertSeries(selected, converter);
+        }
+        return selected.toValueLogs(component.getComponentTypeName());
+    }
+
+    /**
+     * Resolves a time range with optional bounds to a bounded time range.
+     *
+     * @param idref The idref of the component
+     * @param from  The inclusive start of the time range or null for the oldest value log
+     * @param to    The exclusive end of the time range or null for the current time
+     * @return Array of start and end of the time range or null, if the time range is empty
+     * @throws IllegalArgumentException In case the start lies after the end
+     */
+    private Instant[] resolveTimeRange(String idref, Instant from, Instant to) {
+        if ((from != null) && (to != null) && from.isAfter(to)) {
+            throw new IllegalArgumentException("Start of the time range must not lie after its end.");
+        }
+
+        //Use oldest value log as start
+        if (from == null) {
+            ValueLog oldestLog = valueLogRepository.findOldestByIdRef(idref);
+            if ((oldestLog == null) || (oldestLog.getTime() == null)) {
+                return null;
+            }
+            from = oldestLog.getTime();
+        }
+
+        //Use current time as end
+        if (to == null) {
+            to = Instant.now();
+        }
+
+        return from.isBefore(to) ? new Instant[]{from, to} : null;
+    }
+
+    /**
+     * Returns the converter from the unit of a component's adapter to a given unit.
+     *
+     * @param component The component
+     * @param unit      The target unit or null, if no conversion is desired
+     * @return The converter or null, if no conversion is desired
+     * @throws IllegalArgumentException In case the units are not compatible
+     */
+    private UnitConverter getConverter(Component component, Unit unit) {
+        if (unit == null) {
+            return null;
+        }
+
+        return unitConverterService.getConverter(unitConverterService.parseUnit(component.getAdapter().getUnit()), unit);
+    }
+
+    /**
+     * Returns the aggregate at a given index, creating it if necessary.
+     *
+     * @param aggregates      The array of aggregates
+     * @param index           The index of the aggregate
+     * @param idref           The idref of the component
+     * @param alignedFrom     The start of the first interval as epoch seconds
+     * @param intervalSeconds The length of the intervals in seconds
+     * @return The aggregate
+     */
+    private ValueLogRollup getAggregate(ValueLogRollup[] aggregates, int index, String idref, long alignedFrom, long intervalSeconds) {
+        //Clamp index to the available intervals
+        index = Math.max(0, Math.min(index, aggregates.length - 1));
+        if (aggregates[index] == null) {
+            aggregates[index] = new ValueLogRollup(idref, Instant.ofEpochSecond(alignedFrom + index * intervalSeconds));
+        }
+        return aggregates[index];
+    }
+}
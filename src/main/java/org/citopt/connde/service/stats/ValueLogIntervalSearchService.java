@@ -0,0 +1,107 @@
+package org.citopt.connde.service.stats;
+
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.valueLog.ValueLogInterval;
+import org.citopt.connde.domain.valueLog.ValueLogIntervalSearchResult;
+import org.citopt.connde.domain.valueLog.ValueLogPredicate;
+import org.citopt.connde.repository.ValueLogRepository;
+import org.citopt.connde.service.UnitConverterService;
+import org.citopt.connde.service.cache.ValueLogQueryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import javax.measure.converter.UnitConverter;
+import javax.measure.unit.Unit;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Service for searching the value logs of components for time intervals in which their values satisfied a certain
+ * predicate, e.g. "when did the sensor exceed 80 °C last month?". The search is performed by the value log
+ * repository, which skips all buckets whose stored value ranges cannot satisfy the predicate.
+ */
+@Service
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogIntervalSearchService {
+
+    @Autowired
+    private UnitConverterService unitConverterService;
+
+    @Autowired
+    private ValueLogRepository valueLogRepository;
+
+    @Autowired
+    private ValueLogQueryCache valueLogQueryCache;
+
+    //Maximum number of intervals per response
+    private final int maxIntervals;
+
+    /**
+     * Creates the service.
+     *
+     * @param maxIntervals The maximum number of intervals that may be returned for a single request
+     */
+    public ValueLogIntervalSearchService(@Value("${value-logs.interval-search.max-intervals:1000}") int maxIntervals) {
+        this.maxIntervals = maxIntervals;
+    }
+
+    /**
+     * Finds the time intervals within a time range in which consecutive values of a certain component satisfied a
+     * given predicate. If a unit is provided, the bounds of the predicate are interpreted in this unit and the
+     * values of the resulting intervals are converted to it.
+     *
+     * @param component The component whose value logs are supposed to be searched
+     * @param from      The inclusive start of the time range or null, if unbounded
+     * @param to        The exclusive end of the time range or null, if unbounded
+     * @param predicate The predicate the values need to satisfy
+     * @param limit     The maximum number of intervals to return
+     * @param unit      The unit of the bounds and the resulting values (null for default)
+     * @return The search result holding the intervals in chronological order
+     * @throws IllegalArgumentException In case the parameters are invalid or too many intervals were requested
+     */
+    public ValueLogIntervalSearchResult findIntervals(Component component, Instant from, Instant to, ValueLogPredicate predicate, int limit, Unit unit) {
+        //Sanity checks
+        if ((limit <= 0) || (limit > maxIntervals)) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxIntervals + ".");
+        } else if (predicate == null) {
+            throw new IllegalArgumentException("Predicate must not be null.");
+        } else if ((from != null) && (to != null) && from.isAfter(to)) {
+            throw new IllegalArgumentException("Start of the time range must not be after its end.");
+        }
+
+        //Express the predicate in the unit of the stored values
+        UnitConverter converter = (unit == null) ? null : unitConverterService.getConverter(
+                unitConverterService.parseUnit(component.getAdapter().getUnit()), unit);
+        boolean decreasing = (converter != null) && (converter.convert(1) < converter.convert(0));
+        ValueLogPredicate storedPredicate = (converter == null) ? predicate
+                : predicate.transform(converter.inverse()::convert, decreasing);
+
+        return valueLogQueryCache.get("intervals", component.getId(), from, to, (unit == null) ? null : unit.toString(),
+                Arrays.asList(predicate.getOperator(), predicate.getLowerBound(), predicate.getUpperBound(), limit), () -> {
+                    ValueLogIntervalSearchResult result = valueLogRepository.findIntervalsByIdRef(component.getId(),
+                            from, to, storedPredicate, limit);
+                    if (converter != null) {
+                        for (ValueLogInterval interval : result.getIntervals()) {
+                            convertInterval(interval, converter, decreasing);
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Converts the values of a given interval by using a monotonic unit converter.
+     *
+     * @param interval   The interval to convert
+     * @param converter  The converter to use
+     * @param decreasing True, if the converter is decreasing; false otherwise
+     */
+    private void convertInterval(ValueLogInterval interval, UnitConverter converter, boolean decreasing) {
+        double min = converter.convert(interval.getMin());
+        double max = converter.convert(interval.getMax());
+        interval.setMin(decreasing ? max : min);
+        interval.setMax(decreasing ? min : max);
+    }
+}
@@ -0,0 +1,87 @@
+package org.citopt.connde.service.stats;
+
+import org.citopt.connde.repository.ValueLogRollupRepository;
+import org.citopt.connde.service.log_writer.ValueLogWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background service that periodically materializes the minute, hour and day rollups of the recorded value logs.
+ * Value logs are only rolled up after a configurable lag and never beyond the oldest value log that is still
+ * waiting to be written by the value log writer, so that value logs which are still in the pipeline or in the
+ * buffer of the writer are not missed, even if the writer falls behind.
+ */
+@Service
+@EnableScheduling
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogRollupService {
+
+    //Repository component that materializes the rollups (autowired)
+    private ValueLogRollupRepository valueLogRollupRepository;
+
+    //Writer of the value logs whose pending value logs limit the rollups (autowired)
+    private ValueLogWriter valueLogWriter;
+
+    //Whether rollups are materialized
+    private final boolean enabled;
+
+    //Lag after which value logs are considered complete
+    private final long lagSeconds;
+
+    //Maximum time span of raw value logs to process per step
+    private final long maxRangeSeconds;
+
+    /**
+     * Creates the service by passing a reference to the rollup repository (auto-wired).
+     *
+     * @param valueLogRollupRepository The rollup repository to use
+     * @param valueLogWriter           The value log writer
+     * @param enabled                  True, if rollups are supposed to be materialized; false otherwise
+     * @param lagSeconds               The lag in seconds after which value logs are considered complete
+     * @param maxRangeHours            The maximum time span in hours of raw value logs to process per step
+     */
+    @Autowired
+    public ValueLogRollupService(ValueLogRollupRepository valueLogRollupRepository, ValueLogWriter valueLogWriter,
+                                 @Value("${value-logs.rollups.enabled:true}") boolean enabled,
+                                 @Value("${value-logs.rollups.lag-seconds:60}") long lagSeconds,
+                                 @Value("${value-logs.rollups.max-range-hours:1}") long maxRangeHours) {
+        this.valueLogRollupRepository = valueLogRollupRepository;
+        this.valueLogWriter = valueLogWriter;
+        this.enabled = enabled;
+        this.lagSeconds = lagSeconds;
+        this.maxRangeSeconds = TimeUnit.HOURS.toSeconds(Math.max(maxRangeHours, 1));
+    }
+
+    /**
+     * Materializes all rollups for which new value logs are available. Further steps are performed immediately
+     * as long as the rollups did not yet catch up.
+     */
+    @Scheduled(initialDelayString = "${value-logs.rollups.interval-ms:60000}", fixedDelayString = "${value-logs.rollups.interval-ms:60000}")
+    public void materializeRollups() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            boolean behind;
+            do {
+                //Stop before value logs that were not written yet
+                Instant until = Instant.now().minusSeconds(lagSeconds);
+                Instant pendingSince = valueLogWriter.getPendingSince();
+                if ((pendingSince != null) && pendingSince.isBefore(until)) {
+                    until = pendingSince;
+                }
+                behind = valueLogRollupRepository.materialize(until, maxRangeSeconds);
+            } while (behind);
+        } catch (Exception e) {
+            System.err.println("Failed to materialize value log rollups: " + e.getMessage());
+        }
+    }
+}
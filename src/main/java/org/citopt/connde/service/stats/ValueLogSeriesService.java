@@ -0,0 +1,153 @@
+package org.citopt.connde.service.stats;
+
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.valueLog.AlignedValueLogSeries;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.service.stats.model.AggregateFunction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.measure.unit.Unit;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Service that retrieves the value logs of multiple components within a time range at once and resamples them onto
+ * a common time axis, so that the series of correlated components can be displayed together. The value logs of the
+ * individual components are aggregated in parallel by a bounded pool of worker threads.
+ */
+@Service
+@PropertySource(value = "classpath:application.properties")
+public class ValueLogSeriesService {
+
+    @Autowired
+    private ValueLogDownsamplingService valueLogDownsamplingService;
+
+    //Worker threads that aggregate the value logs of the individual components
+    private final ExecutorService executorService;
+
+    //Maximum number of components per request
+    private final int maxComponents;
+
+    /**
+     * Creates the service.
+     *
+     * @param parallelism   The number of worker threads for aggregating the value logs of the individual components
+     * @param maxComponents The maximum number of components that may be requested at once
+     */
+    public ValueLogSeriesService(@Value("${value-logs.series.parallelism:4}") int parallelism,
+                                 @Value("${value-logs.series.max-components:50}") int maxComponents) {
+        this.executorService = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        this.maxComponents = maxComponents;
+    }
+
+    /**
+     * Retrieves the value logs of multiple components within a time range, aggregates them per time interval and
+     * aligns the resulting series on a common time axis. The axis spans all intervals from the first to the last
+     * non-empty interval of any component.
+     *
+     * @param components      The components whose value logs are supposed to be retrieved
+     * @param from            The inclusive start of the time range or null for the oldest value log
+     * @param to              The exclusive end of the time range or null for the current time
+     * @param intervalSeconds The length of the intervals in seconds
+     * @param function        The aggregate function that reduces the value logs of an interval to a single value
+     * @param unit            The unit to which the values are supposed to be converted (null for default)
+     * @return The aligned series of all components
+     * @throws IllegalArgumentException In case the parameters are invalid for any of the components
+     */
+    public AlignedValueLogSeries getAlignedSeries(List<Component> components, Instant from, Instant to, long intervalSeconds,
+                                                  AggregateFunction function, Unit unit) {
+        //Sanity checks
+        if ((components == null) || components.isEmpty()) {
+            throw new IllegalArgumentException("At least one component must be provided.");
+        } else if (components.size() > maxComponents) {
+            throw new IllegalArgumentException("At most " + maxComponents + " components may be requested at once.");
+        } else if (function == null) {
+            throw new IllegalArgumentException("Aggregate function must not be null.");
+        }
+
+        //Use the same end of the time range for all components
+        Instant end = (to == null) ? Instant.now() : to;
+
+        //Aggregate the value logs of all components in parallel
+        Map<Component, Future<List<ValueLogRollup>>> futures = new LinkedHashMap<>();
+        for (Component component : components) {
+            futures.put(component, executorService.submit(() ->
+                    valueLogDownsamplingService.aggregateByInterval(component, from, end, intervalSeconds, unit)));
+        }
+
+        //Collect the aggregates and determine the bounds of the time axis
+        Map<Component, List<ValueLogRollup>> aggregatesMap = new LinkedHashMap<>();
+        long firstStart = Long.MAX_VALUE;
+        long lastStart = Long.MIN_VALUE;
+        for (Map.Entry<Component, Future<List<ValueLogRollup>>> entry : futures.entrySet()) {
+            List<ValueLogRollup> aggregates = getResult(entry.getValue(), futures.values());
+            aggregatesMap.put(entry.getKey(), aggregates);
+            if (!aggregates.isEmpty()) {
+                firstStart = Math.min(firstStart, aggregates.get(0).getStart().getEpochSecond());
+                lastStart = Math.max(lastStart, aggregates.get(aggregates.size() - 1).getStart().getEpochSecond());
+            }
+        }
+
+        //Create common time axis
+        List<Long> times = new ArrayList<>();
+        if (firstStart <= lastStart) {
+            for (long start = firstStart; start <= lastStart; start += intervalSeconds) {
+                times.add(start * 1000);
+            }
+        }
+        AlignedValueLogSeries alignedSeries = new AlignedValueLogSeries(intervalSeconds, times);
+
+        //Align the series of all components on the time axis
+        for (Map.Entry<Component, List<ValueLogRollup>> entry : aggregatesMap.entrySet()) {
+            List<Double> values = new ArrayList<>(Collections.nCopies(times.size(), null));
+            for (ValueLogRollup aggregate : entry.getValue()) {
+                int index = (int) ((aggregate.getStart().getEpochSecond() - firstStart) / intervalSeconds);
+                values.set(index, function.apply(aggregate));
+            }
+            alignedSeries.addSeries(entry.getKey().getId(), values);
+        }
+
+        return alignedSeries;
+    }
+
+    /**
+     * Waits for the result of a task that aggregates the value logs of a component. If the task failed, all other
+     * tasks are cancelled and the cause of the failure is re-thrown.
+     *
+     * @param future     The future of the task
+     * @param allFutures The futures of all tasks of the same request
+     * @return The result of the task
+     * @throws IllegalArgumentException In case the task failed due to invalid parameters
+     */
+    private List<ValueLogRollup> getResult(Future<List<ValueLogRollup>> future, Collection<Future<List<ValueLogRollup>>> allFutures) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            allFutures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aggregating value logs.", e);
+        } catch (ExecutionException e) {
+            allFutures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to aggregate value logs.", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the worker threads when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+}
@@ -2,15 +2,18 @@ package org.citopt.connde.service.stats;
 
 import org.citopt.connde.domain.component.Component;
 import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
 import org.citopt.connde.repository.ValueLogRepository;
+import org.citopt.connde.repository.ValueLogRollupRepository;
 import org.citopt.connde.service.UnitConverterService;
+import org.citopt.connde.service.cache.ValueLogQueryCache;
+import org.citopt.connde.service.log_writer.RecentValueLogBuffer;
 import org.citopt.connde.service.stats.model.ValueLogStats;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.measure.converter.UnitConverter;
 import javax.measure.unit.Unit;
-import java.util.List;
 
 /**
  * Service that provides means for calculating descriptive statistical information from a set of value logs
@@ -29,110 +32,120 @@ public class ValueLogStatsService {
     @Autowired
     private ValueLogRepository valueLogRepository;
 
+    @Autowired
+    private ValueLogRollupRepository valueLogRollupRepository;
+
+    @Autowired
+    private RecentValueLogBuffer recentValueLogBuffer;
+
+    @Autowired
+    private ValueLogQueryCache valueLogQueryCache;
+
     /**
      * Calculates statistical information from the value logs that are stored in the repository
      * for a certain component and returns them all as a ValueLogStats object. Additionally,
-     * the returned values can be converted to a given unit.
+     * the returned values can be converted to a given unit. The number of logs, the average and the variance
+     * are derived from the pre-aggregated rollups of the component, while the remarkable logs are located by
+     * using the running statistics of the documents in the repository.
      *
      * @param component The component whose value logs should be used to calculate the data
      * @param unit      The unit to which the values are supposed to be converted (null for default)
      * @return ValueLogStats object that holds the calculated data
      */
     public ValueLogStats calculateValueLogStats(Component component, Unit unit) {
+        return valueLogQueryCache.get("stats", component.getId(), null, null,
+                (unit == null) ? null : unit.toString(), null, () -> computeValueLogStats(component, unit));
+    }
+
+    /**
+     * Computes the statistical information for a certain component without using the query cache.
+     *
+     * @param component The component whose value logs should be used to calculate the data
+     * @param unit      The unit to which the values are supposed to be converted (null for default)
+     * @return ValueLogStats object that holds the calculated data
+     */
+    private ValueLogStats computeValueLogStats(Component component, Unit unit) {
         //Create empty stats object
         ValueLogStats stats = new ValueLogStats();
 
-        //Retrieve a list of value logs from the repository
+        //Get component id and adapter unit object
         String componentId = component.getId();
-        List<ValueLog> valueLogList = valueLogRepository.findAllByIdRef(componentId);
-
-        //Return object with default values if no logs are available
-        if (valueLogList.isEmpty()) {
-            return stats;
-        }
-
-
-        //Get adapter unit object
-        Unit adapterUnit = component.getAdapter().getUnitObject();
+        Unit adapterUnit = unitConverterService.parseUnit(component.getAdapter().getUnit());
 
         //Check if value conversion is desired and possible
+        UnitConverter converter = null;
         if ((unit != null) && adapterUnit.isCompatible(unit)) {
-            //Get converter
-            UnitConverter converter = adapterUnit.getConverterTo(unit);
+            converter = unitConverterService.getConverter(adapterUnit, unit);
+        }
 
-            //Iterate over all value logs and convert them
-            for (ValueLog valueLog : valueLogList) {
-                //Convert
-                unitConverterService.convertValueLogValue(valueLog, converter);
+        //Summarize the values, either from the rollups or by converting each value
+        ValueLogRollup summary;
+        if ((converter == null) || unitConverterService.isAffine(converter)) {
+            summary = valueLogRollupRepository.summarizeByIdRef(componentId, null, null);
+            if (converter != null) {
+                unitConverterService.convertRollup(summary, converter);
             }
+        } else {
+            //Convert the values in bulk, series by series
+            UnitConverter seriesConverter = converter;
+            ValueLogRollup convertedSummary = new ValueLogRollup(componentId, null);
+            valueLogRepository.forEachSeriesByIdRef(componentId, null, null, series -> {
+                unitConverterService.convertSeries(series, seriesConverter);
+                double[] values = series.getValues();
+                for (int i = 0; i < series.size(); i++) {
+                    convertedSummary.add(values[i]);
+                }
+            });
+            summary = convertedSummary;
         }
 
-        /*
-        Extract data that can be directly derived from the value log list
-        */
-        stats.setNumberLogs(valueLogList.size());
-        stats.setFirstLog(valueLogList.get(0));
-        stats.setLastLog(valueLogList.get(valueLogList.size() - 1));
+        //Return object with default values if no logs are available
+        if (summary.getCount() == 0) {
+            return stats;
+        }
 
         /*
-        Find min log, max log and calculate average
+        Find remarkable logs
         */
-
-        //Constant for rounding
-        double roundingConst = Math.pow(10, ROUNDING_DECIMAL_PLACES);
-
-        //Variables that hold the logs with the smallest/biggest known values
-        ValueLog minLog = valueLogList.get(0);
-        ValueLog maxLog = valueLogList.get(0);
-
-        //Accumulator for calculating the average
-        double averageAccumulator = 0;
-
-        //Iterate over all value logs in the list
-        for (ValueLog log : valueLogList) {
-            //Get value of the current log
-            double logValue = log.getValue();
-
-            //Update min log if necessary
-            if (logValue < minLog.getValue()) {
-                minLog = log;
+        ValueLog firstLog = valueLogRepository.findOldestByIdRef(componentId);
+        ValueLog lastLog = recentValueLogBuffer.findNewestByIdRef(componentId);
+        ValueLog minLog = valueLogRepository.findMinimumByIdRef(componentId);
+        ValueLog maxLog = valueLogRepository.findMaximumByIdRef(componentId);
+
+        //Convert remarkable logs if necessary
+        if (converter != null) {
+            for (ValueLog log : new ValueLog[]{firstLog, lastLog, minLog, maxLog}) {
+                if (log != null) {
+                    unitConverterService.convertValueLogValue(log, converter);
+                }
             }
 
-            //Update max log if necessary
-            if (logValue > maxLog.getValue()) {
-                maxLog = log;
+            //Converters with negative factors swap minimum and maximum
+            if ((minLog != null) && (maxLog != null) && (minLog.getValue() > maxLog.getValue())) {
+                ValueLog swapLog = minLog;
+                minLog = maxLog;
+                maxLog = swapLog;
             }
-
-            //Increase accumulator
-            averageAccumulator += logValue;
         }
 
-        //Finally set min and max log
+        stats.setNumberLogs((int) summary.getCount());
+        stats.setFirstLog(firstLog);
+        stats.setLastLog(lastLog);
         stats.setMinimumLog(minLog);
         stats.setMaximumLog(maxLog);
 
-        //Calculate and set the average
-        double average = averageAccumulator / ((double) valueLogList.size());
-        stats.setAverage(Math.round(average * roundingConst) / roundingConst);
-
         /*
-         Calculate the variance and standard deviation
+        Derive average, variance and standard deviation from the summary
         */
 
-        //Accumulator for calculating the variance
-        double varianceAccumulator = 0;
-
-        //Iterate over all value logs in the list
-        for (ValueLog log : valueLogList) {
-            //Get current value
-            double logValue = log.getValue();
+        //Constant for rounding
+        double roundingConst = Math.pow(10, ROUNDING_DECIMAL_PLACES);
 
-            //Increase accumulator with respect to the value
-            varianceAccumulator += Math.pow(logValue - average, 2);
-        }
+        //Set the average
+        stats.setAverage(Math.round(summary.getAverage() * roundingConst) / roundingConst);
 
-        //Calculate the variance
-        double variance = varianceAccumulator / ((double) valueLogList.size());
+        //Set the variance
+        double variance = summary.getVariance();
         stats.setVariance(Math.round(variance * roundingConst) / roundingConst);
 
         //Derive the standard deviation from the variance
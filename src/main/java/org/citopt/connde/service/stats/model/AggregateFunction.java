@@ -0,0 +1,32 @@
+package org.citopt.connde.service.stats.model;
+
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+
+/**
+ * Enumeration of aggregate functions that may be used for reducing the value logs of a time interval to a single
+ * value. The functions are evaluated on the aggregate (rollup) of the interval.
+ */
+public enum AggregateFunction {
+    AVERAGE, MIN, MAX, SUM, COUNT;
+
+    /**
+     * Evaluates the aggregate function on the aggregate of a time interval.
+     *
+     * @param rollup The aggregate of the time interval
+     * @return The resulting value
+     */
+    public double apply(ValueLogRollup rollup) {
+        switch (this) {
+            case MIN:
+                return rollup.getMin();
+            case MAX:
+                return rollup.getMax();
+            case SUM:
+                return rollup.getSum();
+            case COUNT:
+                return rollup.getCount();
+            default:
+                return rollup.getAverage();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.citopt.connde.service.stats.model;
+
+/**
+ * Enumeration of the methods that are available for visually downsampling a time series of values to a
+ * given number of points.
+ */
+public enum DownsamplingMethod {
+    //Largest-Triangle-Three-Buckets, selects one representative point per bucket
+    LTTB,
+
+    //Selects the points with the smallest and the biggest value per time bucket
+    MIN_MAX
+}
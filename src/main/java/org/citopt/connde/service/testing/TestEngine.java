@@ -30,6 +30,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -66,9 +67,9 @@ public class TestEngine implements ValueLogReceiverObserver {
     private RestRuleController restRuleController;
 
 
-    // List of all active Tests/testValues
-    Map<String, TestDetails> activeTests = new HashMap<>();
-    Map<String, List<Double>> testValues = new HashMap<>();
+    // List of all active Tests/testValues (concurrent, since value logs arrive from several pipeline workers)
+    Map<String, TestDetails> activeTests = new ConcurrentHashMap<>();
+    Map<String, List<Double>> testValues = new ConcurrentHashMap<>();
 
 
     /**
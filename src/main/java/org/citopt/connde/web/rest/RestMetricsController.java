@@ -0,0 +1,174 @@
+package org.citopt.connde.web.rest;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.citopt.connde.RestConfiguration;
+import org.citopt.connde.constants.Constants;
+import org.citopt.connde.service.benchmark.CEPEventBenchmarkService;
+import org.citopt.connde.service.benchmark.model.CEPEventBenchmarkResult;
+import org.citopt.connde.service.cache.ValueLogQueryCache;
+import org.citopt.connde.service.cache.model.ValueLogQueryCacheStats;
+import org.citopt.connde.service.cep.engine.core.dispatch.CEPDispatchExecutor;
+import org.citopt.connde.service.cep.engine.core.dispatch.model.CEPDispatchStats;
+import org.citopt.connde.service.log_writer.RecentValueLogBuffer;
+import org.citopt.connde.service.log_writer.ValueLogWriter;
+import org.citopt.connde.service.log_writer.model.RecentValueLogBufferStats;
+import org.citopt.connde.service.log_writer.model.ValueLogWriterStats;
+import org.citopt.connde.service.receiver.ValueLogReceiver;
+import org.citopt.connde.service.receiver.model.ValueLogPipelineStats;
+import org.citopt.connde.service.startup.StartupMonitor;
+import org.citopt.connde.service.startup.model.StartupStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST Controller for retrieving internal runtime metrics of the platform, such as queue depths and throughput
+ * counters of the value log processing.
+ */
+@RestController
+@RequestMapping(RestConfiguration.BASE_PATH)
+@Api(tags = {"Metrics"}, description = "Retrieval of internal runtime metrics of the platform")
+public class RestMetricsController {
+
+    @Autowired
+    private ValueLogReceiver valueLogReceiver;
+
+    @Autowired
+    private ValueLogWriter valueLogWriter;
+
+    @Autowired
+    private RecentValueLogBuffer recentValueLogBuffer;
+
+    @Autowired
+    private ValueLogQueryCache valueLogQueryCache;
+
+    @Autowired
+    private CEPDispatchExecutor cepDispatchExecutor;
+
+    @Autowired
+    private StartupMonitor startupMonitor;
+
+    @Autowired
+    private CEPEventBenchmarkService cepEventBenchmarkService;
+
+    /**
+     * Replies with the readiness of the application, which is reached as soon as the startup, including the
+     * activation of the enabled rules, is completed. This endpoint does not require authentication.
+     *
+     * @return 200 if the application is ready; 503 otherwise
+     */
+    @GetMapping("/ready")
+    @ApiOperation(value = "Checks whether the application completed its startup and is ready", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Ready"), @ApiResponse(code = 503, message = "Startup not completed yet")})
+    public ResponseEntity<Boolean> getReadiness() {
+        boolean ready = startupMonitor.isReady();
+        return new ResponseEntity<>(ready, ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Replies with the startup status of the application, including a timing breakdown of the startup phases.
+     *
+     * @return The startup status
+     */
+    @GetMapping("/metrics/startup")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Retrieves the readiness and the durations of the startup phases of the application", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access the metrics")})
+    public ResponseEntity<StartupStatus> getStartupStatus() {
+        return new ResponseEntity<>(startupMonitor.getStatus(), HttpStatus.OK);
+    }
+
+    /**
+     * Replies with the current statistics of the value log pipeline, i.e. one entry per observer lane.
+     *
+     * @return A list of pipeline statistics
+     */
+    @GetMapping("/metrics/value-log-pipeline")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Retrieves queue depths and processed/dropped counters of the value log pipeline", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access the metrics")})
+    public ResponseEntity<List<ValueLogPipelineStats>> getValueLogPipelineStats() {
+        return new ResponseEntity<>(valueLogReceiver.getPipelineStats(), HttpStatus.OK);
+    }
+
+    /**
+     * Replies with the current statistics of the executor that notifies the subscribers of CEP queries.
+     *
+     * @return The dispatch executor statistics
+     */
+    @GetMapping("/metrics/cep-dispatch")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Retrieves queue depth, queue latency and rejected/coalesced counters of the CEP query dispatch", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access the metrics")})
+    public ResponseEntity<CEPDispatchStats> getCEPDispatchStats() {
+        return new ResponseEntity<>(cepDispatchExecutor.getStats(), HttpStatus.OK);
+    }
+
+    /**
+     * Replies with the current statistics of the batching value log writer.
+     *
+     * @return The writer statistics
+     */
+    @GetMapping("/metrics/value-log-writer")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Retrieves batch sizes, flush latencies and counters of the value log writer", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access the metrics")})
+    public ResponseEntity<ValueLogWriterStats> getValueLogWriterStats() {
+        return new ResponseEntity<>(valueLogWriter.getStats(), HttpStatus.OK);
+    }
+
+    /**
+     * Replies with the current statistics of the in-memory buffer of recent value logs.
+     *
+     * @return The buffer statistics
+     */
+    @GetMapping("/metrics/recent-value-logs")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Retrieves the size and the hit/miss counters of the in-memory buffer of recent value logs", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access the metrics")})
+    public ResponseEntity<RecentValueLogBufferStats> getRecentValueLogBufferStats() {
+        return new ResponseEntity<>(recentValueLogBuffer.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/metrics/value-log-query-cache")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Retrieves the size and the hit/miss counters of the cache for value log query results", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access the metrics")})
+    public ResponseEntity<ValueLogQueryCacheStats> getValueLogQueryCacheStats() {
+        return new ResponseEntity<>(valueLogQueryCache.getStats(), HttpStatus.OK);
+    }
+
+    /**
+     * Runs a benchmark of the event throughput of a separate CEP engine, optionally partitioned.
+     *
+     * @param eventTypes The number of event types to register
+     * @param events     The number of events to send
+     * @param partitions The number of engine partitions and sending threads
+     * @return The benchmark result
+     */
+    @PostMapping("/metrics/benchmarks/cep-events")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Measures the event throughput of a separate CEP engine with a large number of registered event types", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid number of event types, events or partitions"), @ApiResponse(code = 403, message = "Not authorized to run benchmarks")})
+    public ResponseEntity<CEPEventBenchmarkResult> runCEPEventBenchmark(@RequestParam(value = "eventTypes", defaultValue = "10000") @ApiParam(value = "The number of event types to register", example = "10000", required = false) int eventTypes,
+                                                                        @RequestParam(value = "events", defaultValue = "1000000") @ApiParam(value = "The number of events to send", example = "1000000", required = false) int events,
+                                                                        @RequestParam(value = "partitions", defaultValue = "1") @ApiParam(value = "The number of engine partitions and sending threads", example = "4", required = false) int partitions) {
+        try {
+            return new ResponseEntity<>(cepEventBenchmarkService.run(eventTypes, events, partitions), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package org.citopt.connde.web.rest;
+
+import io.swagger.annotations.*;
+import org.citopt.connde.RestConfiguration;
+import org.citopt.connde.domain.component.Actuator;
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.component.Sensor;
+import org.citopt.connde.domain.monitoring.MonitoringComponent;
+import org.citopt.connde.domain.valueLog.AlignedValueLogSeries;
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.repository.ActuatorRepository;
+import org.citopt.connde.repository.SensorRepository;
+import org.citopt.connde.service.UnitConverterService;
+import org.citopt.connde.service.UserEntityService;
+import org.citopt.connde.service.stats.ValueLogDownsamplingService;
+import org.citopt.connde.service.stats.ValueLogSeriesService;
+import org.citopt.connde.service.stats.model.AggregateFunction;
+import org.citopt.connde.service.stats.model.DownsamplingMethod;
+import org.citopt.connde.web.rest.helper.MonitoringHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.measure.unit.Unit;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST Controller for retrieving the value logs of certain components in a form that is suitable for rendering
+ * charts. Value logs can either be aggregated per time interval or downsampled to a bounded number of points.
+ * Furthermore, the aggregated value logs of multiple components can be retrieved at once on a common time axis.
+ */
+@RestController
+@RequestMapping(RestConfiguration.BASE_PATH)
+@Api(tags = {"Value log charts"}, description = "Aggregation and downsampling of recorded value logs for charts")
+public class RestValueLogChartController {
+
+    @Autowired
+    private ActuatorRepository actuatorRepository;
+
+    @Autowired
+    private UnitConverterService unitConverterService;
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private UserEntityService userEntityService;
+
+    @Autowired
+    private ValueLogDownsamplingService valueLogDownsamplingService;
+
+    @Autowired
+    private ValueLogSeriesService valueLogSeriesService;
+
+    @Autowired
+    private MonitoringHelper monitoringHelper;
+
+    /**
+     * Replies with the value logs of a certain actuator, aggregated per time interval.
+     *
+     * @param actuatorId The id of the actuator for which the value logs should be aggregated
+     * @param from       The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to         The exclusive end of the time range in epoch milliseconds (optional)
+     * @param interval   The length of the intervals in seconds
+     * @param unit       A string specifying the unit of the aggregated values
+     * @return A list of aggregates, one per non-empty interval
+     */
+    @GetMapping("/actuators/{id}/valueLogs/aggregate")
+    @ApiOperation(value = "Retrieves recorded actuator value logs in a certain unit, aggregated per time interval", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit, time range or interval"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator")})
+    public ResponseEntity<List<ValueLogRollup>> aggregateActuatorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the actuator to aggregate value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String actuatorId,
+                                                                         @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                         @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                         @RequestParam(value = "interval") @ApiParam(value = "Length of the intervals in seconds", example = "300", required = true) long interval,
+                                                                         @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the actuator values", example = "°C", required = false) String unit) {
+        //Get actuator
+        Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
+
+        //Validity check
+        if (actuator == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(actuator, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Aggregate value logs
+        return aggregateValueLogs(actuator, from, to, interval, unit);
+    }
+
+    /**
+     * Replies with the value logs of a certain sensor, aggregated per time interval.
+     *
+     * @param sensorId The id of the sensor for which the value logs should be aggregated
+     * @param from     The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to       The exclusive end of the time range in epoch milliseconds (optional)
+     * @param interval The length of the intervals in seconds
+     * @param unit     A string specifying the unit of the aggregated values
+     * @return A list of aggregates, one per non-empty interval
+     */
+    @GetMapping("/sensors/{id}/valueLogs/aggregate")
+    @ApiOperation(value = "Retrieves recorded sensor value logs in a certain unit, aggregated per time interval", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit, time range or interval"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor")})
+    public ResponseEntity<List<ValueLogRollup>> aggregateSensorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the sensor to aggregate value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String sensorId,
+                                                                       @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                       @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                       @RequestParam(value = "interval") @ApiParam(value = "Length of the intervals in seconds", example = "300", required = true) long interval,
+                                                                       @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the sensor values", example = "°C", required = false) String unit) {
+        //Get sensor object
+        Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
+
+        //Validity check
+        if (sensor == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(sensor, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Aggregate value logs
+        return aggregateValueLogs(sensor, from, to, interval, unit);
+    }
+
+    /**
+     * Replies with the value logs of a certain monitoring component, aggregated per time interval.
+     *
+     * @param deviceId            The id of the device for which the value logs should be aggregated
+     * @param monitoringAdapterId The id of the monitoring adapter for which the value logs should be aggregated
+     * @param from                The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to                  The exclusive end of the time range in epoch milliseconds (optional)
+     * @param interval            The length of the intervals in seconds
+     * @param unit                A string specifying the unit of the aggregated values
+     * @return A list of aggregates, one per non-empty interval
+     */
+    @GetMapping("/monitoring/{deviceId}/valueLogs/aggregate")
+    @ApiOperation(value = "Retrieves recorded monitoring value logs in a certain unit, aggregated per time interval", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit, time range or interval"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them")})
+    public ResponseEntity<List<ValueLogRollup>> aggregateMonitoringValueLogs(@PathVariable(value = "deviceId") @ApiParam(value = "ID of the device to aggregate value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String deviceId,
+                                                                           @RequestParam("adapter") @ApiParam(value = "ID of the monitoring adapter to aggregate value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String monitoringAdapterId,
+                                                                           @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                           @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                           @RequestParam(value = "interval") @ApiParam(value = "Length of the intervals in seconds", example = "300", required = true) long interval,
+                                                                           @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the monitoring values", example = "°C", required = false) String unit) {
+        //Create new monitoring component from parameters
+        MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(deviceId, monitoringAdapterId);
+
+        //Validity check
+        if (monitoringComponent == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(monitoringComponent.getDevice(), "monitor")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Aggregate value logs
+        return aggregateValueLogs(monitoringComponent, from, to, interval, unit);
+    }
+
+    /**
+     * Replies with the value logs of a certain actuator, downsampled to a bounded number of points.
+     *
+     * @param actuatorId The id of the actuator for which the value logs should be downsampled
+     * @param from       The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to         The exclusive end of the time range in epoch milliseconds (optional)
+     * @param points     The maximum number of points to return
+     * @param method     The downsampling method to use
+     * @param unit       A string specifying the unit of the value log values
+     * @return A list of the selected value logs
+     */
+    @GetMapping("/actuators/{id}/valueLogs/downsample")
+    @ApiOperation(value = "Retrieves recorded actuator value logs in a certain unit, downsampled to a given number of points", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit, time range or number of points"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator")})
+    public ResponseEntity<List<ValueLog>> downsampleActuatorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the actuator to downsample value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String actuatorId,
+                                                                      @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                      @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                      @RequestParam(value = "points", defaultValue = "500") @ApiParam(value = "Maximum number of points to return", example = "500", required = false) int points,
+                                                                      @RequestParam(value = "method", defaultValue = "LTTB") @ApiParam(value = "The downsampling method", example = "LTTB", required = false) DownsamplingMethod method,
+                                                                      @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the actuator values", example = "°C", required = false) String unit) {
+        //Get actuator
+        Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
+
+        //Validity check
+        if (actuator == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(actuator, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Downsample value logs
+        return downsampleValueLogs(actuator, from, to, points, method, unit);
+    }
+
+    /**
+     * Replies with the value logs of a certain sensor, downsampled to a bounded number of points.
+     *
+     * @param sensorId The id of the sensor for which the value logs should be downsampled
+     * @param from     The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to       The exclusive end of the time range in epoch milliseconds (optional)
+     * @param points   The maximum number of points to return
+     * @param method   The downsampling method to use
+     * @param unit     A string specifying the unit of the value log values
+     * @return A list of the selected value logs
+     */
+    @GetMapping("/sensors/{id}/valueLogs/downsample")
+    @ApiOperation(value = "Retrieves recorded sensor value logs in a certain unit, downsampled to a given number of points", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit, time range or number of points"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor")})
+    public ResponseEntity<List<ValueLog>> downsampleSensorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the sensor to downsample value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String sensorId,
+                                                                    @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                    @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                    @RequestParam(value = "points", defaultValue = "500") @ApiParam(value = "Maximum number of points to return", example = "500", required = false) int points,
+                                                                    @RequestParam(value = "method", defaultValue = "LTTB") @ApiParam(value = "The downsampling method", example = "LTTB", required = false) DownsamplingMethod method,
+                                                                    @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the sensor values", example = "°C", required = false) String unit) {
+        //Get sensor object
+        Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
+
+        //Validity check
+        if (sensor == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(sensor, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Downsample value logs
+        return downsampleValueLogs(sensor, from, to, points, method, unit);
+    }
+
+    /**
+     * Replies with the value logs of a certain monitoring component, downsampled to a bounded number of points.
+     *
+     * @param deviceId            The id of the device for which the value logs should be downsampled
+     * @param monitoringAdapterId The id of the monitoring adapter for which the value logs should be downsampled
+     * @param from                The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to                  The exclusive end of the time range in epoch milliseconds (optional)
+     * @param points              The maximum number of points to return
+     * @param method              The downsampling method to use
+     * @param unit                A string specifying the unit of the value log values
+     * @return A list of the selected value logs
+     */
+    @GetMapping("/monitoring/{deviceId}/valueLogs/downsample")
+    @ApiOperation(value = "Retrieves recorded monitoring value logs in a certain unit, downsampled to a given number of points", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit, time range or number of points"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them")})
+    public ResponseEntity<List<ValueLog>> downsampleMonitoringValueLogs(@PathVariable(value = "deviceId") @ApiParam(value = "ID of the device to downsample value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String deviceId,
+                                                                        @RequestParam("adapter") @ApiParam(value = "ID of the monitoring adapter to downsample value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String monitoringAdapterId,
+                                                                        @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                        @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                        @RequestParam(value = "points", defaultValue = "500") @ApiParam(value = "Maximum number of points to return", example = "500", required = false) int points,
+                                                                        @RequestParam(value = "method", defaultValue = "LTTB") @ApiParam(value = "The downsampling method", example = "LTTB", required = false) DownsamplingMethod method,
+                                                                        @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the monitoring values", example = "°C", required = false) String unit) {
+        //Create new monitoring component from parameters
+        MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(deviceId, monitoringAdapterId);
+
+        //Validity check
+        if (monitoringComponent == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(monitoringComponent.getDevice(), "monitor")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Downsample value logs
+        return downsampleValueLogs(monitoringComponent, from, to, points, method, unit);
+    }
+
+    /**
+     * Replies with the value logs of multiple sensors, actuators and monitoring components, aggregated per time
+     * interval and aligned on a common time axis.
+     *
+     * @param sensorIds     The ids of the sensors for which the value logs should be retrieved (optional)
+     * @param actuatorIds   The ids of the actuators for which the value logs should be retrieved (optional)
+     * @param monitoringIds The ids of the monitoring components in the format adapterId@deviceId (optional)
+     * @param from          The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to            The exclusive end of the time range in epoch milliseconds (optional)
+     * @param interval      The length of the intervals in seconds
+     * @param function      The aggregate function that reduces the value logs of an interval to a single value
+     * @param unit          A string specifying the unit of the values
+     * @return The aligned series of all requested components
+     */
+    @GetMapping("/valueLogs/series")
+    @ApiOperation(value = "Retrieves recorded value logs of multiple components in a certain unit, aggregated per time interval and aligned on a common time axis", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid components, unit, time range or interval"), @ApiResponse(code = 403, message = "Not authorized to access value logs of one of the components"), @ApiResponse(code = 404, message = "One of the components not found or not authorized to access it")})
+    public ResponseEntity<AlignedValueLogSeries> getAlignedSeries(@RequestParam(value = "sensors", required = false) @ApiParam(value = "IDs of the sensors to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = false) List<String> sensorIds,
+                                                                  @RequestParam(value = "actuators", required = false) @ApiParam(value = "IDs of the actuators to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = false) List<String> actuatorIds,
+                                                                  @RequestParam(value = "monitoring", required = false) @ApiParam(value = "IDs of the monitoring components (adapterId@deviceId) to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672@5c97dc2583aeb6078c5ab673", required = false) List<String> monitoringIds,
+                                                                  @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                  @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                  @RequestParam(value = "interval") @ApiParam(value = "Length of the intervals in seconds", example = "300", required = true) long interval,
+                                                                  @RequestParam(value = "function", defaultValue = "AVERAGE") @ApiParam(value = "Aggregate function that is applied to the value logs of each interval", example = "AVERAGE", required = false) AggregateFunction function,
+                                                                  @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the values", example = "°C", required = false) String unit) {
+        List<Component> components = new ArrayList<>();
+
+        //Get sensors
+        if (sensorIds != null) {
+            for (String sensorId : sensorIds) {
+                Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
+                if (sensor == null) {
+                    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                } else if (!userEntityService.isUserPermitted(sensor, "deploy")) {
+                    return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+                }
+                components.add(sensor);
+            }
+        }
+
+        //Get actuators
+        if (actuatorIds != null) {
+            for (String actuatorId : actuatorIds) {
+                Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
+                if (actuator == null) {
+                    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                } else if (!userEntityService.isUserPermitted(actuator, "deploy")) {
+                    return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+                }
+                components.add(actuator);
+            }
+        }
+
+        //Create monitoring components
+        if (monitoringIds != null) {
+            for (String monitoringId : monitoringIds) {
+                String[] idParts = monitoringId.split("@");
+                if (idParts.length != 2) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+                MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(idParts[1], idParts[0]);
+                if (monitoringComponent == null) {
+                    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                } else if (!userEntityService.isUserPermitted(monitoringComponent.getDevice(), "monitor")) {
+                    return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+                }
+                components.add(monitoringComponent);
+            }
+        }
+
+        //Retrieve aligned series
+        try {
+            AlignedValueLogSeries alignedSeries = valueLogSeriesService.getAlignedSeries(components,
+                    toInstant(from), toInstant(to), interval, function, parseUnit(unit));
+            return new ResponseEntity<>(alignedSeries, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Returns a response entity that contains the value logs of a certain component, aggregated per time interval.
+     *
+     * @param component The component for which the value logs should be aggregated
+     * @param from      The inclusive start of the time range in epoch milliseconds or null, if unbounded
+     * @param to        The exclusive end of the time range in epoch milliseconds or null, if unbounded
+     * @param interval  The length of the intervals in seconds
+     * @param unit      A string specifying the unit of the aggregated values
+     * @return A list of aggregates
+     */
+    private ResponseEntity<List<ValueLogRollup>> aggregateValueLogs(Component component, Long from, Long to, long interval, String unit) {
+        try {
+            List<ValueLogRollup> aggregates = valueLogDownsamplingService.aggregateByInterval(component,
+                    toInstant(from), toInstant(to), interval, parseUnit(unit));
+            return new ResponseEntity<>(aggregates, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Returns a response entity that contains the value logs of a certain component, downsampled to a bounded
+     * number of points.
+     *
+     * @param component The component for which the value logs should be downsampled
+     * @param from      The inclusive start of the time range in epoch milliseconds or null, if unbounded
+     * @param to        The exclusive end of the time range in epoch milliseconds or null, if unbounded
+     * @param points    The maximum number of points to return
+     * @param method    The downsampling method to use
+     * @param unit      A string specifying the unit of the value log values
+     * @return A list of the selected value logs
+     */
+    private ResponseEntity<List<ValueLog>> downsampleValueLogs(Component component, Long from, Long to, int points, DownsamplingMethod method, String unit) {
+        try {
+            List<ValueLog> valueLogs = valueLogDownsamplingService.downsample(component,
+                    toInstant(from), toInstant(to), points, method, parseUnit(unit));
+            return new ResponseEntity<>(valueLogs, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Converts epoch milliseconds to an instant.
+     *
+     * @param epochMillis The epoch milliseconds or null
+     * @return The instant or null, if no epoch milliseconds were provided
+     */
+    private static Instant toInstant(Long epochMillis) {
+        return (epochMillis == null) ? null : Instant.ofEpochMilli(epochMillis);
+    }
+
+    /**
+     * Parses a unit from its string representation.
+     *
+     * @param unit The string representation of the unit or null
+     * @return The unit or null, if no unit was provided
+     * @throws IllegalArgumentException In case the unit could not be parsed
+     */
+    private Unit parseUnit(String unit) {
+        if ((unit == null) || unit.isEmpty()) {
+            return null;
+        }
+        return unitConverterService.parseUnit(unit);
+    }
+}
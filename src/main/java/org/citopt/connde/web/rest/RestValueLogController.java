@@ -7,13 +7,25 @@ import org.citopt.connde.domain.component.Component;
 import org.citopt.connde.domain.component.Sensor;
 import org.citopt.connde.domain.monitoring.MonitoringComponent;
 import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogCursorPage;
+import org.citopt.connde.domain.valueLog.ValueLogIntervalSearchResult;
+import org.citopt.connde.domain.valueLog.ValueLogPredicate;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.citopt.connde.domain.valueLog.ValueLogRollupInterval;
 import org.citopt.connde.repository.*;
 import org.citopt.connde.service.UnitConverterService;
 import org.citopt.connde.service.UserEntityService;
+import org.citopt.connde.service.cache.ValueLogQueryCache;
+import org.citopt.connde.service.log_writer.RecentValueLogBuffer;
+import org.citopt.connde.service.stats.ValueLogIntervalSearchService;
 import org.citopt.connde.web.rest.helper.MonitoringHelper;
+import org.citopt.connde.web.rest.util.PaginationUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +33,9 @@ import springfox.documentation.annotations.ApiIgnore;
 
 import javax.measure.converter.UnitConverter;
 import javax.measure.unit.Unit;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * REST Controller for retrieving value logs for certain components. Furthermore, it provides
@@ -40,12 +55,24 @@ public class RestValueLogController {
     @Autowired
     private ValueLogRepository valueLogRepository;
 
+    @Autowired
+    private ValueLogRollupRepository valueLogRollupRepository;
+
     @Autowired
     private UserEntityService userEntityService;
 
     @Autowired
     private UnitConverterService unitConverterService;
 
+    @Autowired
+    private RecentValueLogBuffer recentValueLogBuffer;
+
+    @Autowired
+    private ValueLogQueryCache valueLogQueryCache;
+
+    @Autowired
+    private ValueLogIntervalSearchService valueLogIntervalSearchService;
+
     @Autowired
     private MonitoringHelper monitoringHelper;
 
@@ -55,14 +82,20 @@ public class RestValueLogController {
      *
      * @param actuatorId The id of the actuator for which the value logs should be retrieved
      * @param unit       A string specifying the unit of the value log values
+     * @param from       The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to         The exclusive end of the time range in epoch milliseconds (optional)
+     * @param cursor     The continuation token of the previous page (optional)
      * @param pageable   Pageable parameters that specify the value logs to retrieve
      * @return A pageable list of value logs
      */
     @GetMapping("/actuators/{id}/valueLogs")
     @ApiOperation(value = "Retrieves a list of recorded actuator value logs in a certain unit which fit onto a given page", produces = "application/hal+json")
-    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator")})
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator")})
     public ResponseEntity<Page<ValueLog>> getActuatorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the actuator to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String actuatorId,
                                                                @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the actuator values", example = "°C", required = false) String unit,
+                                                               @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                               @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                               @RequestParam(value = "cursor", required = false) @ApiParam(value = "Continuation token of the previous page for keyset pagination", required = false) String cursor,
                                                                @ApiParam(value = "The page configuration", required = true) Pageable pageable) {
         //Get actuator
         Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
@@ -78,7 +111,7 @@ public class RestValueLogController {
         }
 
         //Retrieve value logs
-        return getValueLogs(actuator, unit, pageable);
+        return getValueLogs(actuator, unit, from, to, cursor, pageable);
     }
 
     /**
@@ -86,14 +119,20 @@ public class RestValueLogController {
      *
      * @param sensorId The id of the sensor for which the value logs should be retrieved
      * @param unit     A string specifying the unit of the value log values
+     * @param from     The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to       The exclusive end of the time range in epoch milliseconds (optional)
+     * @param cursor   The continuation token of the previous page (optional)
      * @param pageable Pageable parameters that specify the value logs to retrieve
      * @return A pageable list of value logs
      */
     @GetMapping("/sensors/{id}/valueLogs")
     @ApiOperation(value = "Retrieves a list of recorded sensor value log in a certain unit which fit onto a given page", produces = "application/hal+json")
-    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor")})
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor")})
     public ResponseEntity<Page<ValueLog>> getSensorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the sensor to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String sensorId,
                                                              @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the sensor values", example = "°C", required = false) String unit,
+                                                             @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                             @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                             @RequestParam(value = "cursor", required = false) @ApiParam(value = "Continuation token of the previous page for keyset pagination", required = false) String cursor,
                                                              @ApiParam(value = "The page configuration", required = true) Pageable pageable) {
         //Get sensor object
         Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
@@ -109,7 +148,7 @@ public class RestValueLogController {
         }
 
         //Retrieve value logs
-        return getValueLogs(sensor, unit, pageable);
+        return getValueLogs(sensor, unit, from, to, cursor, pageable);
     }
 
     /**
@@ -118,15 +157,21 @@ public class RestValueLogController {
      * @param deviceId            The id of the device for which monitoring data is supposed to be retrieved
      * @param monitoringAdapterId The id of the monitoring adapter for which monitoring data is supposed to be retrieved
      * @param unit                A string specifying the unit of the value log values
+     * @param from                The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to                  The exclusive end of the time range in epoch milliseconds (optional)
+     * @param cursor              The continuation token of the previous page (optional)
      * @param pageable            Pageable parameters that specify the value logs to retrieve
      * @return A pageable list of value logs
      */
     @GetMapping("/monitoring/{deviceId}/valueLogs")
     @ApiOperation(value = "Retrieves a list of recorded monitoring value logs in a certain unit which fit onto a given page", produces = "application/hal+json")
-    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them")})
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them")})
     public ResponseEntity<Page<ValueLog>> getMonitoringValueLogs(@PathVariable(value = "deviceId") @ApiParam(value = "ID of the device to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String deviceId,
                                                                  @RequestParam("adapter") @ApiParam(value = "ID of the monitoring adapter to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String monitoringAdapterId,
                                                                  @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the monitoring value logs", example = "°C", required = false) String unit,
+                                                                 @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                 @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                 @RequestParam(value = "cursor", required = false) @ApiParam(value = "Continuation token of the previous page for keyset pagination", required = false) String cursor,
                                                                  @ApiParam(value = "The page configuration", required = true) Pageable pageable) {
         //Create new monitoring component from parameters
         MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(deviceId, monitoringAdapterId);
@@ -142,7 +187,342 @@ public class RestValueLogController {
         }
 
         //Retrieve value logs
-        return getValueLogs(monitoringComponent, unit, pageable);
+        return getValueLogs(monitoringComponent, unit, from, to, cursor, pageable);
+    }
+
+    /**
+     * Replies with the most recent value logs of a certain actuator, which are preferably answered from memory.
+     *
+     * @param actuatorId The id of the actuator for which the value logs should be retrieved
+     * @param count      The maximum number of value logs to retrieve
+     * @param from       The inclusive start of the time range in epoch milliseconds (optional)
+     * @param unit       A string specifying the unit of the value log values
+     * @return A list of value logs in descending order of time
+     */
+    @GetMapping("/actuators/{id}/valueLogs/recent")
+    @ApiOperation(value = "Retrieves the most recent actuator value logs in a certain unit", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or count"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator")})
+    public ResponseEntity<List<ValueLog>> getRecentActuatorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the actuator to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String actuatorId,
+                                                                     @RequestParam(value = "count", defaultValue = "1") @ApiParam(value = "The maximum number of value logs", example = "10", required = false) int count,
+                                                                     @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                     @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the actuator values", example = "°C", required = false) String unit) {
+        //Get actuator
+        Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
+
+        //Validity check
+        if (actuator == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(actuator, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Retrieve value logs
+        return getRecentValueLogs(actuator, count, from, unit);
+    }
+
+    /**
+     * Replies with the most recent value logs of a certain sensor, which are preferably answered from memory.
+     *
+     * @param sensorId The id of the sensor for which the value logs should be retrieved
+     * @param count    The maximum number of value logs to retrieve
+     * @param from     The inclusive start of the time range in epoch milliseconds (optional)
+     * @param unit     A string specifying the unit of the value log values
+     * @return A list of value logs in descending order of time
+     */
+    @GetMapping("/sensors/{id}/valueLogs/recent")
+    @ApiOperation(value = "Retrieves the most recent sensor value logs in a certain unit", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or count"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor")})
+    public ResponseEntity<List<ValueLog>> getRecentSensorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the sensor to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String sensorId,
+                                                                   @RequestParam(value = "count", defaultValue = "1") @ApiParam(value = "The maximum number of value logs", example = "10", required = false) int count,
+                                                                   @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                   @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the sensor values", example = "°C", required = false) String unit) {
+        //Get sensor object
+        Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
+
+        //Validity check
+        if (sensor == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(sensor, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Retrieve value logs
+        return getRecentValueLogs(sensor, count, from, unit);
+    }
+
+    /**
+     * Replies with the most recent value logs of a certain monitoring component, which are preferably answered
+     * from memory.
+     *
+     * @param deviceId            The id of the device for which monitoring data is supposed to be retrieved
+     * @param monitoringAdapterId The id of the monitoring adapter for which monitoring data is supposed to be retrieved
+     * @param count               The maximum number of value logs to retrieve
+     * @param from                The inclusive start of the time range in epoch milliseconds (optional)
+     * @param unit                A string specifying the unit of the value log values
+     * @return A list of value logs in descending order of time
+     */
+    @GetMapping("/monitoring/{deviceId}/valueLogs/recent")
+    @ApiOperation(value = "Retrieves the most recent monitoring value logs in a certain unit", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or count"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them")})
+    public ResponseEntity<List<ValueLog>> getRecentMonitoringValueLogs(@PathVariable(value = "deviceId") @ApiParam(value = "ID of the device to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String deviceId,
+                                                                       @RequestParam("adapter") @ApiParam(value = "ID of the monitoring adapter to retrieve value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String monitoringAdapterId,
+                                                                       @RequestParam(value = "count", defaultValue = "1") @ApiParam(value = "The maximum number of value logs", example = "10", required = false) int count,
+                                                                       @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                       @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the monitoring value logs", example = "°C", required = false) String unit) {
+        //Create new monitoring component from parameters
+        MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(deviceId, monitoringAdapterId);
+
+        //Validity check
+        if (monitoringComponent == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(monitoringComponent.getDevice(), "monitor")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Retrieve value logs
+        return getRecentValueLogs(monitoringComponent, count, from, unit);
+    }
+
+    /**
+     * Replies with the time intervals in which the values of a certain actuator satisfied a given predicate.
+     *
+     * @param actuatorId The id of the actuator whose value logs should be searched
+     * @param operator   The comparison operator
+     * @param lower      The lower bound of the values (optional, depending on the operator)
+     * @param upper      The upper bound of the values (optional, depending on the operator)
+     * @param from       The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to         The exclusive end of the time range in epoch milliseconds (optional)
+     * @param limit      The maximum number of intervals to return
+     * @param unit       A string specifying the unit of the bounds and the resulting values
+     * @return The search result holding the intervals in chronological order
+     */
+    @GetMapping("/actuators/{id}/valueLogs/intervals")
+    @ApiOperation(value = "Searches for time intervals in which the actuator values satisfied a predicate", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid predicate, unit, limit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator")})
+    public ResponseEntity<ValueLogIntervalSearchResult> findActuatorValueLogIntervals(@PathVariable(value = "id") @ApiParam(value = "ID of the actuator to search value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String actuatorId,
+                                                                                      @RequestParam(value = "operator") @ApiParam(value = "The comparison operator", example = "GREATER_THAN", required = true) ValueLogPredicate.Operator operator,
+                                                                                      @RequestParam(value = "lower", required = false) @ApiParam(value = "Lower bound of the values (for GREATER_THAN and BETWEEN)", example = "80", required = false) Double lower,
+                                                                                      @RequestParam(value = "upper", required = false) @ApiParam(value = "Upper bound of the values (for LESS_THAN and BETWEEN)", example = "90", required = false) Double upper,
+                                                                                      @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                                      @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1573227600000", required = false) Long to,
+                                                                                      @RequestParam(value = "limit", defaultValue = "100") @ApiParam(value = "The maximum number of intervals", example = "100", required = false) int limit,
+                                                                                      @RequestParam(value = "unit", required = false) @ApiParam(value = "The unit of the bounds and the resulting values", example = "°C", required = false) String unit) {
+        //Get actuator
+        Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
+
+        //Validity check
+        if (actuator == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(actuator, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Search value logs
+        return findValueLogIntervals(actuator, operator, lower, upper, from, to, limit, unit);
+    }
+
+    /**
+     * Replies with the time intervals in which the values of a certain sensor satisfied a given predicate.
+     *
+     * @param sensorId The id of the sensor whose value logs should be searched
+     * @param operator The comparison operator
+     * @param lower    The lower bound of the values (optional, depending on the operator)
+     * @param upper    The upper bound of the values (optional, depending on the operator)
+     * @param from     The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to       The exclusive end of the time range in epoch milliseconds (optional)
+     * @param limit    The maximum number of intervals to return
+     * @param unit     A string specifying the unit of the bounds and the resulting values
+     * @return The search result holding the intervals in chronological order
+     */
+    @GetMapping("/sensors/{id}/valueLogs/intervals")
+    @ApiOperation(value = "Searches for time intervals in which the sensor values satisfied a predicate", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid predicate, unit, limit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor")})
+    public ResponseEntity<ValueLogIntervalSearchResult> findSensorValueLogIntervals(@PathVariable(value = "id") @ApiParam(value = "ID of the sensor to search value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String sensorId,
+                                                                                    @RequestParam(value = "operator") @ApiParam(value = "The comparison operator", example = "GREATER_THAN", required = true) ValueLogPredicate.Operator operator,
+                                                                                    @RequestParam(value = "lower", required = false) @ApiParam(value = "Lower bound of the values (for GREATER_THAN and BETWEEN)", example = "80", required = false) Double lower,
+                                                                                    @RequestParam(value = "upper", required = false) @ApiParam(value = "Upper bound of the values (for LESS_THAN and BETWEEN)", example = "90", required = false) Double upper,
+                                                                                    @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                                    @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1573227600000", required = false) Long to,
+                                                                                    @RequestParam(value = "limit", defaultValue = "100") @ApiParam(value = "The maximum number of intervals", example = "100", required = false) int limit,
+                                                                                    @RequestParam(value = "unit", required = false) @ApiParam(value = "The unit of the bounds and the resulting values", example = "°C", required = false) String unit) {
+        //Get sensor object
+        Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
+
+        //Validity check
+        if (sensor == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(sensor, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Search value logs
+        return findValueLogIntervals(sensor, operator, lower, upper, from, to, limit, unit);
+    }
+
+    /**
+     * Replies with the time intervals in which the values of a certain monitoring component satisfied a given
+     * predicate.
+     *
+     * @param deviceId            The id of the device for which monitoring data is supposed to be searched
+     * @param monitoringAdapterId The id of the monitoring adapter for which monitoring data is supposed to be searched
+     * @param operator            The comparison operator
+     * @param lower               The lower bound of the values (optional, depending on the operator)
+     * @param upper               The upper bound of the values (optional, depending on the operator)
+     * @param from                The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to                  The exclusive end of the time range in epoch milliseconds (optional)
+     * @param limit               The maximum number of intervals to return
+     * @param unit                A string specifying the unit of the bounds and the resulting values
+     * @return The search result holding the intervals in chronological order
+     */
+    @GetMapping("/monitoring/{deviceId}/valueLogs/intervals")
+    @ApiOperation(value = "Searches for time intervals in which the monitoring values satisfied a predicate", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid predicate, unit, limit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them")})
+    public ResponseEntity<ValueLogIntervalSearchResult> findMonitoringValueLogIntervals(@PathVariable(value = "deviceId") @ApiParam(value = "ID of the device to search value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String deviceId,
+                                                                                        @RequestParam("adapter") @ApiParam(value = "ID of the monitoring adapter to search value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String monitoringAdapterId,
+                                                                                        @RequestParam(value = "operator") @ApiParam(value = "The comparison operator", example = "GREATER_THAN", required = true) ValueLogPredicate.Operator operator,
+                                                                                        @RequestParam(value = "lower", required = false) @ApiParam(value = "Lower bound of the values (for GREATER_THAN and BETWEEN)", example = "80", required = false) Double lower,
+                                                                                        @RequestParam(value = "upper", required = false) @ApiParam(value = "Upper bound of the values (for LESS_THAN and BETWEEN)", example = "90", required = false) Double upper,
+                                                                                        @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                                        @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1573227600000", required = false) Long to,
+                                                                                        @RequestParam(value = "limit", defaultValue = "100") @ApiParam(value = "The maximum number of intervals", example = "100", required = false) int limit,
+                                                                                        @RequestParam(value = "unit", required = false) @ApiParam(value = "The unit of the bounds and the resulting values", example = "°C", required = false) String unit) {
+        //Create new monitoring component from parameters
+        MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(deviceId, monitoringAdapterId);
+
+        //Validity check
+        if (monitoringComponent == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(monitoringComponent.getDevice(), "monitor")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Search value logs
+        return findValueLogIntervals(monitoringComponent, operator, lower, upper, from, to, limit, unit);
+    }
+
+    /**
+     * Replies with the pre-aggregated rollups of the value logs of a certain actuator.
+     *
+     * @param actuatorId The id of the actuator for which the rollups should be retrieved
+     * @param interval   The rollup interval
+     * @param from       The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to         The exclusive end of the time range in epoch milliseconds (optional)
+     * @param unit       A string specifying the unit of the rollup values
+     * @return A list of rollups
+     */
+    @GetMapping("/actuators/{id}/valueLogs/rollups")
+    @ApiOperation(value = "Retrieves pre-aggregated rollups of recorded actuator value logs in a certain unit", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator")})
+    public ResponseEntity<List<ValueLogRollup>> getActuatorValueLogRollups(@PathVariable(value = "id") @ApiParam(value = "ID of the actuator to retrieve rollups for", example = "5c97dc2583aeb6078c5ab672", required = true) String actuatorId,
+                                                                         @RequestParam(value = "interval", defaultValue = "HOUR") @ApiParam(value = "The rollup interval", example = "HOUR", required = false) ValueLogRollupInterval interval,
+                                                                         @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                         @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                         @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the actuator values", example = "°C", required = false) String unit) {
+        //Get actuator
+        Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
+
+        //Validity check
+        if (actuator == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(actuator, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Retrieve rollups
+        return getValueLogRollups(actuator, interval, from, to, unit);
+    }
+
+    /**
+     * Replies with the pre-aggregated rollups of the value logs of a certain sensor.
+     *
+     * @param sensorId The id of the sensor for which the rollups should be retrieved
+     * @param interval The rollup interval
+     * @param from     The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to       The exclusive end of the time range in epoch milliseconds (optional)
+     * @param unit     A string specifying the unit of the rollup values
+     * @return A list of rollups
+     */
+    @GetMapping("/sensors/{id}/valueLogs/rollups")
+    @ApiOperation(value = "Retrieves pre-aggregated rollups of recorded sensor value logs in a certain unit", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor")})
+    public ResponseEntity<List<ValueLogRollup>> getSensorValueLogRollups(@PathVariable(value = "id") @ApiParam(value = "ID of the sensor to retrieve rollups for", example = "5c97dc2583aeb6078c5ab672", required = true) String sensorId,
+                                                                       @RequestParam(value = "interval", defaultValue = "HOUR") @ApiParam(value = "The rollup interval", example = "HOUR", required = false) ValueLogRollupInterval interval,
+                                                                       @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                       @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                       @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the sensor values", example = "°C", required = false) String unit) {
+        //Get sensor object
+        Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
+
+        //Validity check
+        if (sensor == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(sensor, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Retrieve rollups
+        return getValueLogRollups(sensor, interval, from, to, unit);
+    }
+
+    /**
+     * Replies with the pre-aggregated rollups of the value logs of a certain monitoring component.
+     *
+     * @param deviceId            The id of the device for which the rollups should be retrieved
+     * @param monitoringAdapterId The id of the monitoring adapter for which the rollups should be retrieved
+     * @param interval            The rollup interval
+     * @param from                The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to                  The exclusive end of the time range in epoch milliseconds (optional)
+     * @param unit                A string specifying the unit of the rollup values
+     * @return A list of rollups
+     */
+    @GetMapping("/monitoring/{deviceId}/valueLogs/rollups")
+    @ApiOperation(value = "Retrieves pre-aggregated rollups of recorded monitoring value logs in a certain unit", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them")})
+    public ResponseEntity<List<ValueLogRollup>> getMonitoringValueLogRollups(@PathVariable(value = "deviceId") @ApiParam(value = "ID of the device to retrieve rollups for", example = "5c97dc2583aeb6078c5ab672", required = true) String deviceId,
+                                                                           @RequestParam("adapter") @ApiParam(value = "ID of the monitoring adapter to retrieve rollups for", example = "5c97dc2583aeb6078c5ab672", required = true) String monitoringAdapterId,
+                                                                           @RequestParam(value = "interval", defaultValue = "HOUR") @ApiParam(value = "The rollup interval", example = "HOUR", required = false) ValueLogRollupInterval interval,
+                                                                           @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                           @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                           @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the monitoring values", example = "°C", required = false) String unit) {
+        //Create new monitoring component from parameters
+        MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(deviceId, monitoringAdapterId);
+
+        //Validity check
+        if (monitoringComponent == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(monitoringComponent.getDevice(), "monitor")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Retrieve rollups
+        return getValueLogRollups(monitoringComponent, interval, from, to, unit);
     }
 
     /**
@@ -227,44 +607,210 @@ public class RestValueLogController {
     }
 
     /**
-     * Returns a response entity that contains a pageable list of value logs of a certain component.
+     * Returns a response entity that contains a pageable list of value logs of a certain component. The first page
+     * and all pages that are requested with a continuation token are retrieved by keyset pagination; the token for
+     * the next page is then passed in the X-Next-Cursor header. The X-Total-Count header is only set for the first
+     * of these pages. Other pages are retrieved by offset.
      *
      * @param component The component for which the value logs should be retrieved
      * @param unit      A string specifying the unit of the value log values
+     * @param from      The inclusive start of the time range in epoch milliseconds or null, if unbounded
+     * @param to        The exclusive end of the time range in epoch milliseconds or null, if unbounded
+     * @param cursor    The continuation token of the previous page or null, if not available
      * @param pageable  Pageable parameters that specify the value logs to retrieve
      * @return A pageable list of value logs
      */
-    private ResponseEntity<Page<ValueLog>> getValueLogs(Component component, String unit, Pageable pageable) {
-        //Get value logs for this component
-        Page<ValueLog> page = valueLogRepository.findAllByIdRef(component.getId(), pageable);
+    private ResponseEntity<Page<ValueLog>> getValueLogs(Component component, String unit, Long from, Long to, String cursor, Pageable pageable) {
+        //Validate time range
+        if ((from != null) && (to != null) && (from > to)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Instant fromInstant = (from == null) ? null : Instant.ofEpochMilli(from);
+        Instant toInstant = (to == null) ? null : Instant.ofEpochMilli(to);
+
+        //Try to get unit object from string and the corresponding unit converter, if a unit was provided
+        UnitConverter converter = null;
+        if ((unit != null) && !unit.isEmpty()) {
+            try {
+                Unit targetUnit = unitConverterService.parseUnit(unit);
+                Unit startUnit = unitConverterService.parseUnit(component.getAdapter().getUnit());
+                converter = unitConverterService.getConverter(startUnit, targetUnit);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+        UnitConverter pageConverter = converter;
+        String cacheUnit = (converter == null) ? null : unit;
+
+        //Get value logs for this component within the time range, either from the cache or from the repository
+        Page<ValueLog> page;
+        HttpHeaders headers = new HttpHeaders();
+        if (((cursor != null) && !cursor.isEmpty()) || (pageable.getOffset() == 0)) {
+            //Determine sort direction, which defaults to descending order of time
+            Sort.Order timeOrder = (pageable.getSort() == null) ? null : pageable.getSort().getOrderFor("time");
+            boolean ascending = (timeOrder != null) && timeOrder.isAscending();
+            int size = Math.max(pageable.getPageSize(), 1);
+
+            //Retrieve page by keyset pagination
+            ValueLogCursorPage cursorPage;
+            try {
+                cursorPage = valueLogQueryCache.get("cursorPage", component.getId(), fromInstant, toInstant, cacheUnit,
+                        Arrays.asList(cursor, size, ascending), () -> {
+                            ValueLogCursorPage result = valueLogRepository.findAllByIdRef(component.getId(), fromInstant, toInstant, cursor, size, ascending);
+                            convertValueLogs(result.getContent(), pageConverter);
+                            return result;
+                        });
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            //Total is only known for the first page, otherwise report the value logs known to exist
+            long total = cursorPage.isTotalKnown() ? cursorPage.getTotalElements()
+                    : pageable.getOffset() + cursorPage.getContent().size() + ((cursorPage.getNextCursor() == null) ? 0 : 1);
+            page = new PageImpl<>(cursorPage.getContent(), pageable, total);
+            headers = PaginationUtil.generateCursorHttpHeaders(cursorPage.getNextCursor(), cursorPage.getTotalElements());
+        } else {
+            page = valueLogQueryCache.get("page", component.getId(), fromInstant, toInstant, cacheUnit,
+                    Arrays.asList(pageable.getPageNumber(), pageable.getPageSize(), String.valueOf(pageable.getSort())), () -> {
+                        Page<ValueLog> result = valueLogRepository.findAllByIdRef(component.getId(), fromInstant, toInstant, pageable);
+                        convertValueLogs(result.getContent(), pageConverter);
+                        return result;
+                    });
+        }
 
-        //Check if a valid unit was provided, otherwise return the result already
-        if ((unit == null) || unit.isEmpty()) {
-            return new ResponseEntity<>(page, HttpStatus.OK);
+        return new ResponseEntity<>(page, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Converts the values of a list of value logs into a different unit.
+     *
+     * @param valueLogs The value logs to convert
+     * @param converter The unit converter to use or null, if no conversion is desired
+     */
+    private void convertValueLogs(List<ValueLog> valueLogs, UnitConverter converter) {
+        if (converter == null) {
+            return;
+        }
+        for (ValueLog valueLog : valueLogs) {
+            unitConverterService.convertValueLogValue(valueLog, converter);
         }
+    }
 
-        //Try to get unit object from string
-        Unit targetUnit;
+    /**
+     * Returns a response entity that contains the most recent value logs of a certain component. As long as the
+     * requested value logs are held by the in-memory buffer of recent values, the repository is not accessed.
+     *
+     * @param component The component for which the value logs should be retrieved
+     * @param count     The maximum number of value logs to retrieve
+     * @param from      The inclusive start of the time range in epoch milliseconds or null, if unbounded
+     * @param unit      A string specifying the unit of the value log values
+     * @return A list of value logs in descending order of time
+     */
+    private ResponseEntity<List<ValueLog>> getRecentValueLogs(Component component, int count, Long from, String unit) {
+        //Validate count
+        if (count < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        //Try to get unit converter before retrieving any value logs
+        UnitConverter converter = null;
+        if ((unit != null) && !unit.isEmpty()) {
+            try {
+                Unit targetUnit = unitConverterService.parseUnit(unit);
+                Unit startUnit = unitConverterService.parseUnit(component.getAdapter().getUnit());
+                converter = unitConverterService.getConverter(startUnit, targetUnit);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        //Get recent value logs of this component
+        List<ValueLog> valueLogs = recentValueLogBuffer.findRecentByIdRef(component.getId(),
+                (from == null) ? null : Instant.ofEpochMilli(from), count);
+
+        //Convert values if desired
+        convertValueLogs(valueLogs, converter);
+
+        return new ResponseEntity<>(valueLogs, HttpStatus.OK);
+    }
+
+    /**
+     * Returns a response entity that contains the time intervals in which the values of a certain component
+     * satisfied a given predicate.
+     *
+     * @param component The component whose value logs should be searched
+     * @param operator  The comparison operator
+     * @param lower     The lower bound of the values or null, if not required by the operator
+     * @param upper     The upper bound of the values or null, if not required by the operator
+     * @param from      The inclusive start of the time range in epoch milliseconds or null, if unbounded
+     * @param to        The exclusive end of the time range in epoch milliseconds or null, if unbounded
+     * @param limit     The maximum number of intervals to return
+     * @param unit      A string specifying the unit of the bounds and the resulting values
+     * @return The search result holding the intervals in chronological order
+     */
+    private ResponseEntity<ValueLogIntervalSearchResult> findValueLogIntervals(Component component, ValueLogPredicate.Operator operator,
+                                                                               Double lower, Double upper, Long from, Long to,
+                                                                               int limit, String unit) {
         try {
-            targetUnit = Unit.valueOf(unit);
-        } catch (Exception e) {
+            //Create predicate and resolve unit
+            ValueLogPredicate predicate = ValueLogPredicate.of(operator, lower, upper);
+            Unit targetUnit = ((unit == null) || unit.isEmpty()) ? null : unitConverterService.parseUnit(unit);
+
+            //Search value logs
+            ValueLogIntervalSearchResult result = valueLogIntervalSearchService.findIntervals(component,
+                    (from == null) ? null : Instant.ofEpochMilli(from), (to == null) ? null : Instant.ofEpochMilli(to),
+                    predicate, limit, targetUnit);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Returns a response entity that contains the rollups of a certain component for a given interval and
+     * time range. Unit conversion is only supported for units that can be converted by affine converters.
+     *
+     * @param component The component for which the rollups should be retrieved
+     * @param interval  The rollup interval
+     * @param from      The inclusive start of the time range in epoch milliseconds or null, if unbounded
+     * @param to        The exclusive end of the time range in epoch milliseconds or null, if unbounded
+     * @param unit      A string specifying the unit of the rollup values
+     * @return A list of rollups
+     */
+    private ResponseEntity<List<ValueLogRollup>> getValueLogRollups(Component component, ValueLogRollupInterval interval,
+                                                                    Long from, Long to, String unit) {
+        //Validate time range
+        if ((from != null) && (to != null) && (from > to)) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        //Get unit object from adapter
-        Unit startUnit = component.getAdapter().getUnitObject();
+        //Get rollups for this component
+        List<ValueLogRollup> rollups = valueLogRollupRepository.findByIdRef(component.getId(), interval,
+                (from == null) ? null : Instant.ofEpochMilli(from), (to == null) ? null : Instant.ofEpochMilli(to));
+
+        //Check if a valid unit was provided, otherwise return the result already
+        if ((unit == null) || unit.isEmpty()) {
+            return new ResponseEntity<>(rollups, HttpStatus.OK);
+        }
 
-        //Get corresponding unit converter
-        UnitConverter converter = startUnit.getConverterTo(targetUnit);
+        //Try to get unit object from string and the corresponding unit converter, which needs to be affine for rollups
+        UnitConverter converter;
+        try {
+            Unit targetUnit = unitConverterService.parseUnit(unit);
+            Unit startUnit = unitConverterService.parseUnit(component.getAdapter().getUnit());
+            converter = unitConverterService.getConverter(startUnit, targetUnit);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!unitConverterService.isAffine(converter)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
 
-        //Iterate over all value logs of this
-        for (ValueLog valueLog : page) {
-            //Convert value
-            unitConverterService.convertValueLogValue(valueLog, converter);
+        //Convert all rollups
+        for (ValueLogRollup rollup : rollups) {
+            unitConverterService.convertRollup(rollup, converter);
         }
 
-        //All values converted, now return
-        return new ResponseEntity<>(page, HttpStatus.OK);
+        return new ResponseEntity<>(rollups, HttpStatus.OK);
     }
 
     /**
@@ -275,6 +821,9 @@ public class RestValueLogController {
      */
     private ResponseEntity deleteValueLogs(Component component) {
         valueLogRepository.deleteByIdRef(component.getId());
+        valueLogRollupRepository.deleteByIdRef(component.getId());
+        recentValueLogBuffer.clear(component.getId());
+        valueLogQueryCache.onValueLogsChanged(component.getId());
 
         //Return success response
         return new ResponseEntity(HttpStatus.OK);
@@ -0,0 +1,198 @@
+package org.citopt.connde.web.rest;
+
+import io.swagger.annotations.*;
+import org.citopt.connde.RestConfiguration;
+import org.citopt.connde.domain.component.Actuator;
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.component.Sensor;
+import org.citopt.connde.domain.monitoring.MonitoringComponent;
+import org.citopt.connde.repository.ActuatorRepository;
+import org.citopt.connde.repository.SensorRepository;
+import org.citopt.connde.service.UnitConverterService;
+import org.citopt.connde.service.UserEntityService;
+import org.citopt.connde.service.export.ValueLogExportFormat;
+import org.citopt.connde.service.export.ValueLogExportService;
+import org.citopt.connde.web.rest.helper.MonitoringHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.measure.converter.UnitConverter;
+import javax.measure.unit.Unit;
+import java.time.Instant;
+
+/**
+ * REST Controller for exporting the recorded value logs of certain components as files. The value logs are streamed
+ * from the database to the response, so that exports of arbitrary size can be created.
+ */
+@RestController
+@RequestMapping(RestConfiguration.BASE_PATH)
+@Api(tags = {"Value log export"}, description = "Export of recorded value logs in NDJSON or CSV format")
+public class RestValueLogExportController {
+
+    @Autowired
+    private ActuatorRepository actuatorRepository;
+
+    @Autowired
+    private UnitConverterService unitConverterService;
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private UserEntityService userEntityService;
+
+    @Autowired
+    private ValueLogExportService valueLogExportService;
+
+    @Autowired
+    private MonitoringHelper monitoringHelper;
+
+    /**
+     * Exports the value logs of a certain actuator.
+     *
+     * @param actuatorId The id of the actuator for which the value logs should be exported
+     * @param format     The format of the export
+     * @param from       The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to         The exclusive end of the time range in epoch milliseconds (optional)
+     * @param unit       A string specifying the unit of the value log values
+     * @return The streamed export
+     */
+    @GetMapping("/actuators/{id}/valueLogs/export")
+    @ApiOperation(value = "Exports the recorded actuator value logs in a certain unit as NDJSON or CSV file", produces = "application/x-ndjson,text/csv")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator")})
+    public ResponseEntity<StreamingResponseBody> exportActuatorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the actuator to export value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String actuatorId,
+                                                                         @RequestParam(value = "format", defaultValue = "NDJSON") @ApiParam(value = "The format of the export", example = "CSV", required = false) ValueLogExportFormat format,
+                                                                         @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                         @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                         @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the actuator values", example = "°C", required = false) String unit) {
+        //Get actuator
+        Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
+
+        //Validity check
+        if (actuator == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(actuator, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Export value logs
+        return exportValueLogs(actuator, format, from, to, unit);
+    }
+
+    /**
+     * Exports the value logs of a certain sensor.
+     *
+     * @param sensorId The id of the sensor for which the value logs should be exported
+     * @param format   The format of the export
+     * @param from     The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to       The exclusive end of the time range in epoch milliseconds (optional)
+     * @param unit     A string specifying the unit of the value log values
+     * @return The streamed export
+     */
+    @GetMapping("/sensors/{id}/valueLogs/export")
+    @ApiOperation(value = "Exports the recorded sensor value logs in a certain unit as NDJSON or CSV file", produces = "application/x-ndjson,text/csv")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor")})
+    public ResponseEntity<StreamingResponseBody> exportSensorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the sensor to export value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String sensorId,
+                                                                       @RequestParam(value = "format", defaultValue = "NDJSON") @ApiParam(value = "The format of the export", example = "CSV", required = false) ValueLogExportFormat format,
+                                                                       @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                       @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                       @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the sensor values", example = "°C", required = false) String unit) {
+        //Get sensor object
+        Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
+
+        //Validity check
+        if (sensor == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(sensor, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Export value logs
+        return exportValueLogs(sensor, format, from, to, unit);
+    }
+
+    /**
+     * Exports the value logs of a certain monitoring component.
+     *
+     * @param deviceId            The id of the device for which the value logs should be exported
+     * @param monitoringAdapterId The id of the monitoring adapter for which the value logs should be exported
+     * @param format              The format of the export
+     * @param from                The inclusive start of the time range in epoch milliseconds (optional)
+     * @param to                  The exclusive end of the time range in epoch milliseconds (optional)
+     * @param unit                A string specifying the unit of the value log values
+     * @return The streamed export
+     */
+    @GetMapping("/monitoring/{deviceId}/valueLogs/export")
+    @ApiOperation(value = "Exports the recorded monitoring value logs in a certain unit as NDJSON or CSV file", produces = "application/x-ndjson,text/csv")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid unit or time range"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them")})
+    public ResponseEntity<StreamingResponseBody> exportMonitoringValueLogs(@PathVariable(value = "deviceId") @ApiParam(value = "ID of the device to export value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String deviceId,
+                                                                           @RequestParam("adapter") @ApiParam(value = "ID of the monitoring adapter to export value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String monitoringAdapterId,
+                                                                           @RequestParam(value = "format", defaultValue = "NDJSON") @ApiParam(value = "The format of the export", example = "CSV", required = false) ValueLogExportFormat format,
+                                                                           @RequestParam(value = "from", required = false) @ApiParam(value = "Start of the time range in epoch milliseconds", example = "1570635600000", required = false) Long from,
+                                                                           @RequestParam(value = "to", required = false) @ApiParam(value = "End of the time range in epoch milliseconds", example = "1570639200000", required = false) Long to,
+                                                                           @RequestParam(value = "unit", required = false) @ApiParam(value = "The desired unit of the monitoring values", example = "°C", required = false) String unit) {
+        //Create new monitoring component from parameters
+        MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(deviceId, monitoringAdapterId);
+
+        //Validity check
+        if (monitoringComponent == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(monitoringComponent.getDevice(), "monitor")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Export value logs
+        return exportValueLogs(monitoringComponent, format, from, to, unit);
+    }
+
+    /**
+     * Returns a response entity that streams the value logs of a certain component in a given format. All parameters
+     * are validated before the streaming begins, since the status of the response cannot be changed afterwards.
+     *
+     * @param component The component for which the value logs should be exported
+     * @param format    The format of the export
+     * @param from      The inclusive start of the time range in epoch milliseconds or null, if unbounded
+     * @param to        The exclusive end of the time range in epoch milliseconds or null, if unbounded
+     * @param unit      A string specifying the unit of the value log values
+     * @return The streamed export
+     */
+    private ResponseEntity<StreamingResponseBody> exportValueLogs(Component component, ValueLogExportFormat format, Long from, Long to, String unit) {
+        //Validate time range
+        if ((from != null) && (to != null) && (from > to)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Instant fromInstant = (from == null) ? null : Instant.ofEpochMilli(from);
+        Instant toInstant = (to == null) ? null : Instant.ofEpochMilli(to);
+
+        //Determine unit converter
+        UnitConverter converter;
+        try {
+            converter = valueLogExportService.getConverter(component, ((unit == null) || unit.isEmpty()) ? null : unitConverterService.parseUnit(unit));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        //Set content type and file name
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, format.getContentType() + ";charset=UTF-8");
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + component.getId() + "." + format.getFileExtension() + "\"");
+
+        //Stream value logs
+        StreamingResponseBody body = outputStream ->
+                valueLogExportService.export(component, fromInstant, toInstant, converter, format, outputStream);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,166 @@
+package org.citopt.connde.web.rest;
+
+import io.swagger.annotations.*;
+import org.citopt.connde.RestConfiguration;
+import org.citopt.connde.domain.component.Actuator;
+import org.citopt.connde.domain.component.Component;
+import org.citopt.connde.domain.component.Sensor;
+import org.citopt.connde.domain.monitoring.MonitoringComponent;
+import org.citopt.connde.repository.ActuatorRepository;
+import org.citopt.connde.repository.SensorRepository;
+import org.citopt.connde.service.UserEntityService;
+import org.citopt.connde.service.log_import.ValueLogImportFormat;
+import org.citopt.connde.service.log_import.ValueLogImportService;
+import org.citopt.connde.service.log_import.model.ValueLogImportResult;
+import org.citopt.connde.web.rest.helper.MonitoringHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import springfox.documentation.annotations.ApiIgnore;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * REST Controller for importing historical value logs of certain components in bulk. The records are streamed from
+ * the request body, so that uploads of arbitrary size can be processed.
+ */
+@RestController
+@RequestMapping(RestConfiguration.BASE_PATH)
+@Api(tags = {"Value log import"}, description = "Bulk import of historical value logs in NDJSON or CSV format")
+public class RestValueLogImportController {
+
+    @Autowired
+    private ActuatorRepository actuatorRepository;
+
+    @Autowired
+    private SensorRepository sensorRepository;
+
+    @Autowired
+    private UserEntityService userEntityService;
+
+    @Autowired
+    private ValueLogImportService valueLogImportService;
+
+    @Autowired
+    private MonitoringHelper monitoringHelper;
+
+    /**
+     * Imports value logs of a certain actuator from the request body.
+     *
+     * @param actuatorId   The id of the actuator for which the value logs should be imported
+     * @param format       The format of the records
+     * @param forwardToCep True, if the imported value logs are supposed to be considered by CEP triggers
+     * @param request      The request whose body contains the records
+     * @return The result of the import
+     */
+    @PostMapping("/actuators/{id}/valueLogs/import")
+    @ApiOperation(value = "Imports historical actuator value logs in bulk from an NDJSON or CSV upload", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this actuator"), @ApiResponse(code = 404, message = "Actuator not found or not authorized to access the actuator"), @ApiResponse(code = 409, message = "Import aborted due to overlapping value logs")})
+    public ResponseEntity<ValueLogImportResult> importActuatorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the actuator to import value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String actuatorId,
+                                                                        @RequestParam(value = "format", defaultValue = "NDJSON") @ApiParam(value = "The format of the records", example = "CSV", required = false) ValueLogImportFormat format,
+                                                                        @RequestParam(value = "cep", defaultValue = "false") @ApiParam(value = "Whether the imported value logs are considered by CEP triggers", example = "false", required = false) boolean forwardToCep,
+                                                                        @ApiIgnore HttpServletRequest request) throws IOException {
+        //Get actuator
+        Actuator actuator = (Actuator) userEntityService.getUserEntityFromRepository(actuatorRepository, actuatorId);
+
+        //Validity check
+        if (actuator == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(actuator, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Import value logs
+        return importValueLogs(actuator, format, forwardToCep, request);
+    }
+
+    /**
+     * Imports value logs of a certain sensor from the request body.
+     *
+     * @param sensorId     The id of the sensor for which the value logs should be imported
+     * @param format       The format of the records
+     * @param forwardToCep True, if the imported value logs are supposed to be considered by CEP triggers
+     * @param request      The request whose body contains the records
+     * @return The result of the import
+     */
+    @PostMapping("/sensors/{id}/valueLogs/import")
+    @ApiOperation(value = "Imports historical sensor value logs in bulk from an NDJSON or CSV upload", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this sensor"), @ApiResponse(code = 404, message = "Sensor not found or not authorized to access the sensor"), @ApiResponse(code = 409, message = "Import aborted due to overlapping value logs")})
+    public ResponseEntity<ValueLogImportResult> importSensorValueLogs(@PathVariable(value = "id") @ApiParam(value = "ID of the sensor to import value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String sensorId,
+                                                                      @RequestParam(value = "format", defaultValue = "NDJSON") @ApiParam(value = "The format of the records", example = "CSV", required = false) ValueLogImportFormat format,
+                                                                      @RequestParam(value = "cep", defaultValue = "false") @ApiParam(value = "Whether the imported value logs are considered by CEP triggers", example = "false", required = false) boolean forwardToCep,
+                                                                      @ApiIgnore HttpServletRequest request) throws IOException {
+        //Get sensor object
+        Sensor sensor = (Sensor) userEntityService.getUserEntityFromRepository(sensorRepository, sensorId);
+
+        //Validity check
+        if (sensor == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(sensor, "deploy")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Import value logs
+        return importValueLogs(sensor, format, forwardToCep, request);
+    }
+
+    /**
+     * Imports value logs of a certain monitoring component from the request body.
+     *
+     * @param deviceId            The id of the device for which the value logs should be imported
+     * @param monitoringAdapterId The id of the monitoring adapter for which the value logs should be imported
+     * @param format              The format of the records
+     * @param forwardToCep        True, if the imported value logs are supposed to be considered by CEP triggers
+     * @param request             The request whose body contains the records
+     * @return The result of the import
+     */
+    @PostMapping("/monitoring/{deviceId}/valueLogs/import")
+    @ApiOperation(value = "Imports historical monitoring value logs in bulk from an NDJSON or CSV upload", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access value logs of this monitoring"), @ApiResponse(code = 404, message = "Device or monitoring adapter not found or not authorized to access them"), @ApiResponse(code = 409, message = "Import aborted due to overlapping value logs")})
+    public ResponseEntity<ValueLogImportResult> importMonitoringValueLogs(@PathVariable(value = "deviceId") @ApiParam(value = "ID of the device to import value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String deviceId,
+                                                                          @RequestParam("adapter") @ApiParam(value = "ID of the monitoring adapter to import value logs for", example = "5c97dc2583aeb6078c5ab672", required = true) String monitoringAdapterId,
+                                                                          @RequestParam(value = "format", defaultValue = "NDJSON") @ApiParam(value = "The format of the records", example = "CSV", required = false) ValueLogImportFormat format,
+                                                                          @RequestParam(value = "cep", defaultValue = "false") @ApiParam(value = "Whether the imported value logs are considered by CEP triggers", example = "false", required = false) boolean forwardToCep,
+                                                                          @ApiIgnore HttpServletRequest request) throws IOException {
+        //Create new monitoring component from parameters
+        MonitoringComponent monitoringComponent = monitoringHelper.createMonitoringComponent(deviceId, monitoringAdapterId);
+
+        //Validity check
+        if (monitoringComponent == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        //Check if user is permitted
+        if (!userEntityService.isUserPermitted(monitoringComponent.getDevice(), "monitor")) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        //Import value logs
+        return importValueLogs(monitoringComponent, format, forwardToCep, request);
+    }
+
+    /**
+     * Imports the value logs of a certain component from the body of a request and returns a response entity
+     * containing the result of the import.
+     *
+     * @param component    The component for which the value logs should be imported
+     * @param format       The format of the records
+     * @param forwardToCep True, if the imported value logs are supposed to be considered by CEP triggers
+     * @param request      The request whose body contains the records
+     * @return The result of the import
+     * @throws IOException In case the request body could not be read
+     */
+    private ResponseEntity<ValueLogImportResult> importValueLogs(Component component, ValueLogImportFormat format,
+                                                                 boolean forwardToCep, HttpServletRequest request) throws IOException {
+        ValueLogImportResult result = valueLogImportService.importValueLogs(component, request.getInputStream(), format, forwardToCep);
+        return new ResponseEntity<>(result, result.isCompleted() ? HttpStatus.OK : HttpStatus.CONFLICT);
+    }
+}
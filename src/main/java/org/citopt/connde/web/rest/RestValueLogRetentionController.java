@@ -0,0 +1,115 @@
+package org.citopt.connde.web.rest;
+
+import io.swagger.annotations.*;
+import org.citopt.connde.RestConfiguration;
+import org.citopt.connde.constants.Constants;
+import org.citopt.connde.domain.valueLog.ValueLogRetentionPolicy;
+import org.citopt.connde.repository.ValueLogRetentionPolicyRepository;
+import org.citopt.connde.service.log_writer.ValueLogRetentionService;
+import org.citopt.connde.web.rest.response.ActionResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for the administration of the retention policies of value logs.
+ */
+@RestController
+@RequestMapping(RestConfiguration.BASE_PATH)
+@Api(tags = {"Value log retention"}, description = "Administration of the retention policies of value logs")
+public class RestValueLogRetentionController {
+
+    @Autowired
+    private ValueLogRetentionPolicyRepository retentionPolicyRepository;
+
+    @Autowired
+    private ValueLogRetentionService retentionService;
+
+    /**
+     * Returns all retention policies of components and adapters.
+     *
+     * @return The list of retention policies
+     */
+    @GetMapping("/valueLogs/retention/policies")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Retrieves all retention policies of components and adapters", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access the retention policies")})
+    public ResponseEntity<List<ValueLogRetentionPolicy>> getPolicies() {
+        return new ResponseEntity<>(retentionPolicyRepository.findAll(), HttpStatus.OK);
+    }
+
+    /**
+     * Returns the retention policy that applies to all components without a dedicated policy.
+     *
+     * @return The default retention policy
+     */
+    @GetMapping("/valueLogs/retention/policies/default")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Retrieves the default retention policy that applies to all components without a dedicated policy", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to access the retention policies")})
+    public ResponseEntity<ValueLogRetentionPolicy> getDefaultPolicy() {
+        return new ResponseEntity<>(retentionService.getDefaultPolicy(), HttpStatus.OK);
+    }
+
+    /**
+     * Creates or replaces the retention policy of a certain component or adapter.
+     *
+     * @param policy The retention policy to save
+     * @return The saved retention policy
+     */
+    @PostMapping("/valueLogs/retention/policies")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Creates or replaces the retention policy of a component or an adapter", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 400, message = "Invalid retention policy"), @ApiResponse(code = 403, message = "Not authorized to modify the retention policies")})
+    public ResponseEntity<ValueLogRetentionPolicy> savePolicy(@RequestBody @ApiParam(value = "The retention policy to save", required = true) ValueLogRetentionPolicy policy) {
+        //Validity check: exactly one of component and adapter must be given
+        if ((policy == null) || ((policy.getComponentId() == null) == (policy.getAdapterId() == null))
+                || (policy.getRawRetentionDays() < 0) || (policy.getRollupRetentionDays() < 0)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        //Replace existing policy of the same component or adapter
+        ValueLogRetentionPolicy existingPolicy = (policy.getComponentId() != null)
+                ? retentionPolicyRepository.findByComponentId(policy.getComponentId())
+                : retentionPolicyRepository.findByAdapterId(policy.getAdapterId());
+        policy.setId((existingPolicy == null) ? null : existingPolicy.getId());
+
+        return new ResponseEntity<>(retentionPolicyRepository.save(policy), HttpStatus.OK);
+    }
+
+    /**
+     * Deletes a certain retention policy.
+     *
+     * @param policyId The id of the retention policy to delete
+     * @return An empty response
+     */
+    @DeleteMapping("/valueLogs/retention/policies/{id}")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Deletes a retention policy", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 204, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to modify the retention policies"), @ApiResponse(code = 404, message = "Retention policy not found")})
+    public ResponseEntity<Void> deletePolicy(@PathVariable(value = "id") @ApiParam(value = "ID of the retention policy to delete", example = "5c97dc2583aeb6078c5ab672", required = true) String policyId) {
+        if (!retentionPolicyRepository.exists(policyId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        retentionPolicyRepository.delete(policyId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Enforces the retention policies immediately instead of waiting for the next scheduled run.
+     *
+     * @return An action response containing the number of removed documents
+     */
+    @PostMapping("/valueLogs/retention/run")
+    @Secured({Constants.ADMIN})
+    @ApiOperation(value = "Enforces the retention policies of value logs immediately", produces = "application/hal+json")
+    @ApiResponses({@ApiResponse(code = 200, message = "Success"), @ApiResponse(code = 403, message = "Not authorized to perform this action")})
+    public ResponseEntity<ActionResponse> enforceRetention() {
+        int removed = retentionService.enforceRetention();
+        return new ResponseEntity<>(new ActionResponse(true, removed + " value log documents expired."), HttpStatus.OK);
+    }
+}
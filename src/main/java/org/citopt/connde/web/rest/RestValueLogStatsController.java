@@ -8,6 +8,7 @@ import org.citopt.connde.domain.component.Sensor;
 import org.citopt.connde.domain.monitoring.MonitoringComponent;
 import org.citopt.connde.repository.ActuatorRepository;
 import org.citopt.connde.repository.SensorRepository;
+import org.citopt.connde.service.UnitConverterService;
 import org.citopt.connde.service.UserEntityService;
 import org.citopt.connde.service.stats.ValueLogStatsService;
 import org.citopt.connde.service.stats.model.ValueLogStats;
@@ -30,6 +31,9 @@ public class RestValueLogStatsController {
     @Autowired
     private ActuatorRepository actuatorRepository;
 
+    @Autowired
+    private UnitConverterService unitConverterService;
+
     @Autowired
     private SensorRepository sensorRepository;
 
@@ -144,8 +148,8 @@ public class RestValueLogStatsController {
         if ((unit != null) && (!unit.isEmpty())) {
             //Try to parse unit
             try {
-                convertUnit = Unit.valueOf(unit);
-            } catch (Exception e) {
+                convertUnit = unitConverterService.parseUnit(unit);
+            } catch (IllegalArgumentException e) {
                 return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
         }
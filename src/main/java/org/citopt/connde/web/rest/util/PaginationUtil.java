@@ -39,6 +39,18 @@ public final class PaginationUtil {
         return headers;
     }
 
+    public static HttpHeaders generateCursorHttpHeaders(String nextCursor, long totalCount) {
+        HttpHeaders headers = new HttpHeaders();
+        //Total count is omitted if it is unknown (negative)
+        if (totalCount >= 0) {
+            headers.add("X-Total-Count", "" + totalCount);
+        }
+        if (nextCursor != null) {
+            headers.add("X-Next-Cursor", nextCursor);
+        }
+        return headers;
+    }
+
     private static String generateUri(String baseUrl, int page, int size) throws URISyntaxException {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
@@ -116,28 +116,28 @@ app.directive('valueLogStats', ['$interval', function ($interval) {
             '</tr>' +
             '<tr>' +
             '<th>First value:</th>' +
-            '<td><button uib-popover="{{statisticsData.firstLog.message}}"' +
+            '<td><button uib-popover="{{statisticsData.firstLog.message || statisticsData.firstLog.idref}}"' +
             'popover-title="{{statisticsData.firstLog.date}}" type="button"' +
             'class="btn btn-default">{{statisticsData.firstLog.value}}</button>' +
             '<span>&nbsp;{{(unit)}}</span></td>' +
             '</tr>' +
             '<tr>' +
             '<th>Last value:</th>' +
-            '<td><button uib-popover="{{statisticsData.lastLog.message}}"' +
+            '<td><button uib-popover="{{statisticsData.lastLog.message || statisticsData.lastLog.idref}}"' +
             'popover-title="{{statisticsData.lastLog.date}}" type="button"' +
             'class="btn btn-default">{{statisticsData.lastLog.value}}</button>' +
             '<span>&nbsp;{{(unit)}}</span></td>' +
             '</tr>' +
             '<tr>' +
             '<th>Minimum value:</th>' +
-            '<td><button uib-popover="{{statisticsData.minimumLog.message}}"' +
+            '<td><button uib-popover="{{statisticsData.minimumLog.message || statisticsData.minimumLog.idref}}"' +
             'popover-title="{{statisticsData.minimumLog.date}}" type="button"' +
             'class="btn btn-default">{{statisticsData.minimumLog.value}}</button>' +
             '<span>&nbsp;{{(unit)}}</span></td>' +
             '</tr>' +
             '<tr>' +
             '<th>Maximum value:</th>' +
-            '<td><button uib-popover="{{statisticsData.maximumLog.message}}"' +
+            '<td><button uib-popover="{{statisticsData.maximumLog.message || statisticsData.maximumLog.idref}}"' +
             'popover-title="{{statisticsData.maximumLog.date}}" type="button"' +
             'class="btn btn-default">{{statisticsData.maximumLog.value}}</button>' +
             '<span>&nbsp;{{(unit)}}</span></td>' +
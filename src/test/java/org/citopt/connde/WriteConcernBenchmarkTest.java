@@ -0,0 +1,144 @@
+package org.citopt.connde;
+
+import com.mongodb.MongoClient;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.IMongodConfig;
+import de.flapdoodle.embed.mongo.config.MongoCmdOptionsBuilder;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the write throughput of the value log and the metadata durability tiers against an embedded MongoDB
+ * instance with journaling enabled. Synthetic value log documents are inserted once with the write concern of each
+ * tier as configured in application.properties, using the same connection pool, so that the results only differ
+ * in the write concern. Since the benchmark takes a while, it only runs if the system property "benchmark" is set,
+ * e.g. via "mvn test -Dbenchmark=true -Dtest=WriteConcernBenchmarkTest".
+ */
+public class WriteConcernBenchmarkTest {
+    //Number of documents per tier and documents per insert
+    private static final int DOCUMENTS = 20000;
+    private static final int BATCH_SIZE = 1;
+
+    //Embedded MongoDB instance and client
+    private static MongodExecutable mongodExecutable;
+    private static MongodProcess mongodProcess;
+    private static MongoClient mongoClient;
+
+    //Write concerns of the tiers
+    private static WriteConcern valueLogWriteConcern;
+    private static WriteConcern metadataWriteConcern;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        Assume.assumeTrue("Benchmarks are disabled.", Boolean.getBoolean("benchmark"));
+
+        //Read the write concerns of the tiers
+        Properties properties = new Properties();
+        try (InputStream stream = WriteConcernBenchmarkTest.class.getResourceAsStream("/application.properties")) {
+            properties.load(stream);
+        }
+        valueLogWriteConcern = MongoClientFactory.parseWriteConcern(properties.getProperty("mongo.value-logs.w"),
+                Boolean.parseBoolean(properties.getProperty("mongo.value-logs.journal")),
+                Long.parseLong(properties.getProperty("mongo.value-logs.wtimeout-ms")));
+        metadataWriteConcern = MongoClientFactory.parseWriteConcern(properties.getProperty("mongo.metadata.w"),
+                Boolean.parseBoolean(properties.getProperty("mongo.metadata.journal")),
+                Long.parseLong(properties.getProperty("mongo.metadata.wtimeout-ms")));
+
+        //Start embedded instance, journaling is required for journaled write concerns
+        try {
+            int port = Network.getFreeServerPort();
+            IMongodConfig config = new MongodConfigBuilder()
+                    .version(Version.Main.PRODUCTION)
+                    .net(new Net("localhost", port, Network.localhostIsIPv6()))
+                    .cmdOptions(new MongoCmdOptionsBuilder().useNoJournal(false).build())
+                    .build();
+            mongodExecutable = MongodStarter.getDefaultInstance().prepare(config);
+            mongodProcess = mongodExecutable.start();
+            mongoClient = new MongoClient("localhost", port);
+        } catch (Exception e) {
+            tearDown();
+            Assume.assumeNoException("Embedded MongoDB could not be started.", e);
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.close();
+            mongoClient = null;
+        }
+        if (mongodProcess != null) {
+            mongodProcess.stop();
+            mongodProcess = null;
+        }
+        if (mongodExecutable != null) {
+            mongodExecutable.stop();
+            mongodExecutable = null;
+        }
+    }
+
+    @Test
+    public void compareDurabilityTiers() {
+        MongoCollection<Document> collection = mongoClient.getDatabase(MongoConfiguration.DB_NAME).getCollection("writeConcernBenchmark");
+
+        //Warm up the connection pool
+        measure(collection.withWriteConcern(valueLogWriteConcern), Math.min(DOCUMENTS, 1000));
+        collection.drop();
+
+        long valueLogMillis = measure(collection.withWriteConcern(valueLogWriteConcern), DOCUMENTS);
+        assertEquals(DOCUMENTS, collection.count());
+        collection.drop();
+
+        long metadataMillis = measure(collection.withWriteConcern(metadataWriteConcern), DOCUMENTS);
+        assertEquals(DOCUMENTS, collection.count());
+        collection.drop();
+
+        report("value-logs", valueLogWriteConcern, valueLogMillis);
+        report("metadata", metadataWriteConcern, metadataMillis);
+    }
+
+    /**
+     * Inserts a given number of synthetic value log documents in batches and measures the duration.
+     *
+     * @param collection The collection to insert into, carrying the write concern to measure
+     * @param documents  The number of documents to insert
+     * @return The duration in milliseconds
+     */
+    private long measure(MongoCollection<Document> collection, int documents) {
+        long start = System.nanoTime();
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < documents; i++) {
+            batch.add(new Document("idref", "benchmark").append("time", new Date()).append("value", (double) i));
+            if ((batch.size() >= BATCH_SIZE) || (i == documents - 1)) {
+                collection.insertMany(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private void report(String tier, WriteConcern writeConcern, long millis) {
+        System.out.printf("%-10s %-60s %8d documents %8d ms %10.1f documents/s%n", tier, writeConcern, DOCUMENTS,
+                millis, (millis == 0) ? 0 : DOCUMENTS * 1000.0 / millis);
+    }
+}
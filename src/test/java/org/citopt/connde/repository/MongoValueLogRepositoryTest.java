@@ -0,0 +1,71 @@
+package org.citopt.connde.repository;
+
+import com.mongodb.MongoClient;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.IMongodConfig;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import org.citopt.connde.MongoConfiguration;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the value log repository contract against the MongoDB-based backend, using an embedded MongoDB instance
+ * that is shared by all tests of this class. The database is dropped before each test. The tests are skipped if
+ * the embedded instance cannot be started, e.g. because the MongoDB binaries cannot be downloaded.
+ */
+public class MongoValueLogRepositoryTest extends ValueLogRepositoryContractTest {
+    //Embedded MongoDB instance and client
+    private static MongodExecutable mongodExecutable;
+    private static MongodProcess mongodProcess;
+    private static MongoClient mongoClient;
+
+    @Rule
+    public TemporaryFolder archiveDirectory = new TemporaryFolder();
+
+    @BeforeClass
+    public static void startMongo() {
+        try {
+            int port = Network.getFreeServerPort();
+            IMongodConfig config = new MongodConfigBuilder()
+                    .version(Version.Main.PRODUCTION)
+                    .net(new Net("localhost", port, Network.localhostIsIPv6()))
+                    .build();
+            mongodExecutable = MongodStarter.getDefaultInstance().prepare(config);
+            mongodProcess = mongodExecutable.start();
+            mongoClient = new MongoClient("localhost", port);
+        } catch (Exception e) {
+            stopMongo();
+            Assume.assumeNoException("Embedded MongoDB could not be started.", e);
+        }
+    }
+
+    @AfterClass
+    public static void stopMongo() {
+        if (mongoClient != null) {
+            mongoClient.close();
+            mongoClient = null;
+        }
+        if (mongodProcess != null) {
+            mongodProcess.stop();
+            mongodProcess = null;
+        }
+        if (mongodExecutable != null) {
+            mongodExecutable.stop();
+            mongodExecutable = null;
+        }
+    }
+
+    @Override
+    protected ValueLogRepository createRepository() {
+        mongoClient.getDatabase(MongoConfiguration.DB_NAME).drop();
+        return new MongoValueLogRepository(mongoClient, archiveDirectory.getRoot().getAbsolutePath());
+    }
+}
@@ -0,0 +1,38 @@
+package org.citopt.connde.repository;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the value log repository contract against the segment-based backend, using a temporary directory for the
+ * segment files. Each segment holds a single block, so that expiry can remove the value logs block by block like
+ * the MongoDB-based backend removes documents.
+ */
+public class SegmentValueLogRepositoryTest extends ValueLogRepositoryContractTest {
+    //Number of blocks per segment
+    private static final int BLOCKS_PER_SEGMENT = 1;
+
+    @Rule
+    public TemporaryFolder segmentDirectory = new TemporaryFolder();
+
+    @Override
+    protected ValueLogRepository createRepository() {
+        return new SegmentValueLogRepository(segmentDirectory.getRoot().toPath(), BLOCKS_PER_SEGMENT, false);
+    }
+
+    @Test
+    public void segmentsAreReopened() {
+        repository.writeAll(createValueLogs(IDREF, 0, 200, i -> i));
+
+        //Repository that is created on the same directory needs to find the same value logs
+        ValueLogRepository reopened = createRepository();
+        assertEquals(Collections.singletonList(IDREF), reopened.findAllIdRefs());
+        assertEquals(200, reopened.countByIdRef(IDREF, null, null));
+        assertEquals(repository.findNewestByIdRef(IDREF).getTime(), reopened.findNewestByIdRef(IDREF).getTime());
+    }
+}
@@ -0,0 +1,364 @@
+package org.citopt.connde.repository;
+
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.citopt.connde.domain.valueLog.ValueLogCursorPage;
+import org.citopt.connde.domain.valueLog.ValueLogInterval;
+import org.citopt.connde.domain.valueLog.ValueLogIntervalSearchResult;
+import org.citopt.connde.domain.valueLog.ValueLogPredicate;
+import org.citopt.connde.domain.valueLog.ValueLogRollup;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Contract of the {@link ValueLogRepository} interface that every storage backend needs to fulfill. Subclasses
+ * provide a fresh and empty repository of their backend for each test; all tests only rely on the behaviour that
+ * is documented by the interface, so that the backends remain interchangeable. Raw messages are not verified,
+ * since repositories may return value logs without them.
+ */
+public abstract class ValueLogRepositoryContractTest {
+    //Idrefs and component type of the test components
+    protected static final String IDREF = "5c97dc2583aeb6078c5ab672";
+    private static final String OTHER_IDREF = "5c97dc2583aeb6078c5ab673";
+    private static final String COMPONENT = "SENSOR";
+
+    //Receive time of the first value log
+    private static final Instant START_TIME = Instant.parse("2019-10-09T16:00:00Z");
+
+    //Repository under test
+    protected ValueLogRepository repository;
+
+    /**
+     * Creates an empty repository of the backend under test.
+     *
+     * @return The repository
+     * @throws Exception In case the repository could not be created
+     */
+    protected abstract ValueLogRepository createRepository() throws Exception;
+
+    /**
+     * Releases the resources of a repository that was created by {@link #createRepository()}.
+     *
+     * @param repository The repository to release
+     * @throws Exception In case the resources could not be released
+     */
+    protected void releaseRepository(ValueLogRepository repository) throws Exception {
+
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        repository = createRepository();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (repository != null) {
+            releaseRepository(repository);
+        }
+    }
+
+    @Test
+    public void writtenValueLogsAreReturnedInChronologicalOrder() {
+        //Write batches of two components and a single value log that completes the first one
+        repository.writeAll(createValueLogs(IDREF, 0, 150, i -> i));
+        repository.writeAll(createValueLogs(OTHER_IDREF, 0, 10, i -> -i));
+        repository.write(createValueLog(IDREF, 150, 150));
+
+        List<ValueLog> valueLogs = repository.findAllByIdRef(IDREF);
+        assertValueLogs(valueLogs, 0, 151, true);
+        assertEquals(10, repository.findAllByIdRef(OTHER_IDREF).size());
+        assertTrue(repository.findAllByIdRef("unknown").isEmpty());
+
+        Set<String> idrefs = new HashSet<>(repository.findAllIdRefs());
+        assertTrue(idrefs.contains(IDREF));
+        assertTrue(idrefs.contains(OTHER_IDREF));
+
+        assertEquals(151, repository.countByIdRef(IDREF, null, null));
+        assertEquals(51, repository.countByIdRef(IDREF, timeOf(100), null));
+        assertEquals(20, repository.countByIdRef(IDREF, timeOf(10), timeOf(30)));
+        assertEquals(START_TIME, repository.findEarliestTime());
+    }
+
+    @Test
+    public void extremeValueLogsAreFound() {
+        repository.writeAll(createValueLogs(IDREF, 0, 200, i -> (i == 120) ? -5 : (i == 30) ? 500 : i));
+
+        assertEquals(timeOf(0), repository.findOldestByIdRef(IDREF).getTime());
+        assertEquals(timeOf(199), repository.findNewestByIdRef(IDREF).getTime());
+        assertEquals(timeOf(120), repository.findMinimumByIdRef(IDREF).getTime());
+        assertEquals(-5, repository.findMinimumByIdRef(IDREF).getValue(), 0);
+        assertEquals(timeOf(30), repository.findMaximumByIdRef(IDREF).getTime());
+        assertEquals(500, repository.findMaximumByIdRef(IDREF).getValue(), 0);
+        assertNull(repository.findOldestByIdRef(OTHER_IDREF));
+        assertNull(repository.findNewestByIdRef(OTHER_IDREF));
+    }
+
+    @Test
+    public void deletedComponentsAreRemoved() {
+        repository.writeAll(createValueLogs(IDREF, 0, 100, i -> i));
+        repository.writeAll(createValueLogs(OTHER_IDREF, 0, 100, i -> i));
+
+        repository.deleteByIdRef(IDREF);
+
+        assertTrue(repository.findAllByIdRef(IDREF).isEmpty());
+        assertEquals(0, repository.countByIdRef(IDREF, null, null));
+        assertFalse(repository.findAllIdRefs().contains(IDREF));
+        assertEquals(100, repository.findAllByIdRef(OTHER_IDREF).size());
+    }
+
+    @Test
+    public void pagesAreSortedAndOffset() {
+        repository.writeAll(createValueLogs(IDREF, 0, 200, i -> i));
+
+        Page<ValueLog> ascendingPage = repository.findAllByIdRef(IDREF, new PageRequest(2, 30, Sort.Direction.ASC, "time"));
+        assertValueLogs(ascendingPage.getContent(), 60, 30, true);
+        assertEquals(200, ascendingPage.getTotalElements());
+
+        Page<ValueLog> descendingPage = repository.findAllByIdRef(IDREF, new PageRequest(0, 30, Sort.Direction.DESC, "time"));
+        assertValueLogs(descendingPage.getContent(), 170, 30, false);
+
+        //Last page is incomplete
+        Page<ValueLog> lastPage = repository.findAllByIdRef(IDREF, new PageRequest(6, 30, Sort.Direction.ASC, "time"));
+        assertValueLogs(lastPage.getContent(), 180, 20, true);
+
+        //Time range restricts both the content and the total number of elements
+        Page<ValueLog> rangePage = repository.findAllByIdRef(IDREF, timeOf(50), timeOf(150),
+                new PageRequest(1, 40, Sort.Direction.ASC, "time"));
+        assertValueLogs(rangePage.getContent(), 90, 40, true);
+        assertEquals(100, rangePage.getTotalElements());
+    }
+
+    @Test
+    public void cursorsTraverseAllValueLogsExactlyOnce() {
+        repository.writeAll(createValueLogs(IDREF, 0, 200, i -> i));
+
+        List<ValueLog> ascending = readAllPages(null, null, 30, true);
+        assertValueLogs(ascending, 0, 200, true);
+
+        List<ValueLog> descending = readAllPages(null, null, 30, false);
+        assertValueLogs(descending, 0, 200, false);
+
+        List<ValueLog> range = readAllPages(timeOf(45), timeOf(125), 7, true);
+        assertValueLogs(range, 45, 80, true);
+    }
+
+    @Test
+    public void cursorsAreStableAcrossWrites() {
+        repository.writeAll(createValueLogs(IDREF, 0, 100, i -> i));
+
+        ValueLogCursorPage firstPage = repository.findAllByIdRef(IDREF, null, null, null, 40, true);
+        assertValueLogs(firstPage.getContent(), 0, 40, true);
+        assertEquals(100, firstPage.getTotalElements());
+        assertNotNull(firstPage.getNextCursor());
+
+        //Value logs written after the first page was requested are appended to the traversal
+        repository.writeAll(createValueLogs(IDREF, 100, 20, i -> i));
+
+        List<ValueLog> valueLogs = new ArrayList<>(firstPage.getContent());
+        String cursor = firstPage.getNextCursor();
+        while (cursor != null) {
+            ValueLogCursorPage page = repository.findAllByIdRef(IDREF, null, null, cursor, 40, false);
+            assertFalse(page.isTotalKnown());
+            valueLogs.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        }
+        assertValueLogs(valueLogs, 0, 120, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCursorsAreRejected() {
+        repository.writeAll(createValueLogs(IDREF, 0, 10, i -> i));
+        repository.findAllByIdRef(IDREF, null, null, "invalid", 10, true);
+    }
+
+    @Test
+    public void summariesCoverTheRequestedTimeRange() {
+        repository.writeAll(createValueLogs(IDREF, 0, 200, i -> i));
+
+        ValueLogRollup summary = repository.summarizeByIdRef(IDREF, null, null, null);
+        assertEquals(200, summary.getCount());
+        assertEquals(199 * 200 / 2, summary.getSum(), 1e-6);
+        assertEquals(0, summary.getMin(), 0);
+        assertEquals(199, summary.getMax(), 0);
+        assertEquals(99.5, summary.getAverage(), 1e-9);
+
+        ValueLogRollup rangeSummary = repository.summarizeByIdRef(IDREF, timeOf(50), timeOf(100), null);
+        assertEquals(50, rangeSummary.getCount());
+        assertEquals(50, rangeSummary.getMin(), 0);
+        assertEquals(99, rangeSummary.getMax(), 0);
+        assertEquals(74.5, rangeSummary.getAverage(), 1e-9);
+
+        ValueLogRollup transformedSummary = repository.summarizeByIdRef(IDREF, timeOf(50), timeOf(100), v -> -2 * v);
+        assertEquals(50, transformedSummary.getCount());
+        assertEquals(-198, transformedSummary.getMin(), 0);
+        assertEquals(-100, transformedSummary.getMax(), 0);
+
+        assertEquals(0, repository.summarizeByIdRef(OTHER_IDREF, null, null, null).getCount());
+    }
+
+    @Test
+    public void expiredBucketsAreRemovedOldestFirst() {
+        repository.writeAll(createValueLogs(IDREF, 0, 400, i -> i));
+        Instant before = timeOf(200);
+
+        //Number of removed buckets is limited per call
+        assertEquals(1, repository.expireBuckets(IDREF, before, 1, false));
+        long remaining = repository.countByIdRef(IDREF, null, null);
+        assertTrue(remaining < 400);
+        assertEquals(timeOf(400 - (int) remaining), repository.findOldestByIdRef(IDREF).getTime());
+
+        //Value logs at or after the point in time never expire
+        while (repository.expireBuckets(IDREF, before, 10, false) > 0) {
+            assertEquals(200, repository.countByIdRef(IDREF, before, null));
+        }
+        assertTrue(repository.countByIdRef(IDREF, null, before) < 200);
+        assertEquals(200, repository.countByIdRef(IDREF, before, null));
+        assertEquals(timeOf(399), repository.findNewestByIdRef(IDREF).getTime());
+
+        //Components without value logs have nothing to expire
+        assertEquals(0, repository.expireBuckets(OTHER_IDREF, before, 10, false));
+    }
+
+    @Test
+    public void intervalsOfMatchingValuesAreFound() {
+        //First bucket never matches, the others contain runs of matching values
+        repository.writeAll(createValueLogs(IDREF, 0, 240, i -> {
+            int offset = i % 80;
+            if (i < 80) {
+                return 10;
+            } else if (i < 160) {
+                return ((offset >= 20) && (offset < 60)) ? 150 + offset : 20;
+            }
+            return ((offset < 10) || ((offset >= 40) && (offset < 50))) ? 200 - offset : 30;
+        }));
+        ValueLogPredicate predicate = ValueLogPredicate.of(ValueLogPredicate.Operator.GREATER_THAN, 100.0, null);
+
+        ValueLogIntervalSearchResult result = repository.findIntervalsByIdRef(IDREF, null, null, predicate, 10);
+        assertFalse(result.isTruncated());
+        assertTrue(result.getPrunedBuckets() > 0);
+        List<ValueLogInterval> intervals = result.getIntervals();
+        assertEquals(3, intervals.size());
+        assertInterval(intervals.get(0), 100, 139, 170, 209);
+        assertInterval(intervals.get(1), 160, 169, 191, 200);
+        assertInterval(intervals.get(2), 200, 209, 151, 160);
+
+        //Time range cuts intervals at its boundaries
+        result = repository.findIntervalsByIdRef(IDREF, timeOf(130), timeOf(205), predicate, 10);
+        assertEquals(3, result.getIntervals().size());
+        assertInterval(result.getIntervals().get(0), 130, 139, 200, 209);
+        assertInterval(result.getIntervals().get(2), 200, 204, 156, 160);
+
+        //Search stops after the maximum number of intervals
+        result = repository.findIntervalsByIdRef(IDREF, null, null, predicate, 2);
+        assertTrue(result.isTruncated());
+        assertEquals(2, result.getIntervals().size());
+        assertInterval(result.getIntervals().get(1), 160, 169, 191, 200);
+
+        //Predicate that matches no value at all
+        predicate = ValueLogPredicate.of(ValueLogPredicate.Operator.LESS_THAN, null, 0.0);
+        assertTrue(repository.findIntervalsByIdRef(IDREF, null, null, predicate, 10).getIntervals().isEmpty());
+    }
+
+    /**
+     * Reads all pages of value logs of the test component by following the continuation tokens.
+     *
+     * @param from      The inclusive start of the time range or null, if unbounded
+     * @param to        The exclusive end of the time range or null, if unbounded
+     * @param size      The size of the pages
+     * @param ascending True, if the value logs are to be sorted in ascending order of time; false otherwise
+     * @return The value logs of all pages in the order of the pages
+     */
+    private List<ValueLog> readAllPages(Instant from, Instant to, int size, boolean ascending) {
+        List<ValueLog> valueLogs = new ArrayList<>();
+        String cursor = null;
+        do {
+            ValueLogCursorPage page = repository.findAllByIdRef(IDREF, from, to, cursor, size, ascending);
+            assertTrue(page.getContent().size() <= size);
+            //Total is only determined for the first page
+            long expectedTotal = (cursor == null) ? repository.countByIdRef(IDREF, from, to) : ValueLogCursorPage.UNKNOWN_TOTAL;
+            assertEquals(expectedTotal, page.getTotalElements());
+            valueLogs.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return valueLogs;
+    }
+
+    /**
+     * Asserts that a list of value logs of the test component consists of a consecutive range of the value logs
+     * that were created by {@link #createValueLogs(String, int, int, IntToDoubleFunction)} with identity values.
+     *
+     * @param valueLogs The value logs to check
+     * @param first     The index of the oldest expected value log
+     * @param count     The number of expected value logs
+     * @param ascending True, if the value logs are expected in ascending order of time; false otherwise
+     */
+    private void assertValueLogs(List<ValueLog> valueLogs, int first, int count, boolean ascending) {
+        assertEquals(count, valueLogs.size());
+        for (int i = 0; i < count; i++) {
+            int index = ascending ? first + i : first + count - 1 - i;
+            ValueLog valueLog = valueLogs.get(i);
+            assertEquals(IDREF, valueLog.getIdref());
+            assertEquals(COMPONENT, valueLog.getComponent());
+            assertEquals(timeOf(index), valueLog.getTime());
+            assertEquals(index, valueLog.getValue(), 0);
+        }
+    }
+
+    private void assertInterval(ValueLogInterval interval, int first, int last, double min, double max) {
+        assertEquals(timeOf(first), interval.getStart());
+        assertEquals(timeOf(last), interval.getEnd());
+        assertEquals(last - first + 1, interval.getCount());
+        assertEquals(min, interval.getMin(), 0);
+        assertEquals(max, interval.getMax(), 0);
+    }
+
+    /**
+     * Creates value logs of a component that were received one second apart.
+     *
+     * @param idref  The idref of the component
+     * @param first  The index of the first value log, determining its receive time
+     * @param count  The number of value logs to create
+     * @param values The function that maps the index of each value log to its value
+     * @return The list of value logs in chronological order
+     */
+    protected static List<ValueLog> createValueLogs(String idref, int first, int count, IntToDoubleFunction values) {
+        List<ValueLog> valueLogs = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            valueLogs.add(createValueLog(idref, i, values.applyAsDouble(i)));
+        }
+        return valueLogs;
+    }
+
+    private static ValueLog createValueLog(String idref, int index, double value) {
+        ValueLog valueLog = new ValueLog();
+        valueLog.setTime(timeOf(index));
+        valueLog.setQos(0);
+        valueLog.setTopic(COMPONENT.toLowerCase() + "/" + idref);
+        valueLog.setMessage("{\"component\": \"" + COMPONENT + "\", \"id\": \"" + idref + "\", \"value\": \"" + value + "\"}");
+        valueLog.setIdref(idref);
+        valueLog.setComponent(COMPONENT);
+        valueLog.setValue(value);
+        return valueLog;
+    }
+
+    private static Instant timeOf(int index) {
+        return START_TIME.plusSeconds(index);
+    }
+}
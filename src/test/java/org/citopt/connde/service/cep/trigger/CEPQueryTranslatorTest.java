@@ -0,0 +1,208 @@
+package org.citopt.connde.service.cep.trigger;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EPStatement;
+import com.espertech.esper.client.EventBean;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests the translation of trigger queries on component event types into queries on the shared event type. Besides
+ * the translated query itself, each test verifies that the original query on the component event types and the
+ * translated query on the shared event type produce the same results for the same sequence of values.
+ */
+public class CEPQueryTranslatorTest {
+    //Event type names and ids of the test components
+    private static final String SENSOR_A = "sensor_a";
+    private static final String SENSOR_B = "sensor_b";
+    private static final String ID_A = "5c97dc2583aeb6078c5ab672";
+    private static final String ID_B = "5c97dc2583aeb6078c5ab673";
+
+    //Sequence of (component, value) pairs that is sent to both engines
+    private static final Object[][] VALUES = {{SENSOR_A, 10.0}, {SENSOR_B, 5.0}, {SENSOR_A, 25.0}, {SENSOR_B, 30.0},
+            {SENSOR_A, 21.0}, {SENSOR_B, 3.0}, {SENSOR_A, 2.0}, {SENSOR_B, 40.0}, {SENSOR_A, 50.0}, {SENSOR_A, 50.0},
+            {SENSOR_B, 1.0}, {SENSOR_A, 22.0}, {SENSOR_B, 22.0}};
+
+    //Translator under test
+    private CEPQueryTranslator translator;
+
+    @Before
+    public void setUp() {
+        translator = new CEPQueryTranslator();
+        translator.registerComponent(SENSOR_A, ID_A);
+        translator.registerComponent(SENSOR_B, ID_B);
+    }
+
+    @Test
+    public void plainStreamsAreNamedAfterTheComponentEventType() {
+        assertTranslation("select value from sensor_a",
+                "select value from ValueEvent(componentId = '" + ID_A + "') as sensor_a");
+        assertTranslation("SELECT value FROM sensor_a WHERE value > 20",
+                "SELECT value FROM ValueEvent(componentId = '" + ID_A + "') as sensor_a WHERE value > 20");
+        assertTranslation("select count(*) as c from sensor_a group by value output every 2 events",
+                "select count(*) as c from ValueEvent(componentId = '" + ID_A + "') as sensor_a group by value output every 2 events");
+    }
+
+    @Test
+    public void filtersAreAppendedToTheComponentFilter() {
+        assertTranslation("select value from sensor_a(value > (10 + 10))",
+                "select value from ValueEvent(componentId = '" + ID_A + "', value > (10 + 10)) as sensor_a");
+    }
+
+    @Test
+    public void aliasesArePreserved() {
+        assertTranslation("select s.value as v from sensor_a as s",
+                "select s.value as v from ValueEvent(componentId = '" + ID_A + "') as s");
+        assertTranslation("select s.value as v from sensor_a s where s.value > 20",
+                "select s.value as v from ValueEvent(componentId = '" + ID_A + "') s where s.value > 20");
+    }
+
+    @Test
+    public void viewsStayAttachedToTheStream() {
+        assertTranslation("select avg(value) as a from sensor_a.win:length(3)",
+                "select avg(value) as a from ValueEvent(componentId = '" + ID_A + "').win:length(3) as sensor_a");
+        assertTranslation("select avg(value) as a from sensor_a.win:time(10 sec) as w",
+                "select avg(value) as a from ValueEvent(componentId = '" + ID_A + "').win:time(10 sec) as w");
+        assertTranslation("select avg(value) as a from sensor_a#length(3)",
+                "select avg(value) as a from ValueEvent(componentId = '" + ID_A + "')#length(3) as sensor_a");
+        assertTranslation("select avg(value) as a from sensor_a(value > 5)#length(3)#unique(value)",
+                "select avg(value) as a from ValueEvent(componentId = '" + ID_A + "', value > 5)#length(3)#unique(value) as sensor_a");
+    }
+
+    @Test
+    public void patternTagsAreTranslated() {
+        assertTranslation("select a.value as x, b.value as y from pattern [every a=sensor_a(value > 20) -> b=sensor_b(value < a.value)]",
+                "select a.value as x, b.value as y from pattern [every a=ValueEvent(componentId = '" + ID_A + "', value > 20)"
+                        + " -> b=ValueEvent(componentId = '" + ID_B + "', value < a.value)]");
+        assertTranslation("select a.value as x from pattern [every a=sensor_a]",
+                "select a.value as x from pattern [every a=ValueEvent(componentId = '" + ID_A + "')]");
+    }
+
+    @Test
+    public void joinedStreamsAreTranslated() {
+        assertTranslation("select x.value as a, y.value as b from sensor_a#lastevent as x, sensor_b#lastevent as y where x.value > y.value",
+                "select x.value as a, y.value as b from ValueEvent(componentId = '" + ID_A + "')#lastevent as x, "
+                        + "ValueEvent(componentId = '" + ID_B + "')#lastevent as y where x.value > y.value");
+        assertTranslation("select sensor_a.value as a, sensor_b.value as b from sensor_a#lastevent, sensor_b#lastevent where sensor_a.value > sensor_b.value",
+                "select sensor_a.value as a, sensor_b.value as b from ValueEvent(componentId = '" + ID_A + "')#lastevent as sensor_a, "
+                        + "ValueEvent(componentId = '" + ID_B + "')#lastevent as sensor_b where sensor_a.value > sensor_b.value");
+        assertTranslation("select sensor_a.value as a from sensor_a#lastevent inner join sensor_b#lastevent on sensor_a.value = sensor_b.value",
+                "select sensor_a.value as a from ValueEvent(componentId = '" + ID_A + "')#lastevent as sensor_a inner join "
+                        + "ValueEvent(componentId = '" + ID_B + "')#lastevent as sensor_b on sensor_a.value = sensor_b.value");
+    }
+
+    @Test
+    public void subqueriesAreTranslated() {
+        assertTranslation("select value from sensor_a where value > (select max(value) from sensor_b#length(3))",
+                "select value from ValueEvent(componentId = '" + ID_A + "') as sensor_a where value > "
+                        + "(select max(value) from ValueEvent(componentId = '" + ID_B + "')#length(3) as sensor_b)");
+    }
+
+    @Test
+    public void propertyAccessIsLeftUntouched() {
+        assertTranslation("select sensor_a.value as v from sensor_a where sensor_a.value > 20",
+                "select sensor_a.value as v from ValueEvent(componentId = '" + ID_A + "') as sensor_a where sensor_a.value > 20");
+    }
+
+    @Test
+    public void stringLiteralsAreLeftUntouched() {
+        assertTranslation("select 'sensor_a' as name, value from sensor_a where 'x sensor_b' != \"sensor_b\"",
+                "select 'sensor_a' as name, value from ValueEvent(componentId = '" + ID_A + "') as sensor_a where 'x sensor_b' != \"sensor_b\"");
+        assertTranslation("select 'it\\'s sensor_a' as name from sensor_a",
+                "select 'it\\'s sensor_a' as name from ValueEvent(componentId = '" + ID_A + "') as sensor_a");
+
+        //Quoted component names are not referenced by the query
+        assertEquals(new HashSet<>(java.util.Collections.singletonList(SENSOR_A)),
+                translator.findReferencedEventTypes("select value from sensor_a where 'sensor_b' = \"sensor_b\""));
+    }
+
+    @Test
+    public void unknownEventTypesAreLeftUntouched() {
+        assertEquals("select * from sensor_c where value > 1",
+                translator.translate("select * from sensor_c where value > 1"));
+        assertFalse(translator.findReferencedEventTypes("select * from sensor_c").contains("sensor_c"));
+    }
+
+    /**
+     * Asserts that a query is translated into an expected query and that both queries produce the same results.
+     *
+     * @param query    The original query on the component event types
+     * @param expected The expected query on the shared event type
+     */
+    private void assertTranslation(String query, String expected) {
+        String translated = translator.translate(query);
+        assertEquals(expected, translated);
+        assertEquals(query, run(query, false), run(translated, true));
+    }
+
+    /**
+     * Runs a query on an engine that either knows the component event types or only the shared event type and
+     * sends the test values to it.
+     *
+     * @param query  The query to run
+     * @param shared True, if the shared event type is supposed to be used; false otherwise
+     * @return The results of the query, each as map of the selected properties
+     */
+    private List<Map<String, Object>> run(String query, boolean shared) {
+        Map<String, Object> componentType = new HashMap<>();
+        componentType.put(CEPValueLogEvent.FIELD_VALUE, Double.class);
+        componentType.put(CEPValueLogEvent.FIELD_TIME, Long.class);
+        Map<String, Object> sharedType = new HashMap<>(componentType);
+        sharedType.put(CEPSharedValueLogEvent.FIELD_COMPONENT_ID, String.class);
+        sharedType.put(CEPSharedValueLogEvent.FIELD_TYPE, String.class);
+
+        Configuration configuration = new Configuration();
+        configuration.getEngineDefaults().getThreading().setInternalTimerEnabled(false);
+        if (shared) {
+            configuration.addEventType(CEPSharedValueLogEvent.EVENT_TYPE_NAME, sharedType);
+        } else {
+            configuration.addEventType(SENSOR_A, componentType);
+            configuration.addEventType(SENSOR_B, componentType);
+        }
+
+        EPServiceProvider provider = EPServiceProviderManager.getProvider(UUID.randomUUID().toString(), configuration);
+        try {
+            List<Map<String, Object>> results = new ArrayList<>();
+            EPStatement statement = provider.getEPAdministrator().createEPL(query);
+            statement.addListener((newEvents, oldEvents) -> {
+                for (EventBean event : (newEvents == null) ? new EventBean[0] : newEvents) {
+                    Map<String, Object> result = new TreeMap<>();
+                    for (String property : event.getEventType().getPropertyNames()) {
+                        result.put(property, event.get(property));
+                    }
+                    results.add(result);
+                }
+            });
+
+            for (int i = 0; i < VALUES.length; i++) {
+                String eventTypeName = (String) VALUES[i][0];
+                Map<String, Object> event = new HashMap<>();
+                event.put(CEPValueLogEvent.FIELD_VALUE, VALUES[i][1]);
+                event.put(CEPValueLogEvent.FIELD_TIME, (long) i);
+                if (shared) {
+                    event.put(CEPSharedValueLogEvent.FIELD_COMPONENT_ID, eventTypeName.equals(SENSOR_A) ? ID_A : ID_B);
+                    event.put(CEPSharedValueLogEvent.FIELD_TYPE, "sensor");
+                    provider.getEPRuntime().sendEvent(event, CEPSharedValueLogEvent.EVENT_TYPE_NAME);
+                } else {
+                    provider.getEPRuntime().sendEvent(event, eventTypeName);
+                }
+            }
+            return results;
+        } finally {
+            provider.destroy();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.citopt.connde.service.receiver;
+
+import org.citopt.connde.domain.valueLog.ValueLog;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the allocation-light parser for value messages. Messages the parser does not support need to be reported
+ * as failures without modifying the value log, so that the caller can fall back to the full JSON parser.
+ */
+public class ValueMessageParserTest {
+    //Component id used within the test messages
+    private static final String ID = "5c97dc2583aeb6078c5ab672";
+
+    //Parser under test, re-used across messages like in the arrival handler
+    private ValueMessageParser parser;
+
+    @Before
+    public void setUp() {
+        parser = new ValueMessageParser();
+    }
+
+    @Test
+    public void messagesOfTheAdapterScriptsAreParsed() {
+        ValueLog valueLog = parse("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"value\": \"27.500000\"}");
+        assertEquals("SENSOR", valueLog.getComponent());
+        assertEquals(ID, valueLog.getIdref());
+        assertEquals(27.5, valueLog.getValue(), 0);
+
+        //Message string is only stored by the full JSON parser
+        assertNull(valueLog.getMessage());
+    }
+
+    @Test
+    public void membersAreParsedInAnyOrderAndUnknownScalarsAreSkipped() {
+        ValueLog valueLog = parse("\n{ \"qos\" : 1, \"value\":-3,\"valid\": true,\"unit\":null, \"note\": \"a, b: c}\","
+                + "\"id\":\"" + ID + "\", \"component\":\"custom_type\" }\r\n");
+        assertEquals("custom_type", valueLog.getComponent());
+        assertEquals(ID, valueLog.getIdref());
+        assertEquals(-3, valueLog.getValue(), 0);
+    }
+
+    @Test
+    public void numbersAreParsedLikeTheJDK() {
+        String[] numbers = {"0", "-0.0", "+3", "0.1", "42", "  42 ", "1.5e3", "1.5E+3", "-2.5E-2", "6.02214076e23",
+                "1e-7", "3.14159265358979323846", "123456789012345678", "4.9e-324", "1e400", "0.000000000000000000001"};
+        for (String number : numbers) {
+            double expected = Double.parseDouble(number.trim());
+            assertEquals(number, expected, parseValue("\"" + number + "\""), 0);
+            if (number.trim().equals(number)) {
+                assertEquals(number, expected, parseValue(number), 0);
+            }
+        }
+    }
+
+    @Test
+    public void malformedNumbersAreRejected() {
+        String[] numbers = {"\"\"", "\"abc\"", "\"1e\"", "\"1.5e+\"", "\"--1\"", "\"1.2.3\"", "\".\"", "\"12a\"",
+                "true", "null", "-"};
+        for (String number : numbers) {
+            assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"value\": " + number + "}");
+        }
+    }
+
+    @Test
+    public void escapeSequencesAreLeftToTheFallback() {
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"5c97\\\"dc25\", \"value\": 1}");
+        assertRejected("{\"component\": \"SENS\\u004fR\", \"id\": \"" + ID + "\", \"value\": 1}");
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"value\": 1, \"note\": \"a\\nb\"}");
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"val\\u0075e\": 1}");
+    }
+
+    @Test
+    public void messagesWithMissingFieldsAreRejected() {
+        assertRejected("{\"id\": \"" + ID + "\", \"value\": 1}");
+        assertRejected("{\"component\": \"SENSOR\", \"value\": 1}");
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\"}");
+        assertRejected("{}");
+    }
+
+    @Test
+    public void malformedMessagesAreRejected() {
+        String valid = "{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"value\": 1}";
+        assertRejected("");
+        assertRejected("   ");
+        assertRejected("[" + valid + "]");
+        assertRejected(valid.substring(0, valid.length() - 1));
+        assertRejected(valid + " x");
+        assertRejected(valid + "}");
+        assertRejected("{\"component\" \"SENSOR\", \"id\": \"" + ID + "\", \"value\": 1}");
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"value\": 1,}");
+        assertRejected("{\"component\": \"SENSOR\" \"id\": \"" + ID + "\", \"value\": 1}");
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"value\": 1, \"meta\": {\"a\": 1}}");
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"value\": 1, \"list\": [1, 2]}");
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + ", \"value\": 1}");
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\n\", \"value\": 1}");
+    }
+
+    @Test
+    public void parserRecoversAfterRejectedMessages() {
+        assertRejected("{\"component\": \"SENSOR\", \"id\": \"" + ID);
+        ValueLog valueLog = parse("{\"component\": \"ACTUATOR\", \"id\": \"" + ID + "\", \"value\": 0.25}");
+        assertEquals("ACTUATOR", valueLog.getComponent());
+        assertEquals(0.25, valueLog.getValue(), 0);
+    }
+
+    /**
+     * Parses a message that is expected to be supported by the parser.
+     *
+     * @param message The message to parse
+     * @return The resulting value log
+     */
+    private ValueLog parse(String message) {
+        ValueLog valueLog = new ValueLog();
+        assertTrue(message, parser.parse(message.getBytes(StandardCharsets.UTF_8), valueLog));
+        return valueLog;
+    }
+
+    private double parseValue(String value) {
+        return parse("{\"component\": \"SENSOR\", \"id\": \"" + ID + "\", \"value\": " + value + "}").getValue();
+    }
+
+    /**
+     * Asserts that the parser rejects a message and leaves the value log unmodified.
+     *
+     * @param message The message to parse
+     */
+    private void assertRejected(String message) {
+        ValueLog valueLog = new ValueLog();
+        valueLog.setComponent("previous");
+        valueLog.setIdref("previous");
+        valueLog.setValue(-1);
+
+        assertFalse(message, parser.parse(message.getBytes(StandardCharsets.UTF_8), valueLog));
+        assertEquals("previous", valueLog.getComponent());
+        assertEquals("previous", valueLog.getIdref());
+        assertEquals(-1, valueLog.getValue(), 0);
+    }
+}